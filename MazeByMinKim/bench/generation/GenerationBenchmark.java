@@ -0,0 +1,184 @@
+package generation;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks for the phases of the maze generation.
+ * Each phase is measured on its own: the state for a phase runs all
+ * earlier phases in its setup, so only the phase itself is timed.
+ * <ul>
+ * <li>generateRooms: places rooms in an initialized floorplan</li>
+ * <li>generatePathways: carves pathways with the chosen builder algorithm</li>
+ * <li>computeDistances: distances to the exit and the next hop table</li>
+ * <li>generateWalls: extracts the list of walls from the floorplan</li>
+ * <li>generateBSPNodes: builds the bsp tree, includes generateWalls</li>
+ * </ul>
+ * All benchmarks are parameterized by builder, skill level, perfect flag and seed.
+ * The BSPBuilder is given no progress tracker as there is no user interface to update.
+ *
+ * The benchmarks need jmh-core and jmh-generator-annprocess on the class path,
+ * the annotation processor generates the harness.
+ * The main method runs all of them with the GC profiler such that
+ * allocation rates are reported next to the run times.
+ * Single configurations can be selected with JMH command line options, e.g.
+ * {@code -p builder=Prim -p skill=9 -p perfect=true}.
+ *
+ * @author Min Kim
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+	/**
+	 * Parameters that identify a maze and a builder for them.
+	 * Subclasses prepare the builder up to the phase that is measured.
+	 */
+	@State(Scope.Thread)
+	public abstract static class MazeState {
+		@Param({"DFS", "Prim", "Boruvka"})
+		public String builder;
+
+		@Param({"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15"})
+		public int skill;
+
+		@Param({"false", "true"})
+		public boolean perfect;
+
+		@Param({"13"})
+		public int seed;
+
+		MazeBuilder mazeBuilder;
+
+		/**
+		 * Creates a builder for the current parameters,
+		 * same choice as in MazeFactory, and initializes its floorplan.
+		 */
+		void prepare() {
+			Order.Builder algorithm = Order.Builder.valueOf(builder);
+			switch (algorithm) {
+			case Prim:
+				mazeBuilder = new MazeBuilderPrim();
+				break;
+			case Boruvka:
+				mazeBuilder = new MazeBuilderBoruvka();
+				break;
+			default:
+				mazeBuilder = new MazeBuilder();
+			}
+			mazeBuilder.buildOrder(new DefaultOrder(skill, algorithm, perfect, seed));
+			mazeBuilder.floorplan.initialize();
+		}
+	}
+
+	public static class RoomsState extends MazeState {
+		@Setup(Level.Invocation)
+		public void setUp() {
+			prepare();
+		}
+	}
+
+	public static class PathwaysState extends MazeState {
+		@Setup(Level.Invocation)
+		public void setUp() {
+			prepare();
+			mazeBuilder.generateRooms();
+		}
+	}
+
+	public static class DistancesState extends MazeState {
+		@Setup(Level.Invocation)
+		public void setUp() {
+			prepare();
+			mazeBuilder.generateRooms();
+			mazeBuilder.generatePathways();
+		}
+	}
+
+	public static class WallsState extends MazeState {
+		ListOfWallsBuilder walls;
+
+		@Setup(Level.Invocation)
+		public void setUp() {
+			prepare();
+			mazeBuilder.generateRooms();
+			mazeBuilder.generate();
+			walls = new ListOfWallsBuilder(mazeBuilder.width, mazeBuilder.height,
+					mazeBuilder.floorplan, mazeBuilder.dists, mazeBuilder.random.nextIntWithinInterval(0, 255));
+		}
+	}
+
+	public static class BSPState extends MazeState {
+		BSPBuilder bsp;
+
+		@Setup(Level.Invocation)
+		public void setUp() {
+			prepare();
+			mazeBuilder.generateRooms();
+			mazeBuilder.generate();
+			bsp = new BSPBuilder(null, CancellationToken.NONE, mazeBuilder.dists, mazeBuilder.floorplan, mazeBuilder.width, mazeBuilder.height,
+					mazeBuilder.random.nextIntWithinInterval(0, 255));
+		}
+	}
+
+	@Benchmark
+	public int generateRooms(RoomsState state) {
+		return state.mazeBuilder.generateRooms();
+	}
+
+	@Benchmark
+	public Floorplan generatePathways(PathwaysState state) {
+		state.mazeBuilder.generatePathways();
+		return state.mazeBuilder.floorplan;
+	}
+
+	@Benchmark
+	public int[] computeDistances(DistancesState state) {
+		return state.mazeBuilder.dists.computeDistances(state.mazeBuilder.floorplan);
+	}
+
+	@Benchmark
+	public List<Wall> generateWalls(WallsState state) {
+		return state.walls.generateWalls();
+	}
+
+	@Benchmark
+	public BSPNode generateBSPNodes(BSPState state) throws InterruptedException {
+		return state.bsp.generateBSPNodes();
+	}
+
+	/**
+	 * Runs all generation benchmarks with the GC profiler.
+	 * @param args not used
+	 * @throws RunnerException if JMH fails
+	 */
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(GenerationBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
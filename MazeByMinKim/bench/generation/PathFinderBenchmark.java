@@ -0,0 +1,109 @@
+package generation;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks for shortest path queries between random positions.
+ * The maze is generated once per trial, the positions for each
+ * invocation are drawn from a generator with a fixed seed such that
+ * runs are comparable.
+ * <ul>
+ * <li>pathLength: number of steps only, no allocation</li>
+ * <li>path: the path as an array of packed positions</li>
+ * <li>indexedPathLength, indexedPath: the same with a PathIndex</li>
+ * </ul>
+ * The benchmarks need jmh-core and jmh-generator-annprocess on the class path.
+ *
+ * @author Min Kim
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathFinderBenchmark {
+
+	@State(Scope.Thread)
+	public static class MazeState {
+		@Param({"9", "15"})
+		public int skill;
+
+		@Param({"false", "true"})
+		public boolean perfect;
+
+		Maze maze;
+		PathIndex index;
+		Random random;
+		int fromX, fromY, toX, toY;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			DefaultOrder order = new DefaultOrder(skill, Order.Builder.Prim, perfect, 13);
+			MazeFactory factory = new MazeFactory();
+			factory.order(order);
+			factory.waitTillDelivered();
+			maze = MazeSnapshot.freeze(order.getMaze());
+			index = new PathIndex(maze.getFloorplan(), maze.getWidth(), maze.getHeight());
+			random = new Random(13);
+		}
+
+		@Setup(Level.Invocation)
+		public void nextPair() {
+			fromX = random.nextInt(maze.getWidth());
+			fromY = random.nextInt(maze.getHeight());
+			toX = random.nextInt(maze.getWidth());
+			toY = random.nextInt(maze.getHeight());
+		}
+	}
+
+	@Benchmark
+	public int pathLength(MazeState state) {
+		return state.maze.getShortestPathLength(state.fromX, state.fromY, state.toX, state.toY);
+	}
+
+	@Benchmark
+	public int[] path(MazeState state) {
+		return state.maze.getShortestPath(state.fromX, state.fromY, state.toX, state.toY);
+	}
+
+	@Benchmark
+	public int indexedPathLength(MazeState state) {
+		return state.index.getPathLength(state.fromX, state.fromY, state.toX, state.toY);
+	}
+
+	@Benchmark
+	public int[] indexedPath(MazeState state) {
+		return state.index.getPath(state.fromX, state.fromY, state.toX, state.toY);
+	}
+
+	/**
+	 * Runs all path finder benchmarks.
+	 * @param args not used
+	 * @throws RunnerException if JMH fails
+	 */
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(PathFinderBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,131 @@
+package gui;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH microbenchmarks for the RangeSet operations used by the FirstPersonView
+ * for each wall: remove and getIntersection.
+ *
+ * Intervals are random with a fixed seed and lie within the width of the view.
+ * Parameter maxWidth sets the widest interval: narrow intervals split the set
+ * into many small ranges, wide intervals empty it quickly.
+ * Times are reported per single operation.
+ *
+ * @author Min Kim
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangeSetBenchmark {
+
+	static final int INTERVALS = 256;
+
+	@State(Scope.Thread)
+	public static class IntervalState {
+		@Param({"8", "64"})
+		public int maxWidth;
+
+		@Param({"13"})
+		public int seed;
+
+		// intervals as lower and upper bounds
+		int[] lowerBounds = new int[INTERVALS];
+		int[] upperBounds = new int[INTERVALS];
+		RangeSet rangeSet = new RangeSet();
+		// a set where the first half of the intervals has been removed
+		RangeSet fragmented = new RangeSet();
+		int[] result = new int[2];
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			Random random = new Random(seed);
+			for (int i = 0; i != INTERVALS; i++) {
+				lowerBounds[i] = random.nextInt(Constants.VIEW_WIDTH);
+				upperBounds[i] = Math.min(lowerBounds[i] + random.nextInt(maxWidth), Constants.VIEW_WIDTH-1);
+			}
+			fragmented.set(0, Constants.VIEW_WIDTH-1);
+			for (int i = 0; i != INTERVALS/2; i++) {
+				fragmented.remove(lowerBounds[i], upperBounds[i]);
+			}
+		}
+	}
+
+	/**
+	 * Starts with the full width of the view as the renderer does
+	 * for each frame and removes all intervals.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(INTERVALS)
+	public boolean remove(IntervalState state) {
+		RangeSet rangeSet = state.rangeSet;
+		rangeSet.set(0, Constants.VIEW_WIDTH-1);
+		for (int i = 0; i != INTERVALS; i++) {
+			rangeSet.remove(state.lowerBounds[i], state.upperBounds[i]);
+		}
+		return rangeSet.isEmpty();
+	}
+
+	/**
+	 * Intersects all intervals with a fragmented set,
+	 * reuses the result array as the renderer does.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(INTERVALS)
+	public int getIntersection(IntervalState state) {
+		int hits = 0;
+		for (int i = 0; i != INTERVALS; i++) {
+			if (state.fragmented.getIntersection(state.lowerBounds[i], state.upperBounds[i], state.result))
+				hits += state.result[1] - state.result[0];
+		}
+		return hits;
+	}
+
+	/**
+	 * Same as getIntersection but with the variant that allocates the result.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(INTERVALS)
+	public int getIntersectionAllocating(IntervalState state) {
+		int hits = 0;
+		for (int i = 0; i != INTERVALS; i++) {
+			int[] result = state.fragmented.getIntersection(state.lowerBounds[i], state.upperBounds[i]);
+			if (null != result)
+				hits += result[1] - result[0];
+		}
+		return hits;
+	}
+
+	/**
+	 * Runs all RangeSet benchmarks.
+	 * @param args not used
+	 * @throws RunnerException if JMH fails
+	 */
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(RangeSetBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,188 @@
+package gui;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import generation.CardinalDirection;
+import generation.DefaultOrder;
+import generation.Floorplan;
+import generation.Maze;
+import generation.MazeFactory;
+import generation.Order;
+
+/**
+ * JMH benchmarks for drawing a single frame of the first person view and of the map.
+ * Drawing happens offscreen into a BufferedImage, so no window is needed
+ * and the benchmarks run in a headless JVM.
+ *
+ * Frames are drawn for a fixed set of poses: the positions on the path
+ * from the starting position to the exit, each with all angles that
+ * occur while rotating and with all walk steps towards the next position.
+ * Each invocation draws the next pose, such that the average time
+ * is the time per frame over the whole set.
+ *
+ * For the first person view, the counters report how many bsp nodes were
+ * traversed and how many walls were considered for drawing, summed up
+ * over all frames of an iteration. Dividing them by the frames counter
+ * gives the numbers per frame.
+ *
+ * The benchmarks need jmh-core and jmh-generator-annprocess on the class path,
+ * the annotation processor generates the harness.
+ * Run with -Djava.awt.headless=true on machines without a display.
+ *
+ * @author Min Kim
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderingBenchmark {
+
+	/**
+	 * A generated maze with views that draw on an offscreen panel
+	 * and the set of poses to draw.
+	 */
+	@State(Scope.Thread)
+	public static class ViewState {
+		@Param({"0", "9", "15"})
+		public int skill;
+
+		@Param({"13"})
+		public int seed;
+
+		MazePanel panel;
+		FirstPersonView firstPersonView;
+		Map mapView;
+		// poses as x, y, angle, walkStep
+		int[][] poses;
+		private int next;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			DefaultOrder order = new DefaultOrder(skill, Order.Builder.DFS, false, seed);
+			MazeFactory factory = new MazeFactory();
+			factory.order(order);
+			factory.waitTillDelivered();
+			Maze maze = order.getMaze();
+
+			panel = new MazePanel(new BufferedImage(Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT,
+					BufferedImage.TYPE_INT_RGB));
+			// same setup as in StatePlaying.startDrawer
+			Floorplan seenCells = new Floorplan(maze.getWidth() + 1, maze.getHeight() + 1);
+			firstPersonView = new FirstPersonView(Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT, Constants.MAP_UNIT,
+					Constants.STEP_SIZE, seenCells, maze.getRootnode());
+			mapView = new Map(seenCells, 15, maze);
+			poses = getPoses(maze);
+			next = 0;
+		}
+
+		/**
+		 * Gives the next pose, starts over after the last one
+		 * @return x, y, angle and walkStep
+		 */
+		int[] nextPose() {
+			int[] pose = poses[next];
+			next = (next + 1) % poses.length;
+			return pose;
+		}
+	}
+
+	/**
+	 * Collects the poses on the path to the exit. Angles are the ones
+	 * StatePlaying.rotate draws, walk steps the ones StatePlaying.walk draws.
+	 * @param maze to walk through
+	 * @return array of x, y, angle, walkStep
+	 */
+	static int[][] getPoses(Maze maze) {
+		List<int[]> poses = new ArrayList<int[]>();
+		int[] pos = maze.getStartingPosition();
+		int x = pos[0];
+		int y = pos[1];
+		while (true) {
+			for (int angle = 0; angle < 360; angle += 90) {
+				for (int i = 0; i != 4; i++) {
+					poses.add(new int[] {x, y, angle + (90 * i) / 4, 0});
+				}
+			}
+			CardinalDirection cd = maze.getDirectionToExit(x, y);
+			if (null == cd)
+				break; // reached the exit
+			for (int walkStep = 1; walkStep != 4; walkStep++) {
+				poses.add(new int[] {x, y, cd.angle(), walkStep});
+			}
+			x += cd.getDx();
+			y += cd.getDy();
+		}
+		return poses.toArray(new int[poses.size()][]);
+	}
+
+	/**
+	 * Work done by the first person view, summed up over an iteration.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class FrameCounters {
+		public long frames;
+		public long nodes;
+		public long walls;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			frames = nodes = walls = 0;
+		}
+	}
+
+	@Benchmark
+	public void drawFirstPersonView(ViewState state, FrameCounters counters) {
+		int[] pose = state.nextPose();
+		FirstPersonView view = state.firstPersonView;
+		view.draw(state.panel, pose[0], pose[1], pose[3], pose[2], 0.5f);
+		counters.frames++;
+		counters.nodes += view.getTraverseNodeCounter();
+		counters.walls += view.getDrawRectCounter();
+	}
+
+	/**
+	 * Draws the map with all walls and the solution,
+	 * the most expensive setting for the map.
+	 */
+	@Benchmark
+	public void drawMap(ViewState state) {
+		int[] pose = state.nextPose();
+		state.mapView.draw(state.panel, pose[0], pose[1], pose[2], pose[3], true, true);
+	}
+
+	/**
+	 * Runs all rendering benchmarks.
+	 * @param args not used
+	 * @throws RunnerException if JMH fails
+	 */
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(RenderingBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
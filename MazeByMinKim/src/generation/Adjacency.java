@@ -0,0 +1,253 @@
+package generation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The graph of open cells of a maze in compressed sparse row form,
+ * for graph analytics such as centrality, diameter or branching statistics.
+ * Node i is the cell at x = i / height, y = i % height, i.e. the index
+ * x*height+y of the mapped maze files. The neighbors of node i are the
+ * targets from offsets[i] up to offsets[i+1], in ascending order, each
+ * opening shows up once for both cells. Openings to the outside do not count.
+ *
+ * The arrays are given as read only int buffers, so they can be read
+ * without boxing and without copies. {@link #store(String) store} writes
+ * them to a file with NIO through a buffer of fixed size, such that
+ * writing does not need memory in proportion to the maze.
+ *
+ * File format, all values int in big endian byte order:
+ * <ul>
+ * <li>header: magic number, version, width, height, number of nodes, number of targets</li>
+ * <li>offsets: number of nodes plus one values</li>
+ * <li>targets: number of targets values</li>
+ * </ul>
+ * Other tools read the sections as arrays with dtype '>i4' at a byte offset of
+ * HEADER_SIZE and HEADER_SIZE + 4*(nodes+1).
+ *
+ * @author Min Kim
+ *
+ */
+public final class Adjacency {
+	/**
+	 * Magic number at the beginning of each file, reads as "MCSR" in ASCII.
+	 */
+	public static final int MAGIC = 0x4D435352;
+	/**
+	 * Current version of the format.
+	 */
+	public static final int VERSION = 1;
+	/**
+	 * Number of bytes in the header.
+	 */
+	public static final int HEADER_SIZE = 6 * Integer.BYTES;
+	/**
+	 * Number of bytes that store writes at a time.
+	 */
+	static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+	private final int width;
+	private final int height;
+	private final int[] offsets;
+	private final int[] targets;
+
+	/**
+	 * Constructor for arrays that are known to be consistent
+	 * @param width of the maze
+	 * @param height of the maze
+	 * @param offsets first target of each node, one more for the end of the last
+	 * @param targets neighbors of all nodes
+	 */
+	private Adjacency(int width, int height, int[] offsets, int[] targets) {
+		this.width = width;
+		this.height = height;
+		this.offsets = offsets;
+		this.targets = targets;
+	}
+
+	/**
+	 * Computes the graph of open cells of a floorplan in two passes,
+	 * one to count the openings of each cell and one to list them.
+	 * @param floorplan with the wallboards of the maze, read only
+	 * @param width of the maze
+	 * @param height of the maze
+	 * @return the graph
+	 */
+	public static Adjacency of(Floorplan floorplan, int width, int height) {
+		int[] offsets = new int[width*height+1];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int cell = x*height+y;
+				offsets[cell+1] = offsets[cell] + Integer.bitCount(getOpenings(floorplan, x, y));
+			}
+		}
+		int[] targets = new int[offsets[width*height]];
+		int i = 0;
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int cell = x*height+y;
+				int openings = getOpenings(floorplan, x, y);
+				// ascending order of the neighbor index
+				if ((openings & Floorplan.CW_LEFT) != 0)
+					targets[i++] = cell - height;
+				if ((openings & Floorplan.CW_TOP) != 0)
+					targets[i++] = cell - 1;
+				if ((openings & Floorplan.CW_BOT) != 0)
+					targets[i++] = cell + 1;
+				if ((openings & Floorplan.CW_RIGHT) != 0)
+					targets[i++] = cell + height;
+			}
+		}
+		return new Adjacency(width, height, offsets, targets);
+	}
+
+	/**
+	 * Gives the openings of a cell to other cells
+	 * @param floorplan with the wallboards of the maze
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return wallboard bits for all directions without a wallboard
+	 */
+	private static int getOpenings(Floorplan floorplan, int x, int y) {
+		return ~floorplan.getInnerWallbits(x, y) & Floorplan.CW_ALL;
+	}
+
+	/**
+	 * Reads a graph from a file that store wrote.
+	 * @param filename gives the file name to read from
+	 * @return the graph
+	 * @throws IOException if the file can not be read or is not a graph file
+	 */
+	public static Adjacency load(String filename) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < HEADER_SIZE || MAGIC != buffer.getInt())
+				throw new IOException("Not a maze graph file: " + filename);
+			int version = buffer.getInt();
+			if (version > VERSION)
+				throw new IOException("Unsupported version " + version + " of maze graph file: " + filename);
+			int width = buffer.getInt();
+			int height = buffer.getInt();
+			int nodes = buffer.getInt();
+			int count = buffer.getInt();
+			if (nodes != width*height || buffer.remaining() != (long) (nodes + 1 + count) * Integer.BYTES)
+				throw new IOException("Inconsistent sizes in maze graph file: " + filename);
+			IntBuffer values = buffer.asIntBuffer();
+			int[] offsets = new int[nodes+1];
+			int[] targets = new int[count];
+			values.get(offsets);
+			values.get(targets);
+			return new Adjacency(width, height, offsets, targets);
+		}
+	}
+
+	/**
+	 * Writes the graph to a file in the format described above.
+	 * @param filename gives the file name to store the graph in
+	 * @throws IOException if the file can not be written
+	 */
+	public void store(String filename) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(width);
+			buffer.putInt(height);
+			buffer.putInt(getNodeCount());
+			buffer.putInt(targets.length);
+			store(channel, buffer, offsets);
+			store(channel, buffer, targets);
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Appends an array to the buffer and writes the buffer to the channel each time it is full
+	 * @param channel to write to
+	 * @param buffer with the values that were not written yet
+	 * @param values to append
+	 * @throws IOException if the channel can not be written
+	 */
+	private static void store(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+		for (int i = 0; i < values.length; ) {
+			IntBuffer view = buffer.asIntBuffer();
+			int count = Math.min(view.remaining(), values.length - i);
+			view.put(values, i, count);
+			buffer.position(buffer.position() + count*Integer.BYTES);
+			i += count;
+			if (buffer.remaining() < Integer.BYTES) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				buffer.clear();
+			}
+		}
+	}
+
+	/**
+	 * Gives the width of the maze
+	 * @return the width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gives the height of the maze
+	 * @return the height
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Gives the number of nodes, one for each cell
+	 * @return width times height
+	 */
+	public int getNodeCount() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * Gives the number of targets, twice the number of openings between cells
+	 * @return the number of targets
+	 */
+	public int getTargetCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Gives the first target of each node and the end of the targets of the last node
+	 * @return read only buffer with getNodeCount()+1 values
+	 */
+	public IntBuffer getOffsets() {
+		return IntBuffer.wrap(offsets).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Gives the neighbors of all nodes one after the other
+	 * @return read only buffer with getTargetCount() values
+	 */
+	public IntBuffer getTargets() {
+		return IntBuffer.wrap(targets).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Gives the number of neighbors of a node
+	 * @param node the node, x*height+y for position (x,y)
+	 * @return the number of openings to other cells
+	 */
+	public int getDegree(int node) {
+		return offsets[node+1] - offsets[node];
+	}
+}
@@ -5,6 +5,9 @@ package generation;
 
 import java.util.logging.Logger;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -91,6 +94,30 @@ public class BSPBranch extends BSPNode {
 		setLowerBoundY(Math.min(left.getLowerBoundY(), right.getLowerBoundY()));
 		setUpperBoundY(Math.max(left.getUpperBoundY(), right.getUpperBoundY()));
 	}
+	/**
+	 * Constructor for a branch whose children are provided later
+	 * by a subclass that overrides getLeftBranch and getRightBranch,
+	 * e.g. to load them on demand. 
+	 * As the children are not available, bounds are given explicitly.
+	 * @param px x coordinate
+	 * @param py y coordinate
+	 * @param pdx x direction
+	 * @param pdy y direction
+	 * @param xl lower bound for x
+	 * @param yl lower bound for y
+	 * @param xu upper bound for x
+	 * @param yu upper bound for y
+	 */
+	protected BSPBranch(int px, int py, int pdx, int pdy, int xl, int yl, int xu, int yu) {
+		x = px; 
+		y = py;
+		dx = pdx; 
+		dy = pdy;
+		setLowerBoundX(xl);
+		setLowerBoundY(yl);
+		setUpperBoundX(xu);
+		setUpperBoundY(yu);
+	}
 	/**
 	 * @return tells if object is a leaf node
 	 */
@@ -129,6 +156,8 @@ public class BSPBranch extends BSPNode {
 		MazeFileWriter.appendChild(doc, mazeXML, "dxBSPNode_" + number, getDx()) ;
 		MazeFileWriter.appendChild(doc, mazeXML, "dyBSPNode_" + number, getDy()) ;
 		// recursively store left and right branches
+		BSPNode lbranch = getLeftBranch();
+		BSPNode rbranch = getRightBranch();
 		if (lbranch == null)
 		{
 			// this is likely to be dead code as BSPBranches seem to have always 2 children
@@ -160,6 +189,38 @@ public class BSPBranch extends BSPNode {
 		return number ; // return the last number that was used
 	}
 
+	/**
+	 * Store the content of a branch node, in particular its left and right children.
+	 * Streaming counterpart of store(Document, Element, int) with the same numbering scheme.
+	 *
+	 * @param writer stream to write elements to
+	 * @param number is an index number for this node in the XML format
+	 * @return the highest used index number
+	 * @throws XMLStreamException if writing fails
+	 */
+	@Override
+	public int store(XMLStreamWriter writer, int number) throws XMLStreamException {
+		super.store(writer, number) ; //leaves number unchanged
+		MazeFileWriter.writeElement(writer, "xBSPNode_" + number, getX()) ;
+		MazeFileWriter.writeElement(writer, "yBSPNode_" + number, getY()) ;
+		MazeFileWriter.writeElement(writer, "dxBSPNode_" + number, getDx()) ;
+		MazeFileWriter.writeElement(writer, "dyBSPNode_" + number, getDy()) ;
+		// recursively store left and right branches, see above for missing branches
+		BSPNode lbranch = getLeftBranch();
+		BSPNode rbranch = getRightBranch();
+		number++ ;
+		if (lbranch == null)
+			MazeFileWriter.writeElement(writer, "xlBSPNode_" + number, Integer.MIN_VALUE) ;
+		else
+			number = lbranch.store(writer, number) ;
+		number++ ;
+		if (rbranch == null)
+			MazeFileWriter.writeElement(writer, "xlBSPNode_" + number, Integer.MAX_VALUE) ;
+		else
+			number = rbranch.store(writer, number) ;
+		return number ; // return the last number that was used
+	}
+
 	/**
 	 * @return the x
 	 */
@@ -2,7 +2,6 @@ package generation;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Logger;
 
 import gui.Constants;
 
@@ -17,39 +16,40 @@ import gui.Constants;
  *
  */
 public class BSPBuilder {
-	/**
-	 * The logger is used to track execution and report issues.
-	 */
-	private static final Logger LOGGER = Logger.getLogger(BSPBuilder.class.getName());
-
 	private final int width ; 				// width of maze
 	private final int height ; 				// height of maze
 	private final Distance dists ; 			// distance matrix
 	private final Floorplan floorplan ;		// floorplan with maze layout
 	private final int colchange ;			// comes from a random number, purpose unclear, 
 	// colchange: reason for randomization unclear, used to determine color of wall 
-	private final int expectedPartiters ; 	// comes from Constants partct array, entry chosen according to skill level
-	// only usage is in updateProgressBar to estimate progress made in the BSP tree construction
-	int partiters = 0 ; // relocated from MazeBuilder attribute partiters here. 
-	private final Order order ; 		// current order
+	int partiters = 0 ; // counts walls considered as splitters, used to check for interrupts
+	private final ProgressTracker progress ; // receives progress updates, may be null
+	private final CancellationToken cancellation ; // tells the construction to stop
+	// Progress estimation: work is counted in walls visited by findSplitter and splitWalls.
+	// The work for a list of walls that is not processed yet is predicted with a model
+	// whose factor is calibrated with the actual work of subtrees that are complete.
+	private long workDone ; 			// work so far
+	private double pendingWork ; 		// predicted work for lists not started yet, without factor
+	private double completedActual ; 	// actual work of completed subtrees
+	private double completedPredicted ; // predicted work of the same subtrees, without factor
 	/**
 	 * Constructor
-	 * @param order provides the spec for the maze to be generated, will receive the result
+	 * @param progress receives updates on the progress of the bsp construction, may be null
+	 * @param cancellation is checked for a request to stop, not null
 	 * @param dists the distances to the exit
 	 * @param floorplan the floorplan
 	 * @param width the width of the maze
 	 * @param height the height of the maze
 	 * @param colchange
-	 * @param expectedPartiters the expected number of partition iterations
 	 */
-	public BSPBuilder(Order order, Distance dists, Floorplan floorplan, int width, int height, int colchange, int expectedPartiters) {
-		this.order = order ;
+	BSPBuilder(ProgressTracker progress, CancellationToken cancellation, Distance dists, Floorplan floorplan, int width, int height, int colchange) {
+		this.progress = progress ;
+		this.cancellation = cancellation ;
 		this.dists = dists ;
 		this.floorplan = floorplan ;
 		this.width = width ;
 		this.height = height ;
 		this.colchange = colchange ;
-		this.expectedPartiters = expectedPartiters ;
 
 		partiters = 0 ; // counter for keeping track of progress made in BSP calculation, starts at 0
 	}
@@ -76,10 +76,17 @@ public class BSPBuilder {
 	 * @throws InterruptedException if its executing thread is interrupted
 	 */
 	private BSPNode genNodes(List<Wall> walls) throws InterruptedException {
+		final int nonPartitions = countNonPartitions(walls);
+		// the list is started, its predicted work is replaced by the actual work
+		// and the predicted work of its sublists
+		final double predicted = predictWork(walls.size(), nonPartitions);
+		final long workBefore = workDone;
+		pendingWork -= predicted;
+		workDone += walls.size();
 		// Recursion anchor:
 		// if there is no wall with a partition bit set to false, 
 		// there is nothing else to do and we are at a leaf node
-		if (countNonPartitions(walls) == 0)
+		if (nonPartitions == 0)
 			return new BSPLeaf(walls);
 		// Step: pick the wall that is used to partition all others into left and right
 		// Criterion: from the ones that have a partition bit set to false, 
@@ -107,9 +114,40 @@ public class BSPBuilder {
 		
 		// Case: two sided recursion, need to create a node
 		// and recursively calculate subtrees for both sides.
-		return new BSPBranch(splitter.getStartPositionX(), splitter.getStartPositionY(), 
+		pendingWork += predictWork(left.size(), countNonPartitions(left))
+				+ predictWork(right.size(), countNonPartitions(right));
+		BSPNode result = new BSPBranch(splitter.getStartPositionX(), splitter.getStartPositionY(), 
 				splitter.getExtensionX(), splitter.getExtensionY(), 
 				genNodes(left), genNodes(right)); 
+		// calibrate the prediction with this complete subtree
+		completedActual += workDone - workBefore;
+		completedPredicted += predicted;
+		updateProgressBar();
+		return result;
+	}
+
+	/**
+	 * Predicts the work to build the subtree for a list of walls, up to a constant factor.
+	 * Each level of the subtree visits all walls of the list for each splitter
+	 * candidate, there are at most about 50 candidates per list and about log n levels.
+	 * @param size number of walls in the list
+	 * @param nonPartitions number of walls in the list that are candidates for splitters
+	 * @return predicted work without factor
+	 */
+	private static double predictWork(int size, int nonPartitions) {
+		return (double) size * Math.min(nonPartitions + 1, 50) * (1 + Math.log(nonPartitions + 1));
+	}
+
+	/**
+	 * Estimates the fraction of the bsp construction that is done
+	 * from the work done so far and the predicted work for the lists not started yet.
+	 * @return estimate in the range [0,1]
+	 */
+	double estimateProgress() {
+		// factor between actual and predicted work, 1 until a subtree is complete
+		double factor = (completedPredicted > 0) ? completedActual / completedPredicted : 1;
+		double remaining = factor * Math.max(pendingWork, 0);
+		return workDone / (workDone + remaining);
 	}
 	
 
@@ -147,12 +185,16 @@ public class BSPBuilder {
 			// skip walls where the partition flag was set
 			if (wall.isPartition())
 				continue;
-			// provide feedback for progress bar every 32 iterations
+			// provide feedback for progress bar and check for interrupts and cancellation every 32 iterations
 			partiters++;
 			if ((partiters & 31) == 0) {
-				updateProgressBar(partiters); // side effect: update progress bar
+				updateProgressBar(); // side effect: update progress bar
+				if (Thread.interrupted())
+					throw new InterruptedException();
+				cancellation.check();
 			}
-			// check grade and keep track of minimum
+			// check grade and keep track of minimum, this visits all walls
+			workDone += walls.size();
 			int grade = wall.calculateGrade(walls);
 			if (grade < bestgrade) {
 				bestgrade = grade;
@@ -164,29 +206,11 @@ public class BSPBuilder {
 
 	/**
 	 * Push information on progress into maze such that UI can update progress bar.
-	 * The published progress value may reach 100 before the actual maze generation is complete but it will never exceed 100.
-	 * @param partiters counting partition iterations (precise semantics obscure)
-	 * @throws InterruptedException if executing thread is interrupted
+	 * The tracker throttles the updates, so this can be called frequently.
 	 */
-	private void updateProgressBar(int partiters) throws InterruptedException {
-		// During maze generation, the most time consuming part needs to occasionally update the current screen
-		// 
-		if (null != order) {
-			// the current level of progress is estimated
-			// the expectedPartiters value is sometimes too low
-			// so it is necessary to adjust the max value that is placed into the progress bar
-			// this also means that 100 does not mean the generation is complete
-			int percentage = partiters*100/expectedPartiters ;
-			if (percentage > 100) {
-				LOGGER.warning("Progress estimate exceeds 100, set to 100 to mitigate issue");
-				percentage = 100;
-			}
-			//  update progress bar
-			order.updateProgress(percentage) ;
-			// give main thread a chance to process keyboard events
-			if (percentage < 100) {
-				Thread.sleep(10);
-			}
+	private void updateProgressBar() {
+		if (null != progress) {
+			progress.update(estimateProgress());
 		}
 	}
 
@@ -213,11 +237,21 @@ public class BSPBuilder {
 	 * @throws InterruptedException if executing thread is interrupted
 	 */
 	public BSPNode generateBSPNodes() throws InterruptedException {
+		return generateBSPNodes(generateWalls());
+	}
+	/**
+	 * Determines the walls for the bsp tree, first half of generateBSPNodes.
+	 * Separate such that the MazeBuilder can measure it on its own
+	 * and build the tree later. This is the last step that reads or
+	 * changes the floorplan.
+	 * @return list of walls with partition bits set
+	 */
+	List<Wall> generateWalls() {
 		// Binary space partitioning operates on polygons (here: walls)
 		// the floorplan only lists wallboards.
 		// We need to determine walls, i.e. wallboards over multiple cells in
 		// a vertical or horizontal direction.
-		ListOfWallsBuilder builder = new ListOfWallsBuilder(width, height, floorplan, dists, colchange);
+		ListOfWallsBuilder builder = new ListOfWallsBuilder(width, height, floorplan, dists, colchange, cancellation);
 		List<Wall> walls = builder.generateWalls(); 
 
 		// The size and balance of the resulting BSP tree depends on 
@@ -231,7 +265,20 @@ public class BSPBuilder {
 		// It creates a top wallboard on position (0,0). 
 		// This may even corrupt a maze and block its exit!
 		floorplan.addWallboard(new Wallboard(0, 0, CardinalDirection.North), false);
-		
+		return walls;
+	}
+	/**
+	 * Builds the bsp tree for the given walls, second half of generateBSPNodes.
+	 * Does not access the floorplan, so it can run after the maze was delivered.
+	 * @param walls as delivered by generateWalls
+	 * @return root node of the bsp tree
+	 * @throws InterruptedException if the thread is interrupted
+	 */
+	BSPNode generateBSPNodes(List<Wall> walls) throws InterruptedException {
+		// nothing is done yet, all work is predicted
+		workDone = 0;
+		pendingWork = predictWork(walls.size(), countNonPartitions(walls));
+		completedActual = completedPredicted = 0;
 		// Start the recursive BSP calculation for the list of polygons
 		// and return the root node of the tree
 		return genNodes(walls); 
@@ -6,6 +6,9 @@ package generation;
 import java.util.List;
 import java.util.logging.Logger;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -86,6 +89,27 @@ public class BSPLeaf extends BSPNode {
 		return number ;
 	}
 
+	/**
+	 * Store the content of a leaf node, in particular its list of walls.
+	 * Streaming counterpart of store(Document, Element, int).
+	 * @param writer stream to write elements to
+	 * @param number is an index number for this node in the XML format
+	 * @return the highest used index number, in this case the given number
+	 * @throws XMLStreamException if writing fails
+	 */
+	@Override
+	public int store(XMLStreamWriter writer, int number) throws XMLStreamException {
+		super.store(writer, number) ; //leaves number unchanged
+		MazeFileWriter.writeElement(writer, "numSeg_" + number, allWalls.size()) ;
+		int i = 0 ;
+		for (Wall wall : allWalls)
+		{
+			wall.storeWall(writer, number, i);
+			i++ ;
+		}
+		return number ;
+	}
+
 	/**
 	 * @return the list of walls 
 	 */
@@ -3,6 +3,9 @@
  */
 package generation;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -51,6 +54,25 @@ public class BSPNode {
 		return number ; // unchanged
 	}
 
+	/**
+	 * Store the content of a BSPNode including data of branches and leaves as special cases.
+	 * Streaming counterpart of store(Document, Element, int), it writes the same elements
+	 * in the same order.
+	 * @param writer stream to write elements to
+	 * @param number is an index number for this node in the XML format
+	 * @return the highest used index number, in this case the given number
+	 * @throws XMLStreamException if writing fails
+	 */
+	public int store(XMLStreamWriter writer, int number) throws XMLStreamException {
+		MazeFileWriter.writeElement(writer, "xlBSPNode_" + number, lowX) ;
+		MazeFileWriter.writeElement(writer, "ylBSPNode_" + number, lowY) ;
+		MazeFileWriter.writeElement(writer, "xuBSPNode_" + number, highX) ;
+		MazeFileWriter.writeElement(writer, "yuBSPNode_" + number, highY) ;
+		MazeFileWriter.writeElement(writer, "isleafBSPNode_" + number, isIsleaf()) ;
+
+		return number ; // unchanged
+	}
+
 	/**
 	 * @return tells if object is a leaf node
 	 */
@@ -0,0 +1,74 @@
+package generation;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Tells long running loops of a maze generation that they should stop.
+ * The MazeFactory cancels the token of the current MazeBuilder, the
+ * builder passes it on to everything that takes time: the pathway algorithms,
+ * the distance computation, the wall extraction and the bsp construction.
+ *
+ * Tight loops call step once per iteration, the token looks at the cancel flag
+ * every CHECK_INTERVAL steps and throws a CancellationException once it is set.
+ * Loops whose iterations do more work, e.g. a row of the maze, call check instead.
+ * So a check costs next to nothing and the time from cancel to the exception is
+ * bounded by CHECK_INTERVAL iterations of a tight loop, no sleeps are needed.
+ * The exception is unchecked such that it passes through methods that
+ * are public or overridden without a change of their signature, the MazeBuilder
+ * catches it in its run method and stops.
+ *
+ * @author Min Kim
+ *
+ */
+class CancellationToken {
+	/**
+	 * Number of steps between two checks of the cancel flag, a power of 2.
+	 */
+	static final int CHECK_INTERVAL = 1 << 10;
+	/**
+	 * Token for work that can not be cancelled, e.g. when a loaded maze
+	 * computes its next hops. It is shared, so cancel has no effect on it.
+	 */
+	static final CancellationToken NONE = new CancellationToken() {
+		@Override
+		void cancel() {
+			// must stay uncancelled for all users
+		}
+	};
+
+	private volatile boolean cancelled; // set by cancel, read by the working thread
+	private int steps; // counts calls of step, only meaningful for a single working thread
+
+	/**
+	 * Asks the work that uses this token to stop.
+	 * Can be called from any thread.
+	 */
+	void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * @return true if cancel was called
+	 */
+	boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Checks the cancel flag right away.
+	 * @throws CancellationException if cancel was called
+	 */
+	void check() {
+		if (cancelled)
+			throw new CancellationException("Maze generation was cancelled");
+	}
+
+	/**
+	 * Counts a step of a loop and checks the cancel flag every CHECK_INTERVAL steps.
+	 * @throws CancellationException if cancel was called
+	 */
+	void step() {
+		if ((++steps & (CHECK_INTERVAL - 1)) == 0)
+			check();
+	}
+}
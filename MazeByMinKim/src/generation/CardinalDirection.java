@@ -24,6 +24,53 @@ package generation;
  */
 public enum CardinalDirection {
 	North, East, South, West ;
+	
+	/**
+	 * Cached copy of values() in ordinal order. Calling values() 
+	 * creates a fresh array on each call which is a waste in loops
+	 * that are executed for every cell of a maze.
+	 */
+	private static final CardinalDirection[] VALUES = values() ;
+	/**
+	 * Cached dx and dy values for each direction, indexed by ordinal,
+	 * same mapping as in getDxDyDirection().
+	 */
+	private static final int[] DX = { 0, 1, 0, -1 } ;
+	private static final int[] DY = { -1, 0, 1, 0 } ;
+	
+	/**
+	 * Gives the direction for the given ordinal without allocating 
+	 * an array as values() does.
+	 * @param ordinal is the position in the enum, {@code 0 <= ordinal < 4}
+	 * @return matching cardinal direction
+	 */
+	public static CardinalDirection fromOrdinal(int ordinal) {
+		return VALUES[ordinal] ;
+	}
+	/**
+	 * Gives the x component of the (dx,dy) pair for the current direction.
+	 * Same as getDxDyDirection()[0] but with no allocation.
+	 * @return dx in {-1,0,1}
+	 */
+	public int getDx() {
+		return DX[ordinal()] ;
+	}
+	/**
+	 * Gives the y component of the (dx,dy) pair for the current direction.
+	 * Same as getDxDyDirection()[1] but with no allocation.
+	 * @return dy in {-1,0,1}
+	 */
+	public int getDy() {
+		return DY[ordinal()] ;
+	}
+	/**
+	 * Gives the direction that results from a 90 degree counterclockwise 
+	 * rotation applied to the current direction.
+	 * @return direction after 90 degree counterclockwise rotation
+	 */
+	public CardinalDirection rotateCounterClockwise() {
+		return VALUES[(ordinal() + 3) & 3] ;
+	}
 	/** 
 	 * Gives the direction that results from a 90 degree clockwise rotation
 	 * applied to the current direction. 
@@ -122,27 +169,10 @@ public enum CardinalDirection {
 		public static int[] DIRS_X = { 1, 0, -1, 0 };
 		public static int[] DIRS_Y = { 0, 1, 0, -1 };
 		 */
+		// allocates a fresh array, see getDx() and getDy() for hot paths
 		int[] result = new int[2] ;
-		switch(this) {
-		case North: // flipped North : 
-			result[0] = 0 ;
-			result[1] = -1 ;
-			break ;
-		case East : 
-			result[0] = 1 ;
-			result[1] = 0 ;
-			break ;
-		case South: // flipped South : 
-			result[0] = 0 ;
-			result[1] = 1 ;
-			break ;
-		case West : 
-			result[0] = -1 ;
-			result[1] = 0 ;
-			break ;
-		default:
-			throw new RuntimeException("Inconsistent enum type") ;
-		}
+		result[0] = getDx() ;
+		result[1] = getDy() ;
 		return result ;
 	}
 	/**
@@ -0,0 +1,76 @@
+package generation;
+
+/**
+ * Packs a cell position (x,y) into a single int value and back.
+ * This allows code on hot paths to pass positions around and to
+ * keep them in primitive arrays or fields without allocating 
+ * an int[2] for each position.
+ * 
+ * Layout: x in the upper 16 bits, y in the lower 16 bits. 
+ * This is sufficient for any maze size in Constants as 
+ * width and height are well below 2^15. 
+ * The value NONE is used to signal that there is no position,
+ * similar to a null array reference in the array based methods.
+ * 
+ * @author Min Kim
+ *
+ */
+public final class CellIndex {
+	/**
+	 * Value to represent that there is no valid position.
+	 * Negative, so it does not collide with any packed position.
+	 */
+	public static final int NONE = -1 ;
+	
+	private static final int SHIFT = 16 ;
+	private static final int MASK = (1 << SHIFT) - 1 ;
+	
+	private CellIndex() {
+		// static methods only
+	}
+	/**
+	 * Packs the given position into a single int.
+	 * @param x is on the horizontal axis, {@code 0 <= x <= 32767}
+	 * @param y is on the vertical axis, {@code 0 <= y <= 65535}
+	 * @return packed position
+	 */
+	public static int pack(int x, int y) {
+		assert 0 <= x && x <= (Short.MAX_VALUE) : "x out of range: " + x ;
+		assert 0 <= y && y <= MASK : "y out of range: " + y ;
+		return (x << SHIFT) | y ;
+	}
+	/**
+	 * Gives the x coordinate of a packed position
+	 * @param index is a packed position, not NONE
+	 * @return x coordinate
+	 */
+	public static int getX(int index) {
+		return index >>> SHIFT ;
+	}
+	/**
+	 * Gives the y coordinate of a packed position
+	 * @param index is a packed position, not NONE
+	 * @return y coordinate
+	 */
+	public static int getY(int index) {
+		return index & MASK ;
+	}
+	/**
+	 * Gives the packed position of the adjacent cell in the given direction.
+	 * The caller is responsible to check that the neighbor is within bounds.
+	 * @param index is a packed position, not NONE
+	 * @param cd is the direction towards the neighbor
+	 * @return packed position of the neighbor
+	 */
+	public static int getNeighbor(int index, CardinalDirection cd) {
+		return pack(getX(index) + cd.getDx(), getY(index) + cd.getDy()) ;
+	}
+	/**
+	 * Gives the position as an array for code that works with arrays.
+	 * @param index is a packed position, not NONE
+	 * @return array of length 2, x = array[0], y = array[1]
+	 */
+	public static int[] toArray(int index) {
+		return new int[] { getX(index), getY(index) } ;
+	}
+}
@@ -0,0 +1,177 @@
+package generation;
+
+import java.util.Arrays;
+
+/**
+ * The dead ends of a maze, computed once by dead end filling.
+ * A direction at a position leads into a dead end if every way
+ * through the opening in that direction has to come back through it,
+ * i.e. behind the opening there is a tree of cells without the exit.
+ * Drivers can skip such branches and hints can warn about them with
+ * a single lookup, the size of a branch serves as a measure for
+ * how much a wrong turn costs.
+ *
+ * Dead end filling starts at every cell with a single opening other than
+ * the exit and removes it from the maze, its neighbor may then have a single
+ * opening left and is removed next, and so on until no such cell is left.
+ * Each opening that is closed this way is marked as leading into a dead end
+ * at the cell that stays longer. In a perfect maze, every cell but the exit
+ * is removed and at each position all openings but the one towards the exit
+ * are marked. In a maze with rooms or loops, cells on a loop are never removed.
+ * Openings to the outside do not count.
+ *
+ * One byte per cell keeps a bit for each direction, indexed by ordinal,
+ * and a bit for cells that are removed. The size of a dead end is not kept
+ * but counted along the marked directions when asked for.
+ * The result is a copy and does not see later changes to the floorplan, see isFor.
+ *
+ * @author Min Kim
+ *
+ */
+public final class DeadEnds {
+	/**
+	 * Bit for a cell that was removed, the bits below are for directions.
+	 */
+	private static final int FILLED = 1 << 4;
+
+	private final Floorplan floorplan;
+	private final long fingerprint; // of the floorplan when the dead ends were computed
+	private final int width;
+	private final int height;
+	private final int[] offsets; // index offset of the neighbor for each direction, indexed by ordinal
+	private final byte[] marks; // direction bits and FILLED per cell, index x*height+y
+	private final int filledCount;
+
+	/**
+	 * Computes the dead ends of a maze.
+	 * @param floorplan with the wallboards of the maze, read only
+	 * @param width of the maze
+	 * @param height of the maze
+	 * @param exitX x coordinate of the exit, the exit is never removed
+	 * @param exitY y coordinate of the exit
+	 */
+	public DeadEnds(Floorplan floorplan, int width, int height, int exitX, int exitY) {
+		this.floorplan = floorplan;
+		this.fingerprint = floorplan.getFingerprint();
+		this.width = width;
+		this.height = height;
+		offsets = new int[4];
+		for (CardinalDirection cd : CardinalDirection.values()) {
+			offsets[cd.ordinal()] = cd.getDx()*height + cd.getDy();
+		}
+		marks = new byte[width*height];
+		final int exit = exitX*height+exitY;
+		// the openings of each cell to cells that are not removed yet
+		final byte[] openings = new byte[width*height];
+		final int[] queue = new int[width*height];
+		int tail = 0;
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int cell = x*height+y;
+				openings[cell] = (byte) getOpenings(x, y);
+				if (cell != exit && Integer.bitCount(openings[cell]) <= 1)
+					queue[tail++] = cell;
+			}
+		}
+		for (int head = 0; head < tail; head++) {
+			final int cell = queue[head];
+			marks[cell] |= FILLED;
+			if (0 == openings[cell])
+				continue; // the last cell of a part without the exit
+			final int i = Integer.numberOfTrailingZeros(openings[cell]);
+			final int back = (i + 2) & 3;
+			final int next = cell + offsets[i];
+			marks[next] |= 1 << back;
+			openings[next] &= ~(1 << back);
+			if (next != exit && Integer.bitCount(openings[next]) == 1)
+				queue[tail++] = next;
+		}
+		filledCount = tail;
+	}
+
+	/**
+	 * Gives the openings of a cell to other cells
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return a bit for each direction without a wallboard, indexed by ordinal
+	 */
+	private int getOpenings(int x, int y) {
+		int walls = floorplan.getInnerWallbits(x, y);
+		int result = 0;
+		for (int i = 0; i < 4; i++) {
+			if ((walls & Floorplan.getWallbit(i)) == 0)
+				result |= 1 << i;
+		}
+		return result;
+	}
+
+	/**
+	 * Tells if the dead ends were computed for the given floorplan as it is now
+	 * @param cells the floorplan
+	 * @return true if they were computed for it and it did not change since, false otherwise
+	 */
+	boolean isFor(Floorplan cells) {
+		return floorplan == cells && fingerprint == cells.getFingerprint();
+	}
+
+	/**
+	 * Tells if the opening in the given direction leads into a dead end
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @param cd is the direction
+	 * @return true if every way through the opening has to come back, false otherwise,
+	 * in particular if there is a wallboard in the way
+	 */
+	public boolean isDeadEnd(int x, int y, CardinalDirection cd) {
+		return (marks[x*height+y] & (1 << cd.ordinal())) != 0;
+	}
+
+	/**
+	 * Tells if a position is part of a dead end, i.e. the only way to the exit
+	 * is the one through which dead end filling reached it last
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return true if the position was removed by dead end filling, false otherwise
+	 */
+	public boolean isInDeadEnd(int x, int y) {
+		return (marks[x*height+y] & FILLED) != 0;
+	}
+
+	/**
+	 * Gives the number of positions behind the opening in the given direction
+	 * if it leads into a dead end. The positions are counted along the marked
+	 * directions, the time is in proportion to the result.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @param cd is the direction
+	 * @return the number of positions in the dead end, 0 if the direction does not lead into a dead end
+	 */
+	public int getDeadEndSize(int x, int y, CardinalDirection cd) {
+		if (!isDeadEnd(x, y, cd))
+			return 0;
+		int[] stack = new int[16];
+		int size = 0;
+		stack[size++] = x*height+y + offsets[cd.ordinal()];
+		int count = 0;
+		while (size > 0) {
+			int cell = stack[--size];
+			count++;
+			for (int i = 0; i < 4; i++) {
+				if ((marks[cell] & (1 << i)) == 0)
+					continue;
+				if (size == stack.length)
+					stack = Arrays.copyOf(stack, 2*size);
+				stack[size++] = cell + offsets[i];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gives the number of positions that are part of a dead end
+	 * @return the number of positions removed by dead end filling
+	 */
+	public int getDeadEndCount() {
+		return filledCount;
+	}
+}
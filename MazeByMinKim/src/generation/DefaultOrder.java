@@ -3,6 +3,8 @@
  */
 package generation;
 
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -93,6 +95,23 @@ public class DefaultOrder implements Order {
 	 */
 	int seed;
 	
+	/**
+	 * The artifacts are the parts of the maze that are needed.
+	 * By default all are needed, clients without a first person
+	 * view can leave out the BSP tree to save the time to build it.
+	 * 
+	 * The MazeFactory needs this information to decide 
+	 * what to produce.
+	 */
+	Set<Artifact> artifacts = EnumSet.allOf(Artifact.class);
+	
+	/**
+	 * The delivery tells if the maze is delivered complete or
+	 * early with the BSP tree still in the making.
+	 * By default the maze is delivered complete.
+	 */
+	Delivery delivery = Delivery.COMPLETE;
+	
 	/**
 	 * The maze field provides a reference to the maze
 	 * that the factory generates. 
@@ -258,6 +277,38 @@ public class DefaultOrder implements Order {
 		LOGGER.fine("provide info about seed for random number generation: " + seed);
 		return seed;
 	}
+	/**
+	 * Selects the parts of the maze that are needed.
+	 * @param artifacts the needed artifacts, floorplan and distances are always produced
+	 */
+	public void setArtifacts(Set<Artifact> artifacts) {
+		LOGGER.fine("receive info about needed artifacts: " + artifacts);
+		this.artifacts = artifacts.isEmpty() ? EnumSet.noneOf(Artifact.class) : EnumSet.copyOf(artifacts);
+	}
+	/**
+	 * @return the parts of the maze that are needed
+	 */
+	@Override
+	public Set<Artifact> getArtifacts() {
+		LOGGER.fine("provide info about needed artifacts: " + artifacts);
+		return artifacts;
+	}
+	/**
+	 * Selects when the maze is delivered.
+	 * @param delivery the delivery mode, not null
+	 */
+	public void setDelivery(Delivery delivery) {
+		LOGGER.fine("receive info about delivery: " + delivery);
+		this.delivery = delivery;
+	}
+	/**
+	 * @return the delivery mode
+	 */
+	@Override
+	public Delivery getDelivery() {
+		LOGGER.fine("provide info about delivery: " + delivery);
+		return delivery;
+	}
 
 
 	/**
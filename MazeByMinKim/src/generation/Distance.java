@@ -1,5 +1,7 @@
 package generation;
 
+import java.nio.IntBuffer;
+
 /**
  * This class has the responsibility to provide the distance
  * for each cell to the exit of a maze.
@@ -48,6 +50,24 @@ public class Distance {
 	 * obtain it and manipulate its content. 
 	 */
 	private int[][] dists; 
+	/**
+	 * Distance values of a maze that is loaded from a memory mapped file,
+	 * index x*height+y. Used instead of dists which is then null
+	 * until values need to change.
+	 */
+	private IntBuffer mapped;
+	/**
+	 * Distance values in a compact encoding, see SuccinctDistances.
+	 * Used instead of dists which is then null until values need to change.
+	 */
+	private SuccinctDistances succinct;
+	/**
+	 * The values of mapped or succinct as an array once it is requested.
+	 * Published through the final field of a MappedCopy, so a thread that
+	 * sees the copy sees all its values. Threads that do not see it yet
+	 * go on reading mapped or succinct.
+	 */
+	private MappedCopy copy;
 	/** 
 	 * The exit position has a distance of 1
 	 * which is also the minimum of all values in dists.
@@ -65,6 +85,27 @@ public class Distance {
 	 * to this instance.
 	 */
 	private int[] startPosition;
+	/**
+	 * Next hop table: for each position (x,y) the direction towards a 
+	 * neighbor that is closer to the exit, 2 bits per position, 
+	 * 4 positions per byte, positions in the same order as in dists, 
+	 * i.e. index x*height+y. The value is the ordinal of the 
+	 * CardinalDirection. The entry for the exit position is meaningless
+	 * as there is no neighbor that is closer.
+	 * The field is null until {@link #computeNextHops(Floorplan) computeNextHops}
+	 * is called, either directly or as the last step of computeDistances.
+	 * The table is filled completely before it is published through this
+	 * volatile field, so threads that share a maze, e.g. through a snapshot or
+	 * in a simulation, see either no table or a complete one together with the
+	 * exit position. Threads that compute it at the same time give the same table.
+	 */
+	private volatile byte[] nextHops;
+	/**
+	 * Token checked by the loops of computeDistances such that a cancelled
+	 * generation stops within a few milliseconds, 
+	 * only set while computeDistances runs for a MazeBuilder.
+	 */
+	private CancellationToken cancellation = CancellationToken.NONE;
 	// Memo: the start position is also stored in the MazeContainer, supports a set method
 	// this could lead to inconsistent settings between MazeContainer and Distance object at runtime.
 	// TODO: avoid redundancy of start position, remove startPosition from Distance, replease with getPositionWithMaxDistance
@@ -93,6 +134,43 @@ public class Distance {
 		// exitPosition and startPosition
 		setAllDistanceValues(distances);
 	}
+	/**
+	 * Constructor that reads distance values from the given buffer,
+	 * one value per position with index x*height+y.
+	 * Values are not copied, the buffer is typically a view on a memory mapped file.
+	 * The buffer is never written to, values are copied into an array
+	 * if the array is requested or values need to be computed.
+	 * @param w is the width of the maze in the horizontal direction
+	 * @param h is the height of the maze in the vertical direction
+	 * @param distances provides w*h distance values
+	 */
+	public Distance(int w, int h, IntBuffer distances) {
+		assert distances.remaining() >= w*h : "buffer is too small for distances";
+		width = w;
+		height = h;
+		dists = null;
+		mapped = distances;
+		exitPosition = null;
+		startPosition = null;
+		nextHops = null;
+	}
+	/**
+	 * Constructor that reads distance values from the given compact encoding.
+	 * A value is decoded for each call of getDistanceValue, the array of all
+	 * values is decoded only if it is requested or values need to be computed.
+	 * @param w is the width of the maze in the horizontal direction
+	 * @param h is the height of the maze in the vertical direction
+	 * @param distances provides w*h distance values
+	 */
+	public Distance(int w, int h, SuccinctDistances distances) {
+		width = w;
+		height = h;
+		dists = null;
+		succinct = distances;
+		exitPosition = null;
+		startPosition = null;
+		nextHops = null;
+	}
 	/**
 	 * Sets the internal attribute to the given parameter value.
 	 * Can be used to provide precomputed distance values to an object
@@ -107,12 +185,16 @@ public class Distance {
 		width = distances.length;
 		height = distances[0].length;
 		this.dists = distances;
+		mapped = null;
+		succinct = null;
+		copy = null;
 		// reset exit and start positions
 		// note: lazy evaluation in the sense that positions are
 		// computed on demand and then cached on corresponding
 		// fields exitPosition and startPosition
 		exitPosition = null;
 		startPosition = null;
+		nextHops = null;
 	}
 	/**
 	 * Gets access to a width x height array of distances. 
@@ -122,7 +204,9 @@ public class Distance {
 	 * @return array with distance values
 	 */
 	public int[][] getAllDistanceValues() {
-		return dists;
+		if (null != dists)
+			return dists;
+		return copyMappedValues();
 	}
 	/**
 	 * Gets the distance value for the given (x,y) position
@@ -131,7 +215,31 @@ public class Distance {
 	 * @return the distance value for the given (x,y) position
 	 */
 	public int getDistanceValue(int x, int y) {
-		return dists[x][y] ;
+		if (null != dists)
+			return dists[x][y] ;
+		final MappedCopy values = copy;
+		if (null != values)
+			return values.dists[x][y] ;
+		return (null != mapped) ? mapped.get(x*height+y) : succinct.getDistanceValue(x, y) ;
+	}
+	/**
+	 * Replaces the array of distance values with a compact encoding,
+	 * see SuccinctDistances. This saves memory for a maze that is kept
+	 * for a long time but reads few values, each read takes a few steps.
+	 * Arrays that were handed out by getAllDistanceValues before are no
+	 * longer used by this object.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @return the encoding
+	 */
+	public SuccinctDistances compact(Floorplan cells) {
+		if (null == succinct || null != dists) {
+			// an encoding that was kept after a copy may be outdated
+			succinct = SuccinctDistances.encode(getAllDistanceValues(), cells);
+			mapped = null; // values may have changed since they were mapped
+			copy = null;
+			dists = null;
+		}
+		return succinct;
 	}
 	/**
 	 * Compute distances for given cells object of a maze.
@@ -151,7 +259,35 @@ public class Distance {
 	 * @return exit position somewhere on the  border
 	 */
 	public int[] computeDistances(Floorplan cells) {
+		return computeDistances(cells, CancellationToken.NONE);
+	}
+	/**
+	 * Compute distances for given cells object of a maze
+	 * as {@link #computeDistances(Floorplan)} does but stop early
+	 * if the given token is cancelled.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @param cancellation is checked at short intervals, not null
+	 * @return exit position somewhere on the  border
+	 * @throws java.util.concurrent.CancellationException if the token is cancelled
+	 */
+	int[] computeDistances(Floorplan cells, CancellationToken cancellation) {
+		this.cancellation = cancellation;
+		try {
+			return computeDistancesAndNextHops(cells);
+		}
+		finally {
+			this.cancellation = CancellationToken.NONE;
+		}
+	}
+	/**
+	 * Does the work of computeDistances.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 * @return exit position somewhere on the  border
+	 */
+	private int[] computeDistancesAndNextHops(Floorplan cells) {
 		// constraint: cells must be of size (width x height)
+		if (null == dists)
+			dists = copyMappedValues();
 		
 		// Step 1: find a suitable exit position
 		// Heuristic:
@@ -164,8 +300,76 @@ public class Distance {
 		exitPosition = getPositionWithMaxDistanceOnBorder();
 		// Step 2: compute distances with regards to the exit position
 		computeDists(cells, exitPosition[0], exitPosition[1]);
+		// Step 3: derive the direction towards the exit for each position
+		computeNextHops(cells);
 		return exitPosition ;
 	}
+	/**
+	 * Computes the next hop table from the current distance values.
+	 * For each position, it stores the direction towards the adjacent
+	 * position that is reachable (no wallboard in between) and has the
+	 * smallest distance to the exit. Ties are resolved in the order 
+	 * of CardinalDirection.values(). 
+	 * This is called by computeDistances but needs to be called
+	 * explicitly if distance values are given to this instance, e.g.
+	 * after loading a maze from a file.
+	 * @param cells with information on wallboards for a maze, can not be null, read only
+	 */
+	public void computeNextHops(Floorplan cells) {
+		// 2 bits per position, round up to full bytes
+		byte[] hops = new byte[(width*height+3)/4];
+		CardinalDirection cd;
+		for (int x = 0; x < width; x++) {
+			cancellation.check();
+			for (int y = 0; y < height; y++) {
+				int dnext = getDistanceValue(x, y);
+				int hop = 0; // default for exit position
+				for (int i = 0; i < 4; i++) {
+					cd = CardinalDirection.fromOrdinal(i);
+					if (cells.hasWall(x, y, cd))
+						continue; // there is a wallboard in the way
+					int nx = x + cd.getDx();
+					int ny = y + cd.getDy();
+					// the exit has an opening to the outside
+					if (nx < 0 || nx >= width || ny < 0 || ny >= height)
+						continue;
+					if (getDistanceValue(nx, ny) < dnext) {
+						dnext = getDistanceValue(nx, ny);
+						hop = i;
+					}
+				}
+				int index = x*height+y;
+				hops[index >> 2] |= hop << ((index & 3) << 1);
+			}
+		}
+		getExitPosition(); // published along with the table for getNextHop
+		nextHops = hops;
+	}
+	/**
+	 * Tells if the next hop table is available.
+	 * @return true if {@link #computeNextHops(Floorplan) computeNextHops} was called
+	 * for the current distance values, false otherwise
+	 */
+	public boolean hasNextHops() {
+		return null != nextHops;
+	}
+	/**
+	 * Gets the direction towards a neighbor of the given (x,y) position 
+	 * that is closer to the exit.
+	 * Assumes that computeNextHops() was called before.
+	 * @param x is the x coordinate, {@code 0 <= x < width}
+	 * @param y is the y coordinate, {@code 0 <= y < height}
+	 * @return the direction towards the exit, null for the exit position 
+	 */
+	public CardinalDirection getNextHop(int x, int y) {
+		// read the table first such that the exit position is visible as well
+		final byte[] hops = nextHops;
+		assert null != hops : "next hops are not computed";
+		if (isExitPosition(x, y))
+			return null;
+		int index = x*height+y;
+		return CardinalDirection.fromOrdinal((hops[index >> 2] >> ((index & 3) << 1)) & 3);
+	}
 
 	/**
 	 * Gets the starting position.
@@ -271,13 +475,50 @@ public class Distance {
 	 * @return the new maximum distance after the comparison
 	 */
 	private int keepMaxDistance(int x, int y, int d, int[] result) {
-		if (dists[x][y] > d) {
+		if (getDistanceValue(x, y) > d) {
 			result[0] = x;
 			result[1] = y;
-			d = dists[x][y];
+			d = getDistanceValue(x, y);
 		}
 		return d;
 	}
+	/**
+	 * Copies values from the mapped buffer or the compact encoding
+	 * into an array such that the array can be handed out or modified.
+	 * The copy is made once and synchronized, threads that ask for the
+	 * array at the same time all get the same one.
+	 * @return the array
+	 */
+	private synchronized int[][] copyMappedValues() {
+		if (null == copy) {
+			int[][] values;
+			if (null != succinct) {
+				values = succinct.toArray();
+			}
+			else {
+				values = new int[width][height];
+				for (int x = 0; x < width; x++) {
+					for (int y = 0; y < height; y++) {
+						values[x][y] = mapped.get(x*height+y);
+					}
+				}
+			}
+			copy = new MappedCopy(values);
+		}
+		return copy.dists;
+	}
+	/**
+	 * The distance values of a maze that is loaded from a memory mapped file
+	 * or a compact encoding once they are copied. The final field publishes
+	 * the complete array to threads that read without synchronization.
+	 */
+	private static final class MappedCopy {
+		final int[][] dists;
+
+		MappedCopy(int[][] dists) {
+			this.dists = dists;
+		}
+	}
 	/**
 	 * Get the position of the entry with the smallest value. 
 	 * If the values of the distance matrix are accurate,
@@ -289,10 +530,10 @@ public class Distance {
 		int[] result = new int[2] ;
 		for (int x = 0; x != width; x++)
 			for (int y = 0; y != height; y++) {
-				if (dists[x][y] < d) {
+				if (getDistanceValue(x, y) < d) {
 					result[0] = x;
 					result[1] = y;
-					d = dists[x][y];
+					d = getDistanceValue(x, y);
 				}
 			}
 		return result ;
@@ -365,9 +606,8 @@ public class Distance {
 			if (nextn == null)
 				break; // exit the loop if we cannot find another cell to proceed with
 			// update coordinates for next cell
-			int[] dir = nextn.getDxDyDirection();
-			sx += dir[0];
-			sy += dir[1];
+			sx += nextn.getDx();
+			sy += nextn.getDy();
 			// follow the nextn node on a depth-first-search path
 		}
 	}
@@ -407,19 +647,21 @@ public class Distance {
 	 * @return direction for a neighbor that has been updated or null if there is none
 	 */
 	private CardinalDirection updateNeighborDistancesAndDirection(Floorplan cells, int currentX, int currentY) {
+		cancellation.step(); // all loops of the distance computation come through here
 		CardinalDirection result = null; // returns null by default
 		int nextDistance = dists[currentX][currentY] + 1; // distance of a neighbor
-		int[] dir;
+		CardinalDirection cd;
 		int nextX;
 		int nextY;
 		// check all four directions, update distance as needed
-		for (CardinalDirection cd: CardinalDirection.values()) {
+		// note: loop over ordinals as values() allocates a new array per call
+		for (int i = 0; i < 4; i++) {
+			cd = CardinalDirection.fromOrdinal(i);
 			// check for reachable neighbors
 			if (cells.hasNoWall(currentX, currentY, cd)) {
 				// check if neighbor is on board
-				dir = cd.getDxDyDirection();
-				nextX = currentX+dir[0];
-				nextY = currentY+dir[1];
+				nextX = currentX+cd.getDx();
+				nextY = currentY+cd.getDy();
 				// check if cell at (nextX,nextY) is within bounds
 				if ((0 <= nextX && nextX < width) && (0 <= nextY && nextY < height)) {
 					// check if neigbor's distance needs update
@@ -442,7 +684,6 @@ public class Distance {
 	private void saturateDistances(Floorplan cells) {
 		boolean progress = false; 
 		//int count = 0;
-		int[] dir = null;
 		CardinalDirection nextn;
 		do {
 			progress = false; // reset termination criterion
@@ -455,8 +696,7 @@ public class Distance {
 					if (null != nextn) {
 						progress = true; // something changed
 						// follow neighbor on a depth-first-search path
-						dir = nextn.getDxDyDirection();
-						pushDistanceValuesDFS2(cells, x+dir[0], y+dir[1]);		
+						pushDistanceValuesDFS2(cells, x+nextn.getDx(), y+nextn.getDy());		
 					}
 				}
 			}
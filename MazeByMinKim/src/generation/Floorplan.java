@@ -2,6 +2,7 @@ package generation;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
+import java.nio.ShortBuffer;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -74,6 +75,8 @@ public class Floorplan {
 	//public static final int CW_RIGHT_BOUND = 256; // 2^8
 	//public static final int CW_ALL_BOUNDS = CW_TOP_BOUND|CW_BOT_BOUND|CW_LEFT_BOUND|CW_RIGHT_BOUND; // constant to simplify check if all all bounds are present
 	public static final int CW_IN_ROOM = 512; // 2^9
+	// wallboard bit for each direction indexed by ordinal, same mapping as in getCWConstantForDirection
+	private static final int[] WALL_BITS = {CW_TOP, CW_RIGHT, CW_BOT, CW_LEFT};
 	// we put all encodings into a single array such that it is easier to iterate over the array
 	// note that the numerical values are used for bitwise calculations 
 	// so a refactoring with other values in an enumeration can break the code
@@ -99,6 +102,20 @@ public class Floorplan {
 	// cells[i][j] is not intuitive in terms of rows and column indices in matrix notation 
 	// as position (i,j) would be column i and row j which is opposite to the normal  
 	// use of rows and columns indices for matrices.
+	// A floorplan that is loaded from a memory mapped file reads its values
+	// from the buffer with index x*height+y and has no cells array. 
+	// The values are only copied if a value needs to change. The copy is
+	// published through the final field of a MappedCopy, so a thread that sees
+	// the copy sees all its values, and the buffer is kept for threads that
+	// do not see the copy yet. Floorplans with a cells array never read the copy.
+	private final ShortBuffer mapped;
+	private MappedCopy copy;
+	// 64-bit Zobrist hash of the cell values: the xor of a random key for each bit
+	// that is set in some cell. It is kept up to date by setBitToOne and setBitToZero, 
+	// so the fingerprint of a finished maze is known without a scan.
+	// A floorplan that reads from a buffer computes it on first use.
+	private long fingerprint;
+	private volatile boolean hasFingerprint; // set after fingerprint such that readers see its value
 	
 	/**
 	 * Constructor
@@ -109,6 +126,8 @@ public class Floorplan {
 		width = w ;
 		height = h ;
 		cells = new int[w][h];
+		mapped = null;
+		hasFingerprint = true; // no bit is set
 	}
 
 	/**
@@ -124,6 +143,9 @@ public class Floorplan {
 		cells = new int[width][];
 		for(int i = 0; i < width; i++)
 		    cells[i] = input[i].clone(); // clone row
+		mapped = null;
+		fingerprint = computeFingerprint();
+		hasFingerprint = true;
 		/* Basic version
 		this(input.length, input[0].length);
 		for (int i = 0; i < width; i++) {
@@ -134,6 +156,26 @@ public class Floorplan {
 		*/
 	}
 	
+	/**
+	 * Constructor that reads cell values from the given buffer, 
+	 * one value per cell with index x*height+y.
+	 * Values are not copied, the buffer is typically a view on a memory mapped file
+	 * such that opening a floorplan does not depend on its size.
+	 * The floorplan copies the values into its own array 
+	 * before the first modification, the buffer is never written to.
+	 * The copy is synchronized and published through a final field, so threads that
+	 * read while another thread makes the first modification see either value.
+	 * @param w width, {@code 0 < w}
+	 * @param h height, {@code 0 < h}
+	 * @param values provides w*h cell values
+	 */
+	public Floorplan(int w, int h, ShortBuffer values) {
+		assert values.remaining() >= w*h : "buffer is too small for floorplan";
+		width = w ;
+		height = h ;
+		mapped = values;
+	}
+	
 	/**
 	 * Initialize floorplan such that all cells have not been visited,
 	 * all wallboards inside the maze are up,
@@ -164,6 +206,8 @@ public class Floorplan {
 	
 	/**
 	 * Equals method that checks if the other object matches in dimensions and content.
+	 * Floorplans with different fingerprints differ, so only floorplans
+	 * with the same fingerprint are compared cell by cell.
 	 * @param other provides fully functional floorplan object to compare its content
 	 */
 	@Override
@@ -179,23 +223,77 @@ public class Floorplan {
 		final Floorplan o = (Floorplan)other ; // type cast safe after checking class objects
 		if ((width != o.width)||(height != o.height))
 			return false ;
+		if (getFingerprint() != o.getFingerprint())
+			return false ;
 		for (int i = 0; i < width; i++) {
 			for (int j = 0; j < height; j++) {
-				if (cells[i][j] != o.cells[i][j])
+				if (getValueOfCell(i, j) != o.getValueOfCell(i, j))
 					return false ;
 			}
 		}
 		return true ;
 	}
 	/**
-	 * Hashcode method is not implemented as it is not needed here.
-	 * Dummy method to recognize common pitfall from overriding equals() but 
-	 * not hashcode() method.
+	 * Hashcode method that folds the fingerprint into an int,
+	 * consistent with equals and free of charge.
 	 */
 	@Override
 	public int hashCode() {
-		  assert false : "hashCode not designed";
-		  return 42; // any arbitrary constant will do
+		long hash = getFingerprint();
+		return (int)(hash ^ (hash >>> 32));
+	}
+	/**
+	 * Gives a 64-bit fingerprint of the cell values.
+	 * Equal floorplans have the same fingerprint, different floorplans
+	 * have the same fingerprint with a probability of about 2^-64,
+	 * so it can serve as a key for mazes in caches and stores.
+	 * The fingerprint is a Zobrist hash that is updated with each change of a cell,
+	 * it is only computed from scratch for a floorplan that reads its values
+	 * from a buffer and only once.
+	 * Note that the dimensions do not enter the fingerprint.
+	 * @return the fingerprint of the current content
+	 */
+	public long getFingerprint() {
+		if (!hasFingerprint) {
+			fingerprint = computeFingerprint();
+			hasFingerprint = true;
+		}
+		return fingerprint;
+	}
+	/**
+	 * Computes the Zobrist hash over all cells
+	 * @return xor of the keys of all bits that are set
+	 */
+	private long computeFingerprint() {
+		long hash = 0;
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				hash ^= getKeys(x, y, getValueOfCell(x, y));
+			}
+		}
+		return hash;
+	}
+	/**
+	 * Gives the xor of the Zobrist keys for the given bits of cell (x,y).
+	 * The keys are not stored in a table which would take more space than 
+	 * the cells, they are obtained by mixing cell index and bit position
+	 * with the finalizer of the SplitMix64 generator.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param bits bitmask with the bits whose keys are needed
+	 * @return xor of the keys, 0 if no bit is given
+	 */
+	private long getKeys(int x, int y, int bits) {
+		long result = 0;
+		long cell = ((long)x*height + y) << 5;
+		while (0 != bits) {
+			long z = (cell | Integer.numberOfTrailingZeros(bits)) * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+			z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+			z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+			result ^= z ^ (z >>> 31);
+			bits &= bits - 1; // clear lowest bit
+		}
+		return result;
 	}
 	/**
 	 * Get the value of a cell at the given position (x,y).
@@ -206,7 +304,12 @@ public class Floorplan {
 	 */
 	public int getValueOfCell( int x, int y )
 	{
-		return cells[x][y] ;
+		if (null != cells)
+			return cells[x][y] ;
+		final MappedCopy values = copy;
+		if (null != values)
+			return values.cells[x][y] ;
+		return mapped.get(x*height+y) & 0xFFFF ;
 	}
 	
 	/**
@@ -220,9 +323,9 @@ public class Floorplan {
 	public boolean canTearDown(Wallboard wallboard) {
 		int x = wallboard.getX();
 		int y = wallboard.getY();
-		int[] d = wallboard.getDirection().getDxDyDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		CardinalDirection cd = wallboard.getDirection() ;
+		int dx = cd.getDx();
+		int dy = cd.getDy();
 		// borders limit rooms (but for potential doors) and the outside limit of the maze
 		if (hasBorder(x, y, dx, dy))
 			return false;
@@ -241,9 +344,9 @@ public class Floorplan {
 	public boolean isPartOfBorder(Wallboard wallboard) {
 		int x = wallboard.getX();
 		int y = wallboard.getY();
-		int[] d = wallboard.getDirection().getDxDyDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		CardinalDirection cd = wallboard.getDirection() ;
+		int dx = cd.getDx();
+		int dy = cd.getDy();
 		// borders limit rooms (but for potential doors) 
 		// and the outside limit of the maze
 		return hasBorder(x, y, dx, dy);
@@ -583,12 +686,14 @@ public class Floorplan {
 	public void addWallboard(Wallboard wallboard, boolean internalWall) {
 		int x = wallboard.getX();
 		int y = wallboard.getY();
-		int[] d = wallboard.getDirection().getDxDyDirection() ;
+		CardinalDirection cd = wallboard.getDirection() ;
+		int dx = cd.getDx();
+		int dy = cd.getDy();
 		// add wallboard on (x,y)
-		setWallToOne(x, y, d[0], d[1]);
+		setWallToOne(x, y, dx, dy);
 		// add same wallboard but for adjacent cell
 		if (internalWall)
-			setWallToOne(x+d[0], y+d[1], -d[0], -d[1]);
+			setWallToOne(x+dx, y+dy, -dx, -dy);
 	}
 
 	/**
@@ -603,9 +708,9 @@ public class Floorplan {
 	public void deleteWallboard(Wallboard wallboard) {
 		int x = wallboard.getX();
 		int y = wallboard.getY();
-		int[] d = wallboard.getDirection().getDxDyDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		CardinalDirection cd = wallboard.getDirection() ;
+		int dx = cd.getDx();
+		int dy = cd.getDy();
 		// delete wallboard on (x,y)
 		setWallToZero(x, y, dx, dy);
 		// delete same wallboard but for adjacent cell
@@ -742,6 +847,36 @@ public class Floorplan {
 			throw new RuntimeException("Unsupported value in enum type") ;
 		}
 	}
+	/**
+	 * Gives the matching bit encoded value for a direction given by its ordinal,
+	 * same as getCWConstantForDirection but a table lookup for loops over all directions.
+	 * @param ordinal of the CardinalDirection, {@code 0 <= ordinal < 4}
+	 * @return the matching integer value (CW_ constant)
+	 */
+	static int getWallbit(int ordinal) {
+		return WALL_BITS[ordinal];
+	}
+	/**
+	 * Gives the wallboards of a cell towards other cells.
+	 * Sides on the border of the maze count as wallboards, so the opening
+	 * of the exit is closed as it leads outside and not to another cell.
+	 * This is how graph and path algorithms see a cell.
+	 * @param x coordinate of cell, {@code 0 <= x < width}
+	 * @param y coordinate of cell, {@code 0 <= y < height}
+	 * @return the CW_TOP, BOT, LEFT, RIGHT bits of the cell with border sides added
+	 */
+	int getInnerWallbits(int x, int y) {
+		int value = getValueOfCell(x, y) & CW_ALL;
+		if (0 == x)
+			value |= CW_LEFT;
+		if (width-1 == x)
+			value |= CW_RIGHT;
+		if (0 == y)
+			value |= CW_TOP;
+		if (height-1 == y)
+			value |= CW_BOT;
+		return value;
+	}
 	////////////////// iterator to access continuous sequences of wallboards //////////////////////////////////////////
 	public Iterator<int[]> iterator(int x, int y, CardinalDirection cd) {
         return new SequenceIterator(x,y,cd);
@@ -836,68 +971,122 @@ public class Floorplan {
             switch(cd) {
             case North: /* same code as for South */
             case South:
-                startX = findBeginningOfHorizontalSequence(startX, startY);
+                startX = findBeginningOfHorizontalSequence(startX, startY, cd);
                 if (startX == width) // no sequence
                     return null;
                 result = new int[2];
                 result[0] = startX;
-                startX = findEndOfHorizontalSequence(startX, startY);
+                startX = findEndOfHorizontalSequence(startX, startY, cd);
                 result[1] = startX;
                 break;
             case East: /* same code as for west */ 
             case West:
-                startY = findBeginningOfVerticalSequence(startX, startY);
+                startY = findBeginningOfVerticalSequence(startX, startY, cd);
                 if (startY == height) // no sequence
                     return null;
                 result = new int[2];
                 result[0] = startY;
-                startY = findEndOfVerticalSequence(startX, startY);
+                startY = findEndOfVerticalSequence(startX, startY, cd);
                 result[1] = startY;
                 break;
             }
             return result;
         }
-        private int findBeginningOfVerticalSequence(final int x, int y) {
-            while (y < height && hasNoWall(x, y, cd)) {
-                y++;
-            } 
-            return y;
-        }
-        private int findBeginningOfHorizontalSequence(int x, final int y) {
-            while (x < width && hasNoWall(x, y, cd)) {
-                x++;
-            } 
-            return x;
-        }
-        private int findEndOfVerticalSequence(final int x, int y) {
-            while (hasWall(x, y, cd)) {
-                y++;
-                // at limit, return
-                if (y == height) 
-                    break;
-                // at a crossing wallboard: as we go down, we hit a ceiling, a corner
-                // if the neighbor (x incremented already) has wallboard on the north side
-                // same as hasWall(x, y-1, CardinalDirection.South)
-                if (hasWall(x, y, CardinalDirection.North))
-                    break;
+                    }
+    /**
+     * Finds all continuous sequences of wallboards in a row or column in one go.
+     * Delivers the same [start,end] pairs as {@link #iterator(int, int, CardinalDirection) iterator}
+     * in the same order but writes them into the given buffer instead of 
+     * allocating an array for each sequence, so a caller can reuse
+     * the buffer for all rows and columns of the maze.
+     * If the given direction is North or South, the method looks for 
+     * horizontal sequences in row y, else for vertical sequences in column x.
+     * @param x x-coordinate of first cell to consider
+     * @param y y-coordinate of first cell to consider
+     * @param cd gives the direction of interest
+     * @param spans receives start and end of the i-th sequence at index 2i and 2i+1,
+     * a length of 2*width for rows and 2*height for columns is sufficient
+     * as a crossing wallboard can end a sequence after a single cell
+     * @return the number of sequences
+     */
+    int findWallSequences(int x, int y, CardinalDirection cd, int[] spans) {
+        int count = 0;
+        switch(cd) {
+        case North: /* same code as for South */
+        case South:
+            while ((x = findBeginningOfHorizontalSequence(x, y, cd)) != width) {
+                spans[count++] = x;
+                x = findEndOfHorizontalSequence(x, y, cd);
+                spans[count++] = x;
             }
-            return y;
-        }
-        private int findEndOfHorizontalSequence(int x, final int y) {
-            while (hasWall(x,y, cd)) {
-                x++;
-                // at limit, return
-                if (x == width)
-                    break;
-                // at a crossing wallboard: as we go east, we hit a blocking wallboard, 
-                // if the neighbor (x incremented already) has wallboard on the west side
-                // this is the same as hasWall(x-1,y, CardinalDirection.East)
-                if (hasWall(x,y, CardinalDirection.West))
-                    break;
+            break;
+        case East: /* same code as for west */ 
+        case West:
+            while ((y = findBeginningOfVerticalSequence(x, y, cd)) != height) {
+                spans[count++] = y;
+                y = findEndOfVerticalSequence(x, y, cd);
+                spans[count++] = y;
             }
-            return x;
+            break;
         }
-                    }
+        return count/2;
+    }
+    /**
+     * Finds the first cell at or below (x,y) with a wallboard in the given direction.
+     * @return its y coordinate, height if there is none
+     */
+    private int findBeginningOfVerticalSequence(final int x, int y, CardinalDirection cd) {
+        while (y < height && hasNoWall(x, y, cd)) {
+            y++;
+        } 
+        return y;
+    }
+    /**
+     * Finds the first cell at or east of (x,y) with a wallboard in the given direction.
+     * @return its x coordinate, width if there is none
+     */
+    private int findBeginningOfHorizontalSequence(int x, final int y, CardinalDirection cd) {
+        while (x < width && hasNoWall(x, y, cd)) {
+            x++;
+        } 
+        return x;
+    }
+    /**
+     * Finds the end of the vertical sequence of wallboards that starts at (x,y).
+     * @return y coordinate of the first cell beyond the sequence
+     */
+    private int findEndOfVerticalSequence(final int x, int y, CardinalDirection cd) {
+        while (hasWall(x, y, cd)) {
+            y++;
+            // at limit, return
+            if (y == height) 
+                break;
+            // at a crossing wallboard: as we go down, we hit a ceiling, a corner
+            // if the neighbor (x incremented already) has wallboard on the north side
+            // same as hasWall(x, y-1, CardinalDirection.South)
+            if (hasWall(x, y, CardinalDirection.North))
+                break;
+        }
+        return y;
+    }
+    /**
+     * Finds the end of the horizontal sequence of wallboards that starts at (x,y).
+     * @return x coordinate of the first cell beyond the sequence
+     */
+    private int findEndOfHorizontalSequence(int x, final int y, CardinalDirection cd) {
+        while (hasWall(x,y, cd)) {
+            x++;
+            // at limit, return
+            if (x == width)
+                break;
+            // at a crossing wallboard: as we go east, we hit a blocking wallboard, 
+            // if the neighbor (x incremented already) has wallboard on the west side
+            // this is the same as hasWall(x-1,y, CardinalDirection.East)
+            if (hasWall(x,y, CardinalDirection.West))
+                break;
+        }
+        return x;
+    }
 	////////////////// low level methods operating on bits and bitmasks //////////////////////////////////////////
 	//  long term goal is to make all of these methods private to encapsulate the encoding ///////////////////////
 	/**
@@ -907,7 +1096,9 @@ public class Floorplan {
 	 * @param cw_bit like CW_LEFT, CW_RIGHT, CW_TOP, CW_BOTTOM
 	 */
 	private void setBitToZero(int x, int y, int cw_bit) {
-		cells[x][y] &= ~cw_bit;
+		final int[][] values = getWritableCells();
+		fingerprint ^= getKeys(x, y, values[x][y] & cw_bit);
+		values[x][y] &= ~cw_bit;
 	}
 	/**
 	 * Sets all wallboard bits to zero for a given cell
@@ -924,10 +1115,10 @@ public class Floorplan {
 	// better to directly change client classes
 	//
 	protected boolean hasMaskedBitsTrue(int x, int y, int bitmask) {
-		return (cells[x][y] & bitmask) != 0;
+		return (getValueOfCell(x, y) & bitmask) != 0;
 	}
 	protected boolean hasMaskedBitsFalse(int x, int y, int bitmask) {
-		return (cells[x][y] & bitmask) == 0;
+		return (getValueOfCell(x, y) & bitmask) == 0;
 	}
 
 	/**
@@ -959,7 +1150,53 @@ public class Floorplan {
 	 * @param bitmask is the bitmask to use for adding 1's
 	 */
 	private void setBitToOne(int x, int y, int bitmask) {
-		cells[x][y] |= bitmask ;
+		final int[][] values = getWritableCells();
+		fingerprint ^= getKeys(x, y, ~values[x][y] & bitmask);
+		values[x][y] |= bitmask ;
+	}
+	/**
+	 * Gives the array that changes go to, for a floorplan that 
+	 * is loaded from a memory mapped file this is its copy
+	 * @return the array of cell values
+	 */
+	private int[][] getWritableCells() {
+		if (null != cells)
+			return cells;
+		final MappedCopy values = copy;
+		if (null != values)
+			return values.cells;
+		return copyMappedValues();
+	}
+	/**
+	 * Copies values from the mapped buffer into an array 
+	 * such that they can be modified.
+	 * Makes sure the fingerprint is known before it gets updated.
+	 * @return the array of cell values
+	 */
+	private synchronized int[][] copyMappedValues() {
+		if (null == copy) {
+			getFingerprint();
+			int[][] values = new int[width][height];
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) {
+					values[x][y] = mapped.get(x*height+y) & 0xFFFF;
+				}
+			}
+			copy = new MappedCopy(values);
+		}
+		return copy.cells;
+	}
+	/**
+	 * The values of a floorplan that is loaded from a memory mapped file
+	 * once they are copied. The final field publishes the complete array
+	 * to threads that read without synchronization.
+	 */
+	private static final class MappedCopy {
+		final int[][] cells;
+
+		MappedCopy(int[][] cells) {
+			this.cells = cells;
+		}
 	}
 
 	///////////////// code for debugging ///////////////////////////////////////
@@ -977,7 +1214,7 @@ public class Floorplan {
 		{
 			prefix = " i:" + i + " j:";
 			for (int j = 0 ; j < height ; j++)
-				s += prefix + j + "=" + cells[i][j] ;
+				s += prefix + j + "=" + getValueOfCell(i, j) ;
 			s += "\n" ;
 		}
 		return s ;
@@ -0,0 +1,164 @@
+package generation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Records how much wall clock time, cpu time and memory
+ * each phase of a maze generation takes.
+ * The MazeBuilder measures its phases with start and stop
+ * and attaches the result to the maze it delivers, see
+ * {@link Maze#getGenerationMetrics()}.
+ * Each phase is also emitted as a GenerationPhaseEvent
+ * for Java Flight Recorder.
+ *
+ * All phases are measured on the thread of the MazeBuilder.
+ * Cpu time and allocated bytes are -1 if the JVM can not measure them.
+ * The delivery phase ends right before the order receives the maze,
+ * so the metrics do not change once the maze is delivered.
+ * A phase that did not run has all values 0.
+ *
+ * @author Min Kim
+ *
+ */
+public class GenerationMetrics {
+	/**
+	 * Phases of the maze generation in the order they happen.
+	 */
+	public enum Phase { ROOMS, PATHWAYS, DISTANCES, WALLS, BSP, DELIVERY } ;
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private final String builder; // name of the algorithm that carves the pathways
+	private final long[] wallTime = new long[Phase.values().length]; // in nanoseconds
+	private final long[] cpuTime = new long[Phase.values().length]; // in nanoseconds
+	private final long[] allocatedBytes = new long[Phase.values().length];
+
+	// the current phase and its values at the start
+	private Phase current;
+	private long startWallTime;
+	private long startCpuTime;
+	private long startAllocatedBytes;
+	private GenerationPhaseEvent event;
+
+	/**
+	 * Constructor
+	 * @param builder is the name of the builder algorithm
+	 */
+	public GenerationMetrics(String builder) {
+		this.builder = builder;
+	}
+
+	/**
+	 * Starts to measure the given phase on the current thread
+	 * @param phase that is about to begin
+	 */
+	void start(Phase phase) {
+		current = phase;
+		event = new GenerationPhaseEvent();
+		event.begin();
+		startAllocatedBytes = getCurrentThreadAllocatedBytes();
+		startCpuTime = getCurrentThreadCpuTime();
+		startWallTime = System.nanoTime();
+	}
+
+	/**
+	 * Stops to measure the given phase, records its values and
+	 * emits the corresponding event.
+	 * Must be called on the thread that started the phase.
+	 * @param phase that just ended, must be the one given to start
+	 */
+	void stop(Phase phase) {
+		assert current == phase : "Phase " + phase + " stopped while measuring " + current;
+		long wall = System.nanoTime() - startWallTime;
+		long cpu = getCurrentThreadCpuTime();
+		long allocated = getCurrentThreadAllocatedBytes();
+		event.end();
+		int i = phase.ordinal();
+		wallTime[i] = wall;
+		cpuTime[i] = (cpu < 0 || startCpuTime < 0) ? -1 : cpu - startCpuTime;
+		allocatedBytes[i] = (allocated < 0 || startAllocatedBytes < 0) ? -1 : allocated - startAllocatedBytes;
+		if (event.shouldCommit()) {
+			event.builder = builder;
+			event.phase = phase.name();
+			event.cpuTime = cpuTime[i];
+			event.allocatedBytes = allocatedBytes[i];
+			event.commit();
+		}
+		event = null;
+		current = null;
+	}
+
+	/**
+	 * @return the name of the builder algorithm
+	 */
+	public String getBuilder() {
+		return builder;
+	}
+	/**
+	 * @param phase of interest
+	 * @return wall clock time of the phase in nanoseconds
+	 */
+	public long getWallTime(Phase phase) {
+		return wallTime[phase.ordinal()];
+	}
+	/**
+	 * @param phase of interest
+	 * @return cpu time of the phase in nanoseconds, -1 if not available
+	 */
+	public long getCpuTime(Phase phase) {
+		return cpuTime[phase.ordinal()];
+	}
+	/**
+	 * @param phase of interest
+	 * @return number of bytes allocated during the phase, -1 if not available
+	 */
+	public long getAllocatedBytes(Phase phase) {
+		return allocatedBytes[phase.ordinal()];
+	}
+	/**
+	 * Gives the sum of the wall clock times of all phases.
+	 * Pauses between phases are not included.
+	 * @return total wall clock time in nanoseconds
+	 */
+	public long getTotalWallTime() {
+		long total = 0;
+		for (long time : wallTime) {
+			total += time;
+		}
+		return total;
+	}
+
+	/**
+	 * Gives all values in a single line for logging,
+	 * times in milliseconds and memory in kilobytes.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("Generation with ").append(builder).append(':');
+		for (Phase phase : Phase.values()) {
+			int i = phase.ordinal();
+			sb.append(' ').append(phase.name().toLowerCase())
+				.append(" wall=").append(wallTime[i] / 1000000).append("ms")
+				.append(" cpu=").append(cpuTime[i] < 0 ? -1 : cpuTime[i] / 1000000).append("ms")
+				.append(" alloc=").append(allocatedBytes[i] < 0 ? -1 : allocatedBytes[i] / 1024).append("kB");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return cpu time of the current thread in nanoseconds, -1 if not supported
+	 */
+	private static long getCurrentThreadCpuTime() {
+		return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+	}
+	/**
+	 * @return bytes allocated by the current thread so far, -1 if not supported
+	 */
+	private static long getCurrentThreadAllocatedBytes() {
+		if (THREADS instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes();
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,36 @@
+package generation;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for a single phase of a maze generation.
+ * The duration of the event is the wall clock time of the phase.
+ * Events are created and committed by GenerationMetrics.
+ *
+ * @author Min Kim
+ *
+ */
+@Name("generation.Phase")
+@Label("Maze Generation Phase")
+@Category("Maze")
+@Description("A phase of the maze generation in the MazeBuilder")
+class GenerationPhaseEvent extends jdk.jfr.Event {
+	@Label("Builder")
+	String builder;
+
+	@Label("Phase")
+	String phase;
+
+	@Label("CPU Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long cpuTime;
+
+	@Label("Allocated")
+	@DataAmount(DataAmount.BYTES)
+	long allocatedBytes;
+}
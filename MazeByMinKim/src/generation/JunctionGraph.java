@@ -0,0 +1,335 @@
+package generation;
+
+import java.util.Arrays;
+
+/**
+ * A compact graph of a maze where corridors are single edges.
+ * Most cells of a perfect maze have exactly two openings and a walk
+ * through them has no choice to make, so stepping through them one at
+ * a time only costs time. The junction graph keeps as nodes the cells
+ * with one, three or four openings, i.e. dead ends and junctions, plus
+ * the start and exit positions. An edge is a corridor between two
+ * nodes, its weight is the number of steps and it knows the cells on
+ * the way, such that a path in the graph can be turned into single steps.
+ *
+ * Edges are kept in compressed sparse row form: the edges of node n
+ * are the ones from getFirstEdge(n) up to getFirstEdge(n+1), each
+ * corridor shows up as an edge for both of its ends. Nodes are numbered
+ * in the order they are found, edges of a node in the order of their corridors.
+ *
+ * The graph is built in a single pass over the floorplan: each node
+ * walks each of its corridors until the next node and marks the cells
+ * on the way, a corridor that was walked from the other end already
+ * is not walked again. Openings to the outside do not count.
+ * A closed loop of corridor cells without any node can not be reached
+ * from anywhere else and is left out.
+ * The graph is a copy and does not see later changes to the floorplan.
+ *
+ * @author Min Kim
+ *
+ */
+public final class JunctionGraph {
+	/**
+	 * Entry in the cell table for a cell that has not been seen yet.
+	 */
+	private static final int UNSEEN = -1;
+
+	private final Floorplan floorplan;
+	private final int width;
+	private final int height;
+	private final int[] offsets; // index offset of the neighbor for each direction, indexed by ordinal
+	// node id for nodes, -(corridor+2) for cells on a corridor, UNSEEN otherwise; index x*height+y
+	private final int[] cellIds;
+	private int[] nodeCells = new int[64]; // cell index of each node
+	private int nodeCount;
+	// corridors in the direction they were walked
+	private int[] corridorFrom = new int[64]; // node at the start
+	private int[] corridorTo = new int[64]; // node at the end
+	private int[] corridorStarts = new int[65]; // first cell of each corridor in corridorCells
+	private int[] corridorCells = new int[256]; // cell index of the cells between the two nodes
+	private int corridorCount;
+	// compressed sparse row form
+	private final int[] firstEdges; // first edge of each node, one more for the end of the last
+	private final int[] edgeTargets; // node at the other end
+	private final int[] edgeCorridors; // corridor << 1, lowest bit set if the edge runs against the corridor
+
+	/**
+	 * Builds the junction graph for a maze
+	 * @param maze a fully initialized maze
+	 * @return the junction graph
+	 */
+	public static JunctionGraph of(Maze maze) {
+		int[] start = maze.getStartingPosition();
+		int[] exit = maze.getExitPosition();
+		return new JunctionGraph(maze.getFloorplan(), maze.getWidth(), maze.getHeight(),
+				CellIndex.pack(start[0], start[1]), CellIndex.pack(exit[0], exit[1]));
+	}
+
+	/**
+	 * Constructor
+	 * @param floorplan with the wallboards of the maze, read only
+	 * @param width of the maze
+	 * @param height of the maze
+	 * @param start packed starting position, a node whatever its openings, CellIndex.NONE for none
+	 * @param exit packed exit position, a node whatever its openings, CellIndex.NONE for none
+	 */
+	public JunctionGraph(Floorplan floorplan, int width, int height, int start, int exit) {
+		this.floorplan = floorplan;
+		this.width = width;
+		this.height = height;
+		offsets = new int[4];
+		for (CardinalDirection cd : CardinalDirection.values()) {
+			offsets[cd.ordinal()] = cd.getDx()*height + cd.getDy();
+		}
+		cellIds = new int[width*height];
+		Arrays.fill(cellIds, UNSEEN);
+		// start and exit are nodes first, so they get the lowest ids
+		if (CellIndex.NONE != start)
+			getNodeId(CellIndex.getX(start)*height + CellIndex.getY(start));
+		if (CellIndex.NONE != exit)
+			getNodeId(CellIndex.getX(exit)*height + CellIndex.getY(exit));
+		for (int cell = 0; cell < width*height; cell++) {
+			if (cellIds[cell] >= 0 || (UNSEEN == cellIds[cell] && isJunction(cell)))
+				walkCorridors(cell);
+		}
+		firstEdges = new int[nodeCount+1];
+		edgeTargets = new int[2*corridorCount];
+		edgeCorridors = new int[2*corridorCount];
+		toRows();
+	}
+
+	/**
+	 * Gives the wallboards of a cell with the openings to the outside closed
+	 * @param cell cell index
+	 * @return the wallboard bits
+	 */
+	private int getWalls(int cell) {
+		int x = cell / height;
+		return floorplan.getInnerWallbits(x, cell - x*height);
+	}
+
+	/**
+	 * Tells if a cell has other than two openings
+	 * @param cell cell index
+	 * @return true for a dead end or a junction, false for a corridor
+	 */
+	private boolean isJunction(int cell) {
+		return Integer.bitCount(getWalls(cell)) != 2;
+	}
+
+	/**
+	 * Gives the node id of a cell that is a node, a new one if the cell was not seen before
+	 * @param cell cell index
+	 * @return the node id
+	 */
+	private int getNodeId(int cell) {
+		if (cellIds[cell] >= 0)
+			return cellIds[cell];
+		if (nodeCount == nodeCells.length)
+			nodeCells = Arrays.copyOf(nodeCells, 2*nodeCount);
+		nodeCells[nodeCount] = cell;
+		cellIds[cell] = nodeCount;
+		return nodeCount++;
+	}
+
+	/**
+	 * Walks all corridors of a node that were not walked before.
+	 * A corridor without cells between two nodes is taken from the node with the lower cell index.
+	 * @param cell cell index of the node
+	 */
+	private void walkCorridors(int cell) {
+		final int from = getNodeId(cell);
+		final int walls = getWalls(cell);
+		for (int i = 0; i < 4; i++) {
+			if ((walls & Floorplan.getWallbit(i)) != 0)
+				continue; // there is a wallboard in the way
+			int next = cell + offsets[i];
+			if (cellIds[next] < UNSEEN)
+				continue; // walked from the other end
+			boolean node = cellIds[next] >= 0 || isJunction(next);
+			if (node && next < cell)
+				continue; // taken from the other end
+			int corridor = corridorCount++;
+			if (corridor == corridorFrom.length) {
+				corridorFrom = Arrays.copyOf(corridorFrom, 2*corridor);
+				corridorTo = Arrays.copyOf(corridorTo, 2*corridor);
+				corridorStarts = Arrays.copyOf(corridorStarts, 2*corridor+1);
+			}
+			int length = corridorStarts[corridor];
+			int back = (i + 2) & 3; // direction to the cell we came from
+			while (!node) {
+				if (length == corridorCells.length)
+					corridorCells = Arrays.copyOf(corridorCells, 2*length);
+				corridorCells[length++] = next;
+				cellIds[next] = -(corridor+2);
+				// the only other opening leads on
+				int open = ~getWalls(next) & ~Floorplan.getWallbit(back) & Floorplan.CW_ALL;
+				int j = 0;
+				while ((open & Floorplan.getWallbit(j)) == 0) {
+					j++;
+				}
+				next += offsets[j];
+				back = (j + 2) & 3;
+				node = cellIds[next] >= 0 || (UNSEEN == cellIds[next] && isJunction(next));
+			}
+			corridorFrom[corridor] = from;
+			corridorTo[corridor] = getNodeId(next);
+			corridorStarts[corridor+1] = length;
+		}
+	}
+
+	/**
+	 * Sorts the corridors into the edges of their end nodes.
+	 */
+	private void toRows() {
+		for (int c = 0; c < corridorCount; c++) {
+			firstEdges[corridorFrom[c]+1]++;
+			firstEdges[corridorTo[c]+1]++;
+		}
+		for (int n = 0; n < nodeCount; n++) {
+			firstEdges[n+1] += firstEdges[n];
+		}
+		int[] next = Arrays.copyOf(firstEdges, nodeCount);
+		for (int c = 0; c < corridorCount; c++) {
+			int e = next[corridorFrom[c]]++;
+			edgeTargets[e] = corridorTo[c];
+			edgeCorridors[e] = c << 1;
+			e = next[corridorTo[c]]++;
+			edgeTargets[e] = corridorFrom[c];
+			edgeCorridors[e] = (c << 1) | 1;
+		}
+	}
+
+	/**
+	 * Gives the number of nodes
+	 * @return the number of dead ends, junctions and start and exit positions
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Gives the number of edges, twice the number of corridors
+	 * @return the number of edges
+	 */
+	public int getEdgeCount() {
+		return edgeTargets.length;
+	}
+
+	/**
+	 * Gives the node at a position
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return the node, -1 if the position is not a node
+	 */
+	public int getNode(int x, int y) {
+		int id = cellIds[x*height+y];
+		return (id >= 0) ? id : -1;
+	}
+
+	/**
+	 * Gives the position of a node
+	 * @param node the node, {@code 0 <= node < getNodeCount()}
+	 * @return the packed position, see CellIndex
+	 */
+	public int getPosition(int node) {
+		int cell = nodeCells[node];
+		return CellIndex.pack(cell / height, cell % height);
+	}
+
+	/**
+	 * Gives the first edge of a node, the edges of a node end where the ones of the next node start
+	 * @param node the node, {@code 0 <= node <= getNodeCount()}
+	 * @return the first edge, getEdgeCount() for getNodeCount()
+	 */
+	public int getFirstEdge(int node) {
+		return firstEdges[node];
+	}
+
+	/**
+	 * Gives the node at the other end of an edge
+	 * @param edge the edge, {@code 0 <= edge < getEdgeCount()}
+	 * @return the node
+	 */
+	public int getTarget(int edge) {
+		return edgeTargets[edge];
+	}
+
+	/**
+	 * Gives the number of steps along an edge
+	 * @param edge the edge, {@code 0 <= edge < getEdgeCount()}
+	 * @return the number of cells of the corridor plus one
+	 */
+	public int getWeight(int edge) {
+		int corridor = edgeCorridors[edge] >>> 1;
+		return corridorStarts[corridor+1] - corridorStarts[corridor] + 1;
+	}
+
+	/**
+	 * Gives the cells between the two nodes of an edge
+	 * @param edge the edge, {@code 0 <= edge < getEdgeCount()}
+	 * @return packed positions in the order of the steps from the node of the edge
+	 * to its target, both nodes excluded
+	 */
+	public int[] getCells(int edge) {
+		int corridor = edgeCorridors[edge] >>> 1;
+		boolean reversed = (edgeCorridors[edge] & 1) != 0;
+		int first = corridorStarts[corridor];
+		int[] result = new int[corridorStarts[corridor+1] - first];
+		for (int i = 0; i < result.length; i++) {
+			int cell = corridorCells[reversed ? first + result.length-1 - i : first + i];
+			result[i] = CellIndex.pack(cell / height, cell % height);
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the number of steps from a node to all nodes with Dijkstra's algorithm.
+	 * @param source the node to start from
+	 * @return the number of steps for each node, Integer.MAX_VALUE if it can not be reached
+	 */
+	public int[] getDistances(int source) {
+		int[] dists = new int[nodeCount];
+		Arrays.fill(dists, Integer.MAX_VALUE);
+		dists[source] = 0;
+		// entries hold the distance in the upper half and the node in the lower half
+		long[] heap = new long[Math.max(16, nodeCount)];
+		int size = 0;
+		heap[size++] = source;
+		while (size > 0) {
+			long top = heap[0];
+			long last = heap[--size];
+			int i = 0;
+			for (int child = 1; child < size; child = 2*i + 1) {
+				if (child + 1 < size && heap[child+1] < heap[child])
+					child++;
+				if (last <= heap[child])
+					break;
+				heap[i] = heap[child];
+				i = child;
+			}
+			heap[i] = last;
+			int node = (int) top;
+			int d = (int) (top >>> 32);
+			if (d > dists[node])
+				continue; // reached on a shorter path after this entry was added
+			for (int e = firstEdges[node]; e < firstEdges[node+1]; e++) {
+				int target = edgeTargets[e];
+				int next = d + getWeight(e);
+				if (next >= dists[target])
+					continue;
+				dists[target] = next;
+				if (size == heap.length)
+					heap = Arrays.copyOf(heap, 2*size);
+				long entry = ((long) next << 32) | target;
+				int j = size++;
+				while (j > 0 && heap[(j-1) >>> 1] > entry) {
+					heap[j] = heap[(j-1) >>> 1];
+					j = (j-1) >>> 1;
+				}
+				heap[j] = entry;
+			}
+		}
+		return dists;
+	}
+}
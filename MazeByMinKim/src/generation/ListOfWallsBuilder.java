@@ -1,8 +1,10 @@
 package generation;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import gui.Constants;
 
@@ -20,11 +22,20 @@ import gui.Constants;
  *
  */
 public class ListOfWallsBuilder {
+	/**
+	 * Number of rows or columns from which on they are scanned in parallel chunks.
+	 */
+	static final int PARALLEL_LINES = 128;
+	/**
+	 * Number of rows or columns per parallel chunk.
+	 */
+	static final int CHUNK_LINES = 32;
 	private final int width ; 				// width of maze
 	private final int height ; 				// height of maze
 	private final Distance dists ; 			// distance matrix
 	private final Floorplan floorplan ;		// floorplan with maze layout
 	private int colchange;
+	private final CancellationToken cancellation; // checked once per row and column, by any thread
 	
 	/**
 	 * Constructor
@@ -35,6 +46,19 @@ public class ListOfWallsBuilder {
 	 * @param colchange 
 	 */
 	public ListOfWallsBuilder(int width, int height, Floorplan floorplan, Distance dists, int colchange) {
+		this(width, height, floorplan, dists, colchange, CancellationToken.NONE);
+	}
+	/**
+	 * Constructor for a wall extraction that stops if the generation is cancelled
+	 * @param width the width of the maze
+	 * @param height the height of the maze
+	 * @param floorplan the floorplan with the location of wallboards
+	 * @param dists the distances to the exit
+	 * @param colchange 
+	 * @param cancellation is checked for a request to stop, not null
+	 */
+	ListOfWallsBuilder(int width, int height, Floorplan floorplan, Distance dists, int colchange, CancellationToken cancellation) {
+		this.cancellation = cancellation;
 		this.floorplan = floorplan;
 		this.width = width;
 		this.height = height;
@@ -42,85 +66,123 @@ public class ListOfWallsBuilder {
 		this.colchange = colchange;
 	}
 	/**
-	 * Identifies continuous sequences of wallboards on the maze and fills the wall list 
+	 * Identifies continuous sequences of wallboards on the maze and fills the wall list.
+	 * Rows are scanned for horizontal walls first, then columns for vertical walls.
+	 * Large mazes are scanned in chunks of rows or columns in parallel,
+	 * the chunks are put together in order such that the list is the same.
 	 * @return vector of walls
 	 */
 	public List<Wall> generateWalls() {
 		ArrayList<Wall> result = new ArrayList<>();
-		generateWallsForHorizontalWallboards(result); 
-		generateWallsForVerticalWallboards(result);
+		generateWalls(true, height, result); 
+		generateWalls(false, width, result);
 		// starting positions for walls seem to be chosen such that walls represent top or left wallboards
 		return result ;
 	}
 
 	/**
-     * Identify continuous sequences of wallboards in a vertical direction
-     * @param sl the list of walls that carries the result of the computation
-     */
-	   private void generateWallsForVerticalWallboards(ArrayList<Wall> sl) {
-	        int x;
-	        int y;
-	        Iterator<int[]> it;
-	        int[] cur;
-	        // we search for vertical wallboards, so for each row
-	        for (x = 0; x < width; x++) {
-	            it = floorplan.iterator(x, 0, CardinalDirection.West);
-	            while(it.hasNext()) {
-	                cur = it.next();
-	                int starty = cur[0];
-	                y = cur[1];
-	                // create wall with (x,starty) being the actual start position of the wall, 
-                    // y-starty being the positive length
-                    sl.add(new Wall(x*Constants.MAP_UNIT, starty*Constants.MAP_UNIT,
-                            0, (y-starty)*Constants.MAP_UNIT, dists.getDistanceValue(x, starty), colchange));
-	            }
-	            
-	            it = floorplan.iterator(x, 0, CardinalDirection.East);
-                while(it.hasNext()) {
-                    cur = it.next();
-                    int starty = cur[0];
-                    y = cur[1];
-                    // create wall with (x+1,y) being being one off in both directions from the last cell in this wall, starty-y being the negative length
-                    // since we are looking at right wallboards, one off in the right direction (x+1) are then cells that have this wall on its left hand side
-                    // for some reason the end position is used as a starting position and therefore the length & direction is inverse 
-                    sl.add(new Wall((x+1)*Constants.MAP_UNIT, y*Constants.MAP_UNIT,
-                            0, (starty-y)*Constants.MAP_UNIT, dists.getDistanceValue(x, starty), colchange));
-                }
-	        }
-	    }
+	 * Identifies walls in all rows or all columns, in parallel chunks if there are many.
+	 * @param horizontal is true for rows, false for columns
+	 * @param lines the number of rows or columns
+	 * @param sl the list of walls that carries the result of the computation
+	 */
+	private void generateWalls(final boolean horizontal, int lines, ArrayList<Wall> sl) {
+		if (lines < PARALLEL_LINES || ForkJoinPool.getCommonPoolParallelism() < 2) {
+			generateWalls(horizontal, 0, lines, sl);
+			return;
+		}
+		List<ForkJoinTask<List<Wall>>> chunks = new ArrayList<>();
+		for (int from = 0; from < lines; from += CHUNK_LINES) {
+			final int first = from;
+			final int last = Math.min(from + CHUNK_LINES, lines);
+			chunks.add(ForkJoinPool.commonPool().submit(new Callable<List<Wall>>() {
+				@Override
+				public List<Wall> call() {
+					ArrayList<Wall> chunk = new ArrayList<>();
+					generateWalls(horizontal, first, last, chunk);
+					return chunk;
+				}
+			}));
+		}
+		// join in order, rethrows a cancellation of a chunk
+		for (ForkJoinTask<List<Wall>> chunk : chunks) {
+			sl.addAll(chunk.join());
+		}
+	}
+
+	/**
+	 * Identifies walls in a range of rows or columns.
+	 * A single buffer for the sequences of wallboards serves all of them.
+	 * @param horizontal is true for rows, false for columns
+	 * @param from first row or column
+	 * @param to row or column after the last one
+	 * @param sl the list of walls that carries the result of the computation
+	 */
+	private void generateWalls(boolean horizontal, int from, int to, List<Wall> sl) {
+		final int[] spans = new int[2 * (horizontal ? width : height)];
+		for (int i = from; i < to; i++) {
+			cancellation.check();
+			if (horizontal) {
+				generateWallsForHorizontalWallboards(i, spans, sl);
+			}
+			else {
+				generateWallsForVerticalWallboards(i, spans, sl);
+			}
+		}
+	}
+
+	/**
+	 * Identify continuous sequences of wallboards in a vertical direction
+	 * @param x the column
+	 * @param spans buffer for the sequences of wallboards, content is overwritten
+	 * @param sl the list of walls that carries the result of the computation
+	 */
+	private void generateWallsForVerticalWallboards(int x, int[] spans, List<Wall> sl) {
+		int count = floorplan.findWallSequences(x, 0, CardinalDirection.West, spans);
+		for (int i = 0; i < 2*count; i += 2) {
+			int starty = spans[i];
+			int y = spans[i+1];
+			// create wall with (x,starty) being the actual start position of the wall, 
+			// y-starty being the positive length
+			sl.add(new Wall(x*Constants.MAP_UNIT, starty*Constants.MAP_UNIT,
+					0, (y-starty)*Constants.MAP_UNIT, dists.getDistanceValue(x, starty), colchange));
+		}
+		count = floorplan.findWallSequences(x, 0, CardinalDirection.East, spans);
+		for (int i = 0; i < 2*count; i += 2) {
+			int starty = spans[i];
+			int y = spans[i+1];
+			// create wall with (x+1,y) being being one off in both directions from the last cell in this wall, starty-y being the negative length
+			// since we are looking at right wallboards, one off in the right direction (x+1) are then cells that have this wall on its left hand side
+			// for some reason the end position is used as a starting position and therefore the length & direction is inverse 
+			sl.add(new Wall((x+1)*Constants.MAP_UNIT, y*Constants.MAP_UNIT,
+					0, (starty-y)*Constants.MAP_UNIT, dists.getDistanceValue(x, starty), colchange));
+		}
+	}
 	/**
-     * Identify continuous sequences of wallboards in a horizontal direction
-     * @param sl  the list of walls that carries the result of the computation
-     */
-    private void generateWallsForHorizontalWallboards(ArrayList<Wall> sl) {
-        int x;
-        int y;
-        Iterator<int[]> it;
-        int[] cur;
-        // we search for horizontal wallboards, so for each column
-        for (y = 0; y < height; y++) {
-            // first round through rows
-            it = floorplan.iterator(0,y, CardinalDirection.North);
-            while(it.hasNext()) {
-                cur = it.next();
-                int startx = cur[0];
-                x = cur[1];
-                // create wall with (x,y) being the end positions, startx-x being the negative length
-                // note the (x,y) is not part of the wall
-                sl.add(new Wall(x*Constants.MAP_UNIT, y*Constants.MAP_UNIT,
-                        (startx-x)*Constants.MAP_UNIT, 0, dists.getDistanceValue(startx, y), colchange));
-            }
-            // second round through rows, same for bottom wallboards
-            it = floorplan.iterator(0,y, CardinalDirection.South);
-            while(it.hasNext()) {
-                cur = it.next();
-                int startx = cur[0];
-                x = cur[1];
-                // create wall with (startx,y+1) being one below the start position, x-startx being the positive length
-                // so this may represent a wallboard at the bottom of the wall as the top wallboard one below
-                sl.add(new Wall(startx*Constants.MAP_UNIT, (y+1)*Constants.MAP_UNIT,
-                        (x-startx)*Constants.MAP_UNIT, 0, dists.getDistanceValue(startx, y), colchange));
-            }
-        }
-    }
+	 * Identify continuous sequences of wallboards in a horizontal direction
+	 * @param y the row
+	 * @param spans buffer for the sequences of wallboards, content is overwritten
+	 * @param sl the list of walls that carries the result of the computation
+	 */
+	private void generateWallsForHorizontalWallboards(int y, int[] spans, List<Wall> sl) {
+		int count = floorplan.findWallSequences(0, y, CardinalDirection.North, spans);
+		for (int i = 0; i < 2*count; i += 2) {
+			int startx = spans[i];
+			int x = spans[i+1];
+			// create wall with (x,y) being the end positions, startx-x being the negative length
+			// note the (x,y) is not part of the wall
+			sl.add(new Wall(x*Constants.MAP_UNIT, y*Constants.MAP_UNIT,
+					(startx-x)*Constants.MAP_UNIT, 0, dists.getDistanceValue(startx, y), colchange));
+		}
+		// second round through the row, same for bottom wallboards
+		count = floorplan.findWallSequences(0, y, CardinalDirection.South, spans);
+		for (int i = 0; i < 2*count; i += 2) {
+			int startx = spans[i];
+			int x = spans[i+1];
+			// create wall with (startx,y+1) being one below the start position, x-startx being the positive length
+			// so this may represent a wallboard at the bottom of the wall as the top wallboard one below
+			sl.add(new Wall(startx*Constants.MAP_UNIT, (y+1)*Constants.MAP_UNIT,
+					(x-startx)*Constants.MAP_UNIT, 0, dists.getDistanceValue(startx, y), colchange));
+		}
+	}
 }
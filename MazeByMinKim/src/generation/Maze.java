@@ -73,11 +73,43 @@ public interface Maze {
 	 */
 	BSPNode getRootnode();
 
+	/**
+	 * Tells if the tree of nodes for segments of wallboards is
+	 * available such that getRootnode returns it right away.
+	 * A maze that was delivered early may still build its tree.
+	 * @return true if the tree is available, false otherwise
+	 */
+	boolean isRootnodeAvailable();
+
+	/**
+	 * Runs the given action once the tree of nodes for segments of
+	 * wallboards is available. The action runs right away on the 
+	 * calling thread if the tree is available already, otherwise 
+	 * on the thread that completes the tree. 
+	 * The call does not start to build a deferred tree and
+	 * the action does not run if building the tree fails.
+	 * @param action to run, not null
+	 */
+	void whenRootnodeAvailable(Runnable action);
+
 	/**
 	 * Sets the tree of nodes for segments of wallboards.
 	 * @param rootnode the rootnode to set
 	 */
 	void setRootnode(BSPNode rootnode);
+
+	/**
+	 * Gets the time and memory that the generation of this maze took
+	 * per phase.
+	 * @return the metrics, null if the maze was not generated by a MazeBuilder, e.g. loaded from file
+	 */
+	GenerationMetrics getGenerationMetrics();
+
+	/**
+	 * Sets the metrics of the generation of this maze.
+	 * @param metrics the metrics to set
+	 */
+	void setGenerationMetrics(GenerationMetrics metrics);
 	/**
 	 * Tells if (x,y) coordinate is within range.
 	 * @param x is on the horizontal axis, {@code 0 <= x < width}
@@ -128,6 +160,26 @@ public interface Maze {
      * a wall to the left, right and front, false otherwise
      */
     public boolean isFacingDeadEnd(int x, int y, CardinalDirection cd);
+    /**
+     * Checks if walking on from the given position in the given direction
+     * leads into a dead end, i.e. into a part of the maze that one has to
+     * leave the same way, see DeadEnds. Unlike isFacingDeadEnd this looks
+     * beyond the current position.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+     * @param cd is a direction
+     * @return true if the opening in the given direction leads 
+     * only into a dead end, false otherwise, in particular if
+     * there is a wallboard in the way
+     */
+    public boolean leadsIntoDeadEnd(int x, int y, CardinalDirection cd);
+	/**
+	 * Provides the dead ends of the maze, i.e. for each position and direction
+	 * if it leads into a part of the maze that one has to leave the same way,
+	 * see DeadEnds. The dead ends are computed once, lookups take constant time.
+	 * @return the dead ends
+	 */
+	public DeadEnds getDeadEnds();
 	/**
 	 * Provides coordinates of a position adjacent to the given (x,y)
 	 * position that has a distance to the exit that is less than
@@ -146,6 +198,55 @@ public interface Maze {
 	 * @return int array of length 2 with (x',y') coordinates for neighbor if exists, null otherwise
 	 */
 	public int[] getNeighborCloserToExit(int x, int y);
+	/**
+	 * Same as getNeighborCloserToExit but gives the neighbor as 
+	 * a packed position (see CellIndex) to avoid allocating an array. 
+	 * Intended for code that follows the path to the exit in a loop.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return packed position of the neighbor if exists, CellIndex.NONE otherwise
+	 */
+	public int getNeighborCloserToExitIndex(int x, int y);
+	/**
+	 * Provides the direction from the given (x,y) position towards
+	 * an adjacent position that is closer to the exit, i.e. the 
+	 * neighbor that getNeighborCloserToExit would return.
+	 * The direction is looked up in a precomputed table, so one 
+	 * can follow the path to the exit without probing neighbors
+	 * and without allocating arrays.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return direction towards the exit, null for the exit position
+	 */
+	public CardinalDirection getDirectionToExit(int x, int y);
+	/**
+	 * Tells how many steps it takes on a shortest path between 
+	 * two arbitrary positions, see PathFinder.
+	 * Unlike getDistanceToExit, this is computed for each call.
+	 * @param fromX is on the horizontal axis, {@code 0 <= fromX < width}
+	 * @param fromY is on the vertical axis, {@code 0 <= fromY < height}
+	 * @param toX is on the horizontal axis, {@code 0 <= toX < width}
+	 * @param toY is on the vertical axis, {@code 0 <= toY < height}
+	 * @return the number of steps, 0 if both positions are the same, -1 if there is no path
+	 */
+	public int getShortestPathLength(int fromX, int fromY, int toX, int toY);
+	/**
+	 * Provides a shortest path between two arbitrary positions, see PathFinder.
+	 * @param fromX is on the horizontal axis, {@code 0 <= fromX < width}
+	 * @param fromY is on the vertical axis, {@code 0 <= fromY < height}
+	 * @param toX is on the horizontal axis, {@code 0 <= toX < width}
+	 * @param toY is on the vertical axis, {@code 0 <= toY < height}
+	 * @return packed positions (see CellIndex) from the first to the second position, 
+	 * both included, null if there is no path
+	 */
+	public int[] getShortestPath(int fromX, int fromY, int toX, int toY);
+	/**
+	 * Provides the graph of open cells in compressed sparse row form,
+	 * e.g. to export it for graph analytics, see Adjacency.
+	 * The graph is computed for each call in time linear in the number of cells.
+	 * @return the graph with node x*height+y for position (x,y)
+	 */
+	public Adjacency getAdjacency();
 	/**
 	 * Provides coordinates (x,y) of the starting position for this maze.
 	 * Maze generation algorithms are expected to use the position
@@ -172,4 +273,13 @@ public interface Maze {
 	 * @return the exit position
 	 */	
 	public int[] getExitPosition();
+	/**
+	 * Tells if the given position is the exit position.
+	 * Needs no copy of the exit position or of the floorplan,
+	 * such that robots can ask in each step.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return true if (x,y) is the exit position, false otherwise
+	 */
+	public boolean isExitPosition(int x, int y);
 }
@@ -1,5 +1,8 @@
 package generation;
 
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.logging.Logger;
 
 import gui.Constants;
@@ -24,7 +27,6 @@ public class MazeBuilder implements Runnable {
 	// Given input information: 
 	protected int width, height ; 	// width and height of maze, 
 	private int rooms; 		// requested number of rooms in maze, a room is an area with no walls and larger than a single cell
-	private int expectedPartiters; 	// user given limit for partiters
 	
 	// Produced output information to create the new maze
 	// root, cells, dists, startx, starty
@@ -40,9 +42,12 @@ public class MazeBuilder implements Runnable {
 	// class internal local variables
 	protected SingleRandom random ; // random number stream, used to make randomized decisions, e.g for direction to go
 	Order order; // describes what is wanted, e.g. a perfect maze or not
+	GenerationMetrics metrics; // time and memory per phase, attached to the delivered maze
+	ProgressTracker progress; // reports progress per phase to the order
+	// tells loops to stop when the order is cancelled, never the shared NONE such that cancel can not reach it
+	volatile CancellationToken cancellation = new CancellationToken();
 	
 	// constants
-	static final long SLEEP_INTERVAL = 100 ; //constant used for brief breaks to recognize interrupted signal, unit is millisecond
 	static final int MAX_TRIES = 250 ; // room generation: max number of tries to find a random location for a room
 	static final int MIN_ROOM_DIMENSION = 3; // room generation: min dimension
 	static final int MAX_ROOM_DIMENSION = 8; // room generation: max dimension
@@ -69,46 +74,105 @@ public class MazeBuilder implements Runnable {
 		// only algorithm without rooms guarantees a perfect maze
 		// rooms can result in loops, so for a perfect maze, set room number to 0
 		rooms = order.isPerfect() ? 0 : Constants.SKILL_ROOMS[skill];
-		expectedPartiters = Constants.SKILL_PARTCT[skill];
 		// instantiate data structures
 		floorplan = new Floorplan(width,height) ;
 		dists = new Distance(width,height) ;
+		metrics = new GenerationMetrics(String.valueOf(order.getBuilder()));
+		progress = new ProgressTracker(order);
+		cancellation = new CancellationToken();
+	}
+	/**
+	 * Asks the generation to stop as soon as possible.
+	 * Loops check the request at short intervals, so the builder 
+	 * thread stops within a few milliseconds and does not deliver.
+	 * Can be called from any thread.
+	 */
+	void cancel() {
+		// read once, the builder thread may replace the token in reset at the same time
+		final CancellationToken token = cancellation;
+		token.cancel();
 	}
 	/**
 	 * Main method to run construction of a new maze in a thread of its own.
 	 * This method is called by the MazeFactory to generate a maze.
 	 */
 	public void run() {
+		// continue the random number stream that buildOrder has set up on the ordering thread
+		SingleRandom.setRandom(random);
 		// try-catch block to recognize if thread is interrupted
 		try {
 			// create an initial invalid maze where all wallboards and borders are up
+			startPhase(GenerationMetrics.Phase.ROOMS);
 			floorplan.initialize();
 			// place rooms in maze as needed
 			if (rooms > 0)
 				generateRooms();
+			stopPhase(GenerationMetrics.Phase.ROOMS);
 			
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			checkInterrupted() ; // test if thread has been interrupted, i.e. notified to stop
 
 			// put pathways into the maze, determine its starting and end position and calculate distances
 			generate();
 
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			checkInterrupted() ; // test if thread has been interrupted, i.e. notified to stop
 
 			final int colchange = random.nextIntWithinInterval(0, 255); // used in the constructor for Segments  class Seg
-			final BSPBuilder b = new BSPBuilder(order, dists, floorplan, width, height, colchange, expectedPartiters) ;
-			BSPNode root = b.generateBSPNodes(); // takes a long time, updates progressbar, 
-			// it also internally checks for cancel requests
-			// and throws an interrupted exception if that happens
+			// the bsp tree is only built right away if the order asks for it and waits for it,
+			// with early delivery it is built in the background, otherwise the maze builds it on demand
+			final boolean needBSP = order.getArtifacts().contains(Order.Artifact.BSP);
+			final boolean buildBSP = needBSP && Order.Delivery.EARLY != order.getDelivery();
+			final BSPBuilder b = new BSPBuilder(buildBSP ? progress : null, cancellation, dists, floorplan, width, height, colchange) ;
+			// walls are extracted in any case as this is the last step that changes the floorplan
+			startPhase(GenerationMetrics.Phase.WALLS);
+			final List<Wall> walls = b.generateWalls();
+			// the floorplan is final, dead ends are computed once such that leadsIntoDeadEnd is a single lookup
+			final int[] exit = dists.getExitPosition();
+			final DeadEnds deadEnds = new DeadEnds(floorplan, width, height, exit[0], exit[1]);
+			stopPhase(GenerationMetrics.Phase.WALLS);
+			final MazeContainer maze;
+			if (buildBSP) {
+				startPhase(GenerationMetrics.Phase.BSP);
+				BSPNode root = b.generateBSPNodes(walls); // takes a long time, updates progressbar, 
+				// it also internally checks for cancel requests
+				// and throws an interrupted exception if that happens
+				stopPhase(GenerationMetrics.Phase.BSP);
+				maze = new MazeContainer(width, height, floorplan, dists, root, startx, starty);
+			}
+			else {
+				maze = new MazeContainer();
+				maze.setWidth(width);
+				maze.setHeight(height);
+				maze.setFloorplan(floorplan);
+				maze.setMazedists(dists);
+				maze.setDeferredRootnode(new Callable<BSPNode>() {
+					@Override
+					public BSPNode call() throws InterruptedException {
+						return b.generateBSPNodes(walls);
+					}
+				});
+				maze.setStartingPosition(startx, starty);
+			}
+
+			maze.setDeadEnds(deadEnds);
 
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			checkInterrupted() ; // test if thread has been interrupted, i.e. notified to stop
 
 			// communicate results back to Controller
-			order.updateProgress(100); // Order interface promises to communicate 100% upon delivery
-			order.deliver(new MazeContainer(width, height, floorplan, dists, root, startx, starty));
+			startPhase(GenerationMetrics.Phase.DELIVERY);
+			maze.setGenerationMetrics(metrics);
+			if (needBSP && !buildBSP) {
+				// start before delivery such that the tree is built while the client gets going
+				maze.buildRootnodeInBackground();
+			}
+			progress.finish(); // Order interface promises to communicate 100% upon delivery
+			// the metrics are complete before the maze is handed to the client thread
+			stopPhase(GenerationMetrics.Phase.DELIVERY);
+			LOGGER.fine(metrics.toString());
+			order.deliver(maze);
             // reset order and other fields for safe repeated operation and garbage collection
 			reset() ;
 		}
-		catch (InterruptedException ex) {
+		catch (InterruptedException | CancellationException ex) {
 			// if user cancels a lengthy maze generation, we need to stop and 
 			// clean up internal data structures
 			// exception mechanism is basically used to exit method in a controlled way
@@ -126,13 +190,42 @@ public class MazeBuilder implements Runnable {
 		width = 0 ;
 		height = 0 ;
 		rooms = 0 ;
-		expectedPartiters = 0 ;
 		startx = 0 ;
 		starty = 0 ;
 		floorplan = null ;
 		dists = null ;
 		// leave random number generator as is
 		order = null ;
+		metrics = null ;
+		progress = null ;
+		cancellation = new CancellationToken() ; // a late cancel goes to a token nobody uses
+	}
+	
+	/**
+	 * Tests if the thread has been interrupted or the generation cancelled, 
+	 * i.e. notified to stop, without pausing it as a sleep would do.
+	 * @throws InterruptedException if the thread has been interrupted
+	 */
+	private void checkInterrupted() throws InterruptedException {
+		if (Thread.interrupted())
+			throw new InterruptedException();
+		cancellation.check();
+	}
+	/**
+	 * Starts to measure a phase and reports it as the current one for progress.
+	 * @param phase that begins
+	 */
+	private void startPhase(GenerationMetrics.Phase phase) {
+		metrics.start(phase);
+		progress.startPhase(phase);
+	}
+	/**
+	 * Stops to measure a phase and reports it as complete for progress.
+	 * @param phase that ends
+	 */
+	private void stopPhase(GenerationMetrics.Phase phase) {
+		metrics.stop(phase);
+		progress.update(1);
 	}
 	
 	
@@ -148,8 +241,11 @@ public class MazeBuilder implements Runnable {
 		// to prevent an infinite loop we limit the number of failed to MAX_TRIES == 250
 		int tries = 0 ;
 		int result = 0 ;
+		// index of cells in rooms, tells where a room still fits
+		final RoomOccupancy occupancy = new RoomOccupancy(floorplan, width, height);
 		while (tries < MAX_TRIES && result < rooms) {
-			if (placeRoom())
+			cancellation.check();
+			if (placeRoom(occupancy))
 				result++ ;
 			else
 				tries++ ;
@@ -160,12 +256,13 @@ public class MazeBuilder implements Runnable {
 	
 	/**
 	 * Allocates space for a room of random dimensions in the maze.
-	 * The position of the room is chosen randomly. The method is not sophisticated 
-	 * such that the attempt may fail even if the maze has ample space to accommodate 
-	 * a room of the chosen size. 
+	 * The position of the room is chosen randomly among all positions 
+	 * where a room of the chosen size fits, so the attempt only fails 
+	 * if the maze has no space left for a room of that size.
+	 * @param occupancy knows the cells that are in rooms, is updated for the new room
 	 * @return true if room is successfully placed, false otherwise
 	 */
-	private boolean placeRoom() {
+	private boolean placeRoom(RoomOccupancy occupancy) {
 		// get width and height of random size that are not too large
 		// if too large return as a failed attempt
 		final int rw = random.nextIntWithinInterval(MIN_ROOM_DIMENSION, MAX_ROOM_DIMENSION);
@@ -178,18 +275,20 @@ public class MazeBuilder implements Runnable {
 		
 		// proceed for a given width and height
 		// obtain a random position (rx,ry) such that room is located on as a rectangle with (rx,ry) and (rxl,ryl) as corner points
-		// upper bound is chosen such that width and height of room fits maze area.
-		final int rx = random.nextIntWithinInterval(1, width-rw-1);
-		final int ry = random.nextIntWithinInterval(1, height-rh-1);
+		// the position is picked among those where the room fits the maze area and does not overlap with other rooms
+		// if there is none, return false for a failed attempt
+		final int position = occupancy.pickFreePosition(rw, rh, random);
+		if (CellIndex.NONE == position)
+			return false ;
+		final int rx = CellIndex.getX(position);
+		final int ry = CellIndex.getY(position);
 		final int rxl = rx+rw-1;
 		final int ryl = ry+rh-1;
-		// check all cells in this area if they already belong to a room
-		// if this is the case, return false for a failed attempt
-		if (floorplan.areaOverlapsWithRoom(rx, ry, rxl, ryl))
-			return false ;
+		assert !floorplan.areaOverlapsWithRoom(rx, ry, rxl, ryl) : "Room must not overlap with other rooms";
 		// since the area is available, mark it for this room and remove all wallboards
 		// from this on it is clear that we can place the room on the maze
 		floorplan.markAreaAsRoom(rw, rh, rx, ry, rxl, ryl); 
+		occupancy.markRoom(rx, ry, rxl, ryl);
 		return true;
 	}
 
@@ -203,9 +302,12 @@ public class MazeBuilder implements Runnable {
 		// generate paths in cells such that there is one strongly connected component
 		// i.e. between any two cells in the maze there is a path to get from one to the other
 		// the search algorithms starts at some random point
+		startPhase(GenerationMetrics.Phase.PATHWAYS);
 		generatePathways(); 
+		stopPhase(GenerationMetrics.Phase.PATHWAYS);
 
-		final int[] remote = dists.computeDistances(floorplan) ;
+		startPhase(GenerationMetrics.Phase.DISTANCES);
+		final int[] remote = dists.computeDistances(floorplan, cancellation) ;
 
 		// identify cell with the greatest distance
 		final int[] pos = dists.getStartPosition();
@@ -214,6 +316,7 @@ public class MazeBuilder implements Runnable {
 
 		// make exit position at true exit in the cells data structure
 		floorplan.setExitPosition(remote[0], remote[1]);
+		stopPhase(GenerationMetrics.Phase.DISTANCES);
 	}
 	/**
 	 * This method generates pathways into the maze.
@@ -236,15 +339,16 @@ public class MazeBuilder implements Runnable {
 		floorplan.setCellAsVisited(x, y); 
 		Wallboard wallboard = new Wallboard(x, y, cd);
 		while (true) { 
+			cancellation.step();
 			wallboard.setLocationDirection(x, y, cd);
 			if (!floorplan.canTearDown(wallboard)) {
 				cd = cd.rotateClockwise();
 				if (origcd == cd) {				
 					if (x == firstx && y == firsty)
 						break; 			
-					int[] dxy = origcds[x][y].getDxDyDirection();
-					x -= dxy[0];
-					y -= dxy[1];
+					CardinalDirection back = origcds[x][y];
+					x -= back.getDx();
+					y -= back.getDy();
 					if (null == origcds[x][y]) {
 						// Happens at starting position
 						assert (x == firstx && y == firsty) : "catching null elsewhere than starting position" ;
@@ -257,9 +361,8 @@ public class MazeBuilder implements Runnable {
 				}
 			} else {
 				floorplan.deleteWallboard(wallboard);
-				int[] dxy = cd.getDxDyDirection();
-				x += dxy[0];
-				y += dxy[1];
+				x += cd.getDx();
+				y += cd.getDy();
 				floorplan.setCellAsVisited(x, y);
 				origcds[x][y] = cd;
 				cd = cd.randomDirection();
@@ -73,6 +73,7 @@ public class MazeBuilderBoruvka extends MazeBuilder implements Runnable {
 		//Iterating the process until there is one big tree left in the list.
 		while(path.size()!=1 && path.get(0).size()!=width*height) {
 			for (Set<Integer> i : path){
+				cancellation.step();
 				//find the minimum path for each set in the list
 				data = findMinPlace(i);
 				//declare a wallboard with the minimum path
@@ -90,6 +91,8 @@ public class MazeBuilderBoruvka extends MazeBuilder implements Runnable {
 			}
 			//update the list
 			updateList(path);
+			//the number of trees roughly halves with each iteration
+			progress.update(1 - Math.log(path.size()) / Math.log(width*height));
 		}
 	}
 	
@@ -161,24 +164,27 @@ public class MazeBuilderBoruvka extends MazeBuilder implements Runnable {
 		int min = findMin(a);
 		int[] dimension = new int [3];
 		int[] copy = new int[3];
-		int[] data = new int[2];
 		int edge;
 		int count =0;
 		//list for wallboards that contain a minimum value
 		ArrayList<int[]> candidates = new ArrayList<int[]>();
 		
 		
+		//a single wallboard is reused for all checks
+		Wallboard curWallboard = new Wallboard(0, 0, CardinalDirection.North);
 		for(int i : a) {
-			data = indxTodim(i);
+			cancellation.step();
+			int x = indxToX(i);
+			int y = indxToY(i);
 			for(int k = 1; k<=4; k++) {
-				Wallboard curWallboard = new Wallboard(data[0],data[1],intToDir(k));
+				curWallboard.setLocationDirection(x, y, intToDir(k));
 				if(floorplan.canTearDown(curWallboard)) {
-				edge = getEdgeWeight(data[0], data[1], intToDir(k));
+				edge = getEdgeWeight(x, y, intToDir(k));
 					if(edge == min) {
 						count++;
 						//if the wallboard contains the minimum value, record its information the the array. 
-						dimension[0] = data[0];
-						dimension[1] = data[1];
+						dimension[0] = x;
+						dimension[1] = y;
 						dimension[2] = k;
 						
 						//after recording, add a reference to candidates
@@ -211,12 +217,16 @@ public class MazeBuilderBoruvka extends MazeBuilder implements Runnable {
 		//initialize minimum as 11 since no wallboard has a higher value than 10. 
 		int min = 11;
 		int edge;
+		//a single wallboard is reused for all checks
+		Wallboard curWallboard = new Wallboard(0, 0, CardinalDirection.North);
 		for(int i : a) {
-			int[] data = indxTodim(i);
+			cancellation.step();
+			int x = indxToX(i);
+			int y = indxToY(i);
 			//for each cell, check all four wallboards. 
 			for(int k = 1; k<=4; k++) {
-				Wallboard curWallboard = new Wallboard(data[0],data[1],intToDir(k));
-				edge = getEdgeWeight(data[0], data[1], intToDir(k));
+				curWallboard.setLocationDirection(x, y, intToDir(k));
+				edge = getEdgeWeight(x, y, intToDir(k));
 				if(floorplan.canTearDown(curWallboard)) {
 					if(edge < min) {
 						min = edge;
@@ -235,11 +245,29 @@ public class MazeBuilderBoruvka extends MazeBuilder implements Runnable {
 	 */
 	public int[] indxTodim(int a){
 		int[] data = new int[2];
-		data[0] = a % width;
-		data[1] = a / width;
+		data[0] = indxToX(a);
+		data[1] = indxToY(a);
 		return data;
 	}
 	
+	/**
+	 * input an index value of a cell to know its x coordinate, same as indxTodim(a)[0] without the array.
+	 * @param a an index value of a cell
+	 * @return x coordinate of a cell.
+	 */
+	public int indxToX(int a) {
+		return a % width;
+	}
+	
+	/**
+	 * input an index value of a cell to know its y coordinate, same as indxTodim(a)[1] without the array.
+	 * @param a an index value of a cell
+	 * @return y coordinate of a cell.
+	 */
+	public int indxToY(int a) {
+		return a / width;
+	}
+	
 	/**
 	 * input a coordinate of a cell to find an index value of the cell.
 	 * @param a an array containing two values: x coordinate and y coordinate of a cell.
@@ -333,9 +361,11 @@ public class MazeBuilderBoruvka extends MazeBuilder implements Runnable {
 	public void updateList(ArrayList<Set<Integer>> a) {
 		for(int i = 0; i<a.size()-1; i++) {
 			for(int j = i; j<a.size(); j++) {
+				cancellation.step();
 				if(isDuplicate(a.get(i), a.get(j))){
 					//if two sets have duplicated, merge them into one
 					for (int x : a.get(j)){
+						cancellation.step(); // sets can be as large as the maze
 						a.get(i).add(x);
 					}
 					//remove one that gave all its values to another
@@ -355,6 +385,7 @@ public class MazeBuilderBoruvka extends MazeBuilder implements Runnable {
 	public boolean isDuplicate(Set<Integer> a, Set<Integer> b) {
 		for(int i : a){
 			for(int j : b){
+				cancellation.step();
 				if(i==j) {
 					return true;
 				}
@@ -81,6 +81,7 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 		Wallboard curWallboard;
 		// We need to consider each candidate wallboard and consider it only once
 		while(!candidates.isEmpty()){
+			cancellation.step();
 			// in order to have a randomized algorithm,
 			// we randomly select and extract a wallboard from our candidate set
 			// this also reduces the set to make sure we terminate the loop
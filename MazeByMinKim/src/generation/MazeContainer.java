@@ -3,6 +3,14 @@
  */
 package generation;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Logger;
+
 import gui.Constants;
 
 /**
@@ -30,6 +38,11 @@ import gui.Constants;
  *
  */
 public class MazeContainer implements Maze {
+	/**
+	 * The logger is used to track execution and report issues.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(MazeContainer.class.getName());
+
 	// properties of the current maze
 	private int width; // width of maze
 	// range: Constants.SKILL_X[0] <= width && width <= Constants.SKILL_X[last])
@@ -43,10 +56,13 @@ public class MazeContainer implements Maze {
 	// exit position, such that the exit position in mazecells has the minimum distance value
 	// and is also the exit position in mazedists
 	
-	private BSPNode rootnode ; // a binary tree type search data structure to quickly locate a subset of segments
+	private volatile BSPNode rootnode ; // a binary tree type search data structure to quickly locate a subset of segments
 	// a segment is a continuous sequence of wallboards in vertical or horizontal direction
 	// a subset of segments need to be quickly identified for drawing
 	// the BSP tree partitions the set of all segments and provides a binary search tree for the partitions
+	private DeferredRootnode deferredRootnode ; // builds the rootnode on demand or in the background
+	
+	private GenerationMetrics generationMetrics ; // time and memory per generation phase, null if not generated
 	
 	private int[] start ; // the starting position (x,y) for the game
 	// this position should be in in range: 0 <= x < width, 0 <= y < height
@@ -57,6 +73,12 @@ public class MazeContainer implements Maze {
 	// to be fully initialized, we need all other fields being set consistently
 	private boolean fullyInitialized;
 	
+	// dead ends of the current floorplan, computed after generation or on first use
+	private volatile DeadEnds deadEnds;
+	
+	// shortest path queries on the current floorplan, created on first use
+	private volatile PathFinder pathFinder;
+	
 	/**
 	 * Default constructor leaves object in an state that requires a series of set methods
 	 * to be called for proper initialization.
@@ -165,14 +187,123 @@ public class MazeContainer implements Maze {
 	/**
 	 * Gives the rootnode for the tree of BSPnodes.
 	 * Warning, returns direct access to internal field.
-	 * @return the rootnode
+	 * If the tree was deferred, the first call builds it on the calling thread,
+	 * concurrent callers and callers during a background build wait for that build to finish.
+	 * @return the rootnode, null if building a deferred tree was interrupted
 	 */
 	public BSPNode getRootnode() {
 		assert(isOperational()) : 
 			"accessing content before object is fully initialized!";
+		if (null == rootnode && null != deferredRootnode) {
+			rootnode = buildDeferredRootnode();
+		}
 		return rootnode;
 	}
 
+	@Override
+	public boolean isRootnodeAvailable() {
+		return null != rootnode;
+	}
+
+	@Override
+	public void whenRootnodeAvailable(Runnable action) {
+		if (null == rootnode && null != deferredRootnode && deferredRootnode.addAction(action))
+			return; // runs when the tree is published
+		if (null != rootnode)
+			action.run();
+	}
+
+	/**
+	 * Sets a task that builds the tree of BSPnodes when it is first needed.
+	 * @param builder that delivers the rootnode
+	 */
+	void setDeferredRootnode(Callable<BSPNode> builder) {
+		this.deferredRootnode = new DeferredRootnode(builder);
+	}
+
+	/**
+	 * Builds the deferred tree of BSPnodes on a background thread.
+	 * The tree is published once complete, getRootnode waits for it
+	 * in the meantime.
+	 */
+	void buildRootnodeInBackground() {
+		assert null != deferredRootnode : "there is no deferred tree to build";
+		Thread thread = new Thread(deferredRootnode, "BSP builder");
+		thread.setDaemon(true); // must not keep the application alive
+		thread.start();
+	}
+
+	/**
+	 * Runs the deferred task unless it already ran or is running on another thread
+	 * and waits for its result.
+	 * @return the rootnode, null if the build was interrupted
+	 */
+	private BSPNode buildDeferredRootnode() {
+		deferredRootnode.run();
+		try {
+			return deferredRootnode.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			if (!(e.getCause() instanceof InterruptedException || e.getCause() instanceof CancellationException))
+				throw new IllegalStateException("Building the BSP tree failed", e.getCause());
+		}
+		LOGGER.warning("Building the BSP tree was interrupted");
+		return null;
+	}
+
+	/**
+	 * Task that builds the tree of BSPnodes and publishes it
+	 * in the rootnode field once it is complete, whichever thread runs it.
+	 * Actions that wait for the tree run right after it is published.
+	 */
+	private class DeferredRootnode extends FutureTask<BSPNode> {
+		private final List<Runnable> actions = new ArrayList<Runnable>(); // wait for the tree
+		private boolean published; // true once the task is done and actions ran or were dropped
+
+		DeferredRootnode(Callable<BSPNode> builder) {
+			super(builder);
+		}
+
+		/**
+		 * Keeps the action to run it when the tree is published.
+		 * @param action to run
+		 * @return false if the task is done already and the action was not kept
+		 */
+		synchronized boolean addAction(Runnable action) {
+			if (published)
+				return false;
+			actions.add(action);
+			return true;
+		}
+
+		@Override
+		protected void done() {
+			BSPNode root = null;
+			try {
+				root = get(); // does not block, the task is done
+			} catch (ExecutionException e) {
+				if (!(e.getCause() instanceof InterruptedException || e.getCause() instanceof CancellationException))
+					LOGGER.warning("Building the BSP tree failed: " + e.getCause());
+			} catch (InterruptedException | CancellationException e) {
+				// nothing to publish
+			}
+			List<Runnable> waiting;
+			synchronized (this) {
+				if (null != root)
+					rootnode = root;
+				published = true;
+				waiting = new ArrayList<Runnable>(actions);
+				actions.clear();
+			}
+			if (null == root)
+				return;
+			for (Runnable action : waiting) {
+				action.run();
+			}
+		}
+	}
+
 	/**
 	 * Sets the root for the tree of BSPnodes
 	 * @param rootnode the rootnode to set
@@ -180,6 +311,20 @@ public class MazeContainer implements Maze {
 	public void setRootnode(BSPNode rootnode) {
 		this.rootnode = rootnode;
 	}
+	/**
+	 * Gets the metrics of the generation of this maze
+	 * @return the metrics, null if the maze was not generated
+	 */
+	public GenerationMetrics getGenerationMetrics() {
+		return generationMetrics;
+	}
+	/**
+	 * Sets the metrics of the generation of this maze
+	 * @param metrics the metrics to set
+	 */
+	public void setGenerationMetrics(GenerationMetrics metrics) {
+		this.generationMetrics = metrics;
+	}
 	/**
 	 * Tells if the given position is inside a room.
 	 * @param x is on the horizontal axis, {@code 0 <= x < width}
@@ -245,11 +390,50 @@ public class MazeContainer implements Maze {
      * a wall to the left, right and front, false otherwise
      */
     public boolean isFacingDeadEnd(int x, int y, CardinalDirection cd) {
-    	return (isValidPosition(x,y) &&
-    			hasWall(x, y, cd) &&
-    			hasWall(x, y, cd.oppositeDirection().rotateClockwise()) &&
-    			hasWall(x, y, cd.rotateClockwise()));
+    	if (!isValidPosition(x,y))
+    		return false;
+    	// wallboards in front, to the left and to the right: all but the one behind
+    	int mask = Floorplan.CW_ALL & ~Floorplan.getWallbit(cd.oppositeDirection().ordinal());
+    	return (floorplan.getValueOfCell(x, y) & mask) == mask;
+    }
+    /**
+     * Checks if walking on in the given direction leads into a dead end,
+     * a single lookup in the dead ends of the maze
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+     * @param cd is a direction
+     * @return true if the opening in the given direction leads 
+     * only into a dead end, false otherwise
+     */
+    public boolean leadsIntoDeadEnd(int x, int y, CardinalDirection cd) {
+    	if (!isValidPosition(x,y))
+    		return false;
+    	return getDeadEnds().isDeadEnd(x, y, cd);
     }
+	/**
+	 * Gives the dead ends of the maze. The MazeBuilder computes them
+	 * once after generation, otherwise they are computed on first use,
+	 * and again if the floorplan changed.
+	 * @return the dead ends
+	 */
+	public DeadEnds getDeadEnds() {
+		assert(isOperational()) : 
+			"accessing content before object is fully initialized!";
+		DeadEnds result = deadEnds;
+		if (null == result || !result.isFor(floorplan)) {
+			int[] exit = getExitPosition();
+			result = new DeadEnds(floorplan, width, height, exit[0], exit[1]);
+			deadEnds = result;
+		}
+		return result;
+	}
+	/**
+	 * Sets the dead ends of the maze
+	 * @param deadEnds computed for the floorplan of the maze
+	 */
+	void setDeadEnds(DeadEnds deadEnds) {
+		this.deadEnds = deadEnds;
+	}
 	/**
 	 * Gives a (x',y') neighbor for given (x,y) that is closer to exit
 	 * if it exists. 
@@ -258,33 +442,95 @@ public class MazeContainer implements Maze {
 	 * @return array with neighbor coordinates if neighbor exists, null otherwise
 	 */
 	public int[] getNeighborCloserToExit(int x, int y) {
+		int neighbor = getNeighborCloserToExitIndex(x, y);
+		return (CellIndex.NONE == neighbor) ? null : CellIndex.toArray(neighbor);
+	}
+	/**
+	 * Gives a neighbor for given (x,y) that is closer to exit
+	 * if it exists, as a packed position with no array allocation.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return packed neighbor position if neighbor exists, CellIndex.NONE otherwise
+	 */
+	public int getNeighborCloserToExitIndex(int x, int y) {
 		assert isValidPosition(x,y) : "Invalid position";
 		// corner case, (x,y) is exit position
 		if (floorplan.isExitPosition(x, y))
-			return null;
-		// find best candidate
-		int dnext = getDistanceToExit(x, y) ;
-		int[] result = new int[2] ;
-		int[] dir;
-		for (CardinalDirection cd: CardinalDirection.values()) {
-			if (hasWall(x, y, cd)) 
-				continue; // there is a wallboard in the way
-			// no wallboard, let's check the distance
-			dir = cd.getDxDyDirection();
-			int dn = getDistanceToExit(x+dir[0], y+dir[1]);
-			if (dn < dnext) {
-				// update neighbor position with min distance
-				result[0] = x+dir[0] ;
-				result[1] = y+dir[1] ;
-				dnext = dn ;
-			}	
-		}
-		// expectation: we found a neighbor that is closer
-		assert(getDistanceToExit(x, y) > dnext) : 
+			return CellIndex.NONE;
+		CardinalDirection cd = getDirectionToExit(x, y);
+		if (null == cd)
+			return CellIndex.NONE;
+		int nx = x+cd.getDx();
+		int ny = y+cd.getDy();
+		// expectation: the table gives a neighbor that is closer
+		assert(getDistanceToExit(x, y) > getDistanceToExit(nx, ny)) : 
 			"cannot identify direction towards solution: stuck at: " + x + ", "+ y ;
 		// since assert statements need not be executed, check it 
 		// to avoid giving back wrong result
-		return (getDistanceToExit(x, y) > dnext) ? result : null;
+		return (getDistanceToExit(x, y) > getDistanceToExit(nx, ny)) ? CellIndex.pack(nx, ny) : CellIndex.NONE;
+	}
+	/**
+	 * Gives the direction towards a neighbor for given (x,y) that is 
+	 * closer to the exit. The next hop table of the distance object
+	 * is computed on first use if it is not available yet, e.g. for
+	 * a maze that is loaded from a file.
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return direction towards the exit, null for the exit position
+	 */
+	public CardinalDirection getDirectionToExit(int x, int y) {
+		assert(isOperational()) : 
+			"accessing content before object is fully initialized!";
+		if (!mazedists.hasNextHops())
+			mazedists.computeNextHops(floorplan);
+		return mazedists.getNextHop(x, y);
+	}
+
+	/**
+	 * Gives the number of steps on a shortest path between two positions.
+	 * @param fromX is on the horizontal axis, {@code 0 <= fromX < width}
+	 * @param fromY is on the vertical axis, {@code 0 <= fromY < height}
+	 * @param toX is on the horizontal axis, {@code 0 <= toX < width}
+	 * @param toY is on the vertical axis, {@code 0 <= toY < height}
+	 * @return the number of steps, -1 if there is no path
+	 */
+	public int getShortestPathLength(int fromX, int fromY, int toX, int toY) {
+		return getPathFinder().getPathLength(fromX, fromY, toX, toY);
+	}
+	/**
+	 * Gives a shortest path between two positions.
+	 * @param fromX is on the horizontal axis, {@code 0 <= fromX < width}
+	 * @param fromY is on the vertical axis, {@code 0 <= fromY < height}
+	 * @param toX is on the horizontal axis, {@code 0 <= toX < width}
+	 * @param toY is on the vertical axis, {@code 0 <= toY < height}
+	 * @return packed positions of the path, null if there is no path
+	 */
+	public int[] getShortestPath(int fromX, int fromY, int toX, int toY) {
+		return getPathFinder().getPath(fromX, fromY, toX, toY);
+	}
+	/**
+	 * Gives the graph of open cells.
+	 * @return the graph in compressed sparse row form
+	 */
+	public Adjacency getAdjacency() {
+		assert(isOperational()) : 
+			"accessing content before object is fully initialized!";
+		return Adjacency.of(floorplan, width, height);
+	}
+	/**
+	 * Gives the path finder, creates it on first use
+	 * and again if the floorplan changed.
+	 * @return the path finder
+	 */
+	private PathFinder getPathFinder() {
+		assert(isOperational()) : 
+			"accessing content before object is fully initialized!";
+		PathFinder finder = pathFinder;
+		if (null == finder || !finder.isFor(floorplan)) {
+			finder = new PathFinder(floorplan, width, height);
+			pathFinder = finder;
+		}
+		return finder;
 	}
 
 	/**
@@ -328,6 +574,10 @@ public class MazeContainer implements Maze {
 		assert(isOperational()) : "accessing content before object is fully initialized!";
 		return mazedists.getExitPosition();
 	}
+	@Override
+	public boolean isExitPosition(int x, int y) {
+		return floorplan.isExitPosition(x, y);
+	}
 	/**
 	 * Checks if object is fully initialized and in a valid state.
 	 * The object creation relies on a sequence of set methods being called,
@@ -349,7 +599,7 @@ public class MazeContainer implements Maze {
 			return false;
 		}
 		// check existence of cells, distances, bsp tree and starting position
-		if (null == floorplan || null == mazedists || null == rootnode || null == start)
+		if (null == floorplan || null == mazedists || (null == rootnode && null == deferredRootnode) || null == start)
 			return false;
 		// the starting position must be 
 		fullyInitialized = true;
@@ -1,19 +1,33 @@
 package generation;
 
+import java.io.IOException;
+import java.util.Set;
 import java.util.logging.Logger;
 
+import gui.MazeRepository;
+
 /**
  * This class encapsulates how a maze is generated. 
  * It takes orders to produce a maze, delegates it to the matching maze builder 
  * that computes and delivers the maze. This class operates the worker thread
  * to do the computation in the background. The maze builder classes contribute
  * a run method to execute on the worker thread.
+ * 
+ * With a MazeRepository, the factory first looks for a maze that was generated
+ * for the same order parameters before and delivers it instead of generating it.
+ * Mazes that are generated are stored in the repository after delivery.
  */
 public class MazeFactory implements Factory {
 	/**
 	 * The logger is used to track execution and report issues.
 	 */
 	private static final Logger LOGGER = Logger.getLogger(MazeFactory.class.getName());
+	/**
+	 * Version of the maze generation. Raise it whenever a change to a builder
+	 * or to room placement gives a different maze for the same order, such that
+	 * a MazeRepository does not deliver mazes of an earlier version.
+	 */
+	public static final int GENERATOR_VERSION = 1;
 
 	// factory keeps track of the current order, takes at most one order at a time
 	private Order currentOrder;
@@ -23,13 +37,23 @@ public class MazeFactory implements Factory {
 	private MazeBuilder builder;
 	// 
 	private Thread buildThread; // computations are performed in own separated thread with this.run()
+	// keeps generated mazes across runs, null if not used
+	private final MazeRepository repository;
 	
 	//////////////////////// Constructor ////////////////////////////////////////
 	/**
 	 * Constructor for a randomized maze generation
 	 */
 	public MazeFactory(){
-		// nothing to do
+		this(null);
+	}
+	/**
+	 * Constructor for a maze generation that loads mazes from
+	 * the given repository if possible and stores new ones in it.
+	 * @param repository for generated mazes, null for none
+	 */
+	public MazeFactory(MazeRepository repository){
+		this.repository = repository;
 	}
 	
 	//////////////////////// Factory interface //////////////////////////////////
@@ -66,6 +90,9 @@ public class MazeFactory implements Factory {
 	@Override
 	public void cancel() {
 		LOGGER.fine("Received call to cancel current order");
+		if (null != builder) {
+			builder.cancel(); // loops of the generation stop at their next check
+		}
 		if (null != buildThread) {
 			buildThread.interrupt() ;
 			buildThread = null; // allow for next order to get through
@@ -100,8 +127,84 @@ public class MazeFactory implements Factory {
 		if (null == builder)
 			return;
 		LOGGER.fine("Starting background thread to build the ordered maze") ;
-		builder.buildOrder(currentOrder);
-		buildThread = new Thread(builder);
+		if (null == repository) {
+			builder.buildOrder(currentOrder);
+			buildThread = new Thread(builder);
+		}
+		else {
+			final Order order = currentOrder;
+			final MazeBuilder mazeBuilder = builder;
+			mazeBuilder.buildOrder(new StoringOrder(order, repository));
+			buildThread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Maze maze = repository.lookup(order);
+					if (null == maze) {
+						mazeBuilder.run();
+						return;
+					}
+					LOGGER.fine("Delivering maze from repository");
+					if (Thread.currentThread().isInterrupted())
+						return; // order was cancelled
+					order.updateProgress(100);
+					order.deliver(maze);
+				}
+			});
+		}
 		buildThread.start();
 	}
+	
+	/**
+	 * An order that forwards everything to the given order
+	 * and stores the maze in the repository after it has been delivered.
+	 * Storing happens on the builder thread such that the delivery is not delayed.
+	 * The generation metrics are complete at that point, so the time to store
+	 * the maze and to build its bsp tree for the file is not part of any phase.
+	 */
+	private static class StoringOrder implements Order {
+		private final Order order;
+		private final MazeRepository repository;
+		
+		StoringOrder(Order order, MazeRepository repository) {
+			this.order = order;
+			this.repository = repository;
+		}
+		@Override
+		public int getSkillLevel() {
+			return order.getSkillLevel();
+		}
+		@Override
+		public Builder getBuilder() {
+			return order.getBuilder();
+		}
+		@Override
+		public boolean isPerfect() {
+			return order.isPerfect();
+		}
+		@Override
+		public int getSeed() {
+			return order.getSeed();
+		}
+		@Override
+		public Set<Artifact> getArtifacts() {
+			return order.getArtifacts();
+		}
+		@Override
+		public Delivery getDelivery() {
+			return order.getDelivery();
+		}
+		@Override
+		public void deliver(Maze mazeConfig) {
+			order.deliver(mazeConfig);
+			try {
+				repository.store(order, mazeConfig);
+			} catch (IOException e) {
+				LOGGER.warning("Failed to store maze in repository: " + e.getMessage());
+			}
+		}
+		@Override
+		public void updateProgress(int percentage) {
+			order.updateProgress(percentage);
+		}
+	}
 }
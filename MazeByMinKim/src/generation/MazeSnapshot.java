@@ -0,0 +1,290 @@
+package generation;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * An immutable copy of a finished maze that any number of threads
+ * can query at the same time without locks, e.g. simulated robots,
+ * render threads and analysis jobs that share one maze.
+ *
+ * A snapshot is frozen from a maze with {@link #freeze(Maze) freeze}.
+ * It keeps cell values, distances and directions towards the exit
+ * in flat primitive arrays with index x*height+y, the layout of the
+ * mapped maze files. All fields are final and the arrays are filled
+ * in the constructor and never written to afterwards, so the snapshot is
+ * safely published to any thread that obtains a reference to it and
+ * queries such as hasWall, getDistanceToExit, isExitPosition and leadsIntoDeadEnd
+ * read the arrays directly without copying.
+ *
+ * Set methods throw an UnsupportedOperationException.
+ * getFloorplan and getMazedists give a new read only view on the arrays
+ * for each call, the views copy the values into arrays of their own
+ * before they change any value, so changes never reach the snapshot.
+ * As each call allocates a view, code that runs in every step, such as
+ * a robot that checks for the exit, uses the queries of Maze instead.
+ * The tree of BSPnodes is shared with the maze the snapshot was frozen from,
+ * its walls carry the seen flag of the first person view which is
+ * not used by any query of this class.
+ *
+ * @author Min Kim
+ *
+ */
+public final class MazeSnapshot implements Maze {
+	/**
+	 * Value in the next hop table for the exit position.
+	 */
+	private static final byte NO_HOP = -1;
+
+	private final int width;
+	private final int height;
+	private final short[] cells; // cell values as in Floorplan, index x*height+y
+	private final int[] dists; // distance to the exit, index x*height+y
+	private final byte[] nextHops; // ordinal of the direction towards the exit, NO_HOP for the exit position
+	private final DeadEnds deadEnds;
+	private final int maxDistance;
+	private final int[] start;
+	private final int[] exit;
+	private final BSPNode rootnode;
+	private final GenerationMetrics generationMetrics;
+	private final PathFinder pathFinder; // shortest path queries for all threads
+
+	/**
+	 * Copies all values from the given maze
+	 * @param maze the maze to copy, must be fully initialized
+	 */
+	private MazeSnapshot(Maze maze) {
+		width = maze.getWidth();
+		height = maze.getHeight();
+		Floorplan floorplan = maze.getFloorplan();
+		Distance distance = maze.getMazedists();
+		cells = new short[width*height];
+		dists = new int[width*height];
+		int max = 0;
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int index = x*height+y;
+				cells[index] = (short) floorplan.getValueOfCell(x, y);
+				dists[index] = distance.getDistanceValue(x, y);
+				max = Math.max(max, dists[index]);
+			}
+		}
+		maxDistance = max;
+		start = maze.getStartingPosition().clone();
+		exit = maze.getExitPosition().clone();
+		nextHops = computeNextHops();
+		Floorplan view = getFloorplan();
+		deadEnds = new DeadEnds(view, width, height, exit[0], exit[1]);
+		pathFinder = new PathFinder(view, width, height);
+		rootnode = maze.getRootnode();
+		generationMetrics = maze.getGenerationMetrics();
+	}
+
+	/**
+	 * Gives an immutable copy of the given maze.
+	 * If the tree of BSPnodes is deferred, it is built on the calling thread first.
+	 * @param maze a fully initialized maze
+	 * @return the snapshot, the given maze itself if it is a snapshot already
+	 */
+	public static MazeSnapshot freeze(Maze maze) {
+		if (maze instanceof MazeSnapshot)
+			return (MazeSnapshot) maze;
+		return new MazeSnapshot(maze);
+	}
+
+	/**
+	 * Computes the direction towards the exit for each position,
+	 * picks the first direction in ordinal order that leads to the
+	 * smallest distance as Distance.computeNextHops does.
+	 * @return the next hop table
+	 */
+	private byte[] computeNextHops() {
+		byte[] hops = new byte[width*height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int index = x*height+y;
+				if (x == exit[0] && y == exit[1]) {
+					hops[index] = NO_HOP;
+					continue;
+				}
+				int dnext = dists[index];
+				byte hop = 0;
+				for (int i = 0; i < 4; i++) {
+					if ((cells[index] & Floorplan.getWallbit(i)) != 0)
+						continue; // there is a wallboard in the way
+					CardinalDirection cd = CardinalDirection.fromOrdinal(i);
+					int nx = x + cd.getDx();
+					int ny = y + cd.getDy();
+					if (!isValidPosition(nx, ny))
+						continue; // opening to the outside
+					if (dists[nx*height+ny] < dnext) {
+						dnext = dists[nx*height+ny];
+						hop = (byte) i;
+					}
+				}
+				hops[index] = hop;
+			}
+		}
+		return hops;
+	}
+
+	@Override
+	public void setWidth(int width) {
+		throw new UnsupportedOperationException("MazeSnapshot is immutable");
+	}
+	@Override
+	public void setHeight(int height) {
+		throw new UnsupportedOperationException("MazeSnapshot is immutable");
+	}
+	@Override
+	public int getHeight() {
+		return height;
+	}
+	@Override
+	public int getWidth() {
+		return width;
+	}
+	/**
+	 * Gives a new floorplan that reads from the cell values of this snapshot.
+	 * The floorplan copies the values before it changes any of them.
+	 * @return the floorplan
+	 */
+	@Override
+	public Floorplan getFloorplan() {
+		return new Floorplan(width, height, ShortBuffer.wrap(cells).asReadOnlyBuffer());
+	}
+	@Override
+	public void setFloorplan(Floorplan floorplan) {
+		throw new UnsupportedOperationException("MazeSnapshot is immutable");
+	}
+	/**
+	 * Gives a new distance object that reads from the distance values of this snapshot.
+	 * The distance object copies the values before it changes any of them.
+	 * @return the distances
+	 */
+	@Override
+	public Distance getMazedists() {
+		return new Distance(width, height, IntBuffer.wrap(dists).asReadOnlyBuffer());
+	}
+	@Override
+	public void setMazedists(Distance mazedists) {
+		throw new UnsupportedOperationException("MazeSnapshot is immutable");
+	}
+	@Override
+	public BSPNode getRootnode() {
+		return rootnode;
+	}
+	@Override
+	public boolean isRootnodeAvailable() {
+		return true;
+	}
+	@Override
+	public void whenRootnodeAvailable(Runnable action) {
+		action.run();
+	}
+	@Override
+	public void setRootnode(BSPNode rootnode) {
+		throw new UnsupportedOperationException("MazeSnapshot is immutable");
+	}
+	@Override
+	public GenerationMetrics getGenerationMetrics() {
+		return generationMetrics;
+	}
+	@Override
+	public void setGenerationMetrics(GenerationMetrics metrics) {
+		throw new UnsupportedOperationException("MazeSnapshot is immutable");
+	}
+	@Override
+	public boolean isValidPosition(int x, int y) {
+		return ((0 <= x && x < width) && (0 <= y && y < height));
+	}
+	@Override
+	public boolean isInRoom(int x, int y) {
+		return (cells[x*height+y] & Floorplan.CW_IN_ROOM) != 0;
+	}
+	@Override
+	public int getDistanceToExit(int x, int y) {
+		return dists[x*height+y];
+	}
+	@Override
+	public float getPercentageForDistanceToExit(int x, int y) {
+		return getDistanceToExit(x, y) / ((float) maxDistance);
+	}
+	@Override
+	public boolean hasWall(int x, int y, CardinalDirection dir) {
+		return isValidPosition(x, y) && (cells[x*height+y] & Floorplan.getWallbit(dir.ordinal())) != 0;
+	}
+	@Override
+	public boolean isFacingDeadEnd(int x, int y, CardinalDirection cd) {
+		if (!isValidPosition(x, y))
+			return false;
+		// wallboards in front, to the left and to the right: all but the one behind
+		int mask = Floorplan.CW_ALL & ~Floorplan.getWallbit(cd.oppositeDirection().ordinal());
+		return (cells[x*height+y] & mask) == mask;
+	}
+	@Override
+	public boolean leadsIntoDeadEnd(int x, int y, CardinalDirection cd) {
+		return isValidPosition(x, y) && deadEnds.isDeadEnd(x, y, cd);
+	}
+	@Override
+	public DeadEnds getDeadEnds() {
+		return deadEnds;
+	}
+	@Override
+	public int[] getNeighborCloserToExit(int x, int y) {
+		int neighbor = getNeighborCloserToExitIndex(x, y);
+		return (CellIndex.NONE == neighbor) ? null : CellIndex.toArray(neighbor);
+	}
+	@Override
+	public int getNeighborCloserToExitIndex(int x, int y) {
+		assert isValidPosition(x,y) : "Invalid position";
+		byte hop = nextHops[x*height+y];
+		if (NO_HOP == hop)
+			return CellIndex.NONE;
+		CardinalDirection cd = CardinalDirection.fromOrdinal(hop);
+		int nx = x+cd.getDx();
+		int ny = y+cd.getDy();
+		return (dists[x*height+y] > dists[nx*height+ny]) ? CellIndex.pack(nx, ny) : CellIndex.NONE;
+	}
+	@Override
+	public CardinalDirection getDirectionToExit(int x, int y) {
+		byte hop = nextHops[x*height+y];
+		return (NO_HOP == hop) ? null : CardinalDirection.fromOrdinal(hop);
+	}
+	@Override
+	public int getShortestPathLength(int fromX, int fromY, int toX, int toY) {
+		return pathFinder.getPathLength(fromX, fromY, toX, toY);
+	}
+	@Override
+	public int[] getShortestPath(int fromX, int fromY, int toX, int toY) {
+		return pathFinder.getPath(fromX, fromY, toX, toY);
+	}
+	@Override
+	public Adjacency getAdjacency() {
+		return Adjacency.of(getFloorplan(), width, height);
+	}
+	/**
+	 * Provides the (x,y) starting position.
+	 * @return a copy of the starting position
+	 */
+	@Override
+	public int[] getStartingPosition() {
+		return start.clone();
+	}
+	@Override
+	public void setStartingPosition(int x, int y) {
+		throw new UnsupportedOperationException("MazeSnapshot is immutable");
+	}
+	/**
+	 * Provides the (x,y) exit position.
+	 * @return a copy of the exit position
+	 */
+	@Override
+	public int[] getExitPosition() {
+		return exit.clone();
+	}
+	@Override
+	public boolean isExitPosition(int x, int y) {
+		return x == exit[0] && y == exit[1];
+	}
+}
@@ -1,5 +1,6 @@
 package generation;
 
+import java.util.Set;
 
 /**
  * An order describes functionality needed to order a maze from
@@ -40,6 +41,35 @@ public interface Order {
 	 * @return the current setting for the seed value of the random number generator
 	 */
 	int getSeed();
+	/**
+	 * Lists the parts of a maze that a client may need.
+	 * Floorplan and distances are always produced as the
+	 * generation needs them to determine start and exit position.
+	 * The BSP tree is only needed for the first person view.
+	 */
+	enum Artifact { FLOORPLAN, DISTANCES, BSP } ;
+	/**
+	 * Gives the parts of the maze that the client needs,
+	 * the factory may skip producing anything else.
+	 * A maze delivered without its BSP tree builds it on demand
+	 * when getRootnode is called.
+	 * @return set of needed artifacts
+	 */
+	Set<Artifact> getArtifacts();
+	/**
+	 * Tells when the maze is delivered.
+	 * COMPLETE delivers once all needed artifacts are there,
+	 * EARLY delivers as soon as floorplan and distances are ready
+	 * and builds a needed BSP tree on a background thread.
+	 */
+	enum Delivery { COMPLETE, EARLY } ;
+	/**
+	 * Gives the delivery mode. With EARLY delivery the client can
+	 * start with anything that needs no BSP tree and use
+	 * {@link Maze#whenRootnodeAvailable(Runnable)} to learn when the tree is published.
+	 * @return the delivery mode
+	 */
+	Delivery getDelivery();
 	/**
 	 * Delivers the produced maze. 
 	 * This method is called by the factory to provide the 
@@ -0,0 +1,239 @@
+package generation;
+
+import java.util.Arrays;
+
+/**
+ * Finds shortest paths between two arbitrary positions of a maze.
+ * Distance only tells how far each position is from the exit,
+ * a path finder answers the same question for any pair of positions,
+ * e.g. for a driver that heads for a waypoint.
+ *
+ * The search is a breadth first search that starts from both ends and
+ * expands the smaller frontier by a full layer at a time until the
+ * frontiers meet. All steps cost the same, so this finds a shortest path
+ * and visits far fewer cells than a search from one end. A Manhattan
+ * distance heuristic as in A* does not help much in a maze where
+ * corridors wind away from the target.
+ *
+ * The path finder copies the wallboards into one byte per cell
+ * when it is created, such that a step is a bit test and an index offset.
+ * Later changes to the floorplan are not seen, see isFor.
+ * Scratch buffers for the size of the maze are taken from a ScratchPool
+ * for each query and reused by later queries. Instead of clearing the buffers,
+ * each query takes a new epoch number and a cell counts as visited only if its
+ * stamp carries the current epoch.
+ * A path finder is thread safe, a maze keeps one for all threads.
+ *
+ * @author Min Kim
+ *
+ */
+public final class PathFinder {
+	private final Floorplan floorplan;
+	private final long fingerprint; // of the floorplan when the wallboards were copied
+	private final int width;
+	private final int height;
+	private final byte[] walls; // wallboard bits per cell, index x*height+y, openings to the outside closed
+	private final int[] offsets; // index offset of the neighbor for each direction, indexed by ordinal
+	// scratch buffers for queries, at most one set per processor is kept
+	private final ScratchPool<Search> searches = new ScratchPool<Search>() {
+		@Override
+		protected Search create() {
+			return new Search(width*height);
+		}
+	};
+
+	/**
+	 * Scratch buffers of a query, a search from both ends
+	 */
+	private static final class Search {
+		final Frontier forward; // search from the first position
+		final Frontier backward; // search from the second position
+		int epoch;
+		int meeting; // cell index where the frontiers met in the last search
+
+		Search(int size) {
+			forward = new Frontier(size);
+			backward = new Frontier(size);
+		}
+	}
+
+	/**
+	 * Search state for one end, all arrays with index x*height+y
+	 */
+	private static final class Frontier {
+		final int[] stamp; // epoch in which a cell was reached
+		final int[] dist; // number of steps from the end, valid if stamp is current
+		final int[] parent; // previous cell on the way from the end, valid if stamp is current
+		final int[] queue; // cells in order of discovery
+		int head;
+		int tail;
+
+		Frontier(int size) {
+			stamp = new int[size];
+			dist = new int[size];
+			parent = new int[size];
+			queue = new int[size];
+		}
+
+		/**
+		 * Starts a new search from the given cell
+		 * @param cell the end to start from
+		 * @param epoch the current epoch
+		 */
+		void start(int cell, int epoch) {
+			head = 0;
+			tail = 0;
+			queue[tail++] = cell;
+			stamp[cell] = epoch;
+			dist[cell] = 0;
+			parent[cell] = -1;
+		}
+	}
+
+	/**
+	 * Constructor
+	 * @param floorplan with the wallboards of the maze, read only
+	 * @param width of the maze
+	 * @param height of the maze
+	 */
+	public PathFinder(Floorplan floorplan, int width, int height) {
+		this.floorplan = floorplan;
+		this.fingerprint = floorplan.getFingerprint();
+		this.width = width;
+		this.height = height;
+		walls = new byte[width*height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				walls[x*height+y] = (byte) floorplan.getInnerWallbits(x, y);
+			}
+		}
+		offsets = new int[4];
+		for (CardinalDirection cd : CardinalDirection.values()) {
+			offsets[cd.ordinal()] = cd.getDx()*height + cd.getDy();
+		}
+	}
+
+	/**
+	 * Tells if the path finder searches the given floorplan as it is now
+	 * @param cells the floorplan
+	 * @return true if the path finder was created for it and it did not change since, false otherwise
+	 */
+	boolean isFor(Floorplan cells) {
+		return floorplan == cells && fingerprint == cells.getFingerprint();
+	}
+
+	/**
+	 * Gives the number of steps on a shortest path between two positions.
+	 * @param fromX is on the horizontal axis, {@code 0 <= fromX < width}
+	 * @param fromY is on the vertical axis, {@code 0 <= fromY < height}
+	 * @param toX is on the horizontal axis, {@code 0 <= toX < width}
+	 * @param toY is on the vertical axis, {@code 0 <= toY < height}
+	 * @return the number of steps, 0 if both positions are the same, -1 if there is no path
+	 */
+	public int getPathLength(int fromX, int fromY, int toX, int toY) {
+		Search s = searches.acquire();
+		try {
+			return search(s, fromX*height+fromY, toX*height+toY);
+		}
+		finally {
+			searches.release(s);
+		}
+	}
+
+	/**
+	 * Gives a shortest path between two positions.
+	 * @param fromX is on the horizontal axis, {@code 0 <= fromX < width}
+	 * @param fromY is on the vertical axis, {@code 0 <= fromY < height}
+	 * @param toX is on the horizontal axis, {@code 0 <= toX < width}
+	 * @param toY is on the vertical axis, {@code 0 <= toY < height}
+	 * @return packed positions (see CellIndex) from the first to the second position,
+	 * both included, null if there is no path
+	 */
+	public int[] getPath(int fromX, int fromY, int toX, int toY) {
+		Search s = searches.acquire();
+		try {
+			int length = search(s, fromX*height+fromY, toX*height+toY);
+			if (length < 0)
+				return null;
+			int[] path = new int[length+1];
+			final int meeting = s.meeting;
+			// first half backwards from the meeting cell to the first position
+			for (int cell = meeting, i = s.forward.dist[meeting]; cell >= 0; cell = s.forward.parent[cell], i--) {
+				path[i] = CellIndex.pack(cell / height, cell % height);
+			}
+			// second half from the meeting cell to the second position
+			for (int cell = s.backward.parent[meeting], i = s.forward.dist[meeting]+1; cell >= 0; cell = s.backward.parent[cell], i++) {
+				path[i] = CellIndex.pack(cell / height, cell % height);
+			}
+			return path;
+		}
+		finally {
+			searches.release(s);
+		}
+	}
+
+	/**
+	 * Searches from both ends until the frontiers meet.
+	 * Sets meeting of the scratch buffers to a cell on a shortest path.
+	 * @param s scratch buffers of the query
+	 * @param from cell index of the first position
+	 * @param to cell index of the second position
+	 * @return the number of steps, -1 if there is no path
+	 */
+	private int search(Search s, int from, int to) {
+		assert 0 <= from && from < width*height && 0 <= to && to < width*height : "Invalid position";
+		if (++s.epoch == Integer.MAX_VALUE) {
+			// stamps of earlier searches could match again, start over
+			Arrays.fill(s.forward.stamp, 0);
+			Arrays.fill(s.backward.stamp, 0);
+			s.epoch = 1;
+		}
+		s.forward.start(from, s.epoch);
+		s.backward.start(to, s.epoch);
+		s.meeting = from;
+		if (from == to)
+			return 0;
+		while (s.forward.head < s.forward.tail && s.backward.head < s.backward.tail) {
+			int length = (s.forward.tail - s.forward.head <= s.backward.tail - s.backward.head)
+					? expandLayer(s, s.forward, s.backward) : expandLayer(s, s.backward, s.forward);
+			if (length >= 0)
+				return length;
+		}
+		return -1;
+	}
+
+	/**
+	 * Visits the neighbors of all cells in the current layer of the given frontier.
+	 * The layer is completed even if the frontiers meet, such that the shortest
+	 * of all paths through this layer is found.
+	 * @param s scratch buffers of the query
+	 * @param own the frontier to expand
+	 * @param other the frontier from the other end
+	 * @return the length of the shortest path if the frontiers met, -1 otherwise
+	 */
+	private int expandLayer(Search s, Frontier own, Frontier other) {
+		final int epoch = s.epoch;
+		int best = Integer.MAX_VALUE;
+		final int end = own.tail;
+		for (; own.head < end; own.head++) {
+			final int cell = own.queue[own.head];
+			final int wallboards = walls[cell];
+			for (int i = 0; i < 4; i++) {
+				if ((wallboards & Floorplan.getWallbit(i)) != 0)
+					continue; // there is a wallboard in the way
+				int next = cell + offsets[i];
+				if (own.stamp[next] == epoch)
+					continue; // visited before
+				own.stamp[next] = epoch;
+				own.dist[next] = own.dist[cell]+1;
+				own.parent[next] = cell;
+				own.queue[own.tail++] = next;
+				if (other.stamp[next] == epoch && own.dist[next] + other.dist[next] < best) {
+					best = own.dist[next] + other.dist[next];
+					s.meeting = next;
+				}
+			}
+		}
+		return (Integer.MAX_VALUE == best) ? -1 : best;
+	}
+}
@@ -0,0 +1,667 @@
+package generation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A hierarchical index for shortest path queries on very large mazes
+ * in the style of HPA*. A PathFinder visits a good part of the maze
+ * for positions that are far apart, the index visits a few cells close
+ * to both positions and otherwise only the borders of clusters.
+ *
+ * The maze is partitioned into square clusters. Each cell of a cluster
+ * that has an opening to a cell of another cluster is an entrance.
+ * The index keeps the length of the shortest path inside the cluster
+ * between each pair of entrances of the cluster, but leaves out a pair
+ * if the shortest path between them passes another entrance anyway,
+ * such that a cluster carries about as many edges as entrances.
+ * A query searches from the first position to the entrances of its
+ * cluster, from there across the graph of entrances with A* and
+ * a Manhattan distance heuristic, and finally from the entrances of
+ * the cluster of the second position to the second position. Every
+ * opening between clusters is an entrance of its own, so the result is
+ * a shortest path and not just a good one. A path is refined into
+ * single steps with a breadth first search inside each cluster it crosses.
+ *
+ * Like a PathFinder, the index copies the wallboards when it is created.
+ * Clusters are built in parallel for large mazes. If a wallboard changes
+ * later on, {@link #update(Wallboard) update} rebuilds the clusters
+ * on both sides of it and nothing else.
+ * Queries take their scratch buffers from a ScratchPool, so several threads
+ * may query one index at the same time, but not while it is updated.
+ *
+ * @author Min Kim
+ *
+ */
+public final class PathIndex {
+	/**
+	 * Default number of rows and columns of a cluster.
+	 */
+	public static final int DEFAULT_CLUSTER_SIZE = 16;
+	/**
+	 * Number of clusters from which on they are built in parallel.
+	 */
+	static final int PARALLEL_CLUSTERS = 64;
+	private static final int[] DX = {0, 1, 0, -1};
+	private static final int[] DY = {-1, 0, 1, 0};
+
+	private final Floorplan floorplan;
+	private long fingerprint; // of the floorplan when the wallboards were copied last
+	private final int width;
+	private final int height;
+	private final int clusterSize;
+	private final int clusterRows; // number of clusters along the vertical axis
+	private final int stride; // upper bound on the entrances of a cluster, node id is cluster*stride+entrance
+	private final byte[] walls; // wallboard bits per cell, index x*height+y, openings to the outside closed
+	private final int[] entranceIds; // number of the entrance in its cluster per cell, -1 for other cells
+	// per cluster, index (x/clusterSize)*clusterRows+y/clusterSize
+	private final int[][] entrances; // cell index of each entrance
+	private final int[][] edgeStarts; // first edge of each entrance, one more for the end of the last
+	private final int[][] edgeTargets; // entrance at the other end of each edge
+	private final int[][] edgeLengths; // number of steps of each edge
+	// scratch buffers for queries, at most one set per processor is kept
+	private final ScratchPool<Query> queries = new ScratchPool<Query>() {
+		@Override
+		protected Query create() {
+			return new Query();
+		}
+	};
+
+	/**
+	 * Constructor for clusters of the default size
+	 * @param floorplan with the wallboards of the maze, read only
+	 * @param width of the maze
+	 * @param height of the maze
+	 */
+	public PathIndex(Floorplan floorplan, int width, int height) {
+		this(floorplan, width, height, DEFAULT_CLUSTER_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 * @param floorplan with the wallboards of the maze, read only
+	 * @param width of the maze
+	 * @param height of the maze
+	 * @param clusterSize number of rows and columns of a cluster, at least 2
+	 */
+	public PathIndex(Floorplan floorplan, int width, int height, int clusterSize) {
+		if (clusterSize < 2)
+			throw new IllegalArgumentException("Cluster size must be at least 2: " + clusterSize);
+		this.floorplan = floorplan;
+		this.fingerprint = floorplan.getFingerprint();
+		this.width = width;
+		this.height = height;
+		this.clusterSize = clusterSize;
+		clusterRows = (height + clusterSize - 1) / clusterSize;
+		stride = Math.min(clusterSize*clusterSize, 4*clusterSize);
+		walls = new byte[width*height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				copyWalls(x, y);
+			}
+		}
+		entranceIds = new int[width*height];
+		int clusters = ((width + clusterSize - 1) / clusterSize) * clusterRows;
+		entrances = new int[clusters][];
+		edgeStarts = new int[clusters][];
+		edgeTargets = new int[clusters][];
+		edgeLengths = new int[clusters][];
+		buildClusters(clusters);
+	}
+
+	/**
+	 * Copies the wallboards of a cell
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 */
+	private void copyWalls(int x, int y) {
+		walls[x*height+y] = (byte) floorplan.getInnerWallbits(x, y);
+	}
+
+	/**
+	 * Builds all clusters, in parallel chunks if there are many.
+	 * Each chunk writes to its own clusters only and
+	 * joining the chunks publishes the results.
+	 * @param clusters the number of clusters
+	 */
+	private void buildClusters(int clusters) {
+		if (clusters < PARALLEL_CLUSTERS || ForkJoinPool.getCommonPoolParallelism() < 2) {
+			buildClusters(0, clusters);
+			return;
+		}
+		int chunkSize = Math.max(1, clusters / (4*ForkJoinPool.getCommonPoolParallelism()));
+		List<ForkJoinTask<Void>> chunks = new ArrayList<>();
+		for (int from = 0; from < clusters; from += chunkSize) {
+			final int first = from;
+			final int last = Math.min(from + chunkSize, clusters);
+			chunks.add(ForkJoinPool.commonPool().submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					buildClusters(first, last);
+					return null;
+				}
+			}));
+		}
+		for (ForkJoinTask<Void> chunk : chunks) {
+			chunk.join();
+		}
+	}
+
+	/**
+	 * Builds a range of clusters with a single buffer for the searches.
+	 * @param from first cluster
+	 * @param to cluster after the last one
+	 */
+	private void buildClusters(int from, int to) {
+		ClusterSearch search = new ClusterSearch();
+		for (int k = from; k < to; k++) {
+			buildCluster(k, search);
+		}
+	}
+
+	/**
+	 * Finds the entrances of a cluster and the shortest paths
+	 * inside the cluster between them. Keeps a path as an edge only if
+	 * no other entrance is on a path of the same length.
+	 * @param k the cluster
+	 * @param search buffer for the searches inside the cluster
+	 */
+	private void buildCluster(int k, ClusterSearch search) {
+		final int x0 = (k / clusterRows)*clusterSize;
+		final int y0 = (k % clusterRows)*clusterSize;
+		final int x1 = Math.min(x0 + clusterSize, width);
+		final int y1 = Math.min(y0 + clusterSize, height);
+		int[] cells = new int[stride];
+		int count = 0;
+		for (int x = x0; x < x1; x++) {
+			for (int y = y0; y < y1; y++) {
+				int cell = x*height+y;
+				entranceIds[cell] = -1;
+				for (int i = 0; i < 4; i++) {
+					int nx = x + DX[i];
+					int ny = y + DY[i];
+					if ((walls[cell] & Floorplan.getWallbit(i)) == 0 && (nx < x0 || nx >= x1 || ny < y0 || ny >= y1)) {
+						entranceIds[cell] = count;
+						cells[count++] = cell;
+						break;
+					}
+				}
+			}
+		}
+		cells = Arrays.copyOf(cells, count);
+		// distances inside the cluster between all pairs of entrances, -1 if there is no path
+		int[] dists = new int[count*count];
+		for (int a = 0; a < count; a++) {
+			search.run(k, cells[a]);
+			for (int b = 0; b < count; b++) {
+				dists[a*count+b] = search.getDistance(cells[b]);
+			}
+		}
+		int[] starts = new int[count+1];
+		int[] targets = new int[count*count];
+		int[] lengths = new int[count*count];
+		int edges = 0;
+		for (int a = 0; a < count; a++) {
+			starts[a] = edges;
+			for (int b = 0; b < count; b++) {
+				int d = dists[a*count+b];
+				if (a == b || d < 0 || isPassingEntrance(dists, count, a, b))
+					continue;
+				targets[edges] = b;
+				lengths[edges] = d;
+				edges++;
+			}
+		}
+		starts[count] = edges;
+		entrances[k] = cells;
+		edgeStarts[k] = starts;
+		edgeTargets[k] = Arrays.copyOf(targets, edges);
+		edgeLengths[k] = Arrays.copyOf(lengths, edges);
+	}
+
+	/**
+	 * Tells if a shortest path between two entrances of a cluster passes another entrance.
+	 * The edge is not needed then as the two edges to and from that entrance
+	 * or their replacements add up to the same length.
+	 * @param dists distances between all pairs of entrances
+	 * @param count number of entrances
+	 * @param a first entrance
+	 * @param b second entrance
+	 * @return true if there is such an entrance, false otherwise
+	 */
+	private boolean isPassingEntrance(int[] dists, int count, int a, int b) {
+		int d = dists[a*count+b];
+		for (int c = 0; c < count; c++) {
+			if (c == a || c == b)
+				continue;
+			int first = dists[a*count+c];
+			int second = dists[c*count+b];
+			if (first >= 0 && second >= 0 && first + second == d)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Rebuilds the clusters on both sides of a wallboard after it was added to
+	 * or deleted from the floorplan.
+	 * @param wallboard the wallboard that changed
+	 */
+	public void update(Wallboard wallboard) {
+		int x = wallboard.getX();
+		int y = wallboard.getY();
+		int nx = x + wallboard.getDirection().getDx();
+		int ny = y + wallboard.getDirection().getDy();
+		copyWalls(x, y);
+		ClusterSearch search = new ClusterSearch();
+		buildCluster(getCluster(x, y), search);
+		if (0 <= nx && nx < width && 0 <= ny && ny < height) {
+			copyWalls(nx, ny);
+			if (getCluster(nx, ny) != getCluster(x, y))
+				buildCluster(getCluster(nx, ny), search);
+		}
+		fingerprint = floorplan.getFingerprint();
+	}
+
+	/**
+	 * Tells if the index answers queries for the given floorplan as it is now
+	 * @param cells the floorplan
+	 * @return true if the index was created for it and is up to date, false otherwise
+	 */
+	boolean isFor(Floorplan cells) {
+		return floorplan == cells && fingerprint == cells.getFingerprint();
+	}
+
+	/**
+	 * Gives the number of entrances of all clusters
+	 * @return the number of nodes of the abstract graph
+	 */
+	int getEntranceCount() {
+		int count = 0;
+		for (int[] cells : entrances) {
+			count += cells.length;
+		}
+		return count;
+	}
+
+	/**
+	 * Gives the cluster of a position
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @return the cluster
+	 */
+	private int getCluster(int x, int y) {
+		return (x / clusterSize)*clusterRows + y / clusterSize;
+	}
+
+	/**
+	 * Gives the number of steps on a shortest path between two positions.
+	 * @param fromX is on the horizontal axis, {@code 0 <= fromX < width}
+	 * @param fromY is on the vertical axis, {@code 0 <= fromY < height}
+	 * @param toX is on the horizontal axis, {@code 0 <= toX < width}
+	 * @param toY is on the vertical axis, {@code 0 <= toY < height}
+	 * @return the number of steps, 0 if both positions are the same, -1 if there is no path
+	 */
+	public int getPathLength(int fromX, int fromY, int toX, int toY) {
+		Query query = queries.acquire();
+		try {
+			return query.search(fromX, fromY, toX, toY);
+		}
+		finally {
+			queries.release(query);
+		}
+	}
+
+	/**
+	 * Gives a shortest path between two positions.
+	 * @param fromX is on the horizontal axis, {@code 0 <= fromX < width}
+	 * @param fromY is on the vertical axis, {@code 0 <= fromY < height}
+	 * @param toX is on the horizontal axis, {@code 0 <= toX < width}
+	 * @param toY is on the vertical axis, {@code 0 <= toY < height}
+	 * @return packed positions (see CellIndex) from the first to the second position,
+	 * both included, null if there is no path
+	 */
+	public int[] getPath(int fromX, int fromY, int toX, int toY) {
+		Query query = queries.acquire();
+		try {
+			int length = query.search(fromX, fromY, toX, toY);
+			return (length < 0) ? null : query.getPath(length);
+		}
+		finally {
+			queries.release(query);
+		}
+	}
+
+	/**
+	 * Breadth first search inside a single cluster,
+	 * all arrays with a local index (x-x0)*rows+(y-y0).
+	 */
+	private final class ClusterSearch {
+		final int[] stamp = new int[clusterSize*clusterSize]; // epoch in which a cell was reached
+		final int[] dist = new int[clusterSize*clusterSize]; // number of steps from the origin
+		final int[] parent = new int[clusterSize*clusterSize]; // previous local index, -1 for the origin
+		final int[] queue = new int[clusterSize*clusterSize];
+		int epoch;
+		int x0; // bounds of the cluster of the last search
+		int y0;
+		int columns;
+		int rows;
+
+		/**
+		 * Searches the cluster from the given cell
+		 * @param k the cluster
+		 * @param origin cell index inside the cluster
+		 */
+		void run(int k, int origin) {
+			if (++epoch == Integer.MAX_VALUE) {
+				// stamps of earlier searches could match again, start over
+				Arrays.fill(stamp, 0);
+				epoch = 1;
+			}
+			x0 = (k / clusterRows)*clusterSize;
+			y0 = (k % clusterRows)*clusterSize;
+			columns = Math.min(clusterSize, width - x0);
+			rows = Math.min(clusterSize, height - y0);
+			int head = 0;
+			int tail = 0;
+			int start = getLocal(origin);
+			queue[tail++] = start;
+			stamp[start] = epoch;
+			dist[start] = 0;
+			parent[start] = -1;
+			while (head < tail) {
+				final int local = queue[head++];
+				final int lx = local / rows;
+				final int ly = local - lx*rows;
+				final int wallboards = walls[(x0+lx)*height + y0+ly];
+				for (int i = 0; i < 4; i++) {
+					if ((wallboards & Floorplan.getWallbit(i)) != 0)
+						continue; // there is a wallboard in the way
+					int nx = lx + DX[i];
+					int ny = ly + DY[i];
+					if (nx < 0 || nx >= columns || ny < 0 || ny >= rows)
+						continue; // the neighbor belongs to another cluster
+					int next = nx*rows+ny;
+					if (stamp[next] == epoch)
+						continue; // visited before
+					stamp[next] = epoch;
+					dist[next] = dist[local]+1;
+					parent[next] = local;
+					queue[tail++] = next;
+				}
+			}
+		}
+
+		/**
+		 * Gives the local index of a cell of the cluster of the last search
+		 * @param cell cell index
+		 * @return the local index
+		 */
+		int getLocal(int cell) {
+			int x = cell / height;
+			return (x - x0)*rows + cell - x*height - y0;
+		}
+
+		/**
+		 * Gives the distance from the origin of the last search
+		 * @param cell cell index inside the cluster
+		 * @return the number of steps, -1 if the cell can not be reached inside the cluster
+		 */
+		int getDistance(int cell) {
+			int local = getLocal(cell);
+			return (stamp[local] == epoch) ? dist[local] : -1;
+		}
+
+		/**
+		 * Writes the path from the origin of the last search to the given cell
+		 * @param cell cell index of a cell that was reached
+		 * @param path receives packed positions
+		 * @param offset index of the origin in the path
+		 * @return index of the given cell in the path
+		 */
+		int writePath(int cell, int[] path, int offset) {
+			int local = getLocal(cell);
+			int end = offset + dist[local];
+			for (int i = end; local >= 0; local = parent[local], i--) {
+				path[i] = pack(local);
+			}
+			return end;
+		}
+
+		/**
+		 * Writes the path from the given cell to the origin of the last search
+		 * @param cell cell index of a cell that was reached
+		 * @param path receives packed positions
+		 * @param offset index of the given cell in the path
+		 * @return index of the origin in the path
+		 */
+		int writeReversePath(int cell, int[] path, int offset) {
+			int local = getLocal(cell);
+			int i = offset;
+			for (; local >= 0; local = parent[local], i++) {
+				path[i] = pack(local);
+			}
+			return i - 1;
+		}
+
+		/**
+		 * Gives the position of a local index
+		 * @param local the local index
+		 * @return the packed position, see CellIndex
+		 */
+		private int pack(int local) {
+			return CellIndex.pack(x0 + local / rows, y0 + local % rows);
+		}
+	}
+
+	/**
+	 * Scratch buffers for one query at a time, the node arrays are
+	 * indexed by node id cluster*stride+entrance.
+	 */
+	private final class Query {
+		final int[] stamp = new int[entrances.length*stride]; // epoch in which a node was reached
+		final int[] dist = new int[entrances.length*stride]; // number of steps from the first position
+		final int[] parent = new int[entrances.length*stride]; // previous node, -1 if reached from the first position
+		final int[] costs = new int[stride]; // steps from each entrance of the last cluster to the second position
+		final ClusterSearch source = new ClusterSearch(); // from the first position
+		final ClusterSearch target = new ClusterSearch(); // from the second position
+		final ClusterSearch segment = new ClusterSearch(); // between entrances of a path
+		long[] heap = new long[64]; // estimated length and node, smallest on top
+		int size;
+		int epoch;
+		int from; // cell index of the first position of the last search
+		int to; // cell index of the second position of the last search
+		int toX;
+		int toY;
+		int last; // node from which the shortest path enters the second position, -1 if it stays inside the cluster
+
+		/**
+		 * Searches a shortest path, for the refinement into a path
+		 * the searches inside the clusters of both positions are kept.
+		 * @return the number of steps, -1 if there is no path
+		 */
+		int search(int fromX, int fromY, int toX, int toY) {
+			assert 0 <= fromX && fromX < width && 0 <= fromY && fromY < height : "Invalid position";
+			assert 0 <= toX && toX < width && 0 <= toY && toY < height : "Invalid position";
+			from = fromX*height+fromY;
+			to = toX*height+toY;
+			this.toX = toX;
+			this.toY = toY;
+			last = -1;
+			final int first = getCluster(fromX, fromY);
+			final int second = getCluster(toX, toY);
+			source.run(first, from);
+			int best = Integer.MAX_VALUE;
+			if (first == second) {
+				int d = source.getDistance(to);
+				if (d >= 0)
+					best = d;
+				if (best <= 1)
+					return best; // no detour through other clusters is shorter
+			}
+			if (++epoch == Integer.MAX_VALUE) {
+				// stamps of earlier searches could match again, start over
+				Arrays.fill(stamp, 0);
+				epoch = 1;
+			}
+			target.run(second, to);
+			final int[] ends = entrances[second];
+			for (int b = 0; b < ends.length; b++) {
+				costs[b] = target.getDistance(ends[b]);
+			}
+			size = 0;
+			final int[] starts = entrances[first];
+			for (int a = 0; a < starts.length; a++) {
+				int d = source.getDistance(starts[a]);
+				if (d >= 0)
+					reach(first*stride+a, d, -1);
+			}
+			while (size > 0) {
+				final long top = poll();
+				final int estimate = (int) (top >>> 32);
+				if (estimate >= best)
+					break; // no other path can be shorter
+				final int node = (int) top;
+				final int k = node / stride;
+				final int a = node - k*stride;
+				final int cell = entrances[k][a];
+				final int x = cell / height;
+				final int y = cell - x*height;
+				final int d = dist[node];
+				if (estimate > d + Math.abs(x - toX) + Math.abs(y - toY))
+					continue; // reached on a shorter path after this entry was added
+				if (k == second && costs[a] >= 0 && d + costs[a] < best) {
+					best = d + costs[a];
+					last = node;
+				}
+				// edges inside the cluster
+				final int[] targets = edgeTargets[k];
+				final int[] lengths = edgeLengths[k];
+				for (int e = edgeStarts[k][a], end = edgeStarts[k][a+1]; e < end; e++) {
+					reach(k*stride+targets[e], d+lengths[e], node);
+				}
+				// steps into other clusters
+				final int wallboards = walls[cell];
+				for (int i = 0; i < 4; i++) {
+					if ((wallboards & Floorplan.getWallbit(i)) != 0)
+						continue; // there is a wallboard in the way
+					int nx = x + DX[i];
+					int ny = y + DY[i];
+					int other = getCluster(nx, ny);
+					int b = entranceIds[nx*height+ny];
+					if (other != k && b >= 0)
+						reach(other*stride+b, d+1, node);
+				}
+			}
+			return (Integer.MAX_VALUE == best) ? -1 : best;
+		}
+
+		/**
+		 * Records a path to a node if it is shorter than the one known so far
+		 * @param node the node
+		 * @param d the number of steps from the first position
+		 * @param previous the previous node on the path, -1 for none
+		 */
+		private void reach(int node, int d, int previous) {
+			if (stamp[node] == epoch && dist[node] <= d)
+				return;
+			stamp[node] = epoch;
+			dist[node] = d;
+			parent[node] = previous;
+			int cell = entrances[node / stride][node % stride];
+			int x = cell / height;
+			int estimate = d + Math.abs(x - toX) + Math.abs(cell - x*height - toY);
+			add(((long) estimate << 32) | node);
+		}
+
+		/**
+		 * Adds an entry to the heap
+		 * @param entry estimated length in the upper half, node in the lower half
+		 */
+		private void add(long entry) {
+			if (size == heap.length)
+				heap = Arrays.copyOf(heap, 2*size);
+			int i = size++;
+			while (i > 0) {
+				int up = (i - 1) >>> 1;
+				if (heap[up] <= entry)
+					break;
+				heap[i] = heap[up];
+				i = up;
+			}
+			heap[i] = entry;
+		}
+
+		/**
+		 * Removes the smallest entry from the heap
+		 * @return the entry
+		 */
+		private long poll() {
+			long result = heap[0];
+			long entry = heap[--size];
+			int i = 0;
+			while (true) {
+				int child = 2*i + 1;
+				if (child >= size)
+					break;
+				if (child + 1 < size && heap[child+1] < heap[child])
+					child++;
+				if (entry <= heap[child])
+					break;
+				heap[i] = heap[child];
+				i = child;
+			}
+			heap[i] = entry;
+			return result;
+		}
+
+		/**
+		 * Refines the result of the last search into single steps.
+		 * @param length the number of steps
+		 * @return packed positions from the first to the second position
+		 */
+		int[] getPath(int length) {
+			int[] path = new int[length+1];
+			if (last < 0) {
+				// stays inside the cluster of both positions
+				source.writePath(to, path, 0);
+				return path;
+			}
+			int count = 0;
+			for (int node = last; node >= 0; node = parent[node]) {
+				count++;
+			}
+			int[] nodes = new int[count];
+			for (int node = last, i = count-1; node >= 0; node = parent[node], i--) {
+				nodes[i] = node;
+			}
+			int position = source.writePath(getCell(nodes[0]), path, 0);
+			for (int i = 1; i < count; i++) {
+				int k = nodes[i-1] / stride;
+				int cell = getCell(nodes[i]);
+				if (nodes[i] / stride == k) {
+					segment.run(k, getCell(nodes[i-1]));
+					position = segment.writePath(cell, path, position);
+				}
+				else {
+					path[++position] = CellIndex.pack(cell / height, cell % height);
+				}
+			}
+			target.writeReversePath(getCell(last), path, position);
+			return path;
+		}
+
+		/**
+		 * Gives the cell of a node
+		 * @param node the node
+		 * @return cell index of the entrance
+		 */
+		private int getCell(int node) {
+			return entrances[node / stride][node % stride];
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package generation;
+
+/**
+ * Reports the progress of a maze generation to the order.
+ * The generation is divided into the phases of GenerationMetrics,
+ * each phase has a weight that reflects its typical share of the
+ * overall generation time, measured with GenerationMetrics for
+ * each builder algorithm. A phase reports how far it got as a
+ * fraction, the tracker turns it into a percentage for the whole generation.
+ *
+ * Updates are throttled by time: the order hears about a new percentage
+ * at most every THROTTLE_INTERVAL and only if the value increased,
+ * so callers can update as often as they like.
+ * The percentage stays below 100 until finish is called upon delivery
+ * such that the progress bar never shows 100 while work continues.
+ *
+ * @author Min Kim
+ *
+ */
+class ProgressTracker {
+	/**
+	 * Minimum time between two updates for the order in nanoseconds.
+	 */
+	static final long THROTTLE_INTERVAL = 50_000_000L;
+	/**
+	 * Weights of the phases in percent, indexed by ordinal, sum up to 100.
+	 * Distances and the bsp construction dominate for DFS and Prim.
+	 */
+	static final int[] WEIGHTS = { 2, 8, 35, 5, 50, 0 };
+	/**
+	 * Weights of the phases for Boruvka, where the pathways dominate.
+	 */
+	static final int[] WEIGHTS_BORUVKA = { 1, 92, 2, 1, 4, 0 };
+
+	private final Order order; // receives the updates, may be null
+	private final int[] weights; // weights for the builder of the order
+	private GenerationMetrics.Phase current; // phase in progress
+	private int base; // sum of weights of completed phases
+	private int reported; // last percentage given to the order
+	private long lastReport; // time of the last update in nanoseconds
+
+	/**
+	 * Constructor
+	 * @param order to update, if null all calls are ignored
+	 */
+	ProgressTracker(Order order) {
+		this.order = order;
+		weights = (null != order && Order.Builder.Boruvka == order.getBuilder()) ? WEIGHTS_BORUVKA : WEIGHTS;
+		assert 100 == sum(weights.length) : "Weights of phases must sum up to 100";
+		reported = 0;
+		lastReport = System.nanoTime();
+	}
+
+	/**
+	 * Starts the given phase, all earlier phases count as completed.
+	 * @param phase that begins
+	 */
+	void startPhase(GenerationMetrics.Phase phase) {
+		current = phase;
+		base = sum(phase.ordinal());
+		report(base);
+	}
+
+	/**
+	 * Updates the progress of the current phase.
+	 * Values that would lower the reported percentage are ignored.
+	 * @param fraction of the current phase that is done, {@code 0 <= fraction <= 1}
+	 */
+	void update(double fraction) {
+		if (null == current)
+			return;
+		if (fraction > 1)
+			fraction = 1;
+		report(base + (int) (weights[current.ordinal()] * fraction));
+	}
+
+	/**
+	 * Tells the order that the generation is complete,
+	 * this is the only way to reach 100 percent.
+	 */
+	void finish() {
+		current = null;
+		if (null != order) {
+			order.updateProgress(100);
+		}
+		reported = 100;
+	}
+
+	/**
+	 * @return the last percentage given to the order
+	 */
+	int getReported() {
+		return reported;
+	}
+
+	/**
+	 * Gives the percentage to the order if it is an increase
+	 * and the last update is long enough ago.
+	 * @param percentage for the whole generation, capped at 99
+	 */
+	private void report(int percentage) {
+		if (percentage > 99)
+			percentage = 99;
+		if (percentage <= reported)
+			return;
+		long now = System.nanoTime();
+		if (now - lastReport < THROTTLE_INTERVAL)
+			return;
+		reported = percentage;
+		lastReport = now;
+		if (null != order) {
+			order.updateProgress(percentage);
+		}
+	}
+
+	/**
+	 * @param phases number of phases to add up
+	 * @return sum of the weights of the first phases
+	 */
+	private int sum(int phases) {
+		int result = 0;
+		for (int i = 0; i < phases; i++) {
+			result += weights[i];
+		}
+		return result;
+	}
+}
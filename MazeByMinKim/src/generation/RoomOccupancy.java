@@ -0,0 +1,181 @@
+package generation;
+
+/**
+ * Keeps track of the cells of a floorplan that belong to rooms
+ * such that the room generation can tell quickly if an area is free
+ * and can pick a position for a new room among all free positions
+ * once guessing does not work anymore.
+ *
+ * Room cells are counted in a two dimensional Fenwick tree (binary indexed tree),
+ * the number of room cells in any rectangle takes O(log(width)*log(height))
+ * and so does adding a cell, independent of the size of the rectangle.
+ * To pick among all free positions, a summed-area table is derived
+ * from the floorplan which then answers each candidate in constant time.
+ *
+ * The notion of a free area is the same as in
+ * {@link Floorplan#areaOverlapsWithRoom(int, int, int, int)}:
+ * the area and a frame of one cell around it must be inside the maze
+ * and must not contain a room cell.
+ *
+ * @author Min Kim
+ *
+ */
+class RoomOccupancy {
+	/**
+	 * Number of random positions to try before all free positions are determined.
+	 * While the maze has plenty of space, a random position is very likely free.
+	 */
+	static final int SAMPLES = 8;
+
+	private final Floorplan floorplan; // knows which cells are in rooms
+	private final int width; // width of the floorplan
+	private final int height; // height of the floorplan
+	private final int[] tree; // Fenwick tree, (width+1) x (height+1), index x*(height+1)+y, 1-based
+	private int[] table; // summed-area table for the search of all free positions, reused
+	private int[] candidates; // buffer for free positions, reused
+
+	/**
+	 * Constructor, takes the cells that are in a room already from the given floorplan
+	 * @param floorplan to index, must be kept up to date with markRoom
+	 * @param width of the floorplan
+	 * @param height of the floorplan
+	 */
+	RoomOccupancy(Floorplan floorplan, int width, int height) {
+		this.floorplan = floorplan;
+		this.width = width;
+		this.height = height;
+		tree = new int[(width+1)*(height+1)];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				if (floorplan.isInRoom(x, y))
+					add(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Checks if there is a cell in the given area or next to it that belongs to a room
+	 * or if the area is too close to the border.
+	 * Same result as {@link Floorplan#areaOverlapsWithRoom(int, int, int, int)}
+	 * but without a scan of the area.
+	 * @param rx 1st corner, x coordinate
+	 * @param ry 1st corner, y coordinate
+	 * @param rxl 2nd corner, x coordinate
+	 * @param ryl 2nd corner, y coordinate
+	 * @return true if the area can not take a room, false otherwise
+	 */
+	boolean overlaps(int rx, int ry, int rxl, int ryl) {
+		if (rx < 1 || ry < 1 || rxl+1 >= width || ryl+1 >= height)
+			return true;
+		return 0 != (prefix(rxl+2, ryl+2) - prefix(rx-1, ryl+2) - prefix(rxl+2, ry-1) + prefix(rx-1, ry-1));
+	}
+
+	/**
+	 * Picks a position for a room of the given size at random among all positions
+	 * where it fits, see {@link #overlaps(int, int, int, int)}.
+	 * Tries a few random positions first, if none of them fits,
+	 * determines all positions that fit and picks one of them.
+	 * @param rw room width
+	 * @param rh room height
+	 * @param random provides the random choice
+	 * @return the upper left corner as a {@link CellIndex}, CellIndex.NONE if the room does not fit anywhere
+	 */
+	int pickFreePosition(int rw, int rh, SingleRandom random) {
+		// upper left corners that keep a frame of one cell inside the maze
+		if (rw+2 > width || rh+2 > height)
+			return CellIndex.NONE;
+		for (int i = 0; i < SAMPLES; i++) {
+			int rx = random.nextIntWithinInterval(1, width-rw-1);
+			int ry = random.nextIntWithinInterval(1, height-rh-1);
+			if (!overlaps(rx, ry, rx+rw-1, ry+rh-1))
+				return CellIndex.pack(rx, ry);
+		}
+		int count = findFreePositions(rw, rh);
+		if (0 == count)
+			return CellIndex.NONE;
+		return candidates[random.nextIntWithinInterval(0, count-1)];
+	}
+
+	/**
+	 * Records that the given area is a room.
+	 * Assumes that no cell of the area is in a room yet.
+	 * @param rx 1st corner, x coordinate
+	 * @param ry 1st corner, y coordinate
+	 * @param rxl 2nd corner, x coordinate
+	 * @param ryl 2nd corner, y coordinate
+	 */
+	void markRoom(int rx, int ry, int rxl, int ryl) {
+		for (int x = rx; x <= rxl; x++) {
+			for (int y = ry; y <= ryl; y++) {
+				add(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Collects all upper left corners where a room of the given size fits
+	 * in the candidates buffer.
+	 * @param rw room width
+	 * @param rh room height
+	 * @return the number of positions
+	 */
+	private int findFreePositions(int rw, int rh) {
+		if (null == table) {
+			table = new int[(width+1)*(height+1)];
+			candidates = new int[width*height];
+		}
+		// entry (x,y) holds the number of room cells (i,j) with i < x and j < y
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int cell = floorplan.isInRoom(x, y) ? 1 : 0;
+				table[index(x+1, y+1)] = cell + table[index(x, y+1)] + table[index(x+1, y)] - table[index(x, y)];
+			}
+		}
+		int count = 0;
+		for (int rx = 1; rx+rw < width; rx++) {
+			for (int ry = 1; ry+rh < height; ry++) {
+				// the area with its frame spans [rx-1,rx+rw] x [ry-1,ry+rh]
+				if (table[index(rx+rw+1, ry+rh+1)] == table[index(rx-1, ry+rh+1)]
+						+ table[index(rx+rw+1, ry-1)] - table[index(rx-1, ry-1)])
+					candidates[count++] = CellIndex.pack(rx, ry);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds a room cell to the tree
+	 * @param x coordinate of the cell
+	 * @param y coordinate of the cell
+	 */
+	private void add(int x, int y) {
+		for (int i = x+1; i <= width; i += i & -i) {
+			for (int j = y+1; j <= height; j += j & -j) {
+				tree[index(i, j)]++;
+			}
+		}
+	}
+
+	/**
+	 * Counts room cells (i,j) with {@code i < x} and {@code j < y}
+	 * @param x exclusive upper bound for the x coordinate, {@code 0 <= x <= width}
+	 * @param y exclusive upper bound for the y coordinate, {@code 0 <= y <= height}
+	 * @return number of room cells
+	 */
+	private int prefix(int x, int y) {
+		int result = 0;
+		for (int i = x; i > 0; i -= i & -i) {
+			for (int j = y; j > 0; j -= j & -j) {
+				result += tree[index(i, j)];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return index of the entry for (x,y) in the tree or table
+	 */
+	private int index(int x, int y) {
+		return x*(height+1)+y;
+	}
+}
@@ -0,0 +1,60 @@
+package generation;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A small pool of scratch buffers for queries that may run on several threads
+ * at the same time, e.g. shortest path queries of robots that share a maze.
+ * A query takes buffers with acquire and gives them back with release.
+ * The pool keeps at most one set of buffers per processor, a query that
+ * finds the pool empty allocates buffers of its own which are dropped
+ * afterwards if the pool is full. So the memory that stays allocated is bounded
+ * and goes away with the object that owns the pool, unlike buffers that
+ * are kept per thread in a ThreadLocal for as long as the thread lives.
+ *
+ * @author Min Kim
+ *
+ * @param <T> type of the scratch buffers
+ */
+abstract class ScratchPool<T> {
+	private final AtomicReferenceArray<T> slots; // null for an empty slot
+
+	/**
+	 * Constructor for a pool with a slot per processor
+	 */
+	ScratchPool() {
+		slots = new AtomicReferenceArray<T>(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates new scratch buffers if the pool is empty
+	 * @return the buffers
+	 */
+	protected abstract T create();
+
+	/**
+	 * Takes scratch buffers from the pool
+	 * @return buffers that no other thread uses until they are released
+	 */
+	T acquire() {
+		for (int i = 0; i < slots.length(); i++) {
+			if (null != slots.get(i)) {
+				T scratch = slots.getAndSet(i, null);
+				if (null != scratch)
+					return scratch;
+			}
+		}
+		return create();
+	}
+
+	/**
+	 * Gives scratch buffers back to the pool, drops them if the pool is full
+	 * @param scratch buffers that were acquired before and are not used any more
+	 */
+	void release(T scratch) {
+		for (int i = 0; i < slots.length(); i++) {
+			if (slots.compareAndSet(i, null, scratch))
+				return;
+		}
+	}
+}
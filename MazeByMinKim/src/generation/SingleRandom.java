@@ -5,9 +5,15 @@ import java.util.logging.Logger;
 
 /**
  * This class implements the generation of pseudo random numbers with a single instance of a random number generator.
- * It is possible to set the seed of the generator by calling setSeed before the internal random number generator is initialized. 
- * This happens when getRandom is called for the first time. Any subsequent call to setSeed resets the seed of the existing generator.
- * Design implements Singleton pattern.
+ * It is possible to set the seed of the generator by calling setSeed, which starts a new generator for the current thread.
+ * Without a seed, getRandom creates a generator with an arbitrary seed when it is called for the first time on a thread.
+ * Design implements Singleton pattern, with one instance per thread: 
+ * mazes that are generated in parallel on different threads, each from its own seed,
+ * do not draw from the same stream and stay reproducible. There is no seed that is shared
+ * between threads, a seed applies to the thread that sets it only.
+ * A MazeBuilder hands the instance it was configured with to its builder thread
+ * with {@link #setRandom(SingleRandom)}, so a single generation uses a single stream
+ * across the thread that placed the order and the thread that does the work.
  * 
  * @author Kemper
  *
@@ -20,19 +26,14 @@ public final class SingleRandom {
 
 	/**  internal internal random number generator. This should NOT be made accessible. */
 	private transient final Random generator;
-	/** the single instance of this class. */
-	private static SingleRandom instance = null ;
-	/** optional: a seed value can be set to be able to reproduce a sequence of random numbers. */
-	private static int theSeed;
-	/** optional: flag to show if seed value can be used or not. */
-	private static boolean validSeed = false;
-	/** lock to make the private constructor thread safe, one could have used the class object as well */
-	private static final Object LOCK = new Object() ;
+	/** the single instance of this class for each thread. */
+	private static final ThreadLocal<SingleRandom> INSTANCE = new ThreadLocal<SingleRandom>();
 	/**
 	 * The constructor for a class that allows for a single instance must be private.
+	 * @param generator the internal random number generator
 	 */
-	private SingleRandom() {
-		generator = validSeed ? new Random(theSeed) : new Random();
+	private SingleRandom(Random generator) {
+		this.generator = generator;
 	}
 
 	/**
@@ -40,18 +41,24 @@ public final class SingleRandom {
 	 * @return instance of random number generator
 	 */
 	public static SingleRandom getRandom() {
-		synchronized(LOCK)
+		SingleRandom instance = INSTANCE.get();
+		if (null == instance)
 		{
-			// check the instance being null needs synchronization to be thread safe
-			if (null == instance)
-			{
-				// create the one and only instance of the random number generator on demand
-				instance = new SingleRandom();
-			}
+			// create the one and only instance of the random number generator for this thread on demand
+			instance = new SingleRandom(new Random());
+			INSTANCE.set(instance);
 		}
 		return instance;
 	}
 	
+	/**
+	 * Makes the given instance the one that getRandom delivers on the current thread.
+	 * @param random the instance to use, typically obtained by getRandom on another thread
+	 */
+	static void setRandom(SingleRandom random) {
+		INSTANCE.set(random);
+	}
+	
 	/**
 	 * Delivers a random number.
 	 * @return random integer value
@@ -73,15 +80,15 @@ public final class SingleRandom {
 	}
 
 	/**
-	 * Prepares the generator to start with a particular seed value.
+	 * Prepares the generator of the current thread to start with a particular seed value.
+	 * The thread gets a new instance, an instance that it had before is left 
+	 * untouched as it may have been handed on to a builder thread that still uses it.
+	 * Other threads are not affected.
 	 * @param seed is the seed value for the random number generator
 	 */
 	public static void setSeed(final int seed) {
-		if (null != instance) {
-			LOGGER.config("SingleRandom already instantiated, setting new seed value " + seed + "will start different RN stream");
-			instance.generator.setSeed(seed) ;
-		}
-		theSeed = seed;
-		validSeed = true;
+		if (null != INSTANCE.get())
+			LOGGER.config("SingleRandom already instantiated, setting new seed value " + seed + " will start different RN stream");
+		INSTANCE.set(new SingleRandom(new Random(seed)));
 	}
 }
@@ -3,10 +3,13 @@ package generation;
 import java.util.List;
 import java.util.logging.Logger;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
-import gui.ColorTheme;
+import gui.WallColors;
 import gui.MazeFileWriter;
 
 /**
@@ -122,7 +125,7 @@ public class Wall {
         partition = false;
         seen = false;
         // determine color
-        setColor(ColorTheme.getWallColor(distance, cc, getExtensionX()));
+        setColor(WallColors.getWallColor(distance, cc, getExtensionX()));
         // all fields initialized
     }
 
@@ -216,6 +219,35 @@ public class Wall {
                 getColor());
     }
 
+    /**
+     * stores fields into the given stream with the help of MazeFileWriter,
+     * same elements in the same order as storeWall for a document.
+     *
+     * @param writer
+     *            stream to write elements to
+     * @param number
+     *            number for this element
+     * @param i
+     *            id for this element
+     * @throws XMLStreamException
+     *            if writing fails
+     */
+    public void storeWall(final XMLStreamWriter writer, final int number,
+            final int i) throws XMLStreamException {
+        final String suffix = "_" + number + "_" + i;
+        MazeFileWriter.writeElement(writer, "distSeg" + suffix, dist);
+        MazeFileWriter.writeElement(writer, "dxSeg" + suffix, getExtensionX());
+        MazeFileWriter.writeElement(writer, "dySeg" + suffix, getExtensionY());
+        MazeFileWriter.writeElement(writer, "partitionSeg" + suffix,
+                isPartition());
+        MazeFileWriter.writeElement(writer, "seenSeg" + suffix, isSeen());
+        MazeFileWriter.writeElement(writer, "xSeg" + suffix,
+                getStartPositionX());
+        MazeFileWriter.writeElement(writer, "ySeg" + suffix,
+                getStartPositionY());
+        MazeFileWriter.writeElement(writer, "colSeg" + suffix, getColor());
+    }
+
     /**
      * Equals method that checks if the other object matches in dimensions and
      * content.
@@ -5,6 +5,11 @@
  * Distance, Floorplan, MazeContainer, Wall, and Wallboard.
  * The MazeContainer class is a wrapper that represents an overall maze, other classes
  * provide ingredients that are accessible through MazeContainer methods.
+ * A MazeSnapshot is an immutable copy of a finished maze that many threads
+ * can read at the same time.
+ * PathFinder answers shortest path queries between arbitrary positions,
+ * PathIndex does the same for very large mazes with a hierarchy of clusters.
+ * A JunctionGraph is a compact view of a maze with whole corridors as edges.
  * </p>
  * <p>
  * For the maze generation, clients interact with a Factory and provide it with an
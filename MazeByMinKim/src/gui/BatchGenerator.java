@@ -0,0 +1,292 @@
+/**
+ *
+ */
+package gui;
+
+import generation.DefaultOrder;
+import generation.Maze;
+import generation.MazeFactory;
+import generation.Order;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Command line tool to generate a batch of mazes without a user interface
+ * and to write them to maze files.
+ * It generates a maze for each combination of builder, skill level and seed
+ * on a number of threads in parallel and prints throughput statistics at the end.
+ * The tool does not use any AWT or Swing class, so it starts fast and runs
+ * with -Djava.awt.headless=true on machines without a display.
+ * A maze only depends on its builder, skill level, perfect flag and seed,
+ * so a batch gives the same files for any number of threads.
+ * Boruvka is the exception as it draws edge weights from an unseeded generator.
+ *
+ * Files are named builder-skill-seed plus a p for perfect mazes, e.g. Prim-5-42p.bin,
+ * and are written with MazeFileBinaryWriter, with MazeFileBinaryWriter and flag
+ * FLAG_MAPPABLE or FLAG_SUCCINCT, or with MazeFileWriter.
+ * With a repository, mazes that are in the repository are loaded instead of generated
+ * and generated mazes are added to it, see MazeRepository.
+ *
+ * Usage: java gui.BatchGenerator [-b DFS,Prim,Boruvka] [-s skill or from-to]
+ * [-seeds seed or from-to] [-perfect] [-f binary|mappable|succinct|xml]
+ * [-o directory] [-r repository] [-t threads]
+ *
+ * @author Min Kim
+ *
+ */
+public class BatchGenerator {
+	/**
+	 * Usage message for the command line.
+	 */
+	static final String USAGE = "Usage: java gui.BatchGenerator [-b DFS,Prim,Boruvka] [-s skill or from-to] "
+			+ "[-seeds seed or from-to] [-perfect] [-f binary|mappable|succinct|xml] [-o directory] [-r repository] [-t threads]";
+
+	/**
+	 * File formats for the output.
+	 */
+	enum Format { BINARY, MAPPABLE, SUCCINCT, XML };
+
+	private List<Order.Builder> builders = new ArrayList<Order.Builder>();
+	private int minSkill = 0;
+	private int maxSkill = 0;
+	private int minSeed = 0;
+	private int maxSeed = 9;
+	private boolean perfect = false;
+	private Format format = Format.BINARY;
+	private String output = "mazes"; // directory for the maze files
+	private String repository = null; // directory of a maze repository, null for none
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Reads the options from the command line.
+	 * @param args the command line arguments
+	 * @throws IllegalArgumentException if an option is unknown or has an illegal value
+	 */
+	void parse(String[] args) {
+		int i = 0;
+		while (i < args.length) {
+			String parameter = args[i++];
+			if (!"-perfect".equals(parameter) && i == args.length)
+				throw new IllegalArgumentException("Missing value for " + parameter);
+			switch (parameter) {
+			case "-b":
+				builders.clear();
+				for (String name : args[i++].split(",")) {
+					builders.add(parseBuilder(name));
+				}
+				break;
+			case "-s":
+				int[] skills = parseRange(args[i++]);
+				if (skills[0] < 0 || skills[1] > Constants.MAX_SKILL_LEVEL)
+					throw new IllegalArgumentException("Skill level must be between 0 and " + Constants.MAX_SKILL_LEVEL);
+				minSkill = skills[0];
+				maxSkill = skills[1];
+				break;
+			case "-seeds":
+				int[] seeds = parseRange(args[i++]);
+				minSeed = seeds[0];
+				maxSeed = seeds[1];
+				break;
+			case "-perfect":
+				perfect = true;
+				break;
+			case "-f":
+				try {
+					format = Format.valueOf(args[i++].toUpperCase());
+				} catch (IllegalArgumentException e) {
+					throw new IllegalArgumentException("Unknown format " + args[i-1]);
+				}
+				break;
+			case "-o":
+				output = args[i++];
+				break;
+			case "-r":
+				repository = args[i++];
+				break;
+			case "-t":
+				threads = Integer.parseInt(args[i++]);
+				if (threads < 1)
+					throw new IllegalArgumentException("Number of threads must be positive");
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown parameter " + parameter);
+			}
+		}
+		if (builders.isEmpty())
+			builders.add(Order.Builder.DFS);
+	}
+
+	/**
+	 * Generates and writes all mazes.
+	 * @param out receives failures and the statistics
+	 * @return the number of mazes that were written
+	 * @throws IOException if the output directory or the repository can not be used
+	 * @throws InterruptedException if the thread is interrupted while it waits for the mazes
+	 */
+	int run(PrintStream out) throws IOException, InterruptedException {
+		final long start = System.nanoTime();
+		final Path directory = Paths.get(output);
+		Files.createDirectories(directory);
+		final MazeRepository mazes = (null == repository) ? null : new MazeRepository(repository);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Long>> results = new ArrayList<Future<Long>>();
+		long cells = 0;
+		try {
+			for (final Order.Builder builder : builders) {
+				for (int s = minSkill; s <= maxSkill; s++) {
+					cells += (long) (maxSeed - minSeed + 1) * Constants.SKILL_X[s] * Constants.SKILL_Y[s];
+					for (int seed = minSeed; seed <= maxSeed; seed++) {
+						final DefaultOrder order = new DefaultOrder(s, builder, perfect, seed);
+						final Path file = directory.resolve(getFileName(order));
+						results.add(pool.submit(new Callable<Long>() {
+							@Override
+							public Long call() throws IOException {
+								return generate(order, mazes, file);
+							}
+						}));
+					}
+				}
+			}
+			// collect results in order and sum up the size of the files
+			int written = 0;
+			long bytes = 0;
+			for (Future<Long> result : results) {
+				try {
+					bytes += result.get();
+					written++;
+				} catch (ExecutionException e) {
+					out.println("Failed: " + e.getCause());
+				}
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			out.println(String.format("Generated %d mazes (%d failed) in %.2f s with %d threads",
+					written, results.size() - written, seconds, threads));
+			out.println(String.format("Throughput: %.1f mazes/s, %.2f million cells/s, %.2f MB/s written to %s",
+					written / seconds, cells / seconds / 1e6, bytes / seconds / 1e6, directory));
+			return written;
+		} finally {
+			pool.shutdownNow();
+			if (null != mazes)
+				mazes.close();
+		}
+	}
+
+	/**
+	 * Generates a single maze and writes it to the given file
+	 * @param order for the maze
+	 * @param mazes the repository, null for none
+	 * @param file the file to write
+	 * @return the size of the file in bytes
+	 * @throws IOException if the maze can not be generated or written
+	 */
+	private long generate(DefaultOrder order, MazeRepository mazes, Path file) throws IOException {
+		MazeFactory factory = new MazeFactory(mazes);
+		factory.order(order);
+		factory.waitTillDelivered();
+		Maze maze = order.getMaze();
+		if (null == maze)
+			throw new IOException("No maze delivered for " + getFileName(order));
+		int[] start = maze.getStartingPosition();
+		int[][] dists = maze.getMazedists().getAllDistanceValues();
+		int rooms = order.isPerfect() ? 0 : Constants.SKILL_ROOMS[order.getSkillLevel()];
+		int partiters = Constants.SKILL_PARTCT[order.getSkillLevel()];
+		switch (format) {
+		case XML:
+			MazeFileWriter.store(file.toString(), maze.getWidth(), maze.getHeight(), rooms, partiters,
+					maze.getRootnode(), maze.getFloorplan(), dists, start[0], start[1]);
+			break;
+		default:
+			MazeFileBinaryWriter.store(file.toString(), maze.getWidth(), maze.getHeight(), rooms, partiters,
+					maze.getRootnode(), maze.getFloorplan(), dists, start[0], start[1],
+					getFlags());
+			break;
+		}
+		return Files.size(file);
+	}
+
+	/**
+	 * Gives the flags for MazeFileBinaryWriter that go with the output format
+	 * @return FLAG_MAPPABLE, FLAG_SUCCINCT or 0
+	 */
+	private int getFlags() {
+		switch (format) {
+		case MAPPABLE:
+			return MazeFileBinaryWriter.FLAG_MAPPABLE;
+		case SUCCINCT:
+			return MazeFileBinaryWriter.FLAG_SUCCINCT;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Gives the name of the file for the given order
+	 * @param order the order
+	 * @return file name with the extension for the format
+	 */
+	String getFileName(Order order) {
+		return order.getBuilder() + "-" + order.getSkillLevel() + "-" + order.getSeed()
+				+ (order.isPerfect() ? "p" : "") + ((Format.XML == format) ? ".xml" : ".bin");
+	}
+
+	/**
+	 * Finds the builder with the given name, ignores the case
+	 * @param name of the builder
+	 * @return the builder
+	 * @throws IllegalArgumentException if there is no implementation for the builder
+	 */
+	private static Order.Builder parseBuilder(String name) {
+		for (Order.Builder builder : new Order.Builder[] {Order.Builder.DFS, Order.Builder.Prim, Order.Builder.Boruvka}) {
+			if (builder.name().equalsIgnoreCase(name))
+				return builder;
+		}
+		throw new IllegalArgumentException("Unknown builder " + name);
+	}
+
+	/**
+	 * Reads a single number or a range from-to
+	 * @param range the text
+	 * @return lower and upper bound, both inclusive
+	 * @throws IllegalArgumentException if the text is not a range
+	 */
+	private static int[] parseRange(String range) {
+		int dash = range.indexOf('-', 1); // a leading minus belongs to the number
+		int from = Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+		int to = (dash < 0) ? from : Integer.parseInt(range.substring(dash + 1));
+		if (from > to)
+			throw new IllegalArgumentException("Empty range " + range);
+		return new int[] {from, to};
+	}
+
+	/**
+	 * Main method to generate a batch of mazes
+	 * @param args options, see USAGE
+	 */
+	public static void main(String[] args) {
+		BatchGenerator batch = new BatchGenerator();
+		try {
+			batch.parse(args);
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			System.out.println(USAGE);
+			System.exit(1);
+		}
+		try {
+			batch.run(System.out);
+		} catch (IOException | InterruptedException e) {
+			System.out.println("Batch generation failed: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -9,7 +9,8 @@ import java.util.logging.Logger;
  * The purpose is to support a specific theme such that colors are used consistently across the user interface.
  * The class internally works with a Singleton pattern. 
  * 
- * Client classes: Wall, CompassRose, FirstPersonView, Map, SimpleScreens
+ * Client classes: CompassRose, FirstPersonView, Map, SimpleScreens,
+ * walls take their colors from WallColors which follows the same theme.
  * 
  * @author Peter Kemper
  *
@@ -137,31 +138,6 @@ public class ColorTheme {
 			LOGGER.log(Level.FINEST, "given:" + color + ", returns color: " + result);
 			return result;
 		}
-		Color getWallColor(final int distance, final int cc, final int extensionX) {
-			LOGGER.log(Level.FINEST, "regardless of input, returns color: " + Color.LIGHT_GRAY);
-			return Color.LIGHT_GRAY;
-	    }
-		//////// shared code for subclasses, not used in this class ////////
-	    /**
-	     * Computes an RGB value based on the given numerical value.
-	     *
-	     * @param distance
-	     *            value to select color
-	     * @return the calculated RGB value
-	     */
-	    static int calculateRGBValue(final int distance, final int extensionX) {
-	        // compute rgb value, depends on distance and x direction
-	        // 7 in binary is 0...0111
-	        // use AND to get last 3 digits of distance
-	        final int part1 = distance & 7;
-	        final int add = (extensionX != 0) ? 1 : 0;
-	        return ((part1 + 2 + add) * 70) / 8 + 80;
-	    }
-	    /**
-	     * Default minimum value for RGB values.
-	     */
-	    static final int RGB_DEF = 20;
-	   
 	}
 	/**
 	 * Class encapsulates a color setting for the background and walls.
@@ -178,46 +154,7 @@ public class ColorTheme {
 	 *
 	 */
 	private static class ColorSettingsBasic extends ColorSettings {
-	     /**
-	     * Determine and set the color for this segment.
-	     *
-	     * @param distance
-	     *            to exit
-	     * @param cc
-	     *            obscure
-	     */
-	    @Override
-	    Color getWallColor(final int distance, final int cc, final int extensionX) {
-	    	Color result; 
-	    	final int d = distance / 4;
-	        // mod used to limit the number of colors to 6
-	        final int rgbValue = calculateRGBValue(d, extensionX);
-	        switch (((d >> 3) ^ cc) % 6) {
-	        case 0:
-	            result = new Color(rgbValue, RGB_DEF, RGB_DEF);
-	            break;
-	        case 1:
-	        	result = new Color(RGB_DEF, rgbValue, RGB_DEF);
-	        	break;
-	        case 2:
-	        	result = new Color(RGB_DEF, RGB_DEF, rgbValue);
-	        	break;
-	        case 3:
-	        	result = new Color(rgbValue, rgbValue, RGB_DEF);
-	        	break;
-	        case 4:
-	        	result = new Color(RGB_DEF, rgbValue, rgbValue);
-	        	break;
-	        case 5:
-	        	result = new Color(rgbValue, RGB_DEF, rgbValue);
-	        	break;
-	        default:
-	        	result = new Color(RGB_DEF, RGB_DEF, RGB_DEF);
-	        	break;
-	        }
-	        LOGGER.log(Level.FINEST, "given distance:" + distance + ", returns color: " + result);
-	        return result;
-	    }
+		// background as in the default setting, walls are colored by WallColors
 	}
 	/**
 	 * Class encapsulates a color setting for the background and walls.
@@ -283,51 +220,6 @@ public class ColorTheme {
 
 		    return new Color((int) r, (int) g, (int) b, (int) a);
 		  }
-		/**
-	     * Default minimum value for RGB values.
-	     */
-	    private static final int RGB_DEF_GREEN = 10;
-	    /**
-	     * Determine the color for this wall.
-	     *
-	     * @param distance
-	     *            to exit
-	     * @param cc
-	     *            obscure
-	     */
-	    @Override
-	    Color getWallColor(final int distance, final int cc, final int extensionX) {
-	    	Color result;
-	    	final int d = distance / 4;
-	        // mod used to limit the number of colors to 6
-	        final int rgbValue = calculateRGBValue(d, extensionX);
-	        //System.out.println("Initcolor rgb: " + rgbValue);
-	        switch (((d >> 3) ^ cc) % 6) {
-	        case 0:
-	            result = new Color(rgbValue, RGB_DEF, RGB_DEF);
-	            break;
-	        case 1:
-	        	result = new Color(RGB_DEF, RGB_DEF_GREEN, RGB_DEF);
-	        	break;
-	        case 2:
-	        	result = new Color(RGB_DEF, RGB_DEF, rgbValue);
-	        	break;
-	        case 3:
-	        	result = new Color(rgbValue, RGB_DEF_GREEN, RGB_DEF);
-	        	break;
-	        case 4:
-	        	result = new Color(RGB_DEF, RGB_DEF_GREEN, rgbValue);
-	        	break;
-	        case 5:
-	        	result = new Color(rgbValue, RGB_DEF, rgbValue);
-	        	break;
-	        default:
-	        	result = new Color(RGB_DEF, RGB_DEF, RGB_DEF);
-	        	break;
-	        }
-	        LOGGER.log(Level.FINEST, "given distance:" + distance + ", returns color: " + result);
-	        return result;
-	    }
 	}
 	
 	/////// set up for Singleton pattern //
@@ -356,6 +248,7 @@ public class ColorTheme {
 	
 	public static void setColorTheme(ColorThemeSelection selection) {
 		theme = selection;
+		WallColors.setColorTheme(selection);
 	}
 	
 	
@@ -380,7 +273,7 @@ public class ColorTheme {
 	}
 
 	/**
-     * Determines the color for a wall.
+     * Determines the color for a wall, see WallColors.
      * Supports color determination for the Wall constructor method.
      * See also https://www.geeksforgeeks.org/static-method-in-interface-in-java/ 
      * @param distance is the distance to the exit
@@ -389,7 +282,7 @@ public class ColorTheme {
      * @return the rgb value for the color of the wall
      */
     public static int getWallColor(int distance, int cc, int extensionX) {
-    	return getColorSettings().getWallColor(distance,cc,extensionX).getRGB(); 
+    	return WallColors.getWallColor(distance, cc, extensionX); 
     };
     
  
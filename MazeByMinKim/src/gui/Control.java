@@ -267,6 +267,17 @@ public class Control extends JFrame implements KeyListener {
         return ((StatePlaying)currentState).getCurrentPosition();
     }
     
+    /**
+     * Provides access to the current position as a packed position, 
+     * see CellIndex, which avoids allocating an array on each call.
+     * This method should only be called in the playing state.
+     * @return the current position as a packed position
+     */
+    
+    public int getCurrentPositionIndex() {
+        return ((StatePlaying)currentState).getCurrentPositionIndex();
+    }
+    
     /**
      * Provides access to the current direction.
      * The controller keeps track of the current position
@@ -113,6 +113,12 @@ public class FirstPersonView {
 	 * The rset allows us to omit walls that are not needed.
 	 */
 	private RangeSet rSet; 
+	/**
+	 * Buffer for the intersection of an interval with rSet,
+	 * reused across calls to avoid allocating an array for each
+	 * polygon that is drawn.
+	 */
+	private final int[] intersection = new int[2];
 	
 	// debug stuff
 	private boolean deepDebug = false;
@@ -131,7 +137,8 @@ public class FirstPersonView {
 	 * @param mapUnit current scaling factor
 	 * @param stepSize size of steps
 	 * @param seenWalls to store which walls were put on display
-	 * @param bspRoot the root node of the bsp tree
+	 * @param bspRoot the root node of the bsp tree, null if the tree is not available yet
+	 * such that only the background is drawn
 	 */
 	public FirstPersonView(int width, int height, int mapUnit, int stepSize, Floorplan seenWalls, BSPNode bspRoot) {
 		// store given parameter values
@@ -185,7 +192,31 @@ public class FirstPersonView {
         traverseNodeCounter = traverseWallSectorCounter =
         		drawRectCounter = drawRectLateCounter = drawRectWallCounter = 0;
         //
-        drawAllVisibleSectors(bspRoot);
+        if (null != bspRoot)
+        	drawAllVisibleSectors(bspRoot);
+	}
+	/**
+	 * Tells if the view draws walls or only the background
+	 * as the bsp tree is not available yet.
+	 * @return true if there is a bsp tree to draw walls from
+	 */
+	boolean hasBspRoot() {
+		return null != bspRoot;
+	}
+	/**
+	 * Gives the number of bsp nodes visited by the last call of draw
+	 * @return number of traversed nodes
+	 */
+	int getTraverseNodeCounter() {
+		return traverseNodeCounter;
+	}
+	/**
+	 * Gives the number of walls in visible sectors that the last call of draw
+	 * tried to draw, walls outside the view are rejected after counting
+	 * @return number of walls considered for drawing
+	 */
+	int getDrawRectCounter() {
+		return drawRectCounter;
 	}
 
 
@@ -335,7 +366,7 @@ public class FirstPersonView {
 		// if interval [x1,x2] intersects with any of the intervals on 
 		// the x-axis that have not been covered with a wall (a polygon)
 		// yet, then this node might be needed.
-		return (null != rSet.getIntersection(x1, x2));
+		return rSet.getIntersection(x1, x2, null);
 	}
 	/**
 	 * Instantiates a new RangePair for the given parameters.
@@ -482,7 +513,7 @@ public class FirstPersonView {
 		// Loop variable is x1i, starts at x1, upper limit x2 is fixed
 		int x1i = x1; // init loop variable
 		int x2i;      // initialized inside loop
-		int[] intersect;
+		int[] intersect = intersection;
 		while (x1i <= x2) {
 			// check if there is an intersection, 
 			// if there is none, done, exit the loop, 
@@ -490,8 +521,7 @@ public class FirstPersonView {
 			// rset represents the to-do list of intervals on the x-axis
 			// that are not covered by a polygon yet
 			// get one intersection for our interval[x1i,x2] with rset
-			intersect = rSet.getIntersection(x1i, x2);
-			if (null == intersect)
+			if (!rSet.getIntersection(x1i, x2, intersect))
 				break; // exit point for loop
 			x1i = intersect[0]; // progress: can not be less than previous x1i
 			x2i = intersect[1]; // x1i <= x2i 
@@ -479,9 +479,11 @@ public class Map {
 		// while we are more than 1 step away from the final position
 		while (distance > 1) {
 			// find neighbor closer to exit (with no wallboard in between)
-			int[] neighbor = maze.getNeighborCloserToExit(sx, sy) ;
-			if (null == neighbor)
+			CardinalDirection toExit = maze.getDirectionToExit(sx, sy) ;
+			if (null == toExit)
 				return ; // error
+			int nx = sx + toExit.getDx();
+			int ny = sy + toExit.getDy();
 			// scale coordinates, original calculation:
 			// x-coordinates
 			// nx1     == sx*map_scale + offx + map_scale/2;
@@ -502,14 +504,14 @@ public class Map {
 			// neighbor position coordinates
 			//int nx2 = neighbor[0]*map_scale + offx + map_scale/2;
 			//int ny2 = view_height-1-(neighbor[1]*map_scale + offy) - map_scale/2;
-			int nx2 = mapToCoordinateX(neighbor[0],offsetX) + mapScale/2;
-			int ny2 = mapToCoordinateY(neighbor[1],offsetY) - mapScale/2;
+			int nx2 = mapToCoordinateX(nx,offsetX) + mapScale/2;
+			int ny2 = mapToCoordinateY(ny,offsetY) - mapScale/2;
 			gc.drawLine(nx1, ny1, nx2, ny2);
 			
 			// update loop variables for current position (sx,sy)
 			// and distance d for next iteration
-			sx = neighbor[0];
-			sy = neighbor[1];
+			sx = nx;
+			sy = ny;
 			distance = maze.getDistanceToExit(sx, sy) ;
 		}
 	}
@@ -0,0 +1,359 @@
+/**
+ *
+ */
+package gui;
+
+import generation.BSPBranch;
+import generation.BSPLeaf;
+import generation.BSPNode;
+import generation.Distance;
+import generation.Floorplan;
+import generation.Maze;
+import generation.MazeContainer;
+import generation.SuccinctDistances;
+import generation.Wall;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * This class provides functionality to read the content of a Maze object from a file
+ * in the binary format produced with MazeFileBinaryWriter.
+ * It offers the same methods as MazeFileReader does for the XML format
+ * such that client code can use either one.
+ *
+ */
+public class MazeFileBinaryReader {
+
+	// fields of maze configuration object
+	private int width ;
+	private int height ;
+	private int rooms ;
+	private int[][] dists ;
+	private SuccinctDistances succinct ; // instead of dists for files with flag FLAG_SUCCINCT
+	private int expected_partiters ;
+	private Floorplan cells ;
+	private int startx ;
+	private int starty ;
+	private BSPNode root ;
+
+	/**
+	 * Constructor reads maze data from given file. The file format is the binary format produced by the MazeFileBinaryWriter class.
+	 *
+	 * @param filename with data of a Maze object
+	 * @throws IOException if the file can not be read, has an unknown format or version
+	 * or is truncated or corrupt
+	 */
+	public MazeFileBinaryReader(String filename) throws IOException {
+		load(filename) ;
+	}
+
+	/**
+	 * Tells if the given file starts with the magic number of the binary format.
+	 * Used to decide between this reader and the MazeFileReader for XML files.
+	 * @param filename of the file to check
+	 * @return true if the file is in the binary format, false otherwise
+	 */
+	public static boolean isBinaryFile(String filename) {
+		Path path = Paths.get(filename);
+		if (!Files.isRegularFile(path))
+			return false;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0)
+					return false;
+			}
+			buffer.flip();
+			return MazeFileBinaryWriter.MAGIC == buffer.getInt();
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Provides the data loaded from file wrapped in a MazeConfiguration.
+	 * @return maze configuration loaded from file
+	 */
+	Maze getMazeConfiguration() {
+		Maze mazeConfig = new MazeContainer() ;
+		mazeConfig.setHeight(getHeight());
+		mazeConfig.setWidth(getWidth());
+		mazeConfig.setFloorplan(getCells());
+		// succinct distances stay encoded, values are decoded on demand
+		Distance dists = (null != succinct) ? new Distance(getWidth(), getHeight(), succinct) : new Distance(getDistances()) ;
+		mazeConfig.setMazedists(dists);
+		mazeConfig.setRootnode(getRootNode());
+		mazeConfig.setStartingPosition(getStartX(), getStartY());
+		return mazeConfig;
+	}
+	/////////////////// set of straightforward get methods //////////////
+	int getWidth() {
+		return width ;
+	}
+	int getHeight() {
+		return height ;
+	}
+	int getRooms() {
+		return rooms ;
+	}
+	int[][] getDistances() {
+		if (null == dists && null != succinct)
+			dists = succinct.toArray();
+		return dists ;
+	}
+	int getExpectedPartiters() {
+		return expected_partiters ;
+	}
+	Floorplan getCells() {
+		return cells ;
+	}
+	int getStartX() {
+		return startx ;
+	}
+	int getStartY() {
+		return starty ;
+	}
+	BSPNode getRootNode() {
+		return root ;
+	}
+
+	/**
+	 * Method provides main functionality to read all attributes of maze object from the given file
+	 * @param filename gives the input file
+	 * @throws IOException if the file can not be read, has an unknown format or version
+	 * or is truncated or corrupt
+	 */
+	private void load(String filename) throws IOException
+	{
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0)
+					throw new IOException("Unexpected end of file: " + filename);
+			}
+		}
+		buffer.flip();
+		if (buffer.remaining() < MazeFileBinaryWriter.HEADER_SIZE || MazeFileBinaryWriter.MAGIC != buffer.getInt())
+			throw new IOException("Not a binary maze file: " + filename);
+		int version = buffer.getInt();
+		if (MazeFileBinaryWriter.VERSION != version)
+			throw new IOException("Unsupported version " + version + " of binary maze file: " + filename);
+		int flags = buffer.getInt();
+		if (0 != (flags & ~MazeFileBinaryWriter.FLAGS))
+			throw new IOException("Unsupported flags " + flags + " of binary maze file: " + filename);
+		width = buffer.getInt();
+		height = buffer.getInt();
+		rooms = buffer.getInt();
+		expected_partiters = buffer.getInt();
+		startx = buffer.getInt();
+		starty = buffer.getInt();
+		// sizes in a truncated or corrupt file run past the end of the buffer or are negative
+		try {
+			cells = readCells(buffer);
+			if (0 != (flags & MazeFileBinaryWriter.FLAG_MAPPABLE))
+				dists = readRawDistances(buffer);
+			else if (0 != (flags & MazeFileBinaryWriter.FLAG_SUCCINCT))
+				succinct = readSuccinctDistances(buffer, filename);
+			else
+				dists = readDistances(buffer);
+			root = readBSPTree(buffer);
+		} catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new IOException("Truncated or corrupt binary maze file: " + filename, e);
+		}
+	}
+
+	/**
+	 * Reads data for a cells object that contains values for walls.
+	 * Requires that fields width and height have been set.
+	 * @param buffer to read data from
+	 * @return the floor plan that is parsed from the given buffer
+	 */
+	private Floorplan readCells(ByteBuffer buffer) {
+		int [][]cellValue = new int[width][height] ;
+		for ( int x = 0; x != width; x++) {
+			for ( int y = 0; y != height; y++) {
+				cellValue[x][y] = buffer.getShort() & 0xFFFF;
+			}
+		}
+		return new Floorplan(cellValue);
+	}
+
+	/**
+	 * Reads data for a two-dimensional array of distance values.
+	 * Requires that fields width and height have been set.
+	 * @param buffer to read data from
+	 * @return the distances that are parsed from the given buffer
+	 */
+	private int[][] readDistances(ByteBuffer buffer) {
+		int[][] result = new int[width][height];
+		int previous = 0;
+		for ( int x = 0; x != width; x++) {
+			for ( int y = 0; y != height; y++) {
+				previous += unzigzag(getVarInt(buffer));
+				result[x][y] = previous;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads distance values in the encoding of SuccinctDistances.
+	 * Requires that fields width and height have been set.
+	 * @param buffer to read data from
+	 * @param filename for the error message
+	 * @return the encoded distances
+	 * @throws IOException if the encoding does not fit the maze
+	 */
+	private SuccinctDistances readSuccinctDistances(ByteBuffer buffer, String filename) throws IOException {
+		byte[] directions = new byte[(width*height+3)/4];
+		buffer.get(directions);
+		int n = buffer.getInt();
+		int[] indices = new int[n];
+		int[] values = new int[n];
+		int previous = 0;
+		for (int i = 0; i < n; i++) {
+			previous += getVarInt(buffer);
+			indices[i] = previous;
+			values[i] = unzigzag(getVarInt(buffer));
+		}
+		try {
+			return new SuccinctDistances(width, height, directions, indices, values);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid distances in binary maze file: " + filename, e);
+		}
+	}
+	/**
+	 * Reads a two-dimensional array of distance values, one int per cell.
+	 * Requires that fields width and height have been set.
+	 * @param buffer to read data from
+	 * @return the distances that are parsed from the given buffer
+	 */
+	private int[][] readRawDistances(ByteBuffer buffer) {
+		int[][] result = new int[width][height];
+		for ( int x = 0; x != width; x++) {
+			for ( int y = 0; y != height; y++) {
+				result[x][y] = buffer.getInt();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the arrays of the bsp section and builds the tree.
+	 * @param buffer to read data from
+	 * @return the root node of the tree, null if the tree is empty
+	 */
+	private static BSPNode readBSPTree(ByteBuffer buffer) {
+		int n = buffer.getInt();
+		byte[] kinds = new byte[n];
+		buffer.get(kinds);
+		// subtree ends are not needed to build the whole tree, skip them
+		buffer.position(buffer.position() + n*Integer.BYTES);
+		int[] index = readInts(buffer, n);
+		int[] count = readInts(buffer, n);
+		// bounds are recomputed in the node constructors, skip them
+		buffer.position(buffer.position() + 4*n*Integer.BYTES);
+		int b = buffer.getInt();
+		int[] bx = readInts(buffer, b);
+		int[] by = readInts(buffer, b);
+		int[] bdx = readInts(buffer, b);
+		int[] bdy = readInts(buffer, b);
+		int w = buffer.getInt();
+		int[] wx = readInts(buffer, w);
+		int[] wy = readInts(buffer, w);
+		int[] wdx = readInts(buffer, w);
+		int[] wdy = readInts(buffer, w);
+		int[] wdist = readInts(buffer, w);
+		int[] wcol = readInts(buffer, w);
+		byte[] wflags = new byte[w];
+		buffer.get(wflags);
+		if (0 == n)
+			return null;
+
+		// build the tree bottom up: going backwards in preorder, the children of a
+		// branch are on the stack when the branch is reached, left child on top
+		BSPNode[] stack = new BSPNode[n];
+		int top = 0;
+		for (int i = n-1; i >= 0; i--) {
+			if (MazeFileBinaryWriter.NODE_LEAF == kinds[i]) {
+				ArrayList<Wall> slist = new ArrayList<Wall>(count[i]);
+				for (int j = index[i]; j < index[i] + count[i]; j++) {
+					slist.add(newWall(wx[j], wy[j], wdx[j], wdy[j], wdist[j], wcol[j], wflags[j]));
+				}
+				stack[top++] = new BSPLeaf(slist);
+			}
+			else {
+				BSPNode l = stack[--top];
+				BSPNode r = stack[--top];
+				int j = index[i];
+				stack[top++] = new BSPBranch(bx[j], by[j], bdx[j], bdy[j], l, r);
+			}
+		}
+		assert 1 == top : "inconsistent bsp section, " + top + " nodes left";
+		return stack[0];
+	}
+	/**
+	 * Creates a wall with the given values
+	 * @param x x coordinate of starting position of wall
+	 * @param y y coordinate of starting position of wall
+	 * @param dx direction and length of wall in x coordinate
+	 * @param dy direction and length of wall in y coordinate
+	 * @param dist distance of starting position of this wall to exit position
+	 * @param col color of wall
+	 * @param flags partition and seen flags
+	 * @return new wall, fully initialized with all necessary data
+	 */
+	static Wall newWall(int x, int y, int dx, int dy, int dist, int col, byte flags) {
+		int cc = 0 ; // use this as a dummy for the constructor, the correct color is explicitly set below
+		Wall result = new Wall(x,y,dx,dy,dist,cc) ;
+		result.setColor(col);
+		result.setSeen(0 != (flags & MazeFileBinaryWriter.WALL_SEEN));
+		result.setPartition(0 != (flags & MazeFileBinaryWriter.WALL_PARTITION));
+		return result;
+	}
+	/**
+	 * Reads an array of int values
+	 * @param buffer to read data from
+	 * @param n number of values
+	 * @return array of length n
+	 */
+	private static int[] readInts(ByteBuffer buffer, int n) {
+		int[] result = new int[n];
+		buffer.asIntBuffer().get(result);
+		buffer.position(buffer.position() + n*Integer.BYTES);
+		return result;
+	}
+	/**
+	 * Reverses MazeFileBinaryWriter.zigzag
+	 * @param value zigzag encoded value
+	 * @return signed value
+	 */
+	static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+	/**
+	 * Reads a value written by MazeFileBinaryWriter.putVarInt
+	 * @param buffer to read data from
+	 * @return the value, unsigned
+	 */
+	static int getVarInt(ByteBuffer buffer) {
+		int result = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			result |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return result;
+	}
+}
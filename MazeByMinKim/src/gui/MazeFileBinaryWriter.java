@@ -0,0 +1,405 @@
+/**
+ *
+ */
+package gui;
+
+import generation.BSPBranch;
+import generation.BSPLeaf;
+import generation.BSPNode;
+import generation.Floorplan;
+import generation.SuccinctDistances;
+import generation.Wall;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class provides functionality to write a maze configuration to a file in a binary format.
+ * It is the binary counterpart of MazeFileWriter and stores the same information,
+ * a file can be read with MazeFileBinaryReader.
+ * All methods are static.
+ *
+ * The format is versioned and written with NIO in big endian byte order.
+ * Layout, version 2:
+ * <ul>
+ * <li>header: magic number, version, flags, width, height, rooms,
+ * expected partiters, startX, startY, all as int</li>
+ * <li>floorplan: one short per cell, cells in the same order as for the XML format,
+ * i.e. index x*height+y</li>
+ * <li>distances: same order as cells, the first value followed by the difference
+ * to the previous value, each encoded as a zigzag varint,
+ * so the typical difference of +1 or -1 needs a single byte.
+ * With flag FLAG_MAPPABLE, one int per cell instead.
+ * With flag FLAG_SUCCINCT, the encoding of SuccinctDistances instead: 2 bits per cell for
+ * the direction, 4 cells per byte, the number of checkpoints as int, then for each
+ * checkpoint the difference of its index to the previous one as varint and its value
+ * as zigzag varint.</li>
+ * <li>bsp tree: nodes in preorder as arrays, see storeBSPTree</li>
+ * </ul>
+ * The cell and bsp sections have a fixed size for a given number of cells, nodes and walls
+ * such that a reader can access them at known offsets. With flag FLAG_MAPPABLE this holds
+ * for the whole file, see MazeFileMappedReader.
+ * Optional encodings are gated on the flags word and do not change the version,
+ * a reader rejects files with flags that are not in FLAGS.
+ *
+ */
+public class MazeFileBinaryWriter {
+	/**
+	 * Magic number at the beginning of each file, reads as "MAZE" in ASCII.
+	 */
+	public static final int MAGIC = 0x4D415A45;
+	/**
+	 * Current version of the format. A reader rejects files with an other version.
+	 */
+	public static final int VERSION = 2;
+	/**
+	 * Flag for files that can be used with a memory mapping: distances are stored
+	 * with a fixed size per cell.
+	 */
+	public static final int FLAG_MAPPABLE = 1;
+	/**
+	 * Flag for files with distances in the encoding of SuccinctDistances,
+	 * can not be combined with FLAG_MAPPABLE.
+	 */
+	public static final int FLAG_SUCCINCT = 2;
+	/**
+	 * All flags of the current version.
+	 */
+	public static final int FLAGS = FLAG_MAPPABLE | FLAG_SUCCINCT;
+	/**
+	 * Number of bytes in the header.
+	 */
+	public static final int HEADER_SIZE = 9 * Integer.BYTES;
+
+	// values for the node kind array in the bsp section
+	static final byte NODE_BRANCH = 0;
+	static final byte NODE_LEAF = 1;
+	// bits for the wall flag array in the bsp section
+	static final byte WALL_PARTITION = 1;
+	static final byte WALL_SEEN = 2;
+
+	/**
+	 * Write maze content to a file
+	 * @param filename gives the file name to store the data in
+	 * @param width is the width of the maze
+	 * @param height is the height of the maze
+	 * @param rooms is the number of rooms
+	 * @param expected_partiters is the expected number of partition iterations
+	 * @param root is the root node of the bsp tree
+	 * @param cells is the floor plan for this maze
+	 * @param dists is the distances to the exit
+	 * @param startX is the x coordinate of the starting position
+	 * @param startY is the y coordinate of the starting position
+	 * @throws IOException if the file can not be written
+	 */
+	public static void store(String filename, int width, int height, int rooms,
+			int expected_partiters, BSPNode root, Floorplan cells,
+			int[][] dists, int startX, int startY) throws IOException
+	{
+		store(filename, width, height, rooms, expected_partiters, root, cells, dists, startX, startY, 0);
+	}
+	/**
+	 * Write maze content to a file with the given flags
+	 * @param filename gives the file name to store the data in
+	 * @param width is the width of the maze
+	 * @param height is the height of the maze
+	 * @param rooms is the number of rooms
+	 * @param expected_partiters is the expected number of partition iterations
+	 * @param root is the root node of the bsp tree
+	 * @param cells is the floor plan for this maze
+	 * @param dists is the distances to the exit
+	 * @param startX is the x coordinate of the starting position
+	 * @param startY is the y coordinate of the starting position
+	 * @param flags is 0, FLAG_MAPPABLE or FLAG_SUCCINCT
+	 * @throws IOException if the file can not be written
+	 */
+	public static void store(String filename, int width, int height, int rooms,
+			int expected_partiters, BSPNode root, Floorplan cells,
+			int[][] dists, int startX, int startY, int flags) throws IOException
+	{
+		if (0 != (flags & FLAG_MAPPABLE) && 0 != (flags & FLAG_SUCCINCT))
+			throw new IllegalArgumentException("Mappable files can not have succinct distances");
+		// collect nodes in preorder to know the size of the bsp section
+		List<BSPNode> nodes = new ArrayList<BSPNode>();
+		if (null != root)
+			collectNodes(root, nodes);
+		else
+			System.out.println("MazeFileBinaryWriter.store: root node of BSP tree is null");
+		int branches = 0;
+		int walls = 0;
+		for (BSPNode node : nodes) {
+			if (node instanceof BSPLeaf)
+				walls += ((BSPLeaf)node).getAllWalls().size();
+			else
+				branches++;
+		}
+		SuccinctDistances succinct = null;
+		// upper bound for the size, a varint takes at most 5 bytes
+		int distanceSize = width*height*5;
+		if (0 != (flags & FLAG_SUCCINCT)) {
+			succinct = SuccinctDistances.encode(dists, cells);
+			distanceSize = (width*height+3)/4 + Integer.BYTES + succinct.getCheckpointCount()*2*5;
+		}
+		int size = HEADER_SIZE + width*height*Short.BYTES + distanceSize
+				+ getBSPTreeSize(nodes.size(), branches, walls);
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+
+		// header
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(flags);
+		buffer.putInt(width);
+		buffer.putInt(height);
+		buffer.putInt(rooms);
+		buffer.putInt(expected_partiters);
+		buffer.putInt(startX);
+		buffer.putInt(startY);
+		storeCells(buffer, width, height, cells);
+		if (0 != (flags & FLAG_MAPPABLE))
+			storeRawDistances(buffer, width, height, dists);
+		else if (null != succinct)
+			storeSuccinctDistances(buffer, width, height, succinct);
+		else
+			storeDistances(buffer, width, height, dists);
+		storeBSPTree(buffer, nodes, branches, walls);
+
+		buffer.flip();
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+	/**
+	 * Gives the number of bytes for the bsp section
+	 * @param nodes is the number of nodes in the tree
+	 * @param branches is the number of branch nodes
+	 * @param walls is the total number of walls in all leaves
+	 * @return size in bytes
+	 */
+	static int getBSPTreeSize(int nodes, int branches, int walls) {
+		return Integer.BYTES + nodes*(1 + 7*Integer.BYTES)
+				+ Integer.BYTES + branches*4*Integer.BYTES
+				+ Integer.BYTES + walls*(6*Integer.BYTES + 1);
+	}
+	/**
+	 * Stores the floorplan as one short per cell
+	 * @param buffer to write to
+	 * @param width the width of the maze
+	 * @param height the height of the maze
+	 * @param cells the floorplan
+	 */
+	private static void storeCells(ByteBuffer buffer, int width, int height, Floorplan cells) {
+		for (int x = 0; x != width; x++) {
+			for (int y = 0; y != height; y++) {
+				int value = cells.getValueOfCell(x, y);
+				assert value == (value & 0xFFFF) : "cell value does not fit in a short: " + value;
+				buffer.putShort((short) value);
+			}
+		}
+	}
+	/**
+	 * Stores distances as differences to the previous value, zigzag varint encoded
+	 * @param buffer to write to
+	 * @param width the width of the maze
+	 * @param height the height of the maze
+	 * @param dists the distances to the exit position
+	 */
+	private static void storeDistances(ByteBuffer buffer, int width, int height, int[][] dists) {
+		int previous = 0;
+		for (int x = 0; x != width; x++) {
+			for (int y = 0; y != height; y++) {
+				// difference may overflow for infinite distances,
+				// that is fine as the reader adds it up the same way
+				putVarInt(buffer, zigzag(dists[x][y] - previous));
+				previous = dists[x][y];
+			}
+		}
+	}
+	/**
+	 * Stores distances as one int per cell
+	 * @param buffer to write to
+	 * @param width the width of the maze
+	 * @param height the height of the maze
+	 * @param dists the distances to the exit position
+	 */
+	private static void storeRawDistances(ByteBuffer buffer, int width, int height, int[][] dists) {
+		for (int x = 0; x != width; x++) {
+			for (int y = 0; y != height; y++) {
+				buffer.putInt(dists[x][y]);
+			}
+		}
+	}
+	/**
+	 * Stores distances in the encoding of SuccinctDistances
+	 * @param buffer to write to
+	 * @param width the width of the maze
+	 * @param height the height of the maze
+	 * @param succinct the encoded distances to the exit position
+	 */
+	private static void storeSuccinctDistances(ByteBuffer buffer, int width, int height, SuccinctDistances succinct) {
+		buffer.put(succinct.getDirections());
+		buffer.putInt(succinct.getCheckpointCount());
+		int previous = 0;
+		for (int index = succinct.nextCheckpoint(0); index >= 0; index = succinct.nextCheckpoint(index+1)) {
+			putVarInt(buffer, index - previous);
+			putVarInt(buffer, zigzag(succinct.getDistanceValue(index / height, index % height)));
+			previous = index;
+		}
+	}
+	/**
+	 * Stores the bsp tree as arrays over its nodes in preorder.
+	 * Section layout:
+	 * <ul>
+	 * <li>node count n, then for each node: kind (byte), preorder index of
+	 * the first node after its subtree (int), index into the branch or wall arrays (int),
+	 * number of walls for leaves or 0 for branches (int), 
+	 * lower bound x, lower bound y, upper bound x, upper bound y (int)</li>
+	 * <li>branch count b, then arrays x, y, dx, dy of length b</li>
+	 * <li>wall count w, then arrays x, y, dx, dy, dist, col of length w
+	 * and an array of w bytes with partition and seen flags</li>
+	 * </ul>
+	 * Each array is stored as a block such that the section can be read
+	 * with bulk operations or accessed for a single node.
+	 * @param buffer to write to
+	 * @param nodes the nodes of the tree in preorder
+	 * @param branches the number of branch nodes
+	 * @param walls the total number of walls
+	 */
+	private static void storeBSPTree(ByteBuffer buffer, List<BSPNode> nodes, int branches, int walls) {
+		int n = nodes.size();
+		buffer.putInt(n);
+		for (BSPNode node : nodes) {
+			buffer.put(node instanceof BSPLeaf ? NODE_LEAF : NODE_BRANCH);
+		}
+		// end of subtree for each node
+		int[] end = new int[n];
+		if (n > 0)
+			computeEnd(nodes, 0, end);
+		for (int i = 0; i < n; i++) {
+			buffer.putInt(end[i]);
+		}
+		int branchIndex = 0;
+		int wallIndex = 0;
+		for (BSPNode node : nodes) {
+			if (node instanceof BSPLeaf) {
+				buffer.putInt(wallIndex);
+				wallIndex += ((BSPLeaf)node).getAllWalls().size();
+			}
+			else {
+				buffer.putInt(branchIndex);
+				branchIndex++;
+			}
+		}
+		for (BSPNode node : nodes) {
+			buffer.putInt(node instanceof BSPLeaf ? ((BSPLeaf)node).getAllWalls().size() : 0);
+		}
+		// bounds, such that a reader does not need the subtree to know them
+		for (BSPNode node : nodes) {
+			buffer.putInt(node.getLowerBoundX());
+		}
+		for (BSPNode node : nodes) {
+			buffer.putInt(node.getLowerBoundY());
+		}
+		for (BSPNode node : nodes) {
+			buffer.putInt(node.getUpperBoundX());
+		}
+		for (BSPNode node : nodes) {
+			buffer.putInt(node.getUpperBoundY());
+		}
+		// branches
+		buffer.putInt(branches);
+		for (int field = 0; field < 4; field++) {
+			for (BSPNode node : nodes) {
+				if (node instanceof BSPLeaf)
+					continue;
+				BSPBranch b = (BSPBranch) node;
+				switch (field) {
+				case 0: buffer.putInt(b.getX()); break;
+				case 1: buffer.putInt(b.getY()); break;
+				case 2: buffer.putInt(b.getDx()); break;
+				default: buffer.putInt(b.getDy()); break;
+				}
+			}
+		}
+		// walls
+		buffer.putInt(walls);
+		for (int field = 0; field < 7; field++) {
+			for (BSPNode node : nodes) {
+				if (!(node instanceof BSPLeaf))
+					continue;
+				for (Wall w : ((BSPLeaf)node).getAllWalls()) {
+					switch (field) {
+					case 0: buffer.putInt(w.getStartPositionX()); break;
+					case 1: buffer.putInt(w.getStartPositionY()); break;
+					case 2: buffer.putInt(w.getExtensionX()); break;
+					case 3: buffer.putInt(w.getExtensionY()); break;
+					case 4: buffer.putInt(w.getDistance()); break;
+					case 5: buffer.putInt(w.getColor()); break;
+					default:
+						buffer.put((byte) ((w.isPartition() ? WALL_PARTITION : 0) | (w.isSeen() ? WALL_SEEN : 0)));
+					}
+				}
+			}
+		}
+	}
+	/**
+	 * Adds the given node and all nodes in its subtree to the list in preorder,
+	 * left branch before right branch as for the XML format.
+	 * @param node the root of the subtree
+	 * @param nodes the list to add to
+	 */
+	private static void collectNodes(BSPNode node, List<BSPNode> nodes) {
+		nodes.add(node);
+		if (node instanceof BSPBranch) {
+			collectNodes(((BSPBranch)node).getLeftBranch(), nodes);
+			collectNodes(((BSPBranch)node).getRightBranch(), nodes);
+		}
+	}
+	/**
+	 * Computes the preorder index of the first node after the subtree
+	 * of node i and does the same for all nodes in that subtree.
+	 * @param nodes the nodes of the tree in preorder
+	 * @param i index of the root of the subtree
+	 * @param end array to store the results in
+	 * @return index of the first node after the subtree
+	 */
+	private static int computeEnd(List<BSPNode> nodes, int i, int[] end) {
+		int next = i+1;
+		if (!(nodes.get(i) instanceof BSPLeaf)) {
+			// left subtree is followed by right subtree
+			next = computeEnd(nodes, next, end);
+			next = computeEnd(nodes, next, end);
+		}
+		end[i] = next;
+		return next;
+	}
+	/**
+	 * Maps signed values to unsigned ones such that small absolute values
+	 * give small results: 0, -1, 1, -2, 2 map to 0, 1, 2, 3, 4.
+	 * @param value any int
+	 * @return zigzag encoded value
+	 */
+	static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+	/**
+	 * Writes the given value with 7 bits per byte, the high bit tells if
+	 * more bytes follow.
+	 * @param buffer to write to
+	 * @param value is treated as unsigned
+	 */
+	static void putVarInt(ByteBuffer buffer, int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+}
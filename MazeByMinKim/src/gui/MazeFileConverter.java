@@ -0,0 +1,89 @@
+/**
+ *
+ */
+package gui;
+
+import java.io.IOException;
+
+/**
+ * Command line tool to convert maze files between the XML format
+ * of MazeFileWriter and the binary format of MazeFileBinaryWriter.
+ * The direction of the conversion follows from the input file:
+ * a binary file is converted to XML, anything else is read as XML
+ * and converted to binary.
+ *
+ * With option -mappable, a binary file is written such that it can be
+ * used with MazeFileMappedReader. With option -succinct, distances are
+ * written in the encoding of SuccinctDistances, the smallest of the formats.
+ *
+ * Usage: java gui.MazeFileConverter [-mappable|-succinct] input output
+ *
+ */
+public class MazeFileConverter {
+
+	/**
+	 * Converts an XML maze file into a binary maze file
+	 * @param xmlFile the file to read
+	 * @param binaryFile the file to write
+	 * @throws IOException if the binary file can not be written
+	 */
+	public static void xmlToBinary(String xmlFile, String binaryFile) throws IOException {
+		xmlToBinary(xmlFile, binaryFile, 0);
+	}
+
+	/**
+	 * Converts an XML maze file into a binary maze file with the given flags
+	 * @param xmlFile the file to read
+	 * @param binaryFile the file to write
+	 * @param flags is 0, MazeFileBinaryWriter.FLAG_MAPPABLE or MazeFileBinaryWriter.FLAG_SUCCINCT
+	 * @throws IOException if the binary file can not be written
+	 */
+	public static void xmlToBinary(String xmlFile, String binaryFile, int flags) throws IOException {
+		MazeFileReader reader = new MazeFileReader(xmlFile);
+		MazeFileBinaryWriter.store(binaryFile, reader.getWidth(), reader.getHeight(),
+				reader.getRooms(), reader.getExpectedPartiters(), reader.getRootNode(),
+				reader.getCells(), reader.getDistances(), reader.getStartX(), reader.getStartY(), flags);
+	}
+
+	/**
+	 * Converts a binary maze file into an XML maze file
+	 * @param binaryFile the file to read
+	 * @param xmlFile the file to write
+	 * @throws IOException if the binary file can not be read
+	 */
+	public static void binaryToXml(String binaryFile, String xmlFile) throws IOException {
+		MazeFileBinaryReader reader = new MazeFileBinaryReader(binaryFile);
+		MazeFileWriter.store(xmlFile, reader.getWidth(), reader.getHeight(),
+				reader.getRooms(), reader.getExpectedPartiters(), reader.getRootNode(),
+				reader.getCells(), reader.getDistances(), reader.getStartX(), reader.getStartY());
+	}
+
+	/**
+	 * Main method to convert a single file
+	 * @param args optional -mappable or -succinct, input file name and output file name
+	 */
+	public static void main(String[] args) {
+		boolean mappable = args.length == 3 && "-mappable".equals(args[0]);
+		boolean succinct = args.length == 3 && "-succinct".equals(args[0]);
+		if (args.length != 2 && !mappable && !succinct) {
+			System.out.println("Usage: java gui.MazeFileConverter [-mappable|-succinct] input output");
+			System.exit(1);
+		}
+		String input = args[args.length-2];
+		String output = args[args.length-1];
+		try {
+			if (MazeFileBinaryReader.isBinaryFile(input)) {
+				binaryToXml(input, output);
+				System.out.println("Converted binary file " + input + " to XML file " + output);
+			}
+			else {
+				int flags = mappable ? MazeFileBinaryWriter.FLAG_MAPPABLE : (succinct ? MazeFileBinaryWriter.FLAG_SUCCINCT : 0);
+				xmlToBinary(input, output, flags);
+				System.out.println("Converted XML file " + input + " to binary file " + output);
+			}
+		} catch (IOException e) {
+			System.out.println("Conversion failed: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+}
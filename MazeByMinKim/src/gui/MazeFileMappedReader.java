@@ -0,0 +1,304 @@
+/**
+ *
+ */
+package gui;
+
+import generation.BSPBranch;
+import generation.BSPLeaf;
+import generation.BSPNode;
+import generation.Distance;
+import generation.Floorplan;
+import generation.Maze;
+import generation.MazeContainer;
+import generation.Wall;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * This class provides access to a maze in a binary file written by MazeFileBinaryWriter
+ * with flag FLAG_MAPPABLE without reading the whole file.
+ * The file is mapped into memory read only, such that several processes can share it.
+ * Floorplan and Distance read their values directly from the mapped file.
+ * The bsp tree is decoded on demand: a branch decodes its children when the
+ * renderer asks for them the first time, so only visited parts of the tree are
+ * ever decoded. Opening a file takes the same time for any size of maze.
+ *
+ * It offers the same methods as MazeFileBinaryReader.
+ * Decoding of the bsp tree is not synchronized. Threads that traverse the tree
+ * at the same time may decode a child twice, but a branch publishes its children
+ * through volatile fields, so each thread sees complete nodes.
+ *
+ */
+public class MazeFileMappedReader {
+
+	// fields of maze configuration object
+	private int width ;
+	private int height ;
+	private int rooms ;
+	private Distance dists ;
+	private int expected_partiters ;
+	private Floorplan cells ;
+	private int startx ;
+	private int starty ;
+	private BSPNode root ;
+
+	// the mapped file
+	private final MappedByteBuffer buffer ;
+	// byte offsets of the arrays in the bsp section, see MazeFileBinaryWriter.storeBSPTree
+	private int kindOffset ;
+	private int endOffset ;
+	private int indexOffset ;
+	private int countOffset ;
+	private int xlOffset ;
+	private int ylOffset ;
+	private int xuOffset ;
+	private int yuOffset ;
+	private int branchOffset ; // x, y, dx, dy arrays follow each other
+	private int branches ;
+	private int wallOffset ;   // x, y, dx, dy, dist, col arrays follow each other, then flags
+	private int walls ;
+
+	/**
+	 * Constructor maps the given file into memory and reads the header.
+	 *
+	 * @param filename with data of a Maze object
+	 * @throws IOException if the file can not be mapped, has an unknown format or version
+	 * or was not written with flag FLAG_MAPPABLE
+	 */
+	public MazeFileMappedReader(String filename) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			// the mapping stays valid after the channel is closed
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		load(filename);
+	}
+
+	/**
+	 * Tells if the given file is a binary file that can be mapped.
+	 * @param filename of the file to check
+	 * @return true if the file has the flag FLAG_MAPPABLE, false otherwise
+	 */
+	public static boolean isMappableFile(String filename) {
+		Path path = Paths.get(filename);
+		if (!Files.isRegularFile(path))
+			return false;
+		// magic number, version and flags are read with a single open
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(3*Integer.BYTES);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0)
+					return false;
+			}
+			header.flip();
+			if (MazeFileBinaryWriter.MAGIC != header.getInt())
+				return false;
+			int version = header.getInt();
+			int flags = header.getInt();
+			return MazeFileBinaryWriter.VERSION == version
+					&& 0 == (flags & ~MazeFileBinaryWriter.FLAGS)
+					&& 0 != (flags & MazeFileBinaryWriter.FLAG_MAPPABLE);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Provides the data from file wrapped in a MazeConfiguration.
+	 * @return maze configuration backed by the mapped file
+	 */
+	Maze getMazeConfiguration() {
+		Maze mazeConfig = new MazeContainer() ;
+		mazeConfig.setHeight(getHeight());
+		mazeConfig.setWidth(getWidth());
+		mazeConfig.setFloorplan(getCells());
+		mazeConfig.setMazedists(dists);
+		mazeConfig.setRootnode(getRootNode());
+		mazeConfig.setStartingPosition(getStartX(), getStartY());
+		return mazeConfig;
+	}
+	/////////////////// set of straightforward get methods //////////////
+	int getWidth() {
+		return width ;
+	}
+	int getHeight() {
+		return height ;
+	}
+	int getRooms() {
+		return rooms ;
+	}
+	int[][] getDistances() {
+		return dists.getAllDistanceValues() ;
+	}
+	int getExpectedPartiters() {
+		return expected_partiters ;
+	}
+	Floorplan getCells() {
+		return cells ;
+	}
+	int getStartX() {
+		return startx ;
+	}
+	int getStartY() {
+		return starty ;
+	}
+	BSPNode getRootNode() {
+		return root ;
+	}
+
+	/**
+	 * Reads the header and sets up views on the sections of the mapped file.
+	 * Nothing is decoded apart from the root node of the bsp tree.
+	 * @param filename gives the input file, for error messages
+	 * @throws IOException if the file has an unknown format or version or is truncated or corrupt
+	 */
+	private void load(String filename) throws IOException
+	{
+		if (buffer.limit() < MazeFileBinaryWriter.HEADER_SIZE || MazeFileBinaryWriter.MAGIC != buffer.getInt(0))
+			throw new IOException("Not a binary maze file: " + filename);
+		int version = buffer.getInt(4);
+		if (MazeFileBinaryWriter.VERSION != version)
+			throw new IOException("Unsupported version " + version + " of binary maze file for mapping: " + filename);
+		int flags = buffer.getInt(8);
+		if (0 != (flags & ~MazeFileBinaryWriter.FLAGS))
+			throw new IOException("Unsupported flags " + flags + " of binary maze file: " + filename);
+		if (0 == (flags & MazeFileBinaryWriter.FLAG_MAPPABLE))
+			throw new IOException("Binary maze file was not written for mapping: " + filename);
+		width = buffer.getInt(12);
+		height = buffer.getInt(16);
+		rooms = buffer.getInt(20);
+		expected_partiters = buffer.getInt(24);
+		startx = buffer.getInt(28);
+		starty = buffer.getInt(32);
+
+		// offsets in a truncated or corrupt file run past the end of the mapping
+		try {
+			int cellCount = width*height;
+			int offset = MazeFileBinaryWriter.HEADER_SIZE;
+			cells = new Floorplan(width, height, slice(offset, cellCount*Short.BYTES).asShortBuffer());
+			offset += cellCount*Short.BYTES;
+			dists = new Distance(width, height, slice(offset, cellCount*Integer.BYTES).asIntBuffer());
+			offset += cellCount*Integer.BYTES;
+
+			// bsp section, only offsets are computed here
+			int n = buffer.getInt(offset);
+			kindOffset = offset + Integer.BYTES;
+			endOffset = kindOffset + n;
+			indexOffset = endOffset + n*Integer.BYTES;
+			countOffset = indexOffset + n*Integer.BYTES;
+			xlOffset = countOffset + n*Integer.BYTES;
+			ylOffset = xlOffset + n*Integer.BYTES;
+			xuOffset = ylOffset + n*Integer.BYTES;
+			yuOffset = xuOffset + n*Integer.BYTES;
+			branches = buffer.getInt(yuOffset + n*Integer.BYTES);
+			branchOffset = yuOffset + n*Integer.BYTES + Integer.BYTES;
+			walls = buffer.getInt(branchOffset + 4*branches*Integer.BYTES);
+			wallOffset = branchOffset + 4*branches*Integer.BYTES + Integer.BYTES;
+			if (wallOffset + walls*(6*Integer.BYTES + 1) > buffer.limit())
+				throw new IOException("Binary maze file is truncated: " + filename);
+			root = (0 == n) ? null : readBSPNode(0);
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new IOException("Truncated or corrupt binary maze file: " + filename, e);
+		}
+	}
+
+	/**
+	 * Gives a view on a section of the mapped file
+	 * @param offset position of the section in bytes
+	 * @param length length of the section in bytes
+	 * @return buffer that shares content with the mapped file
+	 */
+	private ByteBuffer slice(int offset, int length) {
+		ByteBuffer view = buffer.duplicate();
+		view.position(offset);
+		view.limit(offset + length);
+		return view.slice();
+	}
+
+	/**
+	 * Decodes a single node. Leaves are decoded completely,
+	 * branches decode their children on demand.
+	 * @param i preorder index of the node
+	 * @return the node
+	 */
+	private BSPNode readBSPNode(int i) {
+		int index = buffer.getInt(indexOffset + i*Integer.BYTES);
+		if (MazeFileBinaryWriter.NODE_LEAF == buffer.get(kindOffset + i)) {
+			int count = buffer.getInt(countOffset + i*Integer.BYTES);
+			ArrayList<Wall> slist = new ArrayList<Wall>(count);
+			for (int j = index; j < index + count; j++) {
+				slist.add(MazeFileBinaryReader.newWall(getWallValue(0, j), getWallValue(1, j),
+						getWallValue(2, j), getWallValue(3, j), getWallValue(4, j), getWallValue(5, j),
+						buffer.get(wallOffset + 6*walls*Integer.BYTES + j)));
+			}
+			return new BSPLeaf(slist);
+		}
+		return new MappedBSPBranch(i, getBranchValue(0, index), getBranchValue(1, index),
+				getBranchValue(2, index), getBranchValue(3, index));
+	}
+	/**
+	 * Gives a value from the branch arrays
+	 * @param field 0 for x, 1 for y, 2 for dx, 3 for dy
+	 * @param j index of the branch
+	 * @return the value
+	 */
+	private int getBranchValue(int field, int j) {
+		return buffer.getInt(branchOffset + (field*branches + j)*Integer.BYTES);
+	}
+	/**
+	 * Gives a value from the wall arrays
+	 * @param field 0 for x, 1 for y, 2 for dx, 3 for dy, 4 for dist, 5 for col
+	 * @param j index of the wall
+	 * @return the value
+	 */
+	private int getWallValue(int field, int j) {
+		return buffer.getInt(wallOffset + (field*walls + j)*Integer.BYTES);
+	}
+
+	/**
+	 * A branch that decodes its children from the mapped file
+	 * the first time they are requested. Bounds are read from the file
+	 * as the children are not known when the branch is created.
+	 */
+	private class MappedBSPBranch extends BSPBranch {
+		// preorder index of this node
+		private final int node;
+		private volatile BSPNode left;
+		private volatile BSPNode right;
+
+		/**
+		 * Constructor
+		 * @param i preorder index of the node
+		 * @param px x coordinate
+		 * @param py y coordinate
+		 * @param pdx x direction
+		 * @param pdy y direction
+		 */
+		MappedBSPBranch(int i, int px, int py, int pdx, int pdy) {
+			super(px, py, pdx, pdy, buffer.getInt(xlOffset + i*Integer.BYTES), buffer.getInt(ylOffset + i*Integer.BYTES),
+					buffer.getInt(xuOffset + i*Integer.BYTES), buffer.getInt(yuOffset + i*Integer.BYTES));
+			node = i;
+		}
+
+		@Override
+		public BSPNode getLeftBranch() {
+			if (null == left)
+				left = readBSPNode(node + 1); // left child follows in preorder
+			return left;
+		}
+
+		@Override
+		public BSPNode getRightBranch() {
+			if (null == right) // right child follows the subtree of the left child
+				right = readBSPNode(buffer.getInt(endOffset + (node + 1)*Integer.BYTES));
+			return right;
+		}
+	}
+}
@@ -12,21 +12,21 @@ import generation.Maze;
 import generation.MazeContainer;
 import generation.Wall;
 
-import java.io.File;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * This class provides functionality to read the content of a Maze object from a file. 
  * File format is XML and produced with MazeFileWriter.
+ * The file is read with a stream reader in a single pass, no document is built.
  * The class is a simple wrapper to make all fields of a Maze object accessible 
  * such that with the help of this class it is straightforward
  * to instantiate a MazeConfiguration object.
@@ -100,43 +100,36 @@ public class MazeFileReader {
 	}
 	
 	/**
-	 * Method provides main functionality to read all attributes of maze object from the given file
+	 * Method provides main functionality to read all attributes of maze object from the given file.
+	 * The file is read in a single forward pass with a stream reader, elements are expected
+	 * in the order in which MazeFileWriter writes them. 
+	 * Apart from the resulting data, memory consumption does not depend on the size of the file.
 	 * @param filename gives the input file
 	 */
 	private void load(String filename)
 	{
-		try{
-
-			File fXmlFile = new File(filename);
-			DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-			Document doc = dBuilder.parse(fXmlFile);
-			doc.getDocumentElement().normalize();
-
-			NodeList nList = doc.getElementsByTagName("Maze");
-
-			for (int temp = 0 ; temp < nList.getLength() ; temp++) {
-
-				Node nNode = nList.item(temp);
-				if (nNode.getNodeType() == Node.ELEMENT_NODE) {
-
-					Element eElement = (Element) nNode;
-
-					width = getElementIntValue("sizeX", eElement);
-					height = getElementIntValue("sizeY", eElement);
-					rooms =  getElementIntValue("roomNum", eElement);
-					dists = new int[width][height];
-					expected_partiters = getElementIntValue("partiters", eElement);
-					cells = readCells(eElement);
-					// read array of distance values
-					readDistances(eElement);
-					// read start position
-					startx = getElementIntValue("startX", eElement);
-					starty = getElementIntValue("startY", eElement);
-					// read tree of BSPNodes
-					number = 0 ; // field used as an index, that is shared an updated across recursive readBSPNode calls
-					root = readBSPNode(eElement);
-				}
+		try (InputStream in = new BufferedInputStream(new FileInputStream(filename))) {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			XMLStreamReader reader = factory.createXMLStreamReader(in);
+			try {
+				expectElement(reader, "Maze");
+				width = readInt(reader, "sizeX");
+				height = readInt(reader, "sizeY");
+				rooms =  readInt(reader, "roomNum");
+				expected_partiters = readInt(reader, "partiters");
+				cells = readCells(reader);
+				// read array of distance values
+				dists = readDistances(reader);
+				// read start position
+				startx = readInt(reader, "startX");
+				starty = readInt(reader, "startY");
+				// read tree of BSPNodes, if there is one
+				if (XMLStreamConstants.START_ELEMENT == reader.nextTag())
+					root = readBSPNode(reader);
+			}
+			finally {
+				reader.close();
 			}
 		}
 		catch (Exception e) { // TODO: implement serious error handling
@@ -145,156 +138,154 @@ public class MazeFileReader {
 
 	}
 
-	// shared index number for nodes in the tree of BSPNodes, used as an additional return value for recursive calls
-	// the sequence of values is increasing, when switching from a left branch to a right branch in a preorder treetraversal 
-	// we need to keep track of the node number 
-	int number ;
 	/**
-	 * Reads data for a BSPNode from file for the given element
+	 * Reads data for a BSPNode from the given stream, the stream is positioned
+	 * on the first element of the node.
 	 * 
 	 * The method recursively explores the left and right branches and builds a complete tree.
-	 * @param eElement element to read data from
+	 * Nodes are stored in preorder, so there is no need to keep track of node numbers.
+	 * @param reader stream to read data from
 	 * @return a new BSPNode, fully initialized with all necessary data
+	 * @throws XMLStreamException if the stream does not match the expected format
 	 */
-	private BSPNode readBSPNode(Element eElement) {
-		// read fields of BSBNode class
-		/* unused, as these values are recalculated in the BSPnode constructor
-		int xlLoad = getElementIntValue("xlBSPNode_"+number, eElement);
-		int ylLoad = getElementIntValue("ylBSPNode_"+number, eElement);
-		int xuLoad = getElementIntValue("xuBSPNode_"+number, eElement);
-		int yuLoad = getElementIntValue("yuBSPNode_"+number, eElement);
-		 */
-		int mynumber = number ; // keep track of own node number, as that the shared attribute number gets manipulated in recursive method calls
-		boolean isleafLoad= getElementBooleanValue("isleafBSPNode_"+mynumber, eElement);
+	private static BSPNode readBSPNode(XMLStreamReader reader) throws XMLStreamException {
+		// bounds are recalculated in the BSPnode constructor, skip them
+		checkElement(reader, "xlBSPNode_");
+		reader.getElementText();
+		readInt(reader, "ylBSPNode_");
+		readInt(reader, "xuBSPNode_");
+		readInt(reader, "yuBSPNode_");
+		boolean isleafLoad = readBoolean(reader, "isleafBSPNode_");
 		// laod data for leaf nodes and bsp branch nodes
 		if (isleafLoad)
 		{
 			// BSBLeaf, load walls
-			// note xl, yl, xu and yu are computed from the walls within the leaf constructor
-			// so there is no need to store those
-			ArrayList<Wall> slist = new ArrayList<Wall>() ;
-			int n = getElementIntValue("numSeg_" + mynumber, eElement); // get the total number of walls to load
-			//System.out.println("Trace: read Leaf " + mynumber + ", walls: " + n) ;
+			int n = readInt(reader, "numSeg_"); // get the total number of walls to load
+			ArrayList<Wall> slist = new ArrayList<Wall>(n) ;
 			for (int i = 0 ; i < n ; i++)
 			{
-				slist.add(readWall(eElement, number, i)) ;
+				slist.add(readWall(reader)) ;
 			}
 			return new BSPLeaf(slist) ;
 		}
 		else
 		{
 			//BSPBranch, load fields and left and right branches
-			int x = getElementIntValue("xBSPNode_"+mynumber, eElement);
-			int y = getElementIntValue("yBSPNode_"+mynumber, eElement);
-			int dx = getElementIntValue("dxBSPNode_"+mynumber, eElement); 
-			int dy = getElementIntValue("dyBSPNode_"+mynumber, eElement);
-			// read left branch before right branch, increment index number for next node to visit
-			number++ ;
-			BSPNode l = readBSPNode(eElement) ; // recursion updates index number for each element of the subtree
-			number++ ; // increment index number for next node to visit
-			BSPNode r = readBSPNode(eElement) ;
+			int x = readInt(reader, "xBSPNode_");
+			int y = readInt(reader, "yBSPNode_");
+			int dx = readInt(reader, "dxBSPNode_"); 
+			int dy = readInt(reader, "dyBSPNode_");
+			// read left branch before right branch
+			expectElement(reader, "xlBSPNode_");
+			BSPNode l = readBSPNode(reader) ;
+			expectElement(reader, "xlBSPNode_");
+			BSPNode r = readBSPNode(reader) ;
 			// other fields of BSBNode class need not be set, computed in constructor from branches
 			return new BSPBranch(x,y,dx,dy,l,r) ;
 		}
 	}
 	/**
-	 * Read a single wall from file
-	 * @param eElement element to read from 
-	 * @param number suffix with index number of BSPNode
-	 * @param i suffix with index of wall
+	 * Read a single wall from the given stream
+	 * @param reader stream to read from 
 	 * @return new wall, fully initialized with all necessary data
+	 * @throws XMLStreamException if the stream does not match the expected format
 	 */
-	private static Wall readWall(Element eElement, int number, int i) {
-		// load wall attributes		
-		int dist = getElementIntValue("distSeg_" + number+ "_" + i, eElement);
-		int dx = getElementIntValue("dxSeg_" + number+ "_" + i, eElement);
-		int dy = getElementIntValue("dySeg_" + number+ "_" + i, eElement);
-		int x = getElementIntValue("xSeg_" + number+ "_" + i, eElement);
-		int y = getElementIntValue("ySeg_" + number+ "_" + i, eElement);	
+	private static Wall readWall(XMLStreamReader reader) throws XMLStreamException {
+		// load wall attributes in the order of Wall.storeWall
+		int dist = readInt(reader, "distSeg_");
+		int dx = readInt(reader, "dxSeg_");
+		int dy = readInt(reader, "dySeg_");
+		boolean partition = readBoolean(reader, "partitionSeg_");
+		boolean seen = readBoolean(reader, "seenSeg_");
+		int x = readInt(reader, "xSeg_");
+		int y = readInt(reader, "ySeg_");
 		int cc = 0 ; // use this as a dummy for the constructor, the correct color is explicitly set below
 		Wall result = new Wall(x,y,dx,dy,dist,cc) ;
 		// get a few more attributes and set those explicitly
-		result.setColor(getElementIntValue("colSeg_" + number+ "_" + i, eElement)); 
-		result.setSeen(getElementBooleanValue("seenSeg_" + number+ "_" + i, eElement));
-		result.setPartition(getElementBooleanValue("partitionSeg_" + number+ "_" + i, eElement));
+		result.setColor(readInt(reader, "colSeg_")); 
+		result.setSeen(seen);
+		result.setPartition(partition);
 		return result;
 	}
 
 	/**
 	 * Reads data for a two-dimensional array of distance values. 
 	 * Requires that fields width and height have been set. 
-	 * @param eElement to read data from
+	 * @param reader stream to read data from
+	 * @return the distances that are parsed from the given stream
+	 * @throws XMLStreamException if the stream does not match the expected format
 	 */
-	private void readDistances(Element eElement) {
-		int number = 0 ;
+	private int[][] readDistances(XMLStreamReader reader) throws XMLStreamException {
+		int[][] result = new int[width][height];
 		for ( int x = 0; x != width; x++) {
 			for ( int y = 0; y != height; y++) {
-				dists[x][y] = getElementIntValue("dists"+ "_" + Integer.toString(number), eElement);
-				number++;
+				result[x][y] = readInt(reader, "dists_");
 			}
 		}
+		return result;
 	}
 
 	/**
 	 * Reads data for a cells object that contains values for walls. 
 	 * Requires that fields width and height have been set. 
-	 * @param eElement to read data from
-	 * @return the floor plan that is parsed from the given element
+	 * @param reader stream to read data from
+	 * @return the floor plan that is parsed from the given stream
+	 * @throws XMLStreamException if the stream does not match the expected format
 	 */
-	private Floorplan readCells(Element eElement) {
+	private Floorplan readCells(XMLStreamReader reader) throws XMLStreamException {
 		int [][]cellValue = new int[width][height] ;
-		int number = 0 ;
-
 		for ( int x = 0; x != width; x++) {
 			for ( int y = 0; y != height; y++) {
-				cellValue[x][y] = getElementIntValue("cell"+ "_" + Integer.toString(number), eElement);
-				number++;
+				cellValue[x][y] = readInt(reader, "cell_");
 			}
 		}
 		return new Floorplan(cellValue);
 	}
-	
+
 	/**
-	 * Obtains an integer value from the given element for the given string
-	 * @param string identifier
-	 * @param parent element that holds data
-	 * @return the int value for the given element
+	 * Moves the stream to the next element and checks its name.
+	 * Element names carry an index number as a suffix, only the given prefix is checked
+	 * as the position of an element in the stream already determines its index.
+	 * @param reader stream to read from
+	 * @param prefix the expected name or the beginning of it
+	 * @throws XMLStreamException if the next element does not match
 	 */
-	public static int getElementIntValue(  String string, Element parent) {
-		return Integer
-				.parseInt(getElementStringValue( string, parent));
+	private static void expectElement(XMLStreamReader reader, String prefix) throws XMLStreamException {
+		reader.nextTag();
+		checkElement(reader, prefix);
 	}
-
 	/**
-	 * Obtains an integer value from the given element for the given string
-	 * @param string identifier
-	 * @param parent element that holds data
-	 * @return the boolean value of the given element
+	 * Checks that the stream is positioned at the start of an element with the given prefix.
+	 * @param reader stream to read from
+	 * @param prefix the expected name or the beginning of it
+	 * @throws XMLStreamException if the current element does not match
 	 */
-	public static boolean getElementBooleanValue(  String string, Element parent ) {
-		return Boolean
-				.valueOf(getElementStringValue(string, parent))
-				.booleanValue();
+	private static void checkElement(XMLStreamReader reader, String prefix) throws XMLStreamException {
+		if (!reader.isStartElement() || !reader.getLocalName().startsWith(prefix))
+			throw new XMLStreamException("Expected element " + prefix + " but found " 
+					+ (reader.hasName() ? reader.getLocalName() : "event " + reader.getEventType()), reader.getLocation());
 	}
-
 	/**
-	 * Obtains an integer value from the given element for the given string
-	 * @param string identifier
-	 * @param parent element that holds data
-	 * @return the string that represents the given information
+	 * Reads the next element as an int value
+	 * @param reader stream to read from
+	 * @param prefix the expected name or the beginning of it
+	 * @return the int value of the element
+	 * @throws XMLStreamException if the next element does not match
 	 */
-	public static String getElementStringValue( String string, Element parent) {
-		NodeList nl = parent.getElementsByTagName(string);
-		if (nl.getLength() == 0) {
-			return "";
-		}
-
-		Node n = nl.item(0).getFirstChild();
-		if (n == null) {
-			return "";
-		}
-
-		return n.getNodeValue();
+	private static int readInt(XMLStreamReader reader, String prefix) throws XMLStreamException {
+		expectElement(reader, prefix);
+		return Integer.parseInt(reader.getElementText().trim());
+	}
+	/**
+	 * Reads the next element as a boolean value
+	 * @param reader stream to read from
+	 * @param prefix the expected name or the beginning of it
+	 * @return the boolean value of the element
+	 * @throws XMLStreamException if the next element does not match
+	 */
+	private static boolean readBoolean(XMLStreamReader reader, String prefix) throws XMLStreamException {
+		expectElement(reader, prefix);
+		return Boolean.parseBoolean(reader.getElementText().trim());
 	}
 
 	/////////////////////////////////// internal methods used in testing /////////////////////////////////////////
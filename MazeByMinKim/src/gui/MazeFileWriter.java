@@ -7,11 +7,19 @@ package gui;
 import generation.BSPNode;
 import generation.Floorplan;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -27,10 +35,16 @@ import org.w3c.dom.Element;
  * not distributed across classes that carry that information, e.g. BSPNode.
  * All methods are static. 
  * The XML format is a straightforward enumeration of elements and not particularly sophisticated. 
+ * The store method streams elements to the file, storeDocument builds a document first
+ * and produces the same file.
  * 
  *
  */
 public class MazeFileWriter {
+	/**
+	 * XML declaration at the beginning of each file.
+	 */
+	private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
 
 	/**
 	 * Write maze content to a file
@@ -48,6 +62,40 @@ public class MazeFileWriter {
 	public static void store(String filename, int width, int height, int rooms, 
 			int expected_partiters, BSPNode root, Floorplan cells, 
 			int[][] dists, int startX, int startY)
+	{
+		// elements are streamed to the file as they are produced,
+		// no document is held in memory
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+			// same declaration as the DOM transformer writes, such that files are identical
+			out.write(XML_DECLARATION.getBytes(StandardCharsets.UTF_8));
+			XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+			storeMaze(width, height, rooms, expected_partiters, root, cells, dists, startX, startY, writer);
+			writer.flush();
+			writer.close();
+		} catch (XMLStreamException xse) {
+			xse.printStackTrace();
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+	}
+	/**
+	 * Write maze content to a file by building a document first.
+	 * This is the original implementation, it produces the same file as store
+	 * but needs memory for the whole document.
+	 * @param filename gives the file name to store the data in
+	 * @param width is the width of the maze
+	 * @param height is the height of the maze
+	 * @param rooms is the number of rooms
+	 * @param expected_partiters is the expected number of partition iterations
+	 * @param root is the root node of the bsp tree
+	 * @param cells is the floor plan for this maze
+	 * @param dists is the distances to the exit
+	 * @param startX is the x coordinate of the starting position
+	 * @param startY is the y coordinate of the starting position
+	 */
+	public static void storeDocument(String filename, int width, int height, int rooms, 
+			int expected_partiters, BSPNode root, Floorplan cells, 
+			int[][] dists, int startX, int startY)
 	{
 		 try {
 			 	// get a document 
@@ -128,6 +176,89 @@ public class MazeFileWriter {
 		
 	}
 	
+	/**
+	 * Write given objects to the given stream, same elements in the same order
+	 * as storeMaze for a document.
+	 * @param width the width of the maze
+	 * @param height the height of the maze
+	 * @param rooms the number of rooms
+	 * @param expected_partiters the expected number of partition iterations
+	 * @param root the root not of the bsp tree
+	 * @param cells the floorplan
+	 * @param dists the distances to the exit position
+	 * @param startX the x coordinate of the starting position
+	 * @param startY the y coordinate of the starting position
+	 * @param writer the stream to write the information to
+	 * @throws XMLStreamException if writing fails
+	 */
+	static void storeMaze(int width, int height, int rooms,
+			int expected_partiters, BSPNode root, Floorplan cells, int[][] dists,
+			int startX, int startY, XMLStreamWriter writer) throws XMLStreamException {
+		writer.writeStartElement("Maze");
+		
+		// store fields of Maze class
+		writeElement(writer, "sizeX", width) ;
+		writeElement(writer, "sizeY", height) ;
+		writeElement(writer, "roomNum", rooms) ;
+		writeElement(writer, "partiters", expected_partiters) ;
+		// cells
+		int number = 0 ;		
+		for ( int x = 0; x != width; x++) {
+			for ( int y = 0; y != height; y++) {
+				writeElement(writer, "cell_" + number, cells.getValueOfCell(x, y)) ;
+				number++;
+			}
+		}
+		// distances
+		number = 0 ;		
+		for ( int x = 0; x != width; x++) {
+			for ( int y = 0; y != height; y++) {
+				writeElement(writer, "dists_" + number, dists[x][y]) ;
+				number++;
+			}
+		}
+		// start position
+		writeElement(writer, "startX", startX) ;
+		writeElement(writer, "startY", startY) ;
+		// BSPnodes
+		if (null != root)
+		{
+			root.store(writer, 0);
+		}
+		else
+		{
+			System.out.println("MazeBuilderWriter.store: root node of BSP tree is null");
+		}
+		writer.writeEndElement();
+		writer.writeEndDocument();
+	}
+	
+	/**
+	 * Write a new element that carries the given name and has the given value as its text.
+	 * @param writer stream to write to
+	 * @param name specifies the XML element to write to
+	 * @param value is the content for the XML element
+	 * @throws XMLStreamException if writing fails
+	 */
+	public static void writeElement(XMLStreamWriter writer, String name, int value) throws XMLStreamException
+	{
+		writer.writeStartElement(name);
+		writer.writeCharacters(Integer.toString(value));
+		writer.writeEndElement();
+	}
+	/**
+	 * Write a new element that carries the given name and has the given value as its text.
+	 * @param writer stream to write to
+	 * @param name specifies the XML element to write to
+	 * @param value is the content for the XML element
+	 * @throws XMLStreamException if writing fails
+	 */
+	public static void writeElement(XMLStreamWriter writer, String name, boolean value) throws XMLStreamException
+	{
+		writer.writeStartElement(name);
+		writer.writeCharacters(Boolean.toString(value));
+		writer.writeEndElement();
+	}
 	/**
 	 * Append an new element to mazeXML that carries the given name has a child node with the given value.
 	 * @param doc document to add data to
@@ -42,6 +42,17 @@ public class MazePanel extends Panel  {
 		graphics = null;	// same for graphics
 	}
 	
+	/**
+	 * Constructor for drawing offscreen, e.g. for benchmarks.
+	 * The given image serves as the buffer image, so the panel
+	 * does not need to be displayable.
+	 * @param image to draw on, must not be null
+	 */
+	public MazePanel(Image image) {
+		this();
+		bufferImage = image;
+	}
+	
 	@Override
 	public void update(Graphics g) {
 		paint(g);
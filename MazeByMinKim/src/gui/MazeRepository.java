@@ -0,0 +1,354 @@
+/**
+ *
+ */
+package gui;
+
+import generation.Maze;
+import generation.MazeFactory;
+import generation.Order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * This class keeps generated mazes in a local directory such that a maze
+ * that was generated before for the same order parameters can be loaded
+ * instead of being generated again.
+ *
+ * Mazes are content addressed: each maze is stored once in a binary file
+ * written by MazeFileBinaryWriter with flag FLAG_MAPPABLE whose name is the
+ * fingerprint of its floorplan, see Floorplan.getFingerprint.
+ * Different orders that lead to the same maze share a file.
+ *
+ * The order parameters builder, skill level, perfect and seed are mapped to
+ * fingerprints by an index file in the same directory.
+ * The index is append-only: a header with magic number, version and the
+ * MazeFactory.GENERATOR_VERSION that generated its mazes followed by records of fixed size, each with the four order parameters as int and
+ * the fingerprint as long, in big endian byte order.
+ * A record is appended only after its maze file is complete, a later record
+ * for the same parameters replaces an earlier one. An index of an other generator
+ * version is started anew, as the same parameters may give a different maze now,
+ * an index of an other format version is rejected.
+ * On opening, the index file is mapped into memory and its records are put
+ * into an open addressing hash table in a single pass, the directory
+ * itself is never listed. A lookup then takes constant time and a maze file
+ * is mapped, not read, see MazeFileMappedReader.
+ *
+ * Methods are synchronized, a repository can be shared by the threads of a process.
+ * Several processes must not append to the same index at the same time.
+ *
+ */
+public class MazeRepository implements Closeable {
+	/**
+	 * The logger is used to track execution and report issues.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(MazeRepository.class.getName());
+	/**
+	 * Name of the index file in the repository directory.
+	 */
+	public static final String INDEX_FILE = "index";
+	/**
+	 * Extension of maze files in the repository directory.
+	 */
+	public static final String MAZE_EXTENSION = ".maze";
+	/**
+	 * Magic number at the beginning of the index, reads as "MZIX" in ASCII.
+	 */
+	static final int INDEX_MAGIC = 0x4D5A4958;
+	/**
+	 * Current version of the index format.
+	 */
+	static final int INDEX_VERSION = 2;
+	/**
+	 * Number of bytes in the header of the index.
+	 */
+	static final int INDEX_HEADER_SIZE = 3 * Integer.BYTES;
+	/**
+	 * Number of bytes of a record: builder, skill level, perfect, seed and fingerprint.
+	 */
+	static final int RECORD_SIZE = 4 * Integer.BYTES + Long.BYTES;
+
+	private final Path directory;
+	private final FileChannel index; // open for reading and appending
+	private int records; // number of complete records in the index
+	private int distinct; // number of different keys among the records
+	// order parameters and fingerprint for each record, packed key see getKey
+	private long[] keys;
+	private long[] fingerprints;
+	// hash table over keys, linear probing, holds record number + 1, 0 for an empty slot
+	private int[] slots;
+
+	/**
+	 * Constructor opens the repository in the given directory,
+	 * the directory and the index are created if they do not exist.
+	 * @param directory for mazes and index
+	 * @throws IOException if the index can not be created or has an unknown format or version
+	 */
+	public MazeRepository(String directory) throws IOException {
+		this.directory = Paths.get(directory);
+		Files.createDirectories(this.directory);
+		index = FileChannel.open(this.directory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			load();
+		} catch (IOException e) {
+			index.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gives the maze that was stored for the parameters of the given order.
+	 * @param order provides builder, skill level, perfect and seed
+	 * @return the maze backed by its mapped file, null if there is none
+	 */
+	public synchronized Maze lookup(Order order) {
+		int record = find(getKey(order));
+		if (record < 0)
+			return null;
+		Path file = getMazeFile(fingerprints[record]);
+		if (!Files.exists(file)) {
+			LOGGER.warning("Index refers to missing maze file " + file);
+			return null;
+		}
+		try {
+			return new MazeFileMappedReader(file.toString()).getMazeConfiguration();
+		} catch (IOException e) {
+			LOGGER.warning("Failed to load maze from repository file " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the given maze for the parameters of the given order.
+	 * The maze file is only written if there is no file with the same fingerprint.
+	 * The bsp tree of the maze is built if it is not available yet.
+	 * @param order provides builder, skill level, perfect and seed
+	 * @param maze the maze that was generated for the order
+	 * @throws IOException if the maze file or the index can not be written
+	 */
+	public synchronized void store(Order order, Maze maze) throws IOException {
+		long key = getKey(order);
+		long fingerprint = maze.getFloorplan().getFingerprint();
+		int record = find(key);
+		if (record >= 0 && fingerprints[record] == fingerprint && Files.exists(getMazeFile(fingerprint)))
+			return; // nothing new
+		Path file = getMazeFile(fingerprint);
+		if (!Files.exists(file)) {
+			// write to a temporary file first such that the index never refers to an incomplete file
+			Path tmp = directory.resolve(file.getFileName() + ".tmp");
+			int skill = order.getSkillLevel();
+			int[] start = maze.getStartingPosition();
+			// a perfect maze has no rooms, as for the generation itself
+			int rooms = order.isPerfect() ? 0 : Constants.SKILL_ROOMS[skill];
+			MazeFileBinaryWriter.store(tmp.toString(), maze.getWidth(), maze.getHeight(),
+					rooms, Constants.SKILL_PARTCT[skill], maze.getRootnode(),
+					maze.getFloorplan(), maze.getMazedists().getAllDistanceValues(), start[0], start[1],
+					MazeFileBinaryWriter.FLAG_MAPPABLE);
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		append(order, key, fingerprint);
+	}
+
+	/**
+	 * Gives the number of order parameters that are known to the index.
+	 * @return number of distinct keys
+	 */
+	public synchronized int size() {
+		return distinct;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		index.close();
+	}
+
+	/**
+	 * Gives the file for a maze with the given fingerprint
+	 * @param fingerprint of the floorplan
+	 * @return path in the repository directory
+	 */
+	Path getMazeFile(long fingerprint) {
+		return directory.resolve(String.format("%016x", fingerprint) + MAZE_EXTENSION);
+	}
+
+	/**
+	 * Reads the index, writes the header for a new one.
+	 * A record at the end that was not written completely is cut off,
+	 * an index of an other generator version is emptied.
+	 * @throws IOException if the index has an unknown format or an other version
+	 */
+	private void load() throws IOException {
+		long size = index.size();
+		if (0 == size)
+			size = writeHeader();
+		ByteBuffer header = readHeader();
+		if (header.limit() < 2 * Integer.BYTES || INDEX_MAGIC != header.getInt(0))
+			throw new IOException("Not a maze repository index: " + directory.resolve(INDEX_FILE));
+		int version = header.getInt(Integer.BYTES);
+		if (INDEX_VERSION != version)
+			throw new IOException("Unsupported version " + version + " of maze repository index");
+		if (header.limit() < INDEX_HEADER_SIZE
+				|| MazeFactory.GENERATOR_VERSION != header.getInt(2 * Integer.BYTES)) {
+			LOGGER.info("Starting a new index for generator version " + MazeFactory.GENERATOR_VERSION
+					+ " in " + directory.resolve(INDEX_FILE));
+			index.truncate(0);
+			size = writeHeader();
+		}
+		int count = (int) ((size - INDEX_HEADER_SIZE) / RECORD_SIZE);
+		long end = INDEX_HEADER_SIZE + (long) count*RECORD_SIZE;
+		MappedByteBuffer buffer = index.map(FileChannel.MapMode.READ_ONLY, 0, end);
+		int capacity = 16;
+		while (capacity < 2*count)
+			capacity <<= 1;
+		keys = new long[capacity];
+		fingerprints = new long[capacity];
+		slots = new int[2*capacity];
+		for (int i = 0; i < count; i++) {
+			int offset = INDEX_HEADER_SIZE + i*RECORD_SIZE;
+			long key = getKey(buffer.getInt(offset), buffer.getInt(offset + 4),
+					buffer.getInt(offset + 8), buffer.getInt(offset + 12));
+			put(key, buffer.getLong(offset + 16));
+		}
+		if (end != size) {
+			LOGGER.warning("Cutting off incomplete record at the end of " + directory.resolve(INDEX_FILE));
+			index.truncate(end);
+		}
+	}
+
+	/**
+	 * Writes the header of an empty index
+	 * @return the size of the index
+	 * @throws IOException if the index can not be written
+	 */
+	private long writeHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+		header.putInt(INDEX_MAGIC);
+		header.putInt(INDEX_VERSION);
+		header.putInt(MazeFactory.GENERATOR_VERSION);
+		header.flip();
+		while (header.hasRemaining()) {
+			index.write(header, header.position());
+		}
+		return INDEX_HEADER_SIZE;
+	}
+
+	/**
+	 * Reads the header of the index, or as much of it as there is
+	 * @return buffer with the bytes that were read up to its limit
+	 * @throws IOException if the index can not be read
+	 */
+	private ByteBuffer readHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+		while (header.hasRemaining()) {
+			if (index.read(header, header.position()) <= 0)
+				break;
+		}
+		header.flip();
+		return header;
+	}
+
+	/**
+	 * Appends a record to the index and the hash table
+	 * @param order provides the parameters
+	 * @param key packed parameters
+	 * @param fingerprint of the maze
+	 * @throws IOException if the index can not be written
+	 */
+	private void append(Order order, long key, long fingerprint) throws IOException {
+		ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		record.putInt(order.getBuilder().ordinal());
+		record.putInt(order.getSkillLevel());
+		record.putInt(order.isPerfect() ? 1 : 0);
+		record.putInt(order.getSeed());
+		record.putLong(fingerprint);
+		record.flip();
+		long position = INDEX_HEADER_SIZE + (long) records*RECORD_SIZE;
+		while (record.hasRemaining()) {
+			position += index.write(record, position);
+		}
+		put(key, fingerprint);
+	}
+
+	/**
+	 * Adds a record to the hash table, replaces an earlier record for the same key
+	 * @param key packed parameters
+	 * @param fingerprint of the maze
+	 */
+	private void put(long key, long fingerprint) {
+		if (records == keys.length) {
+			keys = Arrays.copyOf(keys, 2*keys.length);
+			fingerprints = Arrays.copyOf(fingerprints, 2*fingerprints.length);
+			// rehash, only the latest record of each key is in the table
+			int[] old = slots;
+			slots = new int[2*old.length];
+			for (int slot : old) {
+				if (0 != slot)
+					slots[probe(keys[slot-1])] = slot;
+			}
+		}
+		keys[records] = key;
+		fingerprints[records] = fingerprint;
+		records++;
+		int i = probe(key);
+		if (0 == slots[i])
+			distinct++;
+		slots[i] = records;
+	}
+
+	/**
+	 * Finds the latest record for the given key
+	 * @param key packed parameters
+	 * @return record number, -1 if there is none
+	 */
+	private int find(long key) {
+		return slots[probe(key)] - 1;
+	}
+
+	/**
+	 * Gives the slot that holds the given key or the empty slot where it belongs
+	 * @param key packed parameters
+	 * @return index into the slots
+	 */
+	private int probe(long key) {
+		int mask = slots.length - 1;
+		long h = key * 0x9E3779B97F4A7C15L;
+		int i = (int) (h ^ (h >>> 32)) & mask;
+		while (0 != slots[i] && keys[slots[i]-1] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * Packs the order parameters into a single key
+	 * @param order provides builder, skill level, perfect and seed
+	 * @return the key
+	 */
+	private static long getKey(Order order) {
+		return getKey(order.getBuilder().ordinal(), order.getSkillLevel(), order.isPerfect() ? 1 : 0, order.getSeed());
+	}
+
+	/**
+	 * Packs the order parameters into a single key: seed in the upper 32 bits,
+	 * builder, skill level and perfect below.
+	 * @param builder ordinal of the builder
+	 * @param skill skill level
+	 * @param perfect 1 for a perfect maze, 0 otherwise
+	 * @param seed seed of the random number generator
+	 * @return the key
+	 */
+	private static long getKey(int builder, int skill, int perfect, int seed) {
+		return ((long) seed << 32) | ((builder & 0xFFFF) << 16) | ((skill & 0x7FFF) << 1) | (perfect & 1);
+	}
+}
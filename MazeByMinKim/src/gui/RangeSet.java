@@ -132,6 +132,22 @@ public class RangeSet {
 	 * @return [lb,ub] with lower and upper bound for the intersection, null if there is none 
 	 */
 	public int[] getIntersection(int lowerBound, int upperBound) {
+		int[] result = new int[2];
+		return getIntersection(lowerBound, upperBound, result) ? result : null;
+	}
+	/**
+	 * Computes an intersection of the given interval [lowerBound,upperBound] with the
+	 * intervals in this set just like getIntersection(lowerBound, upperBound) but
+	 * stores the result in the given array instead of allocating a new one.
+	 * This allows the caller to reuse the same array for repeated calls.
+	 * @param lowerBound gives the low end of the interval of interest
+	 * @param upperBound gives the high end of the interval of interest
+	 * @param result array of length 2 to hold [lb,ub] of the intersection, 
+	 * only modified if there is an intersection, may be null if the caller only 
+	 * needs to know if there is an intersection
+	 * @return true if there is an intersection, false otherwise
+	 */
+	public boolean getIntersection(int lowerBound, int upperBound, int[] result) {
 		// consider interval [lowerBound,upperBound] on x-axis
 		// assume that set is sorted in increasing order
 		// we look for an interval in rset that overlaps with [lowerBound,upperBound]
@@ -144,17 +160,18 @@ public class RangeSet {
 			// case 2: (lowerBound <= upperBound) < (current.lb <= current.ub)
 			// current is above, stop, no reason to check more as values only increase	
 			if (current.lb > upperBound) 
-				return null;
+				return false;
 			// at this point: lowerBound <= current.ub and current.lb <= upperBound
 			// so we have some overlap, can be at most [lb,]
-			int[] result = new int[2];
-			// on the low end: the bigger of the lower end of both intervals
-			// on the high end: the smaller of the higher end of both intervals
-			result[0] = (current.lb > lowerBound) ? current.lb : lowerBound;
-			result[1] = (current.ub < upperBound) ? current.ub : upperBound;
-			return result;
+			if (null != result) {
+				// on the low end: the bigger of the lower end of both intervals
+				// on the high end: the smaller of the higher end of both intervals
+				result[0] = (current.lb > lowerBound) ? current.lb : lowerBound;
+				result[1] = (current.ub < upperBound) ? current.ub : upperBound;
+			}
+			return true;
 		}
-		return null;
+		return false;
 	}
 	/**
 	 * Internal class to hold a pair of two elements to represent an
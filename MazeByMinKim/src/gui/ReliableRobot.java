@@ -6,6 +6,7 @@ import java.awt.print.Printable;
 import gui.Constants.UserInput;
 import gui.Robot.Direction;
 import generation.CardinalDirection;
+import generation.CellIndex;
 import generation.Maze;
 
 /**
@@ -37,6 +38,11 @@ public class ReliableRobot implements Robot {
 	protected boolean isStopped;
 	
 	protected final static float INITIAL_BATTERY = 3500;
+	
+	// buffers handed to the sensors in distanceToObstacle, reused across calls
+	// as the sensor modifies the position and power values it is given
+	private final int[] sensorPosition = new int[2];
+	private final float[] sensorPower = new float[1];
 
 	public ReliableRobot() {
 		distanceTraveled = 0;
@@ -66,7 +72,16 @@ public class ReliableRobot implements Robot {
 		resetOdometer();
 		isStopped = false;
 		//get the maze and its information
-		referenceMaze = controller.getMaze();
+		setMaze(controller.getMaze());
+	}
+
+	/**
+	 * Sets the maze the robot operates in and hands it to the sensors.
+	 * 
+	 * @param maze the maze, must be fully initialized
+	 */
+	protected void setMaze(Maze maze) {
+		referenceMaze = maze;
 		width = referenceMaze.getWidth();
 		height = referenceMaze.getHeight();
 		
@@ -77,6 +92,26 @@ public class ReliableRobot implements Robot {
 		sensorRight.setMaze(referenceMaze);
 	}
 
+	/**
+	 * Gives the maze the robot operates in.
+	 * 
+	 * @return the maze, null before the robot is set up
+	 */
+	protected Maze getMaze() {
+		return referenceMaze;
+	}
+
+	/**
+	 * Performs a single turn, step or jump. The robot checks battery and 
+	 * walls before, the controller updates position and direction as for
+	 * the corresponding key of the user.
+	 * 
+	 * @param input one of UserInput.LEFT, RIGHT, UP or JUMP
+	 */
+	protected void operate(UserInput input) {
+		control.handleKeyboardInput(input, 0);
+	}
+
 	/**
 	 * Adds a distance sensor to the robot such that it measures in the given
 	 * direction. This method is used when a robot is initially configured to get
@@ -111,11 +146,22 @@ public class ReliableRobot implements Robot {
 	 */
 	@Override
 	public int[] getCurrentPosition() throws Exception {
-		int[] currentPosition = control.getCurrentPosition();
+		return CellIndex.toArray(getCurrentPositionIndex());
+	}
+	
+	/**
+	 * Get the current position as a packed position, see CellIndex.
+	 * 
+	 * @return packed position of the robot
+	 * @throws Exception if position is outside of the maze
+	 */
+	@Override
+	public int getCurrentPositionIndex() throws Exception {
+		int currentPosition = control.getCurrentPositionIndex();
 		
 		// check if the current position is outside of the maze
-		if (currentPosition[0] < 0 || currentPosition[0] >= width || currentPosition[1] < 0
-				|| currentPosition[1] >= height) {
+		if (currentPosition == CellIndex.NONE || CellIndex.getX(currentPosition) >= width
+				|| CellIndex.getY(currentPosition) >= height) {
 			throw new Exception();
 		}
 		return currentPosition;
@@ -217,16 +263,16 @@ public class ReliableRobot implements Robot {
 		switch (turn) {
 		case LEFT:
 			setBatteryLevel(getBatteryLevel() - 3);
-			control.handleKeyboardInput(UserInput.LEFT, 0);
+			operate(UserInput.LEFT);
 			break;
 		case RIGHT:
 			setBatteryLevel(getBatteryLevel() - 3);
-			control.handleKeyboardInput(UserInput.RIGHT, 0);
+			operate(UserInput.RIGHT);
 			break;
 		case AROUND:
 			setBatteryLevel(getBatteryLevel() - 6);
-			control.handleKeyboardInput(UserInput.LEFT, 0);
-			control.handleKeyboardInput(UserInput.LEFT, 0);
+			operate(UserInput.LEFT);
+			operate(UserInput.LEFT);
 			break;
 		}
 		
@@ -263,10 +309,10 @@ public class ReliableRobot implements Robot {
 		// while the distance moved is less than the inputed distance
 		while (distanceMoved < distance) {
 			try {
-				int[] currentPosition = getCurrentPosition();
+				int currentPosition = getCurrentPositionIndex();
 				// check if there is an obstacle in front of the robot and stop if so 
 				if (distanceMoved != distance
-						&& referenceMaze.hasWall(currentPosition[0], currentPosition[1], getCurrentDirection())) {
+						&& referenceMaze.hasWall(CellIndex.getX(currentPosition), CellIndex.getY(currentPosition), getCurrentDirection())) {
 					setBatteryLevel(0);
 					isStopped = true;
 					break;
@@ -276,7 +322,7 @@ public class ReliableRobot implements Robot {
 				return;
 			}
 			// move the robot one step forward and update the distance traveled and battery level
-			control.handleKeyboardInput(UserInput.UP, 0);
+			operate(UserInput.UP);
 			distanceTraveled++;
 			distanceMoved++;
 			setBatteryLevel(getBatteryLevel() - 6);
@@ -314,36 +360,38 @@ public class ReliableRobot implements Robot {
 			return;
 		}
 		try {
-			int[] currentPosition = getCurrentPosition();
+			int currentPosition = getCurrentPositionIndex();
+			int x = CellIndex.getX(currentPosition);
+			int y = CellIndex.getY(currentPosition);
 			// check if the wall in front is a border and stop if so
 			switch (getCurrentDirection()) {
 			case North:
-				if (referenceMaze.hasWall(currentPosition[0], currentPosition[1], CardinalDirection.North)
-						&& currentPosition[1] - 1 < 0) {
+				if (referenceMaze.hasWall(x, y, CardinalDirection.North)
+						&& y - 1 < 0) {
 					setBatteryLevel(0);
 					isStopped = true;
 					return;
 				}
 				break;
 			case East:
-				if (referenceMaze.hasWall(currentPosition[0], currentPosition[1], CardinalDirection.East)
-						&& currentPosition[0] + 1 == width) {
+				if (referenceMaze.hasWall(x, y, CardinalDirection.East)
+						&& x + 1 == width) {
 					setBatteryLevel(0);
 					isStopped = true;
 					return;
 				}
 				break;
 			case South:
-				if (referenceMaze.hasWall(currentPosition[0], currentPosition[1], CardinalDirection.South)
-						&& currentPosition[1] + 1 == height) {
+				if (referenceMaze.hasWall(x, y, CardinalDirection.South)
+						&& y + 1 == height) {
 					setBatteryLevel(0);
 					isStopped = true;
 					return;
 				}
 				break;
 			case West:
-				if (referenceMaze.hasWall(currentPosition[0], currentPosition[1], CardinalDirection.West)
-						&& currentPosition[0] - 1 < 0) {
+				if (referenceMaze.hasWall(x, y, CardinalDirection.West)
+						&& x - 1 < 0) {
 					setBatteryLevel(0);
 					isStopped = true;
 					return;
@@ -356,7 +404,7 @@ public class ReliableRobot implements Robot {
 		}
 		
 		// jump and update the distance traveled and battery level
-		control.handleKeyboardInput(UserInput.JUMP, 0);
+		operate(UserInput.JUMP);
 		distanceTraveled++;
 		setBatteryLevel(getBatteryLevel() - 40);
 		if (getBatteryLevel() == 0)
@@ -373,14 +421,14 @@ public class ReliableRobot implements Robot {
 	 */
 	@Override
 	public boolean isAtExit() {
-		int[] currentPosition;
+		int currentPosition;
 		try {
-			currentPosition = getCurrentPosition();
+			currentPosition = getCurrentPositionIndex();
 		} catch (Exception e) {
 			System.out.println("Outside maze");
 			return false;
 		}
-		return control.getMaze().getFloorplan().isExitPosition(currentPosition[0], currentPosition[1]);
+		return referenceMaze.isExitPosition(CellIndex.getX(currentPosition), CellIndex.getY(currentPosition));
 	}
 
 	/**
@@ -390,14 +438,14 @@ public class ReliableRobot implements Robot {
 	 */
 	@Override
 	public boolean isInsideRoom() {
-		int[] currentPosition;
+		int currentPosition;
 		try {
-			currentPosition = getCurrentPosition();
+			currentPosition = getCurrentPositionIndex();
 		} catch (Exception e) {
 			System.out.println("Outside maze");
 			return false;
 		}
-		return control.getMaze().getFloorplan().isInRoom(currentPosition[0], currentPosition[1]);
+		return referenceMaze.isInRoom(CellIndex.getX(currentPosition), CellIndex.getY(currentPosition));
 	}
 
 	/**
@@ -432,15 +480,18 @@ public class ReliableRobot implements Robot {
 	@Override
 	public int distanceToObstacle(Direction direction) throws UnsupportedOperationException {
 		
-		int[] currentPosition;
+		int[] currentPosition = sensorPosition;
 		try {
-			currentPosition = getCurrentPosition();
+			int position = getCurrentPositionIndex();
+			currentPosition[0] = CellIndex.getX(position);
+			currentPosition[1] = CellIndex.getY(position);
 		} catch (Exception e) {
 			System.out.println("Outside maze");
 			return -1;
 		}
 		
-		float[] batteryLevel = {getBatteryLevel()};
+		float[] batteryLevel = sensorPower;
+		batteryLevel[0] = getBatteryLevel();
 		int distance = -1;
 		//pass it to a specific sensor depends on the direction
 		try {
@@ -453,7 +504,6 @@ public class ReliableRobot implements Robot {
 				break;
 			case RIGHT:
 				distance = sensorRight.distanceToObstacle(currentPosition, getCurrentDirection(), batteryLevel);
-				System.out.println(distance);
 				break;
 			case BACKWARD:
 				distance = sensorBackward.distanceToObstacle(currentPosition, getCurrentDirection(), batteryLevel);
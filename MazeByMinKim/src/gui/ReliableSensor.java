@@ -1,9 +1,5 @@
 package gui;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-
 import generation.CardinalDirection;
 import generation.Floorplan;
 import generation.Maze;
@@ -31,10 +27,8 @@ public class ReliableSensor implements DistanceSensor {
 	
 	protected boolean isOperational; 
 	
-	//Map of Cardinal Direction with an integer list as a key
-	private Map<ArrayList<Integer>, CardinalDirection> getDirMap;
-	//Map of Integer list with a Cardinal Direction as a key
-	private Map<CardinalDirection, ArrayList<Integer>> getCoordMap;
+	//Table of fixed directions, indexed by relative direction and current direction ordinals
+	private CardinalDirection[][] fixedDirs;
 	
 	//Constructor without parameter
 	public ReliableSensor() {
@@ -199,26 +193,30 @@ public class ReliableSensor implements DistanceSensor {
 	}
 	
 	/**
-	 * Creates the maps to store the mappings used in the convertToFixedDir method
+	 * Creates the table to store the mappings used in the convertToFixedDir method.
+	 * The table is filled once such that a conversion is a lookup without 
+	 * any allocation.
 	 */
 	protected void mapping() {
-		CardinalDirection[] carDirs = {CardinalDirection.North, CardinalDirection.West, CardinalDirection.East, CardinalDirection.South};
-		int cardirIdx = 0;
-		
-		// map coordinates involving only +/-1 to each direction 
-		getDirMap = new HashMap<ArrayList<Integer>, CardinalDirection>();
-		// map each direction to its coordinates
-		getCoordMap = new HashMap<CardinalDirection, ArrayList<Integer>>();
+		Direction[] relDirs = Direction.values();
+		CardinalDirection[] carDirs = CardinalDirection.values();
+		fixedDirs = new CardinalDirection[relDirs.length][carDirs.length];
 		
-		int[] range = {-1, 1};
-		for (int i = 0; i <= 1; i++) {
-			for (int j = 0; j <= 1; j++) {
-				ArrayList<Integer> pair = new ArrayList<Integer>();
-				pair.add(range[i]); 
-				pair.add(range[j]);
-				getDirMap.put(pair, carDirs[cardirIdx]);
-				getCoordMap.put(carDirs[cardirIdx], pair);
-				cardirIdx++;
+		for (Direction dir : relDirs) {
+			for (CardinalDirection cd : carDirs) {
+				switch (dir) {
+					case BACKWARD:
+						fixedDirs[dir.ordinal()][cd.ordinal()] = cd.oppositeDirection();
+						break;
+					case LEFT:
+						fixedDirs[dir.ordinal()][cd.ordinal()] = cd.rotateClockwise();
+						break;
+					case RIGHT:
+						fixedDirs[dir.ordinal()][cd.ordinal()] = cd.rotateCounterClockwise();
+						break;
+					default:
+						fixedDirs[dir.ordinal()][cd.ordinal()] = cd;
+				}
 			}
 		}
 	}
@@ -231,26 +229,8 @@ public class ReliableSensor implements DistanceSensor {
 	 * @return CardinalDirection of the relative direction
 	 */
 	protected CardinalDirection convertToFixedDir(Direction direction, CardinalDirection currentDirection) {
-		assert(getCoordMap != null);
-		ArrayList<Integer> dir = getCoordMap.get(currentDirection); 
-		ArrayList<Integer> convertedDir = new ArrayList<Integer>();
-		switch (direction) {
-			case BACKWARD:
-				convertedDir.add(dir.get(0)*-1); 
-				convertedDir.add(dir.get(1)*-1);
-				break;
-			case LEFT:
-				convertedDir.add(dir.get(1)*-1); 
-				convertedDir.add(dir.get(0));
-				break;
-			case RIGHT:
-				convertedDir.add(dir.get(1)); 
-				convertedDir.add(dir.get(0)*-1);
-				break;
-			default:
-				return currentDirection;
-		}
-		return getDirMap.get(convertedDir);
+		assert(fixedDirs != null);
+		return fixedDirs[direction.ordinal()][currentDirection.ordinal()];
 	}
 
 }
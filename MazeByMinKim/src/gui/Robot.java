@@ -110,6 +110,15 @@ public interface Robot {
 	 * @throws Exception if position is outside of the maze
 	 */
 	int[] getCurrentPosition() throws Exception;
+	/**
+	 * Provides the current position as a packed position, see CellIndex,
+	 * such that drivers can track the position without allocating 
+	 * an array on each step.
+	 * @return packed position with x = CellIndex.getX(result), y = CellIndex.getY(result)
+	 * and ({@code 0 <= x < width, 0 <= y < height}) of the maze
+	 * @throws Exception if position is outside of the maze
+	 */
+	int getCurrentPositionIndex() throws Exception;
 	/**
 	 * Provides the robot's current direction.
 	 * @return cardinal direction is the robot's current direction in absolute terms
@@ -0,0 +1,130 @@
+package gui;
+
+import generation.CardinalDirection;
+import generation.CellIndex;
+import generation.Maze;
+import gui.Constants.UserInput;
+
+/**
+ * This class is a robot that keeps its own position and direction
+ * instead of reading them from the controller, so many robots can
+ * operate in the same maze at the same time, see SimulationWorld.
+ *
+ * Battery, odometer and sensors work as for a ReliableRobot,
+ * turns, steps and jumps change the position and direction the same
+ * way as the key strokes for StatePlaying do, without any drawing.
+ * The robot starts with reliable sensors, unreliable ones can be
+ * mounted with addDistanceSensor.
+ *
+ * A robot is meant to be operated by a single thread at a time,
+ * the maze it operates in can be shared, see MazeSnapshot.
+ *
+ * @author Min Kim
+ *
+ */
+public class SimulatedRobot extends ReliableRobot {
+
+	private int x;
+	private int y;
+	private CardinalDirection direction;
+
+	/**
+	 * Constructor puts the robot at the given position in the maze.
+	 *
+	 * @param maze the maze to operate in, fully initialized
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @param direction the robot's initial forward direction
+	 */
+	public SimulatedRobot(Maze maze, int x, int y, CardinalDirection direction) {
+		super();
+		if (null == maze || !maze.isValidPosition(x, y) || null == direction)
+			throw new IllegalArgumentException();
+		setMaze(maze);
+		this.x = x;
+		this.y = y;
+		this.direction = direction;
+	}
+
+	/**
+	 * A simulated robot keeps its own position and does not work with a controller.
+	 *
+	 * @param controller not used
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void setController(Control controller) {
+		throw new UnsupportedOperationException("SimulatedRobot does not use a controller");
+	}
+
+	/**
+	 * Adds a distance sensor to the robot and hands it the maze.
+	 *
+	 * @param sensor the distance sensor to be added
+	 * @param mountedDirection the direction that it points to relative to the
+	 * robot's forward direction
+	 */
+	@Override
+	public void addDistanceSensor(DistanceSensor sensor, Direction mountedDirection) {
+		super.addDistanceSensor(sensor, mountedDirection);
+		sensor.setMaze(getMaze());
+	}
+
+	/**
+	 * Get the current position as a packed position, see CellIndex.
+	 *
+	 * @return packed position of the robot
+	 * @throws Exception if the robot has left the maze through the exit
+	 */
+	@Override
+	public int getCurrentPositionIndex() throws Exception {
+		if (!getMaze().isValidPosition(x, y))
+			throw new Exception();
+		return CellIndex.pack(x, y);
+	}
+
+	/**
+	 * Get the robot's current direction.
+	 *
+	 * @return the robot's current direction in absolute terms
+	 */
+	@Override
+	public CardinalDirection getCurrentDirection() {
+		return direction;
+	}
+
+	/**
+	 * Updates position and direction as StatePlaying does for the
+	 * same key stroke. A left turn adds 90 degrees to the angle
+	 * which is a clockwise rotation of the direction as (0,0) is
+	 * the top-left corner. A step does not cross a wallboard, a jump
+	 * does not leave the maze.
+	 *
+	 * @param input one of UserInput.LEFT, RIGHT, UP or JUMP
+	 */
+	@Override
+	protected void operate(UserInput input) {
+		switch (input) {
+		case LEFT:
+			direction = direction.rotateClockwise();
+			break;
+		case RIGHT:
+			direction = direction.rotateCounterClockwise();
+			break;
+		case UP:
+			if (!getMaze().hasWall(x, y, direction)) {
+				x += direction.getDx();
+				y += direction.getDy();
+			}
+			break;
+		case JUMP:
+			if (getMaze().isValidPosition(x + direction.getDx(), y + direction.getDy())) {
+				x += direction.getDx();
+				y += direction.getDy();
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unexpected input " + input);
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package gui;
+
+import generation.CardinalDirection;
+import generation.Maze;
+import generation.MazeSnapshot;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A simulation of many robots in a single maze.
+ * The maze is frozen into a MazeSnapshot once and shared by all robots,
+ * each robot is a SimulatedRobot with its own position, direction, battery,
+ * odometer and sensors and is operated by its own RobotDriver,
+ * e.g. a Wizard or a WallFollower.
+ *
+ * The simulation advances in ticks. In each tick every robot that is
+ * still on its way has its driver make one step with drive1Step2Exit.
+ * Robots do not interact, so the steps of a tick run in parallel on a fixed
+ * number of threads, each thread takes a contiguous range of robots.
+ * A robot is done once it is at the exit position or has stopped, e.g. for
+ * lack of energy. Drivers that wait for sensors to be repaired block the
+ * thread that operates them for that time.
+ *
+ * Usage: add robots with addRobot, call run or tick, read the results with
+ * getStatus and the drivers' getPathLength and getEnergyConsumption,
+ * close the world to stop its threads.
+ *
+ * @author Min Kim
+ *
+ */
+public class SimulationWorld implements Closeable {
+	/**
+	 * State of a robot in the simulation.
+	 */
+	public enum Status { RUNNING, AT_EXIT, STOPPED };
+
+	private final MazeSnapshot maze;
+	private final int threads;
+	private final ExecutorService pool;
+	private final List<SimulatedRobot> robots = new ArrayList<SimulatedRobot>();
+	private final List<RobotDriver> drivers = new ArrayList<RobotDriver>();
+	private final List<Status> status = new ArrayList<Status>();
+	private final List<Integer> ticksToExit = new ArrayList<Integer>();
+	private int ticks;
+
+	/**
+	 * Constructor
+	 * @param maze the maze for all robots, frozen if it is not a snapshot already
+	 * @param threads the number of threads that operate robots, {@code 0 < threads}
+	 */
+	public SimulationWorld(Maze maze, int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive");
+		this.maze = MazeSnapshot.freeze(maze);
+		this.threads = threads;
+		this.pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "Robot simulation");
+				thread.setDaemon(true); // must not keep the application alive
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Gives the maze that all robots share
+	 * @return the maze
+	 */
+	public MazeSnapshot getMaze() {
+		return maze;
+	}
+
+	/**
+	 * Adds a robot at the starting position of the maze that faces east,
+	 * as the game starts a robot.
+	 * @param driver the driver for the robot, not shared with another robot
+	 * @return the new robot
+	 */
+	public SimulatedRobot addRobot(RobotDriver driver) {
+		int[] start = maze.getStartingPosition();
+		return addRobot(driver, start[0], start[1], CardinalDirection.East);
+	}
+
+	/**
+	 * Adds a robot at the given position
+	 * @param driver the driver for the robot, not shared with another robot
+	 * @param x is on the horizontal axis, {@code 0 <= x < width}
+	 * @param y is on the vertical axis, {@code 0 <= y < height}
+	 * @param direction the robot's initial forward direction
+	 * @return the new robot
+	 */
+	public SimulatedRobot addRobot(RobotDriver driver, int x, int y, CardinalDirection direction) {
+		SimulatedRobot robot = new SimulatedRobot(maze, x, y, direction);
+		driver.setRobot(robot);
+		driver.setMaze(maze);
+		robots.add(robot);
+		drivers.add(driver);
+		status.add(robot.isAtExit() ? Status.AT_EXIT : Status.RUNNING);
+		ticksToExit.add(robot.isAtExit() ? 0 : -1);
+		return robot;
+	}
+
+	/**
+	 * Gives the number of robots
+	 * @return the number of robots
+	 */
+	public int getRobotCount() {
+		return robots.size();
+	}
+
+	/**
+	 * Gives the robot with the given number
+	 * @param i number of the robot in the order they were added
+	 * @return the robot
+	 */
+	public SimulatedRobot getRobot(int i) {
+		return robots.get(i);
+	}
+
+	/**
+	 * Gives the driver of the robot with the given number
+	 * @param i number of the robot in the order they were added
+	 * @return the driver
+	 */
+	public RobotDriver getDriver(int i) {
+		return drivers.get(i);
+	}
+
+	/**
+	 * Gives the state of the robot with the given number
+	 * @param i number of the robot in the order they were added
+	 * @return the state
+	 */
+	public Status getStatus(int i) {
+		return status.get(i);
+	}
+
+	/**
+	 * Gives the tick in which the robot with the given number reached the exit
+	 * @param i number of the robot in the order they were added
+	 * @return the number of ticks, -1 if the robot is not at the exit
+	 */
+	public int getTicksToExit(int i) {
+		return ticksToExit.get(i);
+	}
+
+	/**
+	 * Gives the number of ticks so far
+	 * @return the number of ticks
+	 */
+	public int getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * Runs ticks until all robots are done or the given number of ticks is reached
+	 * @param maxTicks the maximum number of ticks to run
+	 * @return the number of robots that are still running
+	 * @throws InterruptedException if the thread is interrupted while it waits for a tick
+	 */
+	public int run(int maxTicks) throws InterruptedException {
+		int running = countRunning();
+		for (int i = 0; i < maxTicks && running > 0; i++) {
+			running = tick();
+		}
+		return running;
+	}
+
+	/**
+	 * Makes one step for each robot that is still running,
+	 * the robots are operated in parallel.
+	 * @return the number of robots that are still running
+	 * @throws InterruptedException if the thread is interrupted while it waits for the steps
+	 */
+	public int tick() throws InterruptedException {
+		final int n = robots.size();
+		final Status[] next = status.toArray(new Status[n]);
+		// contiguous ranges of robots, one per thread
+		int chunks = Math.max(1, Math.min(threads, n));
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks);
+		for (int c = 0; c < chunks; c++) {
+			final int from = (int) ((long) n * c / chunks);
+			final int to = (int) ((long) n * (c + 1) / chunks);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int i = from; i < to; i++) {
+						if (Status.RUNNING == next[i])
+							next[i] = step(robots.get(i), drivers.get(i));
+					}
+					return null;
+				}
+			});
+		}
+		// invokeAll waits for all tasks, their writes to next are visible afterwards
+		for (Future<Void> result : pool.invokeAll(tasks)) {
+			try {
+				result.get();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Robot step failed", e.getCause());
+			}
+		}
+		ticks++;
+		int running = 0;
+		for (int i = 0; i < n; i++) {
+			if (Status.AT_EXIT == next[i] && Status.RUNNING == status.get(i))
+				ticksToExit.set(i, ticks);
+			status.set(i, next[i]);
+			if (Status.RUNNING == next[i])
+				running++;
+		}
+		return running;
+	}
+
+	/**
+	 * Lets the driver make one step with its robot
+	 * @param robot the robot
+	 * @param driver the driver of the robot
+	 * @return the state of the robot after the step
+	 */
+	private static Status step(SimulatedRobot robot, RobotDriver driver) {
+		try {
+			driver.drive1Step2Exit();
+		} catch (Exception e) {
+			return Status.STOPPED; // lack of energy or crash
+		}
+		if (robot.isAtExit())
+			return Status.AT_EXIT;
+		return robot.hasStopped() ? Status.STOPPED : Status.RUNNING;
+	}
+
+	/**
+	 * Counts the robots that are still running
+	 * @return the number of running robots
+	 */
+	private int countRunning() {
+		int running = 0;
+		for (Status s : status) {
+			if (Status.RUNNING == s)
+				running++;
+		}
+		return running;
+	}
+
+	/**
+	 * Stops the threads of the simulation.
+	 */
+	@Override
+	public void close() {
+		pool.shutdownNow();
+	}
+}
@@ -3,6 +3,7 @@ package gui;
 import java.util.ArrayList;
 
 import generation.CardinalDirection;
+import generation.CellIndex;
 import gui.Robot.Direction;
 import gui.Robot.Turn;
 
@@ -34,20 +35,17 @@ public class SmartWizard extends Wizard {
 	@Override
 	public boolean drive2Exit() throws Exception {
 		while (!robot.hasStopped()) {
-			int[] currentPosition;
 			// run drive1Step2Exit
 			try {
 				if(!jumpInsteadMove(robot.getCurrentDirection()))
 					drive1Step2Exit();
-				// update position
-				currentPosition = robot.getCurrentPosition();
 			} catch (Exception e) {
 				throw new Exception();
 			}
 			// check if it has reached the exit
 			if (robot.isAtExit()) {
 				// cross the exit to win the game
-				exit2End(currentPosition);
+				exit2End(robot.getCurrentPosition());
 				return true;
 			}
 		}
@@ -62,18 +60,22 @@ public class SmartWizard extends Wizard {
 	 * @throws Exception
 	 */
 	public boolean jumpInsteadMove(CardinalDirection cd) throws Exception {
+		//the position does not change until the robot jumps, so get it once
+		int currentPosition = robot.getCurrentPositionIndex();
+		int x = CellIndex.getX(currentPosition);
+		int y = CellIndex.getY(currentPosition);
 		switch (cd) {
 		
 		//When the robot is looking to the North
 		case North:
 			//When the robot has an obstacle right in front of it, and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.FORWARD) == 0
-					&& (robot.getCurrentPosition()[1] + 1) < referenceMaze.getHeight()) {
+					&& (y + 1) < referenceMaze.getHeight()) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-						robot.getCurrentPosition()[1] + 1) <= referenceMaze
-								.getDistanceToExit(robot.getCurrentPosition()[0], robot.getCurrentPosition()[1]) - 6) {
+				if (referenceMaze.getDistanceToExit(x,
+						y + 1) <= referenceMaze
+								.getDistanceToExit(x, y) - 6) {
 					//Jump!
 					robot.jump();
 					return true;
@@ -81,12 +83,12 @@ public class SmartWizard extends Wizard {
 			}
 			//When the robot has an obstacle right next to it (Left side), and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.LEFT) == 0 
-					&& (robot.getCurrentPosition()[0] - 1) >= 0) {
+					&& (x - 1) >= 0) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0] - 1,
-						robot.getCurrentPosition()[1]) <= referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-								robot.getCurrentPosition()[1])-7) {
+				if (referenceMaze.getDistanceToExit(x - 1,
+						y) <= referenceMaze.getDistanceToExit(x,
+								y)-7) {
 					robot.rotate(Turn.LEFT);
 					//Jump!
 					robot.jump();
@@ -95,12 +97,12 @@ public class SmartWizard extends Wizard {
 			}
 			//When the robot has an obstacle right next to it(Right side), and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.RIGHT) == 0
-					&& (robot.getCurrentPosition()[0] + 1) < referenceMaze.getWidth()) {
+					&& (x + 1) < referenceMaze.getWidth()) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0] + 1,
-						robot.getCurrentPosition()[1]) <= referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-								robot.getCurrentPosition()[1]) - 7) {
+				if (referenceMaze.getDistanceToExit(x + 1,
+						y) <= referenceMaze.getDistanceToExit(x,
+								y) - 7) {
 					robot.rotate(Turn.RIGHT);
 					//Jump!
 					robot.jump();
@@ -109,12 +111,12 @@ public class SmartWizard extends Wizard {
 			}
 			//When the robot has an obstacle right behind of it, and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.BACKWARD) == 0 
-					&& (robot.getCurrentPosition()[1] - 1) >= 0) {
+					&& (y - 1) >= 0) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-						robot.getCurrentPosition()[1] - 1) <= referenceMaze
-								.getDistanceToExit(robot.getCurrentPosition()[0], robot.getCurrentPosition()[1]) - 7) {
+				if (referenceMaze.getDistanceToExit(x,
+						y - 1) <= referenceMaze
+								.getDistanceToExit(x, y) - 7) {
 					robot.rotate(Turn.AROUND);
 					//Jump!
 					robot.jump();
@@ -128,12 +130,12 @@ public class SmartWizard extends Wizard {
 		case West:
 			//When the robot has an obstacle right in front of it, and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.FORWARD) == 0
-					&& (robot.getCurrentPosition()[0] - 1) >= 0) {
+					&& (x - 1) >= 0) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0]-1,
-						robot.getCurrentPosition()[1]) <= referenceMaze
-								.getDistanceToExit(robot.getCurrentPosition()[0], robot.getCurrentPosition()[1]) - 6) {
+				if (referenceMaze.getDistanceToExit(x-1,
+						y) <= referenceMaze
+								.getDistanceToExit(x, y) - 6) {
 					//Jump!
 					robot.jump();
 					return true;
@@ -141,12 +143,12 @@ public class SmartWizard extends Wizard {
 			}
 			//When the robot has an obstacle right next to it (Left side), and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.LEFT) == 0 
-					&& (robot.getCurrentPosition()[1]-1) >= 0) {
+					&& (y-1) >= 0) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-						robot.getCurrentPosition()[1]-1) <= referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-								robot.getCurrentPosition()[1]) - 7) {
+				if (referenceMaze.getDistanceToExit(x,
+						y-1) <= referenceMaze.getDistanceToExit(x,
+								y) - 7) {
 					robot.rotate(Turn.LEFT);
 					//Jump!
 					robot.jump();
@@ -155,12 +157,12 @@ public class SmartWizard extends Wizard {
 			}
 			//When the robot has an obstacle right next to it(Right side), and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.RIGHT) == 0
-					&& (robot.getCurrentPosition()[1]+1) < referenceMaze.getHeight()) {
+					&& (y+1) < referenceMaze.getHeight()) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-						robot.getCurrentPosition()[1]+1) <= referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-								robot.getCurrentPosition()[1]) - 7) {
+				if (referenceMaze.getDistanceToExit(x,
+						y+1) <= referenceMaze.getDistanceToExit(x,
+								y) - 7) {
 					robot.rotate(Turn.RIGHT);
 					//Jump!
 					robot.jump();
@@ -169,12 +171,12 @@ public class SmartWizard extends Wizard {
 			}
 			//When the robot has an obstacle right behind of it, and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.BACKWARD) == 0 
-					&& (robot.getCurrentPosition()[0] + 1) < referenceMaze.getWidth()) {
+					&& (x + 1) < referenceMaze.getWidth()) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0]+1,
-						robot.getCurrentPosition()[1]) <= referenceMaze
-								.getDistanceToExit(robot.getCurrentPosition()[0], robot.getCurrentPosition()[1]) - 7) {
+				if (referenceMaze.getDistanceToExit(x+1,
+						y) <= referenceMaze
+								.getDistanceToExit(x, y) - 7) {
 					robot.rotate(Turn.AROUND);
 					//Jump!
 					robot.jump();
@@ -188,12 +190,12 @@ public class SmartWizard extends Wizard {
 		case East:
 			//When the robot has an obstacle right in front of it, and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.FORWARD) == 0
-					&& (robot.getCurrentPosition()[0] + 1) < referenceMaze.getWidth()) {
+					&& (x + 1) < referenceMaze.getWidth()) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0]+1,
-						robot.getCurrentPosition()[1]) <= referenceMaze
-								.getDistanceToExit(robot.getCurrentPosition()[0], robot.getCurrentPosition()[1]) - 6) {
+				if (referenceMaze.getDistanceToExit(x+1,
+						y) <= referenceMaze
+								.getDistanceToExit(x, y) - 6) {
 					//Jump!
 					robot.jump();
 					return true;
@@ -201,12 +203,12 @@ public class SmartWizard extends Wizard {
 			}
 			//When the robot has an obstacle right next to it (Left side), and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.LEFT) == 0 
-					&& (robot.getCurrentPosition()[1]+1) < referenceMaze.getHeight()) {
+					&& (y+1) < referenceMaze.getHeight()) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-						robot.getCurrentPosition()[1]+1) <= referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-								robot.getCurrentPosition()[1]) - 7) {
+				if (referenceMaze.getDistanceToExit(x,
+						y+1) <= referenceMaze.getDistanceToExit(x,
+								y) - 7) {
 					robot.rotate(Turn.LEFT);
 					//Jump!
 					robot.jump();
@@ -215,12 +217,12 @@ public class SmartWizard extends Wizard {
 			}
 			//When the robot has an obstacle right next to it(Right side), and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.RIGHT) == 0
-					&& (robot.getCurrentPosition()[1]-1) >= 0) {
+					&& (y-1) >= 0) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-						robot.getCurrentPosition()[1]-1) <= referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-								robot.getCurrentPosition()[1]) - 7) {
+				if (referenceMaze.getDistanceToExit(x,
+						y-1) <= referenceMaze.getDistanceToExit(x,
+								y) - 7) {
 					robot.rotate(Turn.RIGHT);
 					//Jump!
 					robot.jump();
@@ -229,12 +231,12 @@ public class SmartWizard extends Wizard {
 			}
 			//When the robot has an obstacle right behind of it, and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.BACKWARD) == 0 
-					&& (robot.getCurrentPosition()[0] - 1) > 0) {
+					&& (x - 1) > 0) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0]-1,
-						robot.getCurrentPosition()[1]) <= referenceMaze
-								.getDistanceToExit(robot.getCurrentPosition()[0], robot.getCurrentPosition()[1]) - 7) {
+				if (referenceMaze.getDistanceToExit(x-1,
+						y) <= referenceMaze
+								.getDistanceToExit(x, y) - 7) {
 					robot.rotate(Turn.AROUND);
 					//Jump!
 					robot.jump();
@@ -248,12 +250,12 @@ public class SmartWizard extends Wizard {
 		case South:
 			//When the robot has an obstacle right in front of it, and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.FORWARD) == 0
-					&& (robot.getCurrentPosition()[1] -1) >= 0) {
+					&& (y -1) >= 0) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-						robot.getCurrentPosition()[1] -1) <= referenceMaze
-								.getDistanceToExit(robot.getCurrentPosition()[0], robot.getCurrentPosition()[1]) - 6) {
+				if (referenceMaze.getDistanceToExit(x,
+						y -1) <= referenceMaze
+								.getDistanceToExit(x, y) - 6) {
 					//Jump!
 					robot.jump();
 					return true;
@@ -261,12 +263,12 @@ public class SmartWizard extends Wizard {
 			}
 			//When the robot has an obstacle right next to it (Left side), and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.LEFT) == 0 
-					&& (robot.getCurrentPosition()[0] + 1) < referenceMaze.getWidth()) {
+					&& (x + 1) < referenceMaze.getWidth()) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0] + 1,
-						robot.getCurrentPosition()[1]) <= referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-								robot.getCurrentPosition()[1]) - 6) {
+				if (referenceMaze.getDistanceToExit(x + 1,
+						y) <= referenceMaze.getDistanceToExit(x,
+								y) - 6) {
 					robot.rotate(Turn.LEFT);
 					//Jump!
 					robot.jump();
@@ -275,12 +277,12 @@ public class SmartWizard extends Wizard {
 			}
 			//When the robot has an obstacle right next to it(Right side), and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.RIGHT) == 0
-					&& (robot.getCurrentPosition()[0] - 1) >= 0) {
+					&& (x - 1) >= 0) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0] - 1,
-						robot.getCurrentPosition()[1]) <= referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-								robot.getCurrentPosition()[1]) - 6) {
+				if (referenceMaze.getDistanceToExit(x - 1,
+						y) <= referenceMaze.getDistanceToExit(x,
+								y) - 6) {
 					robot.rotate(Turn.RIGHT);
 					//Jump!
 					robot.jump();
@@ -289,12 +291,12 @@ public class SmartWizard extends Wizard {
 			}
 			//When the robot has an obstacle right behind of it, and one step beyond is not out of maze
 			if (robot.distanceToObstacle(Direction.BACKWARD) == 0 
-					&& (robot.getCurrentPosition()[1] + 1) < referenceMaze.getHeight()) {
+					&& (y + 1) < referenceMaze.getHeight()) {
 				//If when robot jumping can take you more than 6 steps closer to the exit than moving one,
 				//Which means that jumping is more efficient than move (jumping = 40 < 6(moving + sensing) = 42)
-				if (referenceMaze.getDistanceToExit(robot.getCurrentPosition()[0],
-						robot.getCurrentPosition()[1] + 1) <= referenceMaze
-								.getDistanceToExit(robot.getCurrentPosition()[0], robot.getCurrentPosition()[1]) - 6) {
+				if (referenceMaze.getDistanceToExit(x,
+						y + 1) <= referenceMaze
+								.getDistanceToExit(x, y) - 6) {
 					robot.rotate(Turn.AROUND);
 					//Jump!
 					robot.jump();
@@ -1,5 +1,7 @@
 package gui;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.logging.Logger;
 
 import generation.DefaultOrder;
@@ -112,7 +114,8 @@ public class StateGenerating extends DefaultOrder implements State {
     	filename = null; // no information yet, provided by set method if at all
 
         factory = new MazeFactory() ;
-       
+        // play can start before the bsp tree for the first person view is complete
+        setDelivery(Delivery.EARLY);
     }
     
     /**
@@ -144,6 +147,17 @@ public class StateGenerating extends DefaultOrder implements State {
      * @return the maze that has been loaded from the given file
      */
     private Maze loadMazeConfigurationFromFile(String filename) {
+        // binary files are recognized by their magic number, anything else is read as XML
+        if (MazeFileBinaryReader.isBinaryFile(filename)) {
+        	try {
+        		// files written for mapping are not decoded up front
+        		if (MazeFileMappedReader.isMappableFile(filename))
+        			return new MazeFileMappedReader(filename).getMazeConfiguration();
+        		return new MazeFileBinaryReader(filename).getMazeConfiguration();
+        	} catch (IOException e) {
+        		throw new UncheckedIOException("Failed to load maze from file " + filename, e);
+        	}
+        }
         // load maze from file
         MazeFileReader mfr = new MazeFileReader(filename) ;
         // obtain MazeConfiguration
@@ -5,10 +5,12 @@ import gui.Robot.Direction;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 
+import java.awt.EventQueue;
 import java.sql.Driver;
 import java.util.logging.Logger;
 
 import generation.CardinalDirection;
+import generation.CellIndex;
 import generation.Floorplan;
 import generation.Maze;
 import generation.Order.Builder;
@@ -46,8 +48,11 @@ public class StatePlaying implements State {
 	 * The first person view determines what is seen on the screen with a first
 	 * person perspective. This includes the background of two rectangles that cover
 	 * the whole area. Drawing polygons for walls is the main contribution.
+	 * For a maze that is delivered before its bsp tree is complete, the view
+	 * starts without walls and is replaced by a complete one once the tree
+	 * is published.
 	 */
-	private FirstPersonView firstPersonView;
+	private volatile FirstPersonView firstPersonView;
 	/**
 	 * The view determines what is seen on the screen for a top view. Drawing the
 	 * maze from above as a lines for walls, the current position and direction, and
@@ -211,14 +216,54 @@ public class StatePlaying implements State {
 		cr = new CompassRose();
 		cr.setPositionAndSize(Constants.VIEW_WIDTH / 2, (int) (0.1 * Constants.VIEW_HEIGHT), 35);
 
-		firstPersonView = new FirstPersonView(Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT, Constants.MAP_UNIT,
-				Constants.STEP_SIZE, seenCells, maze.getRootnode());
-
 		mapView = new Map(seenCells, 15, maze);
+		if (maze.isRootnodeAvailable()) {
+			firstPersonView = createFirstPersonView();
+		} else {
+			// the maze was delivered early and the bsp tree is still in the making,
+			// play starts with the map only and switches to the first person view later
+			firstPersonView = new FirstPersonView(Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT, Constants.MAP_UNIT,
+					Constants.STEP_SIZE, seenCells, null);
+			maze.whenRootnodeAvailable(new Runnable() {
+				@Override
+				public void run() {
+					// runs on the thread that built the tree, hand over to the event dispatch thread
+					// such that the switch does not interfere with drawing for user input
+					EventQueue.invokeLater(new Runnable() {
+						@Override
+						public void run() {
+							switchToFirstPersonView();
+						}
+					});
+				}
+			});
+		}
 		// draw the initial screen for this state
 		draw(cd.angle(), 0);
 	}
 
+	/**
+	 * Creates a first person view for the bsp tree of the maze.
+	 * @return the view that draws walls
+	 */
+	private FirstPersonView createFirstPersonView() {
+		return new FirstPersonView(Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT, Constants.MAP_UNIT,
+				Constants.STEP_SIZE, seenCells, maze.getRootnode());
+	}
+
+	/**
+	 * Replaces the view without walls with a complete first person view
+	 * in a single assignment and redraws the screen, 
+	 * unless the game moved on to another state in the meantime.
+	 */
+	private void switchToFirstPersonView() {
+		if (control.currentState != this)
+			return;
+		LOGGER.fine("Bsp tree is available, switching to first person view");
+		firstPersonView = createFirstPersonView();
+		draw(cd.angle(), 0);
+	}
+
 	/**
 	 * Internal method to set the current position, the direction and the viewing
 	 * direction to values consistent with the given maze.
@@ -375,8 +420,10 @@ public class StatePlaying implements State {
 			return;
 		}
 		// draw the first person view and the map view if wanted
-		firstPersonView.draw(panel, px, py, walkStep, angle, maze.getPercentageForDistanceToExit(px, py));
-		if (isInMapMode()) {
+		// the map is always drawn if the first person view can not show walls yet
+		final FirstPersonView view = firstPersonView;
+		view.draw(panel, px, py, walkStep, angle, maze.getPercentageForDistanceToExit(px, py));
+		if (isInMapMode() || !view.hasBspRoot()) {
 			mapView.draw(panel, px, py, angle, walkStep, isInShowMazeMode(), isInShowSolutionMode());
 		}
 		// update the screen with the buffer graphics
@@ -413,6 +460,13 @@ public class StatePlaying implements State {
 		return result;
 	}
 
+	protected int getCurrentPositionIndex() {
+		// a position outside of the maze can not be packed
+		if (px < 0 || py < 0)
+			return CellIndex.NONE;
+		return CellIndex.pack(px, py);
+	}
+
 	protected CardinalDirection getCurrentDirection() {
 		return cd;
 	}
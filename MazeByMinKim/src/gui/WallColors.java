@@ -0,0 +1,126 @@
+package gui;
+
+import gui.ColorTheme.ColorThemeSelection;
+
+/**
+ * This class determines the colors of walls for the selected color theme.
+ * Colors are computed as rgb values with an alpha of 255, the same values
+ * that java.awt.Color delivers with getRGB, but without any AWT class such that
+ * mazes can be generated in a headless process, see BatchGenerator.
+ * ColorTheme passes its theme on to this class.
+ *
+ * In the default theme all walls are light gray. In the basic and the
+ * advanced theme a wall has a color that is selected from 6 broad categories
+ * and some variation within that depends on the distance to the exit,
+ * the advanced theme has a different green part for some categories.
+ *
+ * @author Min Kim
+ *
+ */
+public final class WallColors {
+	/**
+	 * Default minimum value for RGB values.
+	 */
+	static final int RGB_DEF = 20;
+	/**
+	 * Default minimum value for the green part in the advanced theme.
+	 */
+	static final int RGB_DEF_GREEN = 10;
+	/**
+	 * Light gray as in java.awt.Color.LIGHT_GRAY.
+	 */
+	static final int LIGHT_GRAY = rgb(192, 192, 192);
+
+	private static volatile ColorThemeSelection theme = ColorThemeSelection.DEFAULT;
+
+	/**
+	 * Class has static methods only
+	 */
+	private WallColors() {
+	}
+
+	/**
+	 * Selects the theme, called by ColorTheme
+	 * @param selection the theme
+	 */
+	static void setColorTheme(ColorThemeSelection selection) {
+		theme = selection;
+	}
+
+	/**
+	 * Determines the color for a wall.
+	 * @param distance is the distance to the exit
+	 * @param cc is an obscure parameter used in Wall for color determination, just passed in here
+	 * @param extensionX is the wall's length and direction (sign), horizontal dimension
+	 * @return the rgb value for the color of the wall
+	 */
+	public static int getWallColor(int distance, int cc, int extensionX) {
+		switch (theme) {
+		case BASIC:
+			return getWallColor(distance, cc, extensionX, false);
+		case ADVANCED:
+			return getWallColor(distance, cc, extensionX, true);
+		case DEFAULT:
+		default:
+			return LIGHT_GRAY;
+		}
+	}
+
+	/**
+	 * Determines the color for a wall in the basic or advanced theme.
+	 * @param distance is the distance to the exit
+	 * @param cc is an obscure parameter used in Wall for color determination
+	 * @param extensionX is the wall's length and direction (sign), horizontal dimension
+	 * @param advanced is true for the advanced theme, false for the basic one
+	 * @return the rgb value
+	 */
+	private static int getWallColor(int distance, int cc, int extensionX, boolean advanced) {
+		final int d = distance / 4;
+		// mod used to limit the number of colors to 6
+		final int rgbValue = calculateRGBValue(d, extensionX);
+		// the advanced theme keeps the green part low where the basic theme varies it
+		final int green = advanced ? RGB_DEF_GREEN : rgbValue;
+		switch (((d >> 3) ^ cc) % 6) {
+		case 0:
+			return rgb(rgbValue, RGB_DEF, RGB_DEF);
+		case 1:
+			return rgb(RGB_DEF, green, RGB_DEF);
+		case 2:
+			return rgb(RGB_DEF, RGB_DEF, rgbValue);
+		case 3:
+			return rgb(rgbValue, green, RGB_DEF);
+		case 4:
+			return rgb(RGB_DEF, green, rgbValue);
+		case 5:
+			return rgb(rgbValue, RGB_DEF, rgbValue);
+		default:
+			return rgb(RGB_DEF, RGB_DEF, RGB_DEF);
+		}
+	}
+
+	/**
+	 * Computes an RGB value based on the given numerical value.
+	 * @param distance value to select color
+	 * @param extensionX the wall's horizontal extension
+	 * @return the calculated RGB value
+	 */
+	static int calculateRGBValue(final int distance, final int extensionX) {
+		// compute rgb value, depends on distance and x direction
+		// 7 in binary is 0...0111
+		// use AND to get last 3 digits of distance
+		final int part1 = distance & 7;
+		final int add = (extensionX != 0) ? 1 : 0;
+		return ((part1 + 2 + add) * 70) / 8 + 80;
+	}
+
+	/**
+	 * Packs an opaque color
+	 * @param r red part, {@code 0 <= r <= 255}
+	 * @param g green part, {@code 0 <= g <= 255}
+	 * @param b blue part, {@code 0 <= b <= 255}
+	 * @return rgb value with alpha 255
+	 */
+	private static int rgb(int r, int g, int b) {
+		return 0xFF000000 | (r << 16) | (g << 8) | b;
+	}
+}
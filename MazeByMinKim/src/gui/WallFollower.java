@@ -39,14 +39,10 @@ public class WallFollower extends Wizard {
 	@Override
 	public boolean drive2Exit() throws Exception {
 		while(!robot.hasStopped()) {
-			//keep track of a robot's current position.
-			int[] currentPosition;
 			try {
 				Thread.sleep(500);
 				//One step
 				drive1Step2Exit();
-				//Update the robot's position.
-				currentPosition = robot.getCurrentPosition();
 			} catch (Exception e) {
 				System.out.println(e);
 				throw new Exception();
@@ -54,7 +50,7 @@ public class WallFollower extends Wizard {
 			// Check if the robot is at the exit.
 			if (robot.isAtExit()) {
 				// Take one final step to the right direction, and return true. 
-				exit2End(currentPosition);
+				exit2End(robot.getCurrentPosition());
 				return true;
 			}
 		}
@@ -7,6 +7,7 @@ import javax.naming.InitialContext;
 import org.junit.jupiter.api.MethodOrderer.Random;
 
 import generation.CardinalDirection;
+import generation.CellIndex;
 import generation.Maze;
 import gui.Robot.Turn;
 
@@ -67,19 +68,16 @@ public class Wizard implements RobotDriver {
 	@Override
 	public boolean drive2Exit() throws Exception {
 		while (!robot.hasStopped()) {
-			int[] currentPosition;
 			// run drive1Step2Exit
 			try {
 				drive1Step2Exit();
-				// update position
-				currentPosition = robot.getCurrentPosition();
 			} catch (Exception e) {
 				throw new Exception();
 			}
 			// check if it has reached the exit
 			if (robot.isAtExit()) {
 				// cross the exit to win the game
-				exit2End(currentPosition);
+				exit2End(robot.getCurrentPosition());
 				return true;
 			}
 		}
@@ -104,47 +102,50 @@ public class Wizard implements RobotDriver {
 	@Override
 	public boolean drive1Step2Exit() throws Exception {
 		// get the next neighbor closest to the exit
-		int[] currentPosition = robot.getCurrentPosition();
-		int[] neighbor = referenceMaze.getNeighborCloserToExit(currentPosition[0], currentPosition[1]);
+		int currentPosition = robot.getCurrentPositionIndex();
+		int x = CellIndex.getX(currentPosition);
+		int y = CellIndex.getY(currentPosition);
+		CardinalDirection toExit = referenceMaze.getDirectionToExit(x, y);
 		// rotate robot in that direction
 		CardinalDirection currentDirection = robot.getCurrentDirection();
-		int[] changeDirection = { neighbor[0] - currentPosition[0], neighbor[1] - currentPosition[1] };
+		int changeX = toExit.getDx();
+		int changeY = toExit.getDy();
 		switch (currentDirection) {
 		case North:
-			if (changeDirection[0] == -1)
+			if (changeX == -1)
 				robot.rotate(Turn.RIGHT);
-			else if (changeDirection[0] == 1)
+			else if (changeX == 1)
 				robot.rotate(Turn.LEFT);
-			else if (changeDirection[1] == 1)
+			else if (changeY == 1)
 				robot.rotate(Turn.AROUND);
 			break;
 		case East:
-			if (changeDirection[0] == -1)
+			if (changeX == -1)
 				robot.rotate(Turn.AROUND);
-			else if (changeDirection[1] == -1)
+			else if (changeY == -1)
 				robot.rotate(Turn.RIGHT);
-			else if (changeDirection[1] == 1)
+			else if (changeY == 1)
 				robot.rotate(Turn.LEFT);
 			break;
 		case South:
-			if (changeDirection[0] == -1)
+			if (changeX == -1)
 				robot.rotate(Turn.LEFT);
-			else if (changeDirection[0] == 1)
+			else if (changeX == 1)
 				robot.rotate(Turn.RIGHT);
-			else if (changeDirection[1] == -1)
+			else if (changeY == -1)
 				robot.rotate(Turn.AROUND);
 			break;
 		case West:
-			if (changeDirection[0] == 1)
+			if (changeX == 1)
 				robot.rotate(Turn.AROUND);
-			else if (changeDirection[1] == -1)
+			else if (changeY == -1)
 				robot.rotate(Turn.LEFT);
-			else if (changeDirection[1] == 1)
+			else if (changeY == 1)
 				robot.rotate(Turn.RIGHT);
 			break;
 		}
-		// move by either jumping or moving
-		if (referenceMaze.hasWall(currentPosition[0], currentPosition[1], currentDirection))
+		// move by either jumping or moving, the robot faces the exit direction now
+		if (referenceMaze.hasWall(x, y, robot.getCurrentDirection()))
 			robot.jump();
 		else
 			robot.move(1);
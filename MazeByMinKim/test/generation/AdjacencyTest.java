@@ -0,0 +1,106 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**  Adjacency Test: Test that the graph of open cells lists exactly the
+ * 	openings between cells, that it is the same for a snapshot and that
+ * 	it reads back from a file as it was written.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class AdjacencyTest {
+
+	private Maze maze;
+
+	@BeforeEach
+	void setUp() {
+		maze = MazeTestUtil.generate(4, Order.Builder.Prim, false, 19);
+	}
+
+	/**Check that the targets of each cell are its neighbors without a wallboard in between.
+	 */
+	@Test
+	public final void testOpenings() {
+		Adjacency graph = maze.getAdjacency();
+		int height = maze.getHeight();
+		assertEquals(maze.getWidth()*height, graph.getNodeCount());
+		IntBuffer offsets = graph.getOffsets();
+		IntBuffer targets = graph.getTargets();
+		assertTrue(offsets.isReadOnly());
+		assertEquals(graph.getTargetCount(), offsets.get(graph.getNodeCount()));
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < height; y++) {
+				int node = x*height+y;
+				int expected = 0;
+				for (CardinalDirection cd : CardinalDirection.values()) {
+					if (!maze.hasWall(x, y, cd) && maze.isValidPosition(x + cd.getDx(), y + cd.getDy()))
+						expected++;
+				}
+				assertEquals(expected, graph.getDegree(node));
+				int previous = -1;
+				for (int i = offsets.get(node); i < offsets.get(node+1); i++) {
+					int target = targets.get(i);
+					assertTrue(target > previous);
+					previous = target;
+					CardinalDirection cd = CardinalDirection.getDirection(target / height - x, target % height - y);
+					assertFalse(maze.hasWall(x, y, cd));
+				}
+			}
+		}
+		assertArrayEquals(toArray(targets), toArray(MazeSnapshot.freeze(maze).getAdjacency().getTargets()));
+	}
+
+	/**Check that a graph reads back from a file as it was written.
+	 */
+	@Test
+	public final void testStoreAndLoad() throws IOException {
+		Adjacency graph = maze.getAdjacency();
+		Path file = Files.createTempFile("maze", ".csr");
+		try {
+			graph.store(file.toString());
+			assertEquals(Adjacency.HEADER_SIZE + 4L*(graph.getNodeCount() + 1 + graph.getTargetCount()), Files.size(file));
+			Adjacency loaded = Adjacency.load(file.toString());
+			assertEquals(maze.getWidth(), loaded.getWidth());
+			assertEquals(maze.getHeight(), loaded.getHeight());
+			assertArrayEquals(toArray(graph.getOffsets()), toArray(loaded.getOffsets()));
+			assertArrayEquals(toArray(graph.getTargets()), toArray(loaded.getTargets()));
+			// raw big endian ints right after the header
+			ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+			assertEquals(Adjacency.MAGIC, bytes.getInt(0));
+			assertEquals(graph.getTargets().get(0), bytes.getInt(Adjacency.HEADER_SIZE + 4*(graph.getNodeCount() + 1)));
+			Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+			try {
+				Adjacency.load(file.toString());
+				fail("file without a graph must be rejected");
+			}
+			catch (IOException e) {
+				// expected
+			}
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Copies the remaining values of a buffer
+	 * @param buffer the buffer
+	 * @return the values
+	 */
+	private int[] toArray(IntBuffer buffer) {
+		int[] result = new int[buffer.remaining()];
+		buffer.duplicate().get(result);
+		return result;
+	}
+}
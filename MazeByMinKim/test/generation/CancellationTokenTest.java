@@ -0,0 +1,112 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**  Cancellation Token Test: Test that a cancelled generation stops
+ * 	in whatever phase it is and does not deliver, without relying on
+ * 	an interrupt of its thread.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class CancellationTokenTest {
+	/**
+	 * Starts a generation of a large maze, cancels it after the given time
+	 * and checks that the builder thread ends. Instead of the time to the end,
+	 * which depends on the machine, it counts the steps of tight loops after
+	 * the cancel. The token must stop them within one check interval.
+	 * @param mazeBuilder for the algorithm
+	 * @param builder the algorithm
+	 * @param delay time in milliseconds before cancel
+	 */
+	private void checkCancel(MazeBuilder mazeBuilder, Order.Builder builder, long delay) throws InterruptedException {
+		warmUp(builder);
+		DefaultOrder order = new DefaultOrder(15, builder, false, 13);
+		mazeBuilder.buildOrder(order);
+		final AtomicInteger stepsAfterCancel = new AtomicInteger();
+		mazeBuilder.cancellation = new CancellationToken() {
+			@Override
+			void step() {
+				if (isCancelled())
+					stepsAfterCancel.incrementAndGet();
+				super.step();
+			}
+		};
+		Thread thread = new Thread(mazeBuilder);
+		thread.start();
+		Thread.sleep(delay);
+		assertTrue(thread.isAlive(), "generation finished before it could be cancelled");
+		mazeBuilder.cancel();
+		thread.join(10000);
+		assertFalse(thread.isAlive());
+		assertTrue(stepsAfterCancel.get() <= CancellationToken.CHECK_INTERVAL, 
+				stepsAfterCancel.get() + " steps after cancel");
+		assertNull(order.getMaze());
+	}
+
+	/**
+	 * Generates a small maze such that classes are loaded and initialized
+	 * before the time is measured, the first generation of a JVM 
+	 * initializes the flight recorder for a while.
+	 * @param builder the algorithm
+	 */
+	private void warmUp(Order.Builder builder) {
+		MazeFactory mazeFactory = new MazeFactory();
+		mazeFactory.order(new DefaultOrder(1, builder, false, 13));
+		mazeFactory.waitTillDelivered();
+	}
+
+	/**Check that a generation with DFS stops in any phase.
+	 */
+	@Test
+	public final void testCancelDFS() throws InterruptedException {
+		checkCancel(new MazeBuilder(), Order.Builder.DFS, 10);
+		checkCancel(new MazeBuilder(), Order.Builder.DFS, 150);
+		checkCancel(new MazeBuilder(), Order.Builder.DFS, 400);
+	}
+
+	/**Check that a generation with Prim stops in any phase.
+	 */
+	@Test
+	public final void testCancelPrim() throws InterruptedException {
+		checkCancel(new MazeBuilderPrim(), Order.Builder.Prim, 10);
+		checkCancel(new MazeBuilderPrim(), Order.Builder.Prim, 150);
+		checkCancel(new MazeBuilderPrim(), Order.Builder.Prim, 400);
+	}
+
+	/**Check that a generation with Boruvka stops while carving pathways.
+	 */
+	@Test
+	public final void testCancelBoruvka() throws InterruptedException {
+		checkCancel(new MazeBuilderBoruvka(), Order.Builder.Boruvka, 200);
+	}
+
+	/**Check that the distance computation stops for a cancelled token
+	 * and works as before for a token that is not cancelled.
+	 */
+	@Test
+	public final void testDistance() {
+		MazeBuilder mazeBuilder = new MazeBuilder();
+		mazeBuilder.buildOrder(new DefaultOrder(8, Order.Builder.DFS, true, 13));
+		mazeBuilder.floorplan.initialize();
+		mazeBuilder.generatePathways();
+		CancellationToken token = new CancellationToken();
+		token.cancel();
+		try {
+			mazeBuilder.dists.computeDistances(mazeBuilder.floorplan, token);
+			fail("computation must stop for a cancelled token");
+		}
+		catch (CancellationException e) {
+			// expected
+		}
+		int[] exit = mazeBuilder.dists.computeDistances(mazeBuilder.floorplan, new CancellationToken());
+		assertArrayEquals(exit, mazeBuilder.dists.getExitPosition());
+		assertEquals(1, mazeBuilder.dists.getDistanceValue(exit[0], exit[1]));
+	}
+}
@@ -0,0 +1,165 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**  Cell Index Test: Test the packed positions and cached direction deltas
+ * 	and check that the hot paths that use them do not produce garbage.
+ *
+ * The allocation checks work as a small benchmark: a path is followed
+ * many times and the number of bytes the current thread allocated is
+ * compared against what a single array per step would cost.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class CellIndexTest {
+
+	// number of repetitions for the allocation checks
+	private static final int ROUNDS = 1000;
+	// tolerance in bytes for a fixed overhead of the JVM that is not caused by the code under test,
+	// an int[2] per step would cost 16 to 24 bytes per step
+	private static final long TOLERANCE = 4096;
+
+	private Maze maze;
+
+	@BeforeEach
+	void setUp() {
+		DefaultOrder defaultOrder = new DefaultOrder();
+		MazeFactory mazeFactory = new MazeFactory();
+		mazeFactory.order(defaultOrder);
+		mazeFactory.waitTillDelivered();
+		maze = defaultOrder.getMaze();
+	}
+
+	/**Check that packing and unpacking gives back the same coordinates, also for the largest maze.
+	 */
+	@Test
+	public final void testPackUnpack() {
+		int[][] positions = { {0, 0}, {1, 0}, {0, 1}, {299, 239}, {Short.MAX_VALUE, 65535} };
+		for (int[] p : positions) {
+			int index = CellIndex.pack(p[0], p[1]);
+			assertTrue(index != CellIndex.NONE);
+			assertEquals(p[0], CellIndex.getX(index));
+			assertEquals(p[1], CellIndex.getY(index));
+			assertArrayEquals(p, CellIndex.toArray(index));
+		}
+	}
+
+	/**Check that the cached deltas match the (dx,dy) pairs that were used so far,
+	 * and that a neighbor index matches the neighbor coordinates.
+	 */
+	@Test
+	public final void testDirectionDeltas() {
+		for (CardinalDirection cd : CardinalDirection.values()) {
+			int[] d = cd.getDxDyDirection();
+			assertEquals(d[0], cd.getDx());
+			assertEquals(d[1], cd.getDy());
+			assertEquals(cd, CardinalDirection.fromOrdinal(cd.ordinal()));
+			assertEquals(cd, CardinalDirection.getDirection(cd.getDx(), cd.getDy()));
+			assertEquals(cd, cd.rotateClockwise().rotateCounterClockwise());
+			int neighbor = CellIndex.getNeighbor(CellIndex.pack(5, 5), cd);
+			assertEquals(5 + d[0], CellIndex.getX(neighbor));
+			assertEquals(5 + d[1], CellIndex.getY(neighbor));
+		}
+	}
+
+	/**Check that the packed neighbor matches the array based neighbor for every cell of the maze.
+	 */
+	@Test
+	public final void testNeighborCloserToExitIndex() {
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				int[] neighbor = maze.getNeighborCloserToExit(x, y);
+				int index = maze.getNeighborCloserToExitIndex(x, y);
+				if (null == neighbor) {
+					assertEquals(CellIndex.NONE, index);
+				}
+				else {
+					assertArrayEquals(neighbor, CellIndex.toArray(index));
+				}
+			}
+		}
+	}
+
+	/**Follow the path from the starting position to the exit with packed positions
+	 * and check that no garbage is produced on the way.
+	 */
+	@Test
+	public final void testFollowPathWithoutAllocation() {
+		int[] start = maze.getStartingPosition();
+		int sx = start[0];
+		int sy = start[1];
+		// warm up, also gives the number of steps on the path
+		int steps = followPath(sx, sy);
+		assertTrue(steps > 0);
+
+		long before = getAllocatedBytes();
+		for (int i = 0; i < ROUNDS; i++) {
+			followPath(sx, sy);
+		}
+		long allocated = getAllocatedBytes() - before;
+		assertTrue(allocated < TOLERANCE, "allocated " + allocated + " bytes for " + ROUNDS*steps + " steps");
+	}
+
+	/**Check that the direction and index helpers do not produce garbage.
+	 */
+	@Test
+	public final void testDirectionsWithoutAllocation() {
+		int sum = sumDirections(); // warm up
+		long before = getAllocatedBytes();
+		for (int i = 0; i < ROUNDS; i++) {
+			sum += sumDirections();
+		}
+		long allocated = getAllocatedBytes() - before;
+		assertTrue(allocated < TOLERANCE, "allocated " + allocated + " bytes, sum " + sum);
+	}
+
+	/**
+	 * Follows the path to the exit and gives the number of steps
+	 * @param x the starting position on the horizontal axis
+	 * @param y the starting position on the vertical axis
+	 * @return number of steps to reach the exit
+	 */
+	private int followPath(int x, int y) {
+		int steps = 0;
+		int next = maze.getNeighborCloserToExitIndex(x, y);
+		while (CellIndex.NONE != next) {
+			x = CellIndex.getX(next);
+			y = CellIndex.getY(next);
+			next = maze.getNeighborCloserToExitIndex(x, y);
+			steps++;
+		}
+		return steps;
+	}
+
+	/**
+	 * Moves in all directions from every cell and sums up the resulting indices
+	 * @return sum of the indices, only used to keep the work from being optimized away
+	 */
+	private int sumDirections() {
+		int sum = 0;
+		for (int x = 1; x < maze.getWidth()-1; x++) {
+			for (int y = 1; y < maze.getHeight()-1; y++) {
+				int index = CellIndex.pack(x, y);
+				for (int i = 0; i < 4; i++) {
+					sum += CellIndex.getNeighbor(index, CardinalDirection.fromOrdinal(i));
+				}
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Gives the number of bytes allocated by the current thread so far
+	 * @return allocated bytes
+	 */
+	private long getAllocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+	}
+}
@@ -0,0 +1,139 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**  Dead Ends Test: Test that dead end filling marks exactly the openings
+ * 	that lead away from the exit in a perfect maze, that marked openings
+ * 	in a maze with rooms never lead to the exit and that the size of
+ * 	a dead end is the number of positions behind its opening.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class DeadEndsTest {
+
+	/**
+	 * Counts the positions that can be reached through an opening without passing its position again
+	 * @param maze the maze
+	 * @param x is on the horizontal axis
+	 * @param y is on the vertical axis
+	 * @param cd the direction of the opening
+	 * @return the number of positions, -1 if the exit or the position itself can be reached
+	 */
+	private int countBehind(Maze maze, int x, int y, CardinalDirection cd) {
+		int height = maze.getHeight();
+		boolean[] seen = new boolean[maze.getWidth()*height];
+		int[] queue = new int[seen.length];
+		int tail = 0;
+		int[] exit = maze.getExitPosition();
+		int first = (x + cd.getDx())*height + y + cd.getDy();
+		seen[first] = true;
+		queue[tail++] = first;
+		boolean back = false;
+		for (int head = 0; head < tail; head++) {
+			int cx = queue[head] / height;
+			int cy = queue[head] % height;
+			if (cx == exit[0] && cy == exit[1])
+				return -1;
+			for (CardinalDirection dir : CardinalDirection.values()) {
+				int nx = cx + dir.getDx();
+				int ny = cy + dir.getDy();
+				if (maze.hasWall(cx, cy, dir) || !maze.isValidPosition(nx, ny))
+					continue;
+				if (nx == x && ny == y) {
+					// the way back through the opening itself does not count
+					if (queue[head] != first || dir != cd.oppositeDirection())
+						back = true;
+					continue;
+				}
+				if (!seen[nx*height+ny]) {
+					seen[nx*height+ny] = true;
+					queue[tail++] = nx*height+ny;
+				}
+			}
+		}
+		return back ? -1 : tail;
+	}
+
+	/**Check that in a perfect maze all openings but the one towards the exit lead into dead ends.
+	 */
+	@Test
+	public final void testPerfectMaze() {
+		Maze maze = MazeTestUtil.generate(3, Order.Builder.Prim, true, 23);
+		DeadEnds deadEnds = maze.getDeadEnds();
+		assertSame(deadEnds, maze.getDeadEnds());
+		assertEquals(maze.getWidth()*maze.getHeight() - 1, deadEnds.getDeadEndCount());
+		int[] exit = maze.getExitPosition();
+		int sum = 0;
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				assertEquals(x != exit[0] || y != exit[1], deadEnds.isInDeadEnd(x, y));
+				for (CardinalDirection cd : CardinalDirection.values()) {
+					boolean open = !maze.hasWall(x, y, cd) && maze.isValidPosition(x + cd.getDx(), y + cd.getDy());
+					boolean towardsExit = open && maze.getDistanceToExit(x + cd.getDx(), y + cd.getDy()) < maze.getDistanceToExit(x, y);
+					assertEquals(open && !towardsExit, deadEnds.isDeadEnd(x, y, cd));
+					if (x == exit[0] && y == exit[1])
+						sum += deadEnds.getDeadEndSize(x, y, cd);
+				}
+			}
+		}
+		// the exit sees all other positions behind its openings
+		assertEquals(maze.getWidth()*maze.getHeight() - 1, sum);
+	}
+
+	/**Check that marked openings in a maze with rooms lead into parts without the exit
+	 * of the given size and that a snapshot has the same dead ends.
+	 */
+	@Test
+	public final void testMazeWithRooms() {
+		Maze maze = MazeTestUtil.generate(3, Order.Builder.Prim, false, 23);
+		DeadEnds deadEnds = maze.getDeadEnds();
+		DeadEnds frozen = MazeSnapshot.freeze(maze).getDeadEnds();
+		assertTrue(deadEnds.getDeadEndCount() < maze.getWidth()*maze.getHeight() - 1);
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				assertEquals(deadEnds.isInDeadEnd(x, y), frozen.isInDeadEnd(x, y));
+				for (CardinalDirection cd : CardinalDirection.values()) {
+					assertEquals(deadEnds.isDeadEnd(x, y, cd), frozen.isDeadEnd(x, y, cd));
+					if (deadEnds.isDeadEnd(x, y, cd))
+						assertEquals(countBehind(maze, x, y, cd), deadEnds.getDeadEndSize(x, y, cd));
+					else
+						assertEquals(0, deadEnds.getDeadEndSize(x, y, cd));
+				}
+			}
+		}
+	}
+
+	/**Check that leading into a dead end is a lookup in the dead ends that are computed
+	 * once during generation, that facing a dead end still means walls to the left,
+	 * right and front and that dead ends follow changes of the floorplan.
+	 */
+	@Test
+	public final void testFacingDeadEnd() {
+		Maze maze = MazeTestUtil.generate(3, Order.Builder.Prim, false, 23);
+		DeadEnds deadEnds = maze.getDeadEnds();
+		assertTrue(deadEnds.isFor(maze.getFloorplan()));
+		assertSame(deadEnds, maze.getDeadEnds());
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				for (CardinalDirection cd : CardinalDirection.values()) {
+					assertEquals(deadEnds.isDeadEnd(x, y, cd), maze.leadsIntoDeadEnd(x, y, cd));
+					assertEquals(maze.hasWall(x, y, cd) && maze.hasWall(x, y, cd.rotateClockwise())
+							&& maze.hasWall(x, y, cd.oppositeDirection().rotateClockwise()),
+							maze.isFacingDeadEnd(x, y, cd));
+				}
+			}
+		}
+		assertFalse(maze.isFacingDeadEnd(-1, 0, CardinalDirection.North));
+		assertFalse(maze.leadsIntoDeadEnd(-1, 0, CardinalDirection.North));
+		Wallboard wallboard = new Wallboard(1, 1, CardinalDirection.East);
+		if (maze.hasWall(1, 1, CardinalDirection.East))
+			maze.getFloorplan().deleteWallboard(wallboard);
+		else
+			maze.getFloorplan().addWallboard(wallboard, true);
+		assertNotSame(deadEnds, maze.getDeadEnds());
+	}
+}
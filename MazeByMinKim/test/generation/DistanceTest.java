@@ -0,0 +1,103 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**  Distance Test: Test the next hop table that gives the direction
+ * 	towards the exit for each position of the maze.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class DistanceTest {
+
+	private Maze maze;
+	private Floorplan floorplan;
+	private Distance distance;
+	private int width;
+	private int height;
+
+	@BeforeEach
+	void setUp() {
+		DefaultOrder defaultOrder = new DefaultOrder();
+		MazeFactory mazeFactory = new MazeFactory();
+		mazeFactory.order(defaultOrder);
+		mazeFactory.waitTillDelivered();
+		maze = defaultOrder.getMaze();
+		floorplan = maze.getFloorplan();
+		distance = maze.getMazedists();
+		width = maze.getWidth();
+		height = maze.getHeight();
+	}
+
+	/**Check that the table is available right after the maze is generated
+	 * and that it gives null only for the exit position.
+	 */
+	@Test
+	public final void testNextHopAvailable() {
+		assertTrue(distance.hasNextHops());
+		int[] exit = distance.getExitPosition();
+		assertNull(maze.getDirectionToExit(exit[0], exit[1]));
+		int[] start = maze.getStartingPosition();
+		assertNotNull(maze.getDirectionToExit(start[0], start[1]));
+	}
+
+	/**Check for every position that the direction leads to a reachable neighbor
+	 * that is one step closer to the exit.
+	 */
+	@Test
+	public final void testNextHopIsCloser() {
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				CardinalDirection cd = maze.getDirectionToExit(x, y);
+				if (distance.isExitPosition(x, y)) {
+					assertNull(cd);
+					continue;
+				}
+				assertNotNull(cd);
+				assertFalse(floorplan.hasWall(x, y, cd));
+				assertEquals(maze.getDistanceToExit(x, y) - 1,
+						maze.getDistanceToExit(x + cd.getDx(), y + cd.getDy()));
+			}
+		}
+	}
+
+	/**Follow the directions from the starting position and check that the exit
+	 * is reached with the expected number of steps.
+	 */
+	@Test
+	public final void testFollowNextHopsToExit() {
+		int[] start = maze.getStartingPosition();
+		int x = start[0];
+		int y = start[1];
+		int steps = 0;
+		CardinalDirection cd = maze.getDirectionToExit(x, y);
+		while (null != cd) {
+			x += cd.getDx();
+			y += cd.getDy();
+			steps++;
+			cd = maze.getDirectionToExit(x, y);
+		}
+		assertTrue(floorplan.isExitPosition(x, y));
+		assertEquals(maze.getDistanceToExit(start[0], start[1]) - 1, steps);
+	}
+
+	/**Check that a distance object that is given its values, as for a maze that
+	 * is loaded from a file, computes the same table on demand.
+	 */
+	@Test
+	public final void testNextHopsForGivenDistances() {
+		Distance given = new Distance(distance.getAllDistanceValues());
+		assertFalse(given.hasNextHops());
+		given.computeNextHops(floorplan);
+		assertTrue(given.hasNextHops());
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				assertEquals(distance.getNextHop(x, y), given.getNextHop(x, y));
+			}
+		}
+	}
+}
@@ -5,6 +5,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ShortBuffer;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -544,4 +546,91 @@ public class FloorplanTest{
 		assertEquals(cell1.getCWConstantForDirection(CardinalDirection.North),Floorplan.CW_TOP);
 	}
 
+	/**
+	 * Test case: Check that the fingerprint follows every change of the content
+	 * <p>
+	 * Method under test: getFingerprint(), hashCode(), equals(Object other)
+	 * <p>
+	 * Correct behavior:
+	 * the incrementally maintained fingerprint is the same as the one of a copy
+	 * that computes it from scratch, undoing a change restores the fingerprint,
+	 * and a floorplan read from a buffer has the same fingerprint as the original.
+	 */
+	@Test
+	public final void testFingerprint() {
+		floorplan.initialize();
+		floorplan1 = new Floorplan(width, height);
+		floorplan1.initialize();
+		long initial = floorplan.getFingerprint();
+		assertEquals(initial, floorplan1.getFingerprint());
+		assertEquals(floorplan.hashCode(), floorplan1.hashCode());
+		assertFalse(initial == new Floorplan(width, height).getFingerprint());
+		// tear down a wallboard, fingerprint changes and matches the one of a copy
+		Wallboard wallboard = new Wallboard(1, 1, CardinalDirection.East);
+		floorplan.deleteWallboard(wallboard);
+		assertFalse(initial == floorplan.getFingerprint());
+		assertEquals(floorplan.getFingerprint(), copy(floorplan, width, height).getFingerprint());
+		assertFalse(floorplan.equals(floorplan1));
+		// put it back, fingerprint is the same as before
+		floorplan.addWallboard(wallboard, true);
+		assertEquals(initial, floorplan.getFingerprint());
+		assertTrue(floorplan.equals(floorplan1));
+		// rooms, visits and an exit
+		floorplan.setCellAsVisited(0, 0);
+		floorplan.setInRoomToOne(2, 2);
+		floorplan.setExitPosition(0, 3);
+		assertEquals(floorplan.getFingerprint(), copy(floorplan, width, height).getFingerprint());
+		// a floorplan that reads from a buffer
+		ShortBuffer values = ShortBuffer.allocate(width*height);
+		for (int i = 0; i < width; i++) {
+			for (int j = 0; j < height; j++) {
+				values.put(i*height+j, (short)floorplan.getValueOfCell(i, j));
+			}
+		}
+		Floorplan mapped = new Floorplan(width, height, values);
+		assertEquals(floorplan.getFingerprint(), mapped.getFingerprint());
+		assertTrue(mapped.equals(floorplan));
+		mapped.deleteWallboard(new Wallboard(2, 1, CardinalDirection.South));
+		assertEquals(mapped.getFingerprint(), copy(mapped, width, height).getFingerprint());
+	}
+	/**
+	 * Test case: Check that a generated maze comes with the right fingerprint
+	 * <p>
+	 * Method under test: getFingerprint()
+	 * <p>
+	 * Correct behavior:
+	 * the fingerprint after a generation is the same as the one computed
+	 * from scratch and generations with different seeds have different fingerprints.
+	 */
+	@Test
+	public final void testFingerprintOfGeneratedMaze() {
+		long[] fingerprints = new long[3];
+		for (int seed = 0; seed < fingerprints.length; seed++) {
+			MazeBuilder mazeBuilder = new MazeBuilder();
+			mazeBuilder.buildOrder(new DefaultOrder(4, Order.Builder.DFS, false, seed));
+			mazeBuilder.floorplan.initialize();
+			mazeBuilder.generateRooms();
+			mazeBuilder.generate();
+			fingerprints[seed] = mazeBuilder.floorplan.getFingerprint();
+			assertEquals(fingerprints[seed], copy(mazeBuilder.floorplan, mazeBuilder.width, mazeBuilder.height).getFingerprint());
+		}
+		assertFalse(fingerprints[0] == fingerprints[1]);
+		assertFalse(fingerprints[1] == fingerprints[2]);
+	}
+	/**
+	 * Copies a floorplan cell by cell such that its fingerprint is computed from scratch
+	 * @param original the floorplan to copy
+	 * @param w width of the floorplan
+	 * @param h height of the floorplan
+	 * @return the copy
+	 */
+	private Floorplan copy(Floorplan original, int w, int h) {
+		int[][] values = new int[w][h];
+		for (int i = 0; i < w; i++) {
+			for (int j = 0; j < h; j++) {
+				values[i][j] = original.getValueOfCell(i, j);
+			}
+		}
+		return new Floorplan(values);
+	}
 }
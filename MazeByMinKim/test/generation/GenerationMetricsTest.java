@@ -0,0 +1,91 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**  Generation Metrics Test: Test that the phases of a maze generation
+ * 	are measured, attached to the delivered maze and emitted as events.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class GenerationMetricsTest {
+
+	/**
+	 * Generates a maze for the given order
+	 * @param order to fill
+	 * @return the delivered maze
+	 */
+	private Maze generate(DefaultOrder order) {
+		MazeFactory mazeFactory = new MazeFactory();
+		mazeFactory.order(order);
+		mazeFactory.waitTillDelivered();
+		return order.getMaze();
+	}
+
+	/**Check that the delivered maze carries metrics for all phases.
+	 */
+	@Test
+	public final void testMetricsOfDeliveredMaze() {
+		Maze maze = generate(new DefaultOrder(2, Order.Builder.Prim, false, 13));
+		GenerationMetrics metrics = maze.getGenerationMetrics();
+		assertNotNull(metrics);
+		assertEquals("Prim", metrics.getBuilder());
+		long total = 0;
+		for (GenerationMetrics.Phase phase : GenerationMetrics.Phase.values()) {
+			assertTrue(metrics.getWallTime(phase) > 0, phase + " was not measured");
+			assertTrue(metrics.getCpuTime(phase) >= -1);
+			assertTrue(metrics.getAllocatedBytes(phase) >= -1);
+			total += metrics.getWallTime(phase);
+		}
+		assertEquals(total, metrics.getTotalWallTime());
+		assertTrue(metrics.toString().contains("bsp"));
+	}
+
+	/**Check that each generation delivers metrics of its own.
+	 */
+	@Test
+	public final void testEachGenerationHasItsOwnMetrics() {
+		Maze first = generate(new DefaultOrder(0, Order.Builder.DFS, true, 13));
+		Maze second = generate(new DefaultOrder(0, Order.Builder.DFS, true, 13));
+		assertNotSame(first.getGenerationMetrics(), second.getGenerationMetrics());
+		assertEquals("DFS", second.getGenerationMetrics().getBuilder());
+	}
+
+	/**Check that a flight recording contains an event for each phase.
+	 */
+	@Test
+	public final void testFlightRecorderEvents() throws IOException {
+		Path file = Files.createTempFile("generation", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("generation.Phase");
+			recording.start();
+			generate(new DefaultOrder(1, Order.Builder.DFS, false, 13));
+			recording.stop();
+			recording.dump(file);
+			Set<String> phases = new HashSet<String>();
+			for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+				if ("generation.Phase".equals(event.getEventType().getName())) {
+					assertEquals("DFS", event.getString("builder"));
+					phases.add(event.getString("phase"));
+				}
+			}
+			assertEquals(GenerationMetrics.Phase.values().length, phases.size());
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
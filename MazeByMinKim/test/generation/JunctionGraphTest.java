@@ -0,0 +1,112 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**  Junction Graph Test: Test that the junction graph covers every cell
+ * 	of a maze once, that its corridors follow openings and that distances
+ * 	in the graph match the distances in the maze.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class JunctionGraphTest {
+
+	/**
+	 * Checks that each cell is a node or on exactly one corridor
+	 * and that the cells of each edge lead from its node to its target
+	 * @param maze the maze
+	 * @param graph the junction graph of the maze
+	 */
+	private void checkCells(Maze maze, JunctionGraph graph) {
+		int[] seen = new int[maze.getWidth()*maze.getHeight()];
+		for (int node = 0; node < graph.getNodeCount(); node++) {
+			int position = graph.getPosition(node);
+			assertEquals(node, graph.getNode(CellIndex.getX(position), CellIndex.getY(position)));
+			seen[CellIndex.getX(position)*maze.getHeight() + CellIndex.getY(position)] += 2;
+			for (int e = graph.getFirstEdge(node); e < graph.getFirstEdge(node+1); e++) {
+				int[] cells = graph.getCells(e);
+				assertEquals(cells.length + 1, graph.getWeight(e));
+				int previous = position;
+				for (int i = 0; i <= cells.length; i++) {
+					int next = (i < cells.length) ? cells[i] : graph.getPosition(graph.getTarget(e));
+					int x = CellIndex.getX(previous);
+					int y = CellIndex.getY(previous);
+					CardinalDirection cd = CardinalDirection.getDirection(CellIndex.getX(next) - x, CellIndex.getY(next) - y);
+					assertFalse(maze.hasWall(x, y, cd));
+					if (i < cells.length) {
+						assertEquals(-1, graph.getNode(CellIndex.getX(next), CellIndex.getY(next)));
+						seen[CellIndex.getX(next)*maze.getHeight() + CellIndex.getY(next)]++;
+					}
+					previous = next;
+				}
+			}
+		}
+		// nodes are counted twice, corridor cells once for each direction
+		for (int count : seen) {
+			assertEquals(2, count);
+		}
+	}
+
+	/**Check the graph of a perfect maze, a tree with far fewer nodes than cells.
+	 */
+	@Test
+	public final void testPerfectMaze() {
+		Maze maze = MazeTestUtil.generate(4, Order.Builder.DFS, true, 17);
+		JunctionGraph graph = JunctionGraph.of(maze);
+		checkCells(maze, graph);
+		assertEquals(2*(graph.getNodeCount() - 1), graph.getEdgeCount());
+		assertTrue(graph.getNodeCount() < maze.getWidth()*maze.getHeight() / 2);
+		int[] start = maze.getStartingPosition();
+		int[] exit = maze.getExitPosition();
+		assertEquals(0, graph.getNode(start[0], start[1]));
+		assertEquals(1, graph.getNode(exit[0], exit[1]));
+	}
+
+	/**Check that distances from the exit in the graph match the distances in the maze.
+	 */
+	@Test
+	public final void testDistances() {
+		for (Order.Builder builder : new Order.Builder[] {Order.Builder.DFS, Order.Builder.Prim}) {
+			for (boolean perfect : new boolean[] {true, false}) {
+				Maze maze = MazeTestUtil.generate(4, builder, perfect, 17);
+				JunctionGraph graph = JunctionGraph.of(maze);
+				checkCells(maze, graph);
+				int[] exit = maze.getExitPosition();
+				int[] dists = graph.getDistances(graph.getNode(exit[0], exit[1]));
+				for (int node = 0; node < graph.getNodeCount(); node++) {
+					int position = graph.getPosition(node);
+					assertEquals(maze.getDistanceToExit(CellIndex.getX(position), CellIndex.getY(position)) - 1, dists[node]);
+				}
+			}
+		}
+	}
+
+	/**Check a single corridor that bends and a cell without openings.
+	 */
+	@Test
+	public final void testCorridor() {
+		Floorplan floorplan = new Floorplan(3, 3);
+		floorplan.initialize();
+		floorplan.deleteWallboard(new Wallboard(0, 0, CardinalDirection.East));
+		floorplan.deleteWallboard(new Wallboard(1, 0, CardinalDirection.East));
+		floorplan.deleteWallboard(new Wallboard(2, 0, CardinalDirection.South));
+		floorplan.deleteWallboard(new Wallboard(2, 1, CardinalDirection.South));
+		JunctionGraph graph = new JunctionGraph(floorplan, 3, 3, CellIndex.NONE, CellIndex.NONE);
+		// two dead ends and four cells without openings
+		assertEquals(6, graph.getNodeCount());
+		assertEquals(2, graph.getEdgeCount());
+		int first = graph.getNode(0, 0);
+		int last = graph.getNode(2, 2);
+		assertEquals(last, graph.getTarget(graph.getFirstEdge(first)));
+		assertEquals(4, graph.getWeight(graph.getFirstEdge(first)));
+		assertArrayEquals(new int[] {CellIndex.pack(1, 0), CellIndex.pack(2, 0), CellIndex.pack(2, 1)},
+				graph.getCells(graph.getFirstEdge(first)));
+		assertArrayEquals(new int[] {CellIndex.pack(2, 1), CellIndex.pack(2, 0), CellIndex.pack(1, 0)},
+				graph.getCells(graph.getFirstEdge(last)));
+		assertEquals(-1, graph.getNode(1, 0));
+		assertEquals(Integer.MAX_VALUE, graph.getDistances(first)[graph.getNode(1, 1)]);
+	}
+}
@@ -0,0 +1,133 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import gui.Constants;
+
+/**  List Of Walls Builder Test: Test that the walls extracted with reusable
+ * 	buffers, in parallel chunks for large mazes, are the same as the ones
+ * 	obtained with the floorplan iterator.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class ListOfWallsBuilderTest {
+
+	/**
+	 * Generates pathways, distances and the exit for a maze
+	 * @param skill level of the maze
+	 * @return the builder with floorplan and distances
+	 */
+	private MazeBuilder generate(int skill) {
+		MazeBuilder mazeBuilder = new MazeBuilder();
+		mazeBuilder.buildOrder(new DefaultOrder(skill, Order.Builder.DFS, false, 13));
+		mazeBuilder.floorplan.initialize();
+		mazeBuilder.generateRooms();
+		mazeBuilder.generate();
+		return mazeBuilder;
+	}
+
+	/**
+	 * Extracts walls with the floorplan iterator, one row after the other and
+	 * then one column after the other.
+	 * @param b the builder with floorplan and distances
+	 * @param colchange for the color of walls
+	 * @return the walls in the expected order
+	 */
+	private List<Wall> generateWallsWithIterator(MazeBuilder b, int colchange) {
+		final int unit = Constants.MAP_UNIT;
+		List<Wall> walls = new ArrayList<Wall>();
+		for (int y = 0; y < b.height; y++) {
+			Iterator<int[]> it = b.floorplan.iterator(0, y, CardinalDirection.North);
+			while (it.hasNext()) {
+				int[] cur = it.next();
+				walls.add(new Wall(cur[1]*unit, y*unit, (cur[0]-cur[1])*unit, 0, b.dists.getDistanceValue(cur[0], y), colchange));
+			}
+			it = b.floorplan.iterator(0, y, CardinalDirection.South);
+			while (it.hasNext()) {
+				int[] cur = it.next();
+				walls.add(new Wall(cur[0]*unit, (y+1)*unit, (cur[1]-cur[0])*unit, 0, b.dists.getDistanceValue(cur[0], y), colchange));
+			}
+		}
+		for (int x = 0; x < b.width; x++) {
+			Iterator<int[]> it = b.floorplan.iterator(x, 0, CardinalDirection.West);
+			while (it.hasNext()) {
+				int[] cur = it.next();
+				walls.add(new Wall(x*unit, cur[0]*unit, 0, (cur[1]-cur[0])*unit, b.dists.getDistanceValue(x, cur[0]), colchange));
+			}
+			it = b.floorplan.iterator(x, 0, CardinalDirection.East);
+			while (it.hasNext()) {
+				int[] cur = it.next();
+				walls.add(new Wall((x+1)*unit, cur[1]*unit, 0, (cur[0]-cur[1])*unit, b.dists.getDistanceValue(x, cur[0]), colchange));
+			}
+		}
+		return walls;
+	}
+
+	/**Check that a small maze, scanned on a single thread, gets the same walls.
+	 */
+	@Test
+	public final void testSmallMaze() {
+		MazeBuilder b = generate(3);
+		assertTrue(b.height < ListOfWallsBuilder.PARALLEL_LINES);
+		assertEquals(generateWallsWithIterator(b, 7),
+				new ListOfWallsBuilder(b.width, b.height, b.floorplan, b.dists, 7).generateWalls());
+	}
+
+	/**Check that a large maze, scanned in parallel chunks, gets the same walls in the same order.
+	 */
+	@Test
+	public final void testLargeMaze() {
+		MazeBuilder b = generate(15);
+		assertTrue(b.height >= ListOfWallsBuilder.PARALLEL_LINES);
+		assertEquals(generateWallsWithIterator(b, 200),
+				new ListOfWallsBuilder(b.width, b.height, b.floorplan, b.dists, 200).generateWalls());
+	}
+
+	/**Check that the sequences in the buffer match the ones of the iterator in all directions.
+	 */
+	@Test
+	public final void testFindWallSequences() {
+		MazeBuilder b = generate(5);
+		int[] spans = new int[2 * Math.max(b.width, b.height)];
+		for (CardinalDirection cd : CardinalDirection.values()) {
+			boolean horizontal = (CardinalDirection.North == cd || CardinalDirection.South == cd);
+			int lines = horizontal ? b.height : b.width;
+			for (int i = 0; i < lines; i++) {
+				int x = horizontal ? 0 : i;
+				int y = horizontal ? i : 0;
+				int count = b.floorplan.findWallSequences(x, y, cd, spans);
+				Iterator<int[]> it = b.floorplan.iterator(x, y, cd);
+				for (int k = 0; k < count; k++) {
+					assertTrue(it.hasNext());
+					assertArrayEquals(it.next(), new int[] {spans[2*k], spans[2*k+1]});
+				}
+				assertFalse(it.hasNext());
+			}
+		}
+	}
+
+	/**Check that the buffer takes a sequence for each cell of a line
+	 * as in a floorplan where all wallboards are up.
+	 */
+	@Test
+	public final void testFindWallSequencesAllWallboards() {
+		Floorplan floorplan = new Floorplan(5, 7);
+		floorplan.initialize();
+		int[] spans = new int[2 * 7];
+		for (int x = 0; x < 5; x++) {
+			assertEquals(7, floorplan.findWallSequences(x, 0, CardinalDirection.West, spans));
+			Iterator<int[]> it = floorplan.iterator(x, 0, CardinalDirection.West);
+			for (int k = 0; k < 7; k++) {
+				assertArrayEquals(it.next(), new int[] {spans[2*k], spans[2*k+1]});
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**  Maze Artifacts Test: Test that an order without the BSP artifact
+ * 	gets the same maze as a full order and that the BSP tree
+ * 	is built on demand or, with early delivery, in the background.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class MazeArtifactsTest {
+
+	/**
+	 * Generates a maze for the given order
+	 * @param order to fill
+	 * @return the delivered maze
+	 */
+	private Maze generate(DefaultOrder order) {
+		MazeFactory mazeFactory = new MazeFactory();
+		mazeFactory.order(order);
+		mazeFactory.waitTillDelivered();
+		return order.getMaze();
+	}
+
+	/**Check that a default order asks for all artifacts.
+	 */
+	@Test
+	public final void testDefaultArtifacts() {
+		assertEquals(EnumSet.allOf(Order.Artifact.class), new DefaultOrder().getArtifacts());
+	}
+
+	/**Check that the deferred tree is identical to the tree of a full order
+	 * and that the floorplans match.
+	 */
+	@Test
+	public final void testDeferredBSP() {
+		Maze full = generate(new DefaultOrder(3, Order.Builder.DFS, false, 13));
+		DefaultOrder order = new DefaultOrder(3, Order.Builder.DFS, false, 13);
+		order.setArtifacts(EnumSet.of(Order.Artifact.FLOORPLAN, Order.Artifact.DISTANCES));
+		Maze deferred = generate(order);
+
+		assertEquals(0, deferred.getGenerationMetrics().getWallTime(GenerationMetrics.Phase.BSP));
+		assertEquals(full.getFloorplan(), deferred.getFloorplan());
+		assertArrayEquals(full.getStartingPosition(), deferred.getStartingPosition());
+		assertFalse(deferred.isRootnodeAvailable());
+		BSPNode root = deferred.getRootnode();
+		assertNotNull(root);
+		assertSame(root, deferred.getRootnode());
+		assertSameTree(full.getRootnode(), root);
+		// building the tree must not change the maze
+		assertEquals(full.getFloorplan(), deferred.getFloorplan());
+	}
+
+	/**Check that an early delivery comes without the bsp phase and
+	 * that the tree built in the background is published to waiting actions.
+	 */
+	@Test
+	public final void testEarlyDelivery() throws InterruptedException {
+		Maze full = generate(new DefaultOrder(4, Order.Builder.DFS, false, 13));
+		DefaultOrder order = new DefaultOrder(4, Order.Builder.DFS, false, 13);
+		order.setDelivery(Order.Delivery.EARLY);
+		Maze early = generate(order);
+
+		assertEquals(0, early.getGenerationMetrics().getWallTime(GenerationMetrics.Phase.BSP));
+		assertEquals(full.getFloorplan(), early.getFloorplan());
+		final CountDownLatch published = new CountDownLatch(1);
+		early.whenRootnodeAvailable(new Runnable() {
+			@Override
+			public void run() {
+				published.countDown();
+			}
+		});
+		assertTrue(published.await(60, TimeUnit.SECONDS), "tree was not published");
+		assertTrue(early.isRootnodeAvailable());
+		assertSameTree(full.getRootnode(), early.getRootnode());
+		// an action that comes late runs right away
+		final boolean[] ran = new boolean[1];
+		early.whenRootnodeAvailable(new Runnable() {
+			@Override
+			public void run() {
+				ran[0] = true;
+			}
+		});
+		assertTrue(ran[0]);
+	}
+
+	/**
+	 * Compares two bsp trees node by node
+	 * @param expected the tree of the full order
+	 * @param actual the deferred tree
+	 */
+	private void assertSameTree(BSPNode expected, BSPNode actual) {
+		assertEquals(expected.isIsleaf(), actual.isIsleaf());
+		assertEquals(expected.getLowerBoundX(), actual.getLowerBoundX());
+		assertEquals(expected.getLowerBoundY(), actual.getLowerBoundY());
+		assertEquals(expected.getUpperBoundX(), actual.getUpperBoundX());
+		assertEquals(expected.getUpperBoundY(), actual.getUpperBoundY());
+		if (expected.isIsleaf()) {
+			assertEquals(((BSPLeaf)expected).getAllWalls(), ((BSPLeaf)actual).getAllWalls());
+		}
+		else {
+			BSPBranch eb = (BSPBranch) expected;
+			BSPBranch ab = (BSPBranch) actual;
+			assertEquals(eb.getX(), ab.getX());
+			assertEquals(eb.getY(), ab.getY());
+			assertSameTree(eb.getLeftBranch(), ab.getLeftBranch());
+			assertSameTree(eb.getRightBranch(), ab.getRightBranch());
+		}
+	}
+}
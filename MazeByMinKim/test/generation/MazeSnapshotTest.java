@@ -0,0 +1,131 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**  Maze Snapshot Test: Test that a frozen maze answers all queries
+ * 	as the maze it was frozen from, that it can not be changed and that
+ * 	many threads can read it at the same time.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class MazeSnapshotTest {
+
+	private Maze maze;
+	private MazeSnapshot snapshot;
+
+	@BeforeEach
+	void setUp() {
+		maze = MazeTestUtil.generate(4, Order.Builder.Prim, false, 13);
+		snapshot = MazeSnapshot.freeze(maze);
+	}
+
+	/**Check that all queries give the same answer as for the original maze.
+	 */
+	@Test
+	public final void testSameAsOriginal() {
+		assertEquals(maze.getWidth(), snapshot.getWidth());
+		assertEquals(maze.getHeight(), snapshot.getHeight());
+		assertArrayEquals(maze.getStartingPosition(), snapshot.getStartingPosition());
+		assertArrayEquals(maze.getExitPosition(), snapshot.getExitPosition());
+		assertSame(maze.getRootnode(), snapshot.getRootnode());
+		assertEquals(maze.getFloorplan(), snapshot.getFloorplan());
+		assertEquals(maze.getFloorplan().getFingerprint(), snapshot.getFloorplan().getFingerprint());
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				assertEquals(maze.getDistanceToExit(x, y), snapshot.getDistanceToExit(x, y));
+				assertEquals(maze.getPercentageForDistanceToExit(x, y), snapshot.getPercentageForDistanceToExit(x, y), 0.0);
+				assertEquals(maze.isInRoom(x, y), snapshot.isInRoom(x, y));
+				assertEquals(maze.isExitPosition(x, y), snapshot.isExitPosition(x, y));
+				assertEquals(maze.getDirectionToExit(x, y), snapshot.getDirectionToExit(x, y));
+				assertEquals(maze.getNeighborCloserToExitIndex(x, y), snapshot.getNeighborCloserToExitIndex(x, y));
+				for (CardinalDirection cd : CardinalDirection.values()) {
+					assertEquals(maze.hasWall(x, y, cd), snapshot.hasWall(x, y, cd));
+					assertEquals(maze.isFacingDeadEnd(x, y, cd), snapshot.isFacingDeadEnd(x, y, cd));
+					assertEquals(maze.leadsIntoDeadEnd(x, y, cd), snapshot.leadsIntoDeadEnd(x, y, cd));
+				}
+			}
+		}
+		assertFalse(snapshot.hasWall(-1, 0, CardinalDirection.North));
+		assertSame(snapshot, MazeSnapshot.freeze(snapshot));
+	}
+
+	/**Check that neither set methods nor the floorplan and distances change the snapshot.
+	 */
+	@Test
+	public final void testImmutable() {
+		try {
+			snapshot.setStartingPosition(0, 0);
+			fail("snapshot must not change");
+		}
+		catch (UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			snapshot.setFloorplan(new Floorplan(4, 4));
+			fail("snapshot must not change");
+		}
+		catch (UnsupportedOperationException e) {
+			// expected
+		}
+		int x = snapshot.getStartingPosition()[0];
+		int y = snapshot.getStartingPosition()[1];
+		snapshot.getStartingPosition()[0] = -1;
+		assertEquals(x, snapshot.getStartingPosition()[0]);
+		boolean wall = snapshot.hasWall(x, y, CardinalDirection.North);
+		Floorplan floorplan = snapshot.getFloorplan();
+		if (wall)
+			floorplan.deleteWallboard(new Wallboard(x, y, CardinalDirection.North));
+		else
+			floorplan.addWallboard(new Wallboard(x, y, CardinalDirection.North), true);
+		assertNotEquals(wall, floorplan.hasWall(x, y, CardinalDirection.North));
+		assertEquals(wall, snapshot.hasWall(x, y, CardinalDirection.North));
+		int distance = snapshot.getDistanceToExit(x, y);
+		snapshot.getMazedists().getAllDistanceValues()[x][y] = 0;
+		assertEquals(distance, snapshot.getDistanceToExit(x, y));
+	}
+
+	/**Check that many threads can follow the path to the exit at the same time.
+	 */
+	@Test
+	public final void testConcurrentReaders() throws Exception {
+		final int[] start = maze.getStartingPosition();
+		final int expected = maze.getDistanceToExit(start[0], start[1]);
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for (int i = 0; i < 32; i++) {
+				results.add(pool.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						int steps = 1;
+						int position = CellIndex.pack(start[0], start[1]);
+						while (true) {
+							int next = snapshot.getNeighborCloserToExitIndex(CellIndex.getX(position), CellIndex.getY(position));
+							if (CellIndex.NONE == next)
+								return steps;
+							position = next;
+							steps++;
+						}
+					}
+				}));
+			}
+			for (Future<Integer> result : results) {
+				assertEquals(expected, result.get().intValue());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package generation;
+
+/**
+ * Generates mazes for tests that check queries on a finished maze.
+ * A fixed seed makes a test run on the same maze each time.
+ *
+ * @author Min Kim
+ *
+ */
+public class MazeTestUtil {
+
+	private MazeTestUtil() {
+		// static methods only
+	}
+
+	/**
+	 * Generates a maze and waits until it is delivered
+	 * @param skill level of the maze, determines its size
+	 * @param builder algorithm that carves the pathways
+	 * @param perfect true for a maze without rooms and loops
+	 * @param seed for the random number generator
+	 * @return the maze
+	 */
+	public static Maze generate(int skill, Order.Builder builder, boolean perfect, int seed) {
+		DefaultOrder order = new DefaultOrder(skill, builder, perfect, seed);
+		MazeFactory factory = new MazeFactory();
+		factory.order(order);
+		factory.waitTillDelivered();
+		return order.getMaze();
+	}
+}
@@ -0,0 +1,137 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**  Path Finder Test: Test that shortest paths between arbitrary positions
+ * 	have the length that the distances to the exit imply, that paths do
+ * 	not cross wallboards and that positions without a path are recognized.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class PathFinderTest {
+
+	private Maze maze;
+
+	@BeforeEach
+	void setUp() {
+		maze = MazeTestUtil.generate(5, Order.Builder.Prim, false, 3);
+	}
+
+	/**
+	 * Checks that the path connects both positions with steps between
+	 * adjacent positions that are not separated by a wallboard
+	 * @param path the path to check
+	 * @param length expected number of steps
+	 */
+	private void checkPath(int[] path, int fromX, int fromY, int toX, int toY, int length) {
+		assertEquals(length + 1, path.length);
+		assertEquals(CellIndex.pack(fromX, fromY), path[0]);
+		assertEquals(CellIndex.pack(toX, toY), path[length]);
+		for (int i = 1; i < path.length; i++) {
+			int x = CellIndex.getX(path[i-1]);
+			int y = CellIndex.getY(path[i-1]);
+			CardinalDirection cd = CardinalDirection.getDirection(CellIndex.getX(path[i]) - x, CellIndex.getY(path[i]) - y);
+			assertFalse(maze.hasWall(x, y, cd));
+		}
+	}
+
+	/**Check that the path to the exit is as long as the distance to the exit tells.
+	 */
+	@Test
+	public final void testPathToExit() {
+		int[] exit = maze.getExitPosition();
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				int length = maze.getDistanceToExit(x, y) - 1;
+				assertEquals(length, maze.getShortestPathLength(x, y, exit[0], exit[1]));
+				assertEquals(length, maze.getShortestPathLength(exit[0], exit[1], x, y));
+				checkPath(maze.getShortestPath(x, y, exit[0], exit[1]), x, y, exit[0], exit[1], length);
+			}
+		}
+	}
+
+	/**Check paths between random positions in both directions and for a snapshot.
+	 */
+	@Test
+	public final void testRandomPairs() {
+		Random random = new Random(7);
+		MazeSnapshot snapshot = MazeSnapshot.freeze(maze);
+		for (int i = 0; i < 500; i++) {
+			int fromX = random.nextInt(maze.getWidth());
+			int fromY = random.nextInt(maze.getHeight());
+			int toX = random.nextInt(maze.getWidth());
+			int toY = random.nextInt(maze.getHeight());
+			int length = maze.getShortestPathLength(fromX, fromY, toX, toY);
+			assertTrue(length >= Math.abs(fromX - toX) + Math.abs(fromY - toY));
+			assertEquals(length, maze.getShortestPathLength(toX, toY, fromX, fromY));
+			assertEquals(length, snapshot.getShortestPathLength(fromX, fromY, toX, toY));
+			checkPath(snapshot.getShortestPath(fromX, fromY, toX, toY), fromX, fromY, toX, toY, length);
+		}
+		assertEquals(0, maze.getShortestPathLength(2, 3, 2, 3));
+		assertArrayEquals(new int[] {CellIndex.pack(2, 3)}, maze.getShortestPath(2, 3, 2, 3));
+	}
+
+	/**Check that many threads can query one path finder at the same time.
+	 */
+	@Test
+	public final void testConcurrentQueries() throws Exception {
+		final PathFinder finder = new PathFinder(maze.getFloorplan(), maze.getWidth(), maze.getHeight());
+		final int[] exit = maze.getExitPosition();
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for (int i = 0; i < 32; i++) {
+				final int seed = i;
+				results.add(pool.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						Random random = new Random(seed);
+						int mismatches = 0;
+						for (int k = 0; k < 50; k++) {
+							int x = random.nextInt(maze.getWidth());
+							int y = random.nextInt(maze.getHeight());
+							if (finder.getPath(x, y, exit[0], exit[1]).length != maze.getDistanceToExit(x, y))
+								mismatches++;
+						}
+						return mismatches;
+					}
+				}));
+			}
+			for (Future<Integer> result : results) {
+				assertEquals(0, result.get().intValue());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**Check that there is no path between cells that are separated by wallboards.
+	 */
+	@Test
+	public final void testNoPath() {
+		Floorplan floorplan = new Floorplan(4, 4);
+		floorplan.initialize();
+		PathFinder finder = new PathFinder(floorplan, 4, 4);
+		assertEquals(-1, finder.getPathLength(0, 0, 3, 3));
+		assertNull(finder.getPath(0, 0, 3, 3));
+		assertTrue(finder.isFor(floorplan));
+		floorplan.deleteWallboard(new Wallboard(0, 0, CardinalDirection.East));
+		assertFalse(finder.isFor(floorplan));
+		finder = new PathFinder(floorplan, 4, 4);
+		assertEquals(1, finder.getPathLength(0, 0, 1, 0));
+		assertEquals(-1, finder.getPathLength(0, 0, 2, 0));
+	}
+}
@@ -0,0 +1,122 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**  Path Index Test: Test that the hierarchical path index finds paths
+ * 	as short as the ones of a path finder for any cluster size, that paths
+ * 	do not cross wallboards and that the index follows changes of wallboards.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class PathIndexTest {
+
+	/**
+	 * Checks that the path connects both positions with steps between
+	 * adjacent positions that are not separated by a wallboard
+	 * @param floorplan the floorplan with the wallboards
+	 * @param path the path to check
+	 * @param length expected number of steps
+	 */
+	private void checkPath(Floorplan floorplan, int[] path, int fromX, int fromY, int toX, int toY, int length) {
+		assertEquals(length + 1, path.length);
+		assertEquals(CellIndex.pack(fromX, fromY), path[0]);
+		assertEquals(CellIndex.pack(toX, toY), path[length]);
+		for (int i = 1; i < path.length; i++) {
+			int x = CellIndex.getX(path[i-1]);
+			int y = CellIndex.getY(path[i-1]);
+			CardinalDirection cd = CardinalDirection.getDirection(CellIndex.getX(path[i]) - x, CellIndex.getY(path[i]) - y);
+			assertFalse(floorplan.hasWall(x, y, cd));
+		}
+	}
+
+	/**
+	 * Compares the index with a path finder for random pairs of positions
+	 * @param maze the maze
+	 * @param clusterSize size of the clusters
+	 * @param seed for the positions
+	 */
+	private void compare(Maze maze, int clusterSize, long seed) {
+		Floorplan floorplan = maze.getFloorplan();
+		PathFinder finder = new PathFinder(floorplan, maze.getWidth(), maze.getHeight());
+		PathIndex index = new PathIndex(floorplan, maze.getWidth(), maze.getHeight(), clusterSize);
+		Random random = new Random(seed);
+		for (int i = 0; i < 300; i++) {
+			int fromX = random.nextInt(maze.getWidth());
+			int fromY = random.nextInt(maze.getHeight());
+			int toX = random.nextInt(maze.getWidth());
+			int toY = random.nextInt(maze.getHeight());
+			int length = finder.getPathLength(fromX, fromY, toX, toY);
+			assertEquals(length, index.getPathLength(fromX, fromY, toX, toY));
+			checkPath(floorplan, index.getPath(fromX, fromY, toX, toY), fromX, fromY, toX, toY, length);
+		}
+		// neighbors across the border of a cluster
+		int x = clusterSize - 1;
+		for (int y = 0; y < maze.getHeight(); y++) {
+			assertEquals(finder.getPathLength(x, y, x+1, y), index.getPathLength(x, y, x+1, y));
+			checkPath(floorplan, index.getPath(x, y, x+1, y), x, y, x+1, y, finder.getPathLength(x, y, x+1, y));
+		}
+	}
+
+	/**Check that the index agrees with a path finder for a maze with rooms and a perfect maze.
+	 */
+	@Test
+	public final void testSameAsPathFinder() {
+		Maze maze = MazeTestUtil.generate(5, Order.Builder.Prim, false, 11);
+		compare(maze, PathIndex.DEFAULT_CLUSTER_SIZE, 3);
+		compare(maze, 5, 4);
+		compare(maze, 2, 5);
+		Maze perfect = MazeTestUtil.generate(5, Order.Builder.Prim, true, 11);
+		compare(perfect, 4, 6);
+		compare(perfect, 7, 7);
+	}
+
+	/**Check that the path to the exit is as long as the distance to the exit tells.
+	 */
+	@Test
+	public final void testPathToExit() {
+		Maze maze = MazeTestUtil.generate(5, Order.Builder.Prim, true, 11);
+		PathIndex index = new PathIndex(maze.getFloorplan(), maze.getWidth(), maze.getHeight(), 6);
+		int[] exit = maze.getExitPosition();
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				assertEquals(maze.getDistanceToExit(x, y) - 1, index.getPathLength(x, y, exit[0], exit[1]));
+			}
+		}
+		assertArrayEquals(new int[] {CellIndex.pack(2, 3)}, index.getPath(2, 3, 2, 3));
+	}
+
+	/**Check that the index follows wallboards that are deleted and added later on.
+	 */
+	@Test
+	public final void testUpdate() {
+		Floorplan floorplan = new Floorplan(8, 8);
+		floorplan.initialize();
+		PathIndex index = new PathIndex(floorplan, 8, 8, 4);
+		assertEquals(0, index.getEntranceCount());
+		assertEquals(-1, index.getPathLength(0, 0, 7, 0));
+		assertNull(index.getPath(0, 0, 7, 0));
+		// a corridor along the top row that crosses the border between two clusters
+		for (int x = 0; x < 7; x++) {
+			Wallboard wallboard = new Wallboard(x, 0, CardinalDirection.East);
+			floorplan.deleteWallboard(wallboard);
+			assertFalse(index.isFor(floorplan));
+			index.update(wallboard);
+			assertTrue(index.isFor(floorplan));
+		}
+		assertEquals(2, index.getEntranceCount());
+		assertEquals(7, index.getPathLength(0, 0, 7, 0));
+		checkPath(floorplan, index.getPath(7, 0, 0, 0), 7, 0, 0, 0, 7);
+		Wallboard wallboard = new Wallboard(3, 0, CardinalDirection.East);
+		floorplan.addWallboard(wallboard, true);
+		index.update(wallboard);
+		assertEquals(0, index.getEntranceCount());
+		assertEquals(3, index.getPathLength(0, 0, 3, 0));
+		assertEquals(-1, index.getPathLength(0, 0, 7, 0));
+	}
+}
@@ -0,0 +1,91 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**  Progress Tracker Test: Test that progress updates are weighted by phase,
+ * 	throttled, only increase and reach 100 exactly upon delivery.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class ProgressTrackerTest {
+
+	/**
+	 * Order that keeps all progress updates it receives
+	 */
+	private static class RecordingOrder extends DefaultOrder {
+		final List<Integer> updates = new ArrayList<Integer>();
+
+		RecordingOrder(int skillLevel, Builder builder) {
+			super(skillLevel, builder, false, 13);
+		}
+
+		@Override
+		public void updateProgress(int percentage) {
+			super.updateProgress(percentage);
+			updates.add(percentage);
+		}
+	}
+
+	/**
+	 * Waits long enough for the throttle to accept the next update
+	 */
+	private void waitForThrottle() throws InterruptedException {
+		Thread.sleep(ProgressTracker.THROTTLE_INTERVAL / 1000000 + 5);
+	}
+
+	/**Check that phases are weighted and that 100 is only reported by finish.
+	 */
+	@Test
+	public final void testWeightsAndFinish() throws InterruptedException {
+		RecordingOrder order = new RecordingOrder(0, Order.Builder.DFS);
+		ProgressTracker tracker = new ProgressTracker(order);
+		waitForThrottle();
+		tracker.startPhase(GenerationMetrics.Phase.BSP);
+		int base = 100 - ProgressTracker.WEIGHTS[GenerationMetrics.Phase.BSP.ordinal()]
+				- ProgressTracker.WEIGHTS[GenerationMetrics.Phase.DELIVERY.ordinal()];
+		assertEquals(base, tracker.getReported());
+		waitForThrottle();
+		tracker.update(2);
+		assertEquals(99, tracker.getReported());
+		tracker.finish();
+		assertEquals(List.of(base, 99, 100), order.updates);
+	}
+
+	/**Check that updates in quick succession and decreasing values are not passed on.
+	 */
+	@Test
+	public final void testThrottle() throws InterruptedException {
+		RecordingOrder order = new RecordingOrder(0, Order.Builder.DFS);
+		ProgressTracker tracker = new ProgressTracker(order);
+		waitForThrottle();
+		tracker.startPhase(GenerationMetrics.Phase.BSP);
+		tracker.update(0.5);
+		assertEquals(1, order.updates.size());
+		waitForThrottle();
+		tracker.startPhase(GenerationMetrics.Phase.DISTANCES);
+		assertEquals(1, order.updates.size());
+	}
+
+	/**Check that a generation reports increasing values below 100 and 100 once at the end.
+	 */
+	@Test
+	public final void testGeneration() {
+		RecordingOrder order = new RecordingOrder(9, Order.Builder.Prim);
+		MazeFactory mazeFactory = new MazeFactory();
+		mazeFactory.order(order);
+		mazeFactory.waitTillDelivered();
+		List<Integer> updates = order.updates;
+		assertEquals(100, (int) updates.get(updates.size()-1));
+		for (int i = 1; i < updates.size(); i++) {
+			assertTrue(updates.get(i-1) < updates.get(i), "progress must increase");
+		}
+		assertEquals(100, order.getProgress());
+	}
+}
@@ -0,0 +1,99 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import gui.Constants;
+
+/**  Room Occupancy Test: Test that the occupancy index agrees with the
+ * 	floorplan on where rooms fit and that room generation places
+ * 	rooms wherever there is space.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class RoomOccupancyTest {
+
+	/**
+	 * Creates a floorplan with two rooms
+	 * @param width of the floorplan
+	 * @param height of the floorplan
+	 * @return the floorplan
+	 */
+	private Floorplan createFloorplan(int width, int height) {
+		SingleRandom.setSeed(13);
+		Floorplan floorplan = new Floorplan(width, height);
+		floorplan.initialize();
+		floorplan.markAreaAsRoom(3, 2, 1, 1, 3, 2);
+		floorplan.markAreaAsRoom(4, 3, 6, 5, 9, 7);
+		return floorplan;
+	}
+
+	/**Check that overlaps gives the same answer as the floorplan for all areas.
+	 */
+	@Test
+	public final void testOverlapsMatchesFloorplan() {
+		Floorplan floorplan = createFloorplan(12, 10);
+		RoomOccupancy occupancy = new RoomOccupancy(floorplan, 12, 10);
+		for (int rx = 0; rx < 12; rx++) {
+			for (int ry = 0; ry < 10; ry++) {
+				for (int rxl = rx; rxl < 12; rxl++) {
+					for (int ryl = ry; ryl < 10; ryl++) {
+						assertEquals(floorplan.areaOverlapsWithRoom(rx, ry, rxl, ryl), occupancy.overlaps(rx, ry, rxl, ryl),
+								"area " + rx + "," + ry + "," + rxl + "," + ryl);
+					}
+				}
+			}
+		}
+	}
+
+	/**Check that markRoom keeps the index in line with the floorplan.
+	 */
+	@Test
+	public final void testMarkRoom() {
+		Floorplan floorplan = createFloorplan(12, 10);
+		RoomOccupancy occupancy = new RoomOccupancy(floorplan, 12, 10);
+		assertFalse(occupancy.overlaps(7, 1, 9, 2));
+		floorplan.markAreaAsRoom(3, 2, 7, 1, 9, 2);
+		occupancy.markRoom(7, 1, 9, 2);
+		assertTrue(occupancy.overlaps(7, 1, 9, 2));
+		assertTrue(occupancy.overlaps(9, 3, 10, 3));
+		assertFalse(occupancy.overlaps(1, 6, 3, 8));
+	}
+
+	/**Check that picked positions are free, that the only position is found
+	 * and that there is none if the room does not fit.
+	 */
+	@Test
+	public final void testPickFreePosition() {
+		Floorplan floorplan = createFloorplan(12, 10);
+		RoomOccupancy occupancy = new RoomOccupancy(floorplan, 12, 10);
+		SingleRandom random = SingleRandom.getRandom();
+		for (int i = 0; i < 20; i++) {
+			int position = occupancy.pickFreePosition(3, 3, random);
+			int rx = CellIndex.getX(position);
+			int ry = CellIndex.getY(position);
+			assertFalse(floorplan.areaOverlapsWithRoom(rx, ry, rx+2, ry+2));
+		}
+		assertEquals(CellIndex.NONE, occupancy.pickFreePosition(5, 5, random));
+		assertEquals(CellIndex.NONE, occupancy.pickFreePosition(11, 1, random));
+		// a 3x3 room fits a 5x5 floorplan at a single position
+		Floorplan small = new Floorplan(5, 5);
+		small.initialize();
+		assertEquals(CellIndex.pack(1, 1), new RoomOccupancy(small, 5, 5).pickFreePosition(3, 3, random));
+	}
+
+	/**Check that all requested rooms are placed on crowded levels.
+	 */
+	@Test
+	public final void testGenerateRooms() {
+		for (int seed = 13; seed < 18; seed++) {
+			MazeBuilder mazeBuilder = new MazeBuilder();
+			mazeBuilder.buildOrder(new DefaultOrder(9, Order.Builder.DFS, false, seed));
+			mazeBuilder.floorplan.initialize();
+			assertEquals(Constants.SKILL_ROOMS[9], mazeBuilder.generateRooms());
+		}
+	}
+}
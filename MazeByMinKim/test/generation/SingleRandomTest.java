@@ -0,0 +1,92 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**  Single Random Test: Test that a seed applies to the thread that sets it
+ * 	only, such that a stream stays reproducible while other threads set
+ * 	their own seeds.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class SingleRandomTest {
+
+	/**
+	 * Draws a few numbers from the generator of the current thread
+	 * @param seed for the generator
+	 * @return the sum of the numbers
+	 */
+	private int draw(int seed) {
+		SingleRandom.setSeed(seed);
+		SingleRandom random = SingleRandom.getRandom();
+		int sum = 0;
+		for (int i = 0; i < 100; i++)
+			sum += random.nextInt();
+		return sum;
+	}
+
+	/**Check that a seed set on another thread does not change
+	 * the stream of the current thread.
+	 */
+	@Test
+	public final void testSeedPerThread() throws InterruptedException {
+		int expected = draw(13);
+		SingleRandom.setSeed(13);
+		SingleRandom random = SingleRandom.getRandom();
+		Thread other = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				SingleRandom.setSeed(42);
+				SingleRandom.getRandom().nextInt();
+			}
+		});
+		other.start();
+		other.join();
+		assertSame(random, SingleRandom.getRandom());
+		int sum = 0;
+		for (int i = 0; i < 100; i++)
+			sum += random.nextInt();
+		assertEquals(expected, sum);
+	}
+
+	/**Check that a thread without a seed does not get the seed
+	 * of another thread.
+	 */
+	@Test
+	public final void testNoSharedSeed() throws InterruptedException {
+		final int seeded = draw(7);
+		final AtomicInteger sum = new AtomicInteger();
+		Thread other = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				SingleRandom random = SingleRandom.getRandom();
+				for (int i = 0; i < 100; i++)
+					sum.addAndGet(random.nextInt());
+			}
+		});
+		other.start();
+		other.join();
+		assertNotEquals(seeded, sum.get());
+	}
+
+	/**Check that setting a seed again starts a new instance
+	 * and leaves the instance that was handed on unchanged.
+	 */
+	@Test
+	public final void testNewInstance() {
+		SingleRandom.setSeed(3);
+		SingleRandom first = SingleRandom.getRandom();
+		int one = first.nextInt();
+		SingleRandom.setSeed(3);
+		SingleRandom second = SingleRandom.getRandom();
+		assertNotSame(first, second);
+		assertEquals(one, second.nextInt());
+		// the first instance continues its stream
+		assertEquals(second.nextInt(), first.nextInt());
+	}
+}
@@ -0,0 +1,132 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**  Succinct Distances Test: Test that the encoding with a direction per
+ * 	position and sparse checkpoints gives back every distance value of a maze,
+ * 	also values that do not follow from a neighbor, that it is much smaller
+ * 	than an int per position and that a compacted Distance keeps its values.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class SuccinctDistancesTest {
+
+	/**Check that each value is decoded on its own and all at once as it was encoded
+	 * and that the encoding takes far less than an int per position.
+	 */
+	@Test
+	public final void testEncodeMaze() {
+		for (boolean perfect : new boolean[] {true, false}) {
+			Maze maze = MazeTestUtil.generate(4, Order.Builder.Prim, perfect, 29);
+			int[][] dists = maze.getMazedists().getAllDistanceValues();
+			SuccinctDistances succinct = SuccinctDistances.encode(dists, maze.getFloorplan());
+			for (int x = 0; x < maze.getWidth(); x++) {
+				for (int y = 0; y < maze.getHeight(); y++) {
+					assertEquals(dists[x][y], succinct.getDistanceValue(x, y));
+				}
+			}
+			int[][] decoded = succinct.toArray();
+			for (int x = 0; x < maze.getWidth(); x++) {
+				assertArrayEquals(dists[x], decoded[x]);
+			}
+			int count = maze.getWidth()*maze.getHeight();
+			assertTrue(succinct.getByteCount() * 4 < count * Integer.BYTES);
+			assertTrue(succinct.getDirections().isReadOnly());
+			// the exit does not follow from a neighbor and is always a checkpoint
+			int[] exit = maze.getExitPosition();
+			int exitIndex = exit[0]*maze.getHeight()+exit[1];
+			assertEquals(exitIndex, succinct.nextCheckpoint(exitIndex));
+			int checkpoints = 0;
+			for (int i = succinct.nextCheckpoint(0); i >= 0; i = succinct.nextCheckpoint(i+1)) {
+				checkpoints++;
+			}
+			assertEquals(succinct.getCheckpointCount(), checkpoints);
+		}
+	}
+
+	/**Check that values that do not follow from a neighbor, such as unreachable
+	 * positions or values that are off by more than one, are kept without loss
+	 * and that an encoding from elsewhere is rejected if a lookup would not end.
+	 */
+	@Test
+	public final void testArbitraryValues() {
+		Floorplan cells = new Floorplan(3, 2);
+		cells.initialize();
+		// no wallboards inside, values with a gap and an unreachable position
+		cells.deleteWallboard(new Wallboard(0, 0, CardinalDirection.East));
+		cells.deleteWallboard(new Wallboard(1, 0, CardinalDirection.East));
+		cells.deleteWallboard(new Wallboard(0, 1, CardinalDirection.East));
+		cells.deleteWallboard(new Wallboard(0, 0, CardinalDirection.South));
+		int[][] dists = {{1, 2}, {2, 7}, {3, Distance.INFINITY}};
+		SuccinctDistances succinct = SuccinctDistances.encode(dists, cells);
+		for (int x = 0; x < 3; x++) {
+			for (int y = 0; y < 2; y++) {
+				assertEquals(dists[x][y], succinct.getDistanceValue(x, y));
+			}
+			assertArrayEquals(dists[x], succinct.toArray()[x]);
+		}
+		// (0,0), (1,1) and (2,1) have no neighbor with a value that is one less
+		assertEquals(3, succinct.getCheckpointCount());
+		try {
+			new SuccinctDistances(3, 2, new byte[1], new int[] {0}, new int[] {1});
+			fail("directions of the wrong size must be rejected");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			new SuccinctDistances(3, 2, new byte[2], new int[] {3, 1}, new int[] {1, 2});
+			fail("checkpoints out of order must be rejected");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			// all directions are North, (1,0) leads outside the maze
+			new SuccinctDistances(3, 2, new byte[2], new int[] {0}, new int[] {1});
+			fail("directions that leave the maze must be rejected");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			// (0,0) leads East and (1,0) leads West, there is no checkpoint
+			new SuccinctDistances(2, 1, new byte[] {1 | 3 << 2}, new int[0], new int[0]);
+			fail("directions in a cycle must be rejected");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	/**Check that a compacted Distance gives the same values as before,
+	 * also after the array of all values is requested again.
+	 */
+	@Test
+	public final void testCompactDistance() {
+		Maze maze = MazeTestUtil.generate(4, Order.Builder.Prim, false, 29);
+		Distance distance = new Distance(maze.getMazedists().getAllDistanceValues());
+		int[][] dists = distance.getAllDistanceValues();
+		int[][] copy = new int[dists.length][];
+		for (int x = 0; x < dists.length; x++) {
+			copy[x] = dists[x].clone();
+		}
+		SuccinctDistances succinct = distance.compact(maze.getFloorplan());
+		assertSame(succinct, distance.compact(maze.getFloorplan()));
+		Distance loaded = new Distance(maze.getWidth(), maze.getHeight(), succinct);
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				assertEquals(copy[x][y], distance.getDistanceValue(x, y));
+				assertEquals(copy[x][y], loaded.getDistanceValue(x, y));
+			}
+		}
+		for (int x = 0; x < maze.getWidth(); x++) {
+			assertArrayEquals(copy[x], distance.getAllDistanceValues()[x]);
+		}
+		assertArrayEquals(distance.getExitPosition(), loaded.getExitPosition());
+	}
+}
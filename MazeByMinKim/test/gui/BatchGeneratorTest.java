@@ -0,0 +1,136 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import generation.DefaultOrder;
+import generation.MazeFactory;
+import generation.Order;
+
+/**  Batch Generator Test: Test that the command line options are read,
+ * 	that a batch generated in parallel gives the same files as one generated
+ * 	on a single thread and that the files contain the ordered mazes.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class BatchGeneratorTest {
+
+	private Path directory;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		directory = Files.createTempDirectory("batch");
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		delete(directory.toFile());
+	}
+
+	/**
+	 * Deletes a file or a directory with its content
+	 * @param file to delete
+	 */
+	private void delete(File file) throws IOException {
+		File[] files = file.listFiles();
+		if (null != files) {
+			for (File f : files) {
+				delete(f);
+			}
+		}
+		Files.delete(file.toPath());
+	}
+
+	/**
+	 * Runs a batch with the given arguments
+	 * @param args command line options
+	 * @return the output of the batch
+	 */
+	private String run(String... args) throws IOException, InterruptedException {
+		BatchGenerator batch = new BatchGenerator();
+		batch.parse(args);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		batch.run(new PrintStream(out, true));
+		return out.toString();
+	}
+
+	/**
+	 * Checks that the given arguments are rejected
+	 * @param args command line options
+	 */
+	private void checkRejected(String... args) {
+		try {
+			new BatchGenerator().parse(args);
+			fail("options must be rejected");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	/**Check that illegal options are rejected.
+	 */
+	@Test
+	public final void testParse() {
+		checkRejected("-b", "Kruskal");
+		checkRejected("-s", "0-16");
+		checkRejected("-s", "3-1");
+		checkRejected("-seeds", "x");
+		checkRejected("-f", "pdf");
+		checkRejected("-t", "0");
+		checkRejected("-o");
+		checkRejected("-unknown", "1");
+		new BatchGenerator().parse(new String[] {"-b", "dfs,prim", "-s", "1-2", "-seeds", "-3-3", "-perfect", "-f", "xml"});
+	}
+
+	/**Check that the number of threads does not change the files.
+	 */
+	@Test
+	public final void testParallelBatchIsReproducible() throws IOException, InterruptedException {
+		Path sequential = directory.resolve("sequential");
+		Path parallel = directory.resolve("parallel");
+		String output = run("-b", "DFS,Prim", "-s", "0-2", "-seeds", "0-4", "-o", sequential.toString(), "-t", "1");
+		assertTrue(output.startsWith("Generated 30 mazes (0 failed)"), output);
+		assertTrue(output.contains("mazes/s"), output);
+		run("-b", "DFS,Prim", "-s", "0-2", "-seeds", "0-4", "-o", parallel.toString(), "-t", "4");
+		File[] files = sequential.toFile().listFiles();
+		assertEquals(30, files.length);
+		for (File file : files) {
+			assertArrayEquals(Files.readAllBytes(file.toPath()), Files.readAllBytes(parallel.resolve(file.getName())),
+					file.getName());
+		}
+	}
+
+	/**Check that a file holds the maze that the factory generates for the same order.
+	 */
+	@Test
+	public final void testFileContent() throws IOException, InterruptedException {
+		run("-b", "Prim", "-s", "3", "-seeds", "7", "-f", "mappable", "-o", directory.toString());
+		Path file = directory.resolve("Prim-3-7.bin");
+		assertTrue(MazeFileMappedReader.isMappableFile(file.toString()));
+		DefaultOrder order = new DefaultOrder(3, Order.Builder.Prim, false, 7);
+		MazeFactory factory = new MazeFactory();
+		factory.order(order);
+		factory.waitTillDelivered();
+		MazeFileMappedReader reader = new MazeFileMappedReader(file.toString());
+		assertEquals(order.getMaze().getFloorplan(), reader.getCells());
+		assertEquals(order.getMaze().getStartingPosition()[0], reader.getStartX());
+		assertEquals(order.getMaze().getStartingPosition()[1], reader.getStartY());
+		// xml goes through the same path
+		run("-b", "Prim", "-s", "3", "-seeds", "7", "-f", "xml", "-o", directory.toString());
+		assertEquals(order.getMaze().getFloorplan(),
+				new MazeFileReader(directory.resolve("Prim-3-7.xml").toString()).getCells());
+	}
+}
@@ -0,0 +1,210 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import generation.BSPBranch;
+import generation.BSPLeaf;
+import generation.BSPNode;
+import generation.DefaultOrder;
+import generation.Maze;
+import generation.MazeFactory;
+import generation.Wall;
+
+/**  Maze File Binary Test: Test that a maze stored in the binary format
+ * 	is read back with the same content and that files can be converted
+ * 	between the XML and the binary format without loss.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class MazeFileBinaryTest {
+
+	private static final String INPUT_XML = "test/data/input.xml";
+
+	private Maze maze;
+	private Path binaryFile;
+	private Path xmlFile;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		DefaultOrder defaultOrder = new DefaultOrder();
+		MazeFactory mazeFactory = new MazeFactory();
+		mazeFactory.order(defaultOrder);
+		mazeFactory.waitTillDelivered();
+		maze = defaultOrder.getMaze();
+		binaryFile = Files.createTempFile("maze", ".bin");
+		xmlFile = Files.createTempFile("maze", ".xml");
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		Files.deleteIfExists(binaryFile);
+		Files.deleteIfExists(xmlFile);
+	}
+
+	/**Store a generated maze and check that all fields are read back unchanged.
+	 */
+	@Test
+	public final void testRoundTrip() throws IOException {
+		int[] start = maze.getStartingPosition();
+		int[][] dists = maze.getMazedists().getAllDistanceValues();
+		MazeFileBinaryWriter.store(binaryFile.toString(), maze.getWidth(), maze.getHeight(), 0, 0,
+				maze.getRootnode(), maze.getFloorplan(), dists, start[0], start[1]);
+		assertTrue(MazeFileBinaryReader.isBinaryFile(binaryFile.toString()));
+
+		MazeFileBinaryReader reader = new MazeFileBinaryReader(binaryFile.toString());
+		assertEquals(maze.getWidth(), reader.getWidth());
+		assertEquals(maze.getHeight(), reader.getHeight());
+		assertEquals(start[0], reader.getStartX());
+		assertEquals(start[1], reader.getStartY());
+		assertEquals(maze.getFloorplan(), reader.getCells());
+		for (int x = 0; x < maze.getWidth(); x++) {
+			assertArrayEquals(dists[x], reader.getDistances()[x]);
+		}
+		assertSameTree(maze.getRootnode(), reader.getRootNode());
+
+		Maze loaded = reader.getMazeConfiguration();
+		assertArrayEquals(maze.getExitPosition(), loaded.getExitPosition());
+	}
+
+	/**Store a generated maze with succinct distances and check that the file is smaller
+	 * and that the distances are read back unchanged.
+	 */
+	@Test
+	public final void testSuccinctRoundTrip() throws IOException {
+		int[] start = maze.getStartingPosition();
+		int[][] dists = maze.getMazedists().getAllDistanceValues();
+		MazeFileBinaryWriter.store(binaryFile.toString(), maze.getWidth(), maze.getHeight(), 0, 0,
+				maze.getRootnode(), maze.getFloorplan(), dists, start[0], start[1]);
+		long plainSize = Files.size(binaryFile);
+		MazeFileBinaryWriter.store(binaryFile.toString(), maze.getWidth(), maze.getHeight(), 0, 0,
+				maze.getRootnode(), maze.getFloorplan(), dists, start[0], start[1], MazeFileBinaryWriter.FLAG_SUCCINCT);
+		assertTrue(Files.size(binaryFile) < plainSize);
+
+		MazeFileBinaryReader reader = new MazeFileBinaryReader(binaryFile.toString());
+		assertEquals(maze.getFloorplan(), reader.getCells());
+		Maze loaded = reader.getMazeConfiguration();
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				assertEquals(dists[x][y], loaded.getDistanceToExit(x, y));
+			}
+			assertArrayEquals(dists[x], reader.getDistances()[x]);
+		}
+		assertArrayEquals(maze.getExitPosition(), loaded.getExitPosition());
+	}
+
+	/**Convert the XML test file to binary and back and check that nothing is lost,
+	 * also that an XML file is not mistaken for a binary one.
+	 */
+	@Test
+	public final void testConvertXml() throws IOException {
+		assertFalse(MazeFileBinaryReader.isBinaryFile(INPUT_XML));
+		MazeFileReader original = new MazeFileReader(INPUT_XML);
+		MazeFileConverter.xmlToBinary(INPUT_XML, binaryFile.toString());
+		MazeFileConverter.binaryToXml(binaryFile.toString(), xmlFile.toString());
+		MazeFileReader converted = new MazeFileReader(xmlFile.toString());
+
+		assertEquals(original.getWidth(), converted.getWidth());
+		assertEquals(original.getHeight(), converted.getHeight());
+		assertEquals(original.getRooms(), converted.getRooms());
+		assertEquals(original.getExpectedPartiters(), converted.getExpectedPartiters());
+		assertEquals(original.getStartX(), converted.getStartX());
+		assertEquals(original.getStartY(), converted.getStartY());
+		assertEquals(original.getCells(), converted.getCells());
+		for (int x = 0; x < original.getWidth(); x++) {
+			assertArrayEquals(original.getDistances()[x], converted.getDistances()[x]);
+		}
+		assertSameTree(original.getRootNode(), converted.getRootNode());
+	}
+
+	/**Check that a file with a higher version is rejected.
+	 */
+	@Test
+	public final void testUnknownVersion() throws IOException {
+		MazeFileConverter.xmlToBinary(INPUT_XML, binaryFile.toString());
+		byte[] content = Files.readAllBytes(binaryFile);
+		// version is the int after the magic number, big endian
+		content[7] = (byte) (MazeFileBinaryWriter.VERSION + 1);
+		Files.write(binaryFile, content);
+		assertRejected(binaryFile.toString());
+	}
+
+	/**Check that a file with a flag that the version does not define is rejected.
+	 */
+	@Test
+	public final void testUnknownFlags() throws IOException {
+		MazeFileConverter.xmlToBinary(INPUT_XML, binaryFile.toString());
+		byte[] content = Files.readAllBytes(binaryFile);
+		// flags are the int after the version, big endian
+		content[11] = (byte) (Integer.highestOneBit(MazeFileBinaryWriter.FLAGS) << 1);
+		Files.write(binaryFile, content);
+		assertRejected(binaryFile.toString());
+	}
+
+	/**Check that a truncated file is rejected with an IOException.
+	 */
+	@Test
+	public final void testTruncatedFile() throws IOException {
+		MazeFileConverter.xmlToBinary(INPUT_XML, binaryFile.toString());
+		byte[] content = Files.readAllBytes(binaryFile);
+		Files.write(binaryFile, Arrays.copyOf(content, content.length / 2));
+		assertRejected(binaryFile.toString());
+	}
+
+	/**
+	 * Checks that reading the given file fails with an IOException
+	 * @param filename the file to read
+	 */
+	private void assertRejected(String filename) {
+		try {
+			new MazeFileBinaryReader(filename);
+			fail("file should have been rejected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Compares two bsp trees node by node
+	 * @param expected the original tree
+	 * @param actual the tree read from file
+	 */
+	private void assertSameTree(BSPNode expected, BSPNode actual) {
+		assertEquals(expected.isIsleaf(), actual.isIsleaf());
+		assertEquals(expected.getLowerBoundX(), actual.getLowerBoundX());
+		assertEquals(expected.getLowerBoundY(), actual.getLowerBoundY());
+		assertEquals(expected.getUpperBoundX(), actual.getUpperBoundX());
+		assertEquals(expected.getUpperBoundY(), actual.getUpperBoundY());
+		if (expected.isIsleaf()) {
+			List<Wall> ew = ((BSPLeaf)expected).getAllWalls();
+			List<Wall> aw = ((BSPLeaf)actual).getAllWalls();
+			assertEquals(ew.size(), aw.size());
+			for (int i = 0; i < ew.size(); i++) {
+				assertEquals(ew.get(i), aw.get(i));
+				assertEquals(ew.get(i).isSeen(), aw.get(i).isSeen());
+				assertEquals(ew.get(i).isPartition(), aw.get(i).isPartition());
+			}
+		}
+		else {
+			BSPBranch eb = (BSPBranch) expected;
+			BSPBranch ab = (BSPBranch) actual;
+			assertEquals(eb.getX(), ab.getX());
+			assertEquals(eb.getY(), ab.getY());
+			assertEquals(eb.getDx(), ab.getDx());
+			assertEquals(eb.getDy(), ab.getDy());
+			assertSameTree(eb.getLeftBranch(), ab.getLeftBranch());
+			assertSameTree(eb.getRightBranch(), ab.getRightBranch());
+		}
+	}
+}
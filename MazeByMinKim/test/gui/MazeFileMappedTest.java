@@ -0,0 +1,223 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import generation.BSPBranch;
+import generation.BSPLeaf;
+import generation.BSPNode;
+import generation.DefaultOrder;
+import generation.Distance;
+import generation.Floorplan;
+import generation.Maze;
+import generation.MazeFactory;
+
+/**  Maze File Mapped Test: Test that a maze accessed through a memory mapped
+ * 	binary file matches the maze that was stored and that the mapped file
+ * 	is never modified.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class MazeFileMappedTest {
+
+	private Maze maze;
+	private Path file;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		DefaultOrder defaultOrder = new DefaultOrder();
+		MazeFactory mazeFactory = new MazeFactory();
+		mazeFactory.order(defaultOrder);
+		mazeFactory.waitTillDelivered();
+		maze = defaultOrder.getMaze();
+		file = Files.createTempFile("maze", ".bin");
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Stores the maze in a binary file with the given flags
+	 * @param flags for the binary writer
+	 */
+	private void store(int flags) throws IOException {
+		int[] start = maze.getStartingPosition();
+		MazeFileBinaryWriter.store(file.toString(), maze.getWidth(), maze.getHeight(), 0, 0,
+				maze.getRootnode(), maze.getFloorplan(), maze.getMazedists().getAllDistanceValues(),
+				start[0], start[1], flags);
+	}
+
+	/**Check that cells, distances, positions and the tree match the stored maze.
+	 */
+	@Test
+	public final void testMappedMaze() throws IOException {
+		store(MazeFileBinaryWriter.FLAG_MAPPABLE);
+		assertTrue(MazeFileMappedReader.isMappableFile(file.toString()));
+		Maze mapped = new MazeFileMappedReader(file.toString()).getMazeConfiguration();
+
+		assertEquals(maze.getWidth(), mapped.getWidth());
+		assertEquals(maze.getHeight(), mapped.getHeight());
+		assertArrayEquals(maze.getStartingPosition(), mapped.getStartingPosition());
+		assertArrayEquals(maze.getExitPosition(), mapped.getExitPosition());
+		assertEquals(maze.getFloorplan(), mapped.getFloorplan());
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				assertEquals(maze.getDistanceToExit(x, y), mapped.getDistanceToExit(x, y));
+				assertEquals(maze.getDirectionToExit(x, y), mapped.getDirectionToExit(x, y));
+			}
+		}
+		assertSameTree(maze.getRootnode(), mapped.getRootnode());
+	}
+
+	/**Check that the eager reader gives the same result for a file written for mapping.
+	 */
+	@Test
+	public final void testBinaryReaderReadsMappableFile() throws IOException {
+		store(MazeFileBinaryWriter.FLAG_MAPPABLE);
+		MazeFileBinaryReader reader = new MazeFileBinaryReader(file.toString());
+		assertEquals(maze.getFloorplan(), reader.getCells());
+		int[][] dists = maze.getMazedists().getAllDistanceValues();
+		for (int x = 0; x < maze.getWidth(); x++) {
+			assertArrayEquals(dists[x], reader.getDistances()[x]);
+		}
+		assertSameTree(maze.getRootnode(), reader.getRootNode());
+	}
+
+	/**Check that a compact binary file is not taken for a mappable one.
+	 */
+	@Test
+	public final void testCompactFileIsNotMappable() throws IOException {
+		store(0);
+		assertTrue(MazeFileBinaryReader.isBinaryFile(file.toString()));
+		assertFalse(MazeFileMappedReader.isMappableFile(file.toString()));
+		try {
+			new MazeFileMappedReader(file.toString());
+			fail("file should have been rejected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	/**Check that a truncated file is rejected with an IOException.
+	 */
+	@Test
+	public final void testTruncatedFile() throws IOException {
+		store(MazeFileBinaryWriter.FLAG_MAPPABLE);
+		byte[] content = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(content, content.length / 2));
+		try {
+			new MazeFileMappedReader(file.toString());
+			fail("file should have been rejected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	/**Check that changes to a mapped floorplan do not reach the file.
+	 */
+	@Test
+	public final void testFloorplanCopiesOnWrite() throws IOException {
+		store(MazeFileBinaryWriter.FLAG_MAPPABLE);
+		byte[] before = Files.readAllBytes(file);
+		Floorplan floorplan = new MazeFileMappedReader(file.toString()).getCells();
+		floorplan.initialize();
+		assertNotEquals(maze.getFloorplan(), floorplan);
+		assertArrayEquals(before, Files.readAllBytes(file));
+		assertEquals(maze.getFloorplan(), new MazeFileMappedReader(file.toString()).getCells());
+	}
+
+	/**Check that threads that read while the mapped values are copied
+	 * see the stored values and share a single copy of the distances.
+	 */
+	@Test
+	public final void testConcurrentCopies() throws Exception {
+		store(MazeFileBinaryWriter.FLAG_MAPPABLE);
+		MazeFileMappedReader reader = new MazeFileMappedReader(file.toString());
+		final Floorplan floorplan = reader.getCells();
+		final Distance dists = reader.getMazeConfiguration().getMazedists();
+		final Floorplan expected = maze.getFloorplan();
+		final int width = maze.getWidth();
+		final int height = maze.getHeight();
+		final int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<int[][]>> results = new ArrayList<Future<int[][]>>();
+			for (int t = 0; t < threads; t++) {
+				final boolean writer = (0 == t);
+				results.add(executor.submit(new Callable<int[][]>() {
+					@Override
+					public int[][] call() throws InterruptedException {
+						start.await();
+						if (writer) {
+							// the first change copies the floorplan, the corner keeps its other values
+							floorplan.setCellAsVisited(0, 0);
+						}
+						for (int x = 0; x < width; x++) {
+							for (int y = (0 == x) ? 1 : 0; y < height; y++) {
+								assertEquals(expected.getValueOfCell(x, y), floorplan.getValueOfCell(x, y));
+							}
+						}
+						return dists.getAllDistanceValues();
+					}
+				}));
+			}
+			start.countDown();
+			int[][] first = results.get(0).get();
+			for (Future<int[][]> result : results) {
+				assertSame(first, result.get());
+			}
+			for (int x = 0; x < width; x++) {
+				assertArrayEquals(maze.getMazedists().getAllDistanceValues()[x], first[x]);
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Compares two bsp trees node by node, this decodes the whole mapped tree
+	 * @param expected the original tree
+	 * @param actual the tree read from file
+	 */
+	private void assertSameTree(BSPNode expected, BSPNode actual) {
+		assertEquals(expected.isIsleaf(), actual.isIsleaf());
+		assertEquals(expected.getLowerBoundX(), actual.getLowerBoundX());
+		assertEquals(expected.getLowerBoundY(), actual.getLowerBoundY());
+		assertEquals(expected.getUpperBoundX(), actual.getUpperBoundX());
+		assertEquals(expected.getUpperBoundY(), actual.getUpperBoundY());
+		if (expected.isIsleaf()) {
+			assertEquals(((BSPLeaf)expected).getAllWalls(), ((BSPLeaf)actual).getAllWalls());
+		}
+		else {
+			BSPBranch eb = (BSPBranch) expected;
+			BSPBranch ab = (BSPBranch) actual;
+			assertEquals(eb.getX(), ab.getX());
+			assertEquals(eb.getY(), ab.getY());
+			assertEquals(eb.getDx(), ab.getDx());
+			assertEquals(eb.getDy(), ab.getDy());
+			assertSameTree(eb.getLeftBranch(), ab.getLeftBranch());
+			assertSameTree(eb.getRightBranch(), ab.getRightBranch());
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import generation.BSPNode;
+import generation.DefaultOrder;
+import generation.Maze;
+import generation.MazeFactory;
+
+/**  Maze File Test: Test that the streaming XML reader and writer
+ * 	use exactly the same format as the document based implementation.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class MazeFileTest {
+
+	private static final String INPUT_XML = "test/data/input.xml";
+
+	private Maze maze;
+	private Path streamFile;
+	private Path documentFile;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		DefaultOrder defaultOrder = new DefaultOrder();
+		MazeFactory mazeFactory = new MazeFactory();
+		mazeFactory.order(defaultOrder);
+		mazeFactory.waitTillDelivered();
+		maze = defaultOrder.getMaze();
+		streamFile = Files.createTempFile("maze", ".xml");
+		documentFile = Files.createTempFile("maze", ".xml");
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		Files.deleteIfExists(streamFile);
+		Files.deleteIfExists(documentFile);
+	}
+
+	/**Check that the streaming writer produces the same file as the document based one.
+	 */
+	@Test
+	public final void testStreamMatchesDocument() throws IOException {
+		int[] start = maze.getStartingPosition();
+		int[][] dists = maze.getMazedists().getAllDistanceValues();
+		MazeFileWriter.store(streamFile.toString(), maze.getWidth(), maze.getHeight(), 0, 0,
+				maze.getRootnode(), maze.getFloorplan(), dists, start[0], start[1]);
+		MazeFileWriter.storeDocument(documentFile.toString(), maze.getWidth(), maze.getHeight(), 0, 0,
+				maze.getRootnode(), maze.getFloorplan(), dists, start[0], start[1]);
+		assertArrayEquals(Files.readAllBytes(documentFile), Files.readAllBytes(streamFile));
+	}
+
+	/**Store a generated maze and check that all fields are read back unchanged.
+	 */
+	@Test
+	public final void testRoundTrip() {
+		int[] start = maze.getStartingPosition();
+		int[][] dists = maze.getMazedists().getAllDistanceValues();
+		MazeFileWriter.store(streamFile.toString(), maze.getWidth(), maze.getHeight(), 3, 7,
+				maze.getRootnode(), maze.getFloorplan(), dists, start[0], start[1]);
+
+		MazeFileReader reader = new MazeFileReader(streamFile.toString());
+		assertEquals(maze.getWidth(), reader.getWidth());
+		assertEquals(maze.getHeight(), reader.getHeight());
+		assertEquals(3, reader.getRooms());
+		assertEquals(7, reader.getExpectedPartiters());
+		assertEquals(start[0], reader.getStartX());
+		assertEquals(start[1], reader.getStartY());
+		assertEquals(maze.getFloorplan(), reader.getCells());
+		for (int x = 0; x < maze.getWidth(); x++) {
+			assertArrayEquals(dists[x], reader.getDistances()[x]);
+		}
+		assertSameBounds(maze.getRootnode(), reader.getRootNode());
+	}
+
+	/**Read the XML test file and write it again, the result must be identical to the input.
+	 */
+	@Test
+	public final void testRewriteInput() throws IOException {
+		MazeFileReader reader = new MazeFileReader(INPUT_XML);
+		assertEquals(20, reader.getWidth());
+		assertEquals(15, reader.getHeight());
+		assertNotNull(reader.getRootNode());
+		MazeFileWriter.store(streamFile.toString(), reader.getWidth(), reader.getHeight(),
+				reader.getRooms(), reader.getExpectedPartiters(), reader.getRootNode(),
+				reader.getCells(), reader.getDistances(), reader.getStartX(), reader.getStartY());
+		assertArrayEquals(Files.readAllBytes(Paths.get(INPUT_XML)), Files.readAllBytes(streamFile));
+	}
+
+	/**
+	 * Compares the bounds of two bsp trees, details of nodes
+	 * are covered by testRewriteInput
+	 * @param expected the original tree
+	 * @param actual the tree read from file
+	 */
+	private void assertSameBounds(BSPNode expected, BSPNode actual) {
+		assertEquals(expected.isIsleaf(), actual.isIsleaf());
+		assertEquals(expected.getLowerBoundX(), actual.getLowerBoundX());
+		assertEquals(expected.getLowerBoundY(), actual.getLowerBoundY());
+		assertEquals(expected.getUpperBoundX(), actual.getUpperBoundX());
+		assertEquals(expected.getUpperBoundY(), actual.getUpperBoundY());
+	}
+}
@@ -0,0 +1,173 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import generation.DefaultOrder;
+import generation.Maze;
+import generation.MazeFactory;
+import generation.Order;
+
+/**  Maze Repository Test: Test that generated mazes are stored under their
+ * 	fingerprint, that the index finds them again after the repository is
+ * 	reopened and that the factory delivers them instead of generating them.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class MazeRepositoryTest {
+
+	private Path directory;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		directory = Files.createTempDirectory("mazes");
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		for (File file : directory.toFile().listFiles()) {
+			Files.delete(file.toPath());
+		}
+		Files.delete(directory);
+	}
+
+	/**
+	 * Orders and waits for a maze
+	 * @param repository for the factory, null for none
+	 * @param order the order
+	 * @return the delivered maze
+	 */
+	private Maze order(MazeRepository repository, DefaultOrder order) {
+		MazeFactory mazeFactory = new MazeFactory(repository);
+		mazeFactory.order(order);
+		mazeFactory.waitTillDelivered();
+		return order.getMaze();
+	}
+
+	/**Check that a maze is generated and stored once and delivered from the repository after that.
+	 */
+	@Test
+	public final void testFactoryUsesRepository() throws IOException {
+		Maze generated;
+		try (MazeRepository repository = new MazeRepository(directory.toString())) {
+			assertNull(repository.lookup(new DefaultOrder(2, Order.Builder.Prim, false, 7)));
+			generated = order(repository, new DefaultOrder(2, Order.Builder.Prim, false, 7));
+			assertNotNull(generated);
+			assertNotNull(generated.getGenerationMetrics());
+			assertEquals(1, repository.size());
+			assertTrue(Files.exists(repository.getMazeFile(generated.getFloorplan().getFingerprint())));
+		}
+		// reopen, the index knows the maze and the factory does not generate it
+		try (MazeRepository repository = new MazeRepository(directory.toString())) {
+			assertEquals(1, repository.size());
+			Maze loaded = order(repository, new DefaultOrder(2, Order.Builder.Prim, false, 7));
+			assertNotNull(loaded);
+			assertNull(loaded.getGenerationMetrics()); // not generated
+			assertEquals(generated.getFloorplan(), loaded.getFloorplan());
+			assertArrayEquals(generated.getStartingPosition(), loaded.getStartingPosition());
+			assertArrayEquals(generated.getMazedists().getAllDistanceValues(), loaded.getMazedists().getAllDistanceValues());
+			// a different seed is generated
+			Maze other = order(repository, new DefaultOrder(2, Order.Builder.Prim, false, 8));
+			assertNotNull(other.getGenerationMetrics());
+			assertEquals(2, repository.size());
+		}
+	}
+
+	/**Check that orders with the same maze share a file and that lookups work for many orders.
+	 */
+	@Test
+	public final void testManyOrdersShareFile() throws IOException {
+		Maze maze = order(null, new DefaultOrder(1, Order.Builder.DFS, true, 3));
+		final int n = 1000;
+		try (MazeRepository repository = new MazeRepository(directory.toString())) {
+			for (int seed = 0; seed < n; seed++) {
+				repository.store(new DefaultOrder(1, Order.Builder.DFS, seed % 2 == 0, seed), maze);
+			}
+			// storing again does not add records
+			repository.store(new DefaultOrder(1, Order.Builder.DFS, true, 0), maze);
+			assertEquals(n, repository.size());
+		}
+		// index and one maze file, without rooms as the first order is for a perfect maze
+		assertEquals(2, directory.toFile().listFiles().length);
+		Path file = directory.resolve(String.format("%016x", maze.getFloorplan().getFingerprint()) + MazeRepository.MAZE_EXTENSION);
+		assertEquals(0, new MazeFileBinaryReader(file.toString()).getRooms());
+		assertEquals(MazeRepository.INDEX_HEADER_SIZE + n*MazeRepository.RECORD_SIZE,
+				Files.size(directory.resolve(MazeRepository.INDEX_FILE)));
+		try (MazeRepository repository = new MazeRepository(directory.toString())) {
+			assertEquals(n, repository.size());
+			for (int seed = 0; seed < n; seed++) {
+				Maze loaded = repository.lookup(new DefaultOrder(1, Order.Builder.DFS, seed % 2 == 0, seed));
+				assertNotNull(loaded);
+				assertEquals(maze.getFloorplan(), loaded.getFloorplan());
+				assertNull(repository.lookup(new DefaultOrder(1, Order.Builder.DFS, seed % 2 != 0, seed)));
+			}
+			assertNull(repository.lookup(new DefaultOrder(1, Order.Builder.Prim, true, 0)));
+			assertNull(repository.lookup(new DefaultOrder(2, Order.Builder.DFS, true, 0)));
+		}
+	}
+
+	/**Check that an incomplete record at the end of the index is cut off,
+	 * that an index of an other generator version is emptied
+	 * and that a file with an other version or an unknown format is rejected.
+	 */
+	@Test
+	public final void testIncompleteIndex() throws IOException {
+		Maze maze = order(null, new DefaultOrder(1, Order.Builder.DFS, true, 3));
+		try (MazeRepository repository = new MazeRepository(directory.toString())) {
+			repository.store(new DefaultOrder(1, Order.Builder.DFS, true, 3), maze);
+		}
+		Path index = directory.resolve(MazeRepository.INDEX_FILE);
+		try (FileChannel channel = FileChannel.open(index, StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5}));
+		}
+		try (MazeRepository repository = new MazeRepository(directory.toString())) {
+			assertEquals(MazeRepository.INDEX_HEADER_SIZE + MazeRepository.RECORD_SIZE, Files.size(index));
+			assertNotNull(repository.lookup(new DefaultOrder(1, Order.Builder.DFS, true, 3)));
+			repository.store(new DefaultOrder(1, Order.Builder.DFS, true, 4), maze);
+			assertEquals(2, repository.size());
+		}
+		try (MazeRepository repository = new MazeRepository(directory.toString())) {
+			assertNotNull(repository.lookup(new DefaultOrder(1, Order.Builder.DFS, true, 4)));
+		}
+		// an index of an other generator version starts anew
+		byte[] content = Files.readAllBytes(index);
+		ByteBuffer.wrap(content).putInt(2 * Integer.BYTES, MazeFactory.GENERATOR_VERSION + 1);
+		Files.write(index, content);
+		try (MazeRepository repository = new MazeRepository(directory.toString())) {
+			assertEquals(0, repository.size());
+			assertNull(repository.lookup(new DefaultOrder(1, Order.Builder.DFS, true, 4)));
+			assertEquals(MazeRepository.INDEX_HEADER_SIZE, Files.size(index));
+		}
+		// an index of an other format version is rejected
+		ByteBuffer.wrap(content).putInt(Integer.BYTES, MazeRepository.INDEX_VERSION - 1);
+		Files.write(index, content);
+		try {
+			new MazeRepository(directory.toString()).close();
+			fail("index with an other version must be rejected");
+		}
+		catch (IOException e) {
+			// expected
+		}
+		Files.write(index, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+		try {
+			new MazeRepository(directory.toString()).close();
+			fail("index with unknown format must be rejected");
+		}
+		catch (IOException e) {
+			// expected
+		}
+	}
+}
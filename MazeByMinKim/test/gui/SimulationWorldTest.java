@@ -0,0 +1,137 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import generation.CardinalDirection;
+import generation.DefaultOrder;
+import generation.Maze;
+import generation.MazeFactory;
+import generation.Order;
+import gui.Robot.Turn;
+
+/**  Simulation World Test: Test that many robots can operate in one maze
+ * 	at the same time, each with its own position, battery and odometer,
+ * 	and that the number of threads does not change the outcome.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class SimulationWorldTest {
+
+	private Maze maze;
+	private SimulationWorld world;
+
+	@BeforeEach
+	void setUp() {
+		DefaultOrder order = new DefaultOrder(2, Order.Builder.DFS, true, 5);
+		MazeFactory factory = new MazeFactory();
+		factory.order(order);
+		factory.waitTillDelivered();
+		maze = order.getMaze();
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (null != world)
+			world.close();
+	}
+
+	/**
+	 * Runs wizards from every cell of the maze
+	 * @param threads number of threads for the simulation
+	 * @return the world after all robots are done
+	 */
+	private SimulationWorld runWizards(int threads) throws InterruptedException {
+		SimulationWorld result = new SimulationWorld(maze, threads);
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++) {
+				result.addRobot(new Wizard(), x, y, CardinalDirection.fromOrdinal((x + y) & 3));
+			}
+		}
+		assertEquals(0, result.run(10000));
+		return result;
+	}
+
+	/**Check that a robot keeps its own position and direction.
+	 */
+	@Test
+	public final void testSimulatedRobot() throws Exception {
+		world = new SimulationWorld(maze, 1);
+		SimulatedRobot first = world.addRobot(new Wizard(), 5, 5, CardinalDirection.East);
+		SimulatedRobot second = world.addRobot(new Wizard(), 5, 5, CardinalDirection.East);
+		first.rotate(Turn.LEFT);
+		assertEquals(CardinalDirection.South, first.getCurrentDirection());
+		assertEquals(CardinalDirection.East, second.getCurrentDirection());
+		first.rotate(Turn.RIGHT);
+		first.rotate(Turn.RIGHT);
+		assertEquals(CardinalDirection.North, first.getCurrentDirection());
+		first.jump();
+		assertArrayEquals(new int[] {5, 4}, first.getCurrentPosition());
+		assertArrayEquals(new int[] {5, 5}, second.getCurrentPosition());
+		assertEquals(1, first.getOdometerReading());
+		assertEquals(0, second.getOdometerReading());
+		assertTrue(first.getBatteryLevel() < second.getBatteryLevel());
+	}
+
+	/**Check that all wizards reach the exit on the shortest path.
+	 */
+	@Test
+	public final void testWizards() throws InterruptedException {
+		world = runWizards(4);
+		int i = 0;
+		for (int x = 0; x < maze.getWidth(); x++) {
+			for (int y = 0; y < maze.getHeight(); y++, i++) {
+				assertEquals(SimulationWorld.Status.AT_EXIT, world.getStatus(i));
+				assertEquals(maze.getDistanceToExit(x, y) - 1, world.getDriver(i).getPathLength());
+				assertEquals(maze.getDistanceToExit(x, y) - 1, world.getTicksToExit(i));
+			}
+		}
+	}
+
+	/**Check that the number of threads does not change the outcome.
+	 */
+	@Test
+	public final void testThreadsDoNotMatter() throws InterruptedException {
+		world = runWizards(4);
+		SimulationWorld sequential = runWizards(1);
+		try {
+			assertEquals(sequential.getTicks(), world.getTicks());
+			for (int i = 0; i < world.getRobotCount(); i++) {
+				assertEquals(sequential.getStatus(i), world.getStatus(i));
+				assertEquals(sequential.getDriver(i).getPathLength(), world.getDriver(i).getPathLength());
+				assertEquals(sequential.getDriver(i).getEnergyConsumption(), world.getDriver(i).getEnergyConsumption(), 0.0);
+			}
+		} finally {
+			sequential.close();
+		}
+	}
+
+	/**Check that wall followers either get out of a perfect maze or run out of energy
+	 * and that robots with enough energy get out on the same path.
+	 */
+	@Test
+	public final void testWallFollowers() throws InterruptedException {
+		world = new SimulationWorld(maze, 2);
+		for (int i = 0; i < 8; i++) {
+			SimulatedRobot robot = world.addRobot(new WallFollower());
+			if (i % 2 == 0)
+				robot.setBatteryLevel(100000);
+		}
+		assertEquals(0, world.run(100000));
+		for (int i = 0; i < world.getRobotCount(); i++) {
+			if (i % 2 == 0) {
+				assertEquals(SimulationWorld.Status.AT_EXIT, world.getStatus(i));
+				assertEquals(world.getRobot(0).getOdometerReading(), world.getRobot(i).getOdometerReading());
+			}
+			else {
+				assertEquals(SimulationWorld.Status.STOPPED, world.getStatus(i));
+				assertEquals(0, world.getRobot(i).getBatteryLevel(), 0.0);
+			}
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import gui.ColorTheme.ColorThemeSelection;
+
+/**  Wall Colors Test: Test that the rgb values for walls are the ones
+ * 	that the color themes produced with java.awt.Color.
+ *
+ * @author Min Kim
+ *
+ */
+
+public class WallColorsTest {
+
+	@AfterEach
+	void tearDown() {
+		WallColors.setColorTheme(ColorThemeSelection.DEFAULT);
+	}
+
+	/**
+	 * Computes a wall color as the themes did with java.awt.Color
+	 * @param distance to the exit
+	 * @param cc color change
+	 * @param extensionX of the wall
+	 * @param advanced true for the advanced theme, false for the basic one
+	 * @return the rgb value
+	 */
+	private int getExpectedColor(int distance, int cc, int extensionX, boolean advanced) {
+		final int def = WallColors.RGB_DEF;
+		final int green = advanced ? WallColors.RGB_DEF_GREEN : -1;
+		final int d = distance / 4;
+		final int v = (((d & 7) + 2 + ((extensionX != 0) ? 1 : 0)) * 70) / 8 + 80;
+		switch (((d >> 3) ^ cc) % 6) {
+		case 0: return new Color(v, def, def).getRGB();
+		case 1: return new Color(def, (green < 0) ? v : green, def).getRGB();
+		case 2: return new Color(def, def, v).getRGB();
+		case 3: return new Color(v, (green < 0) ? v : green, def).getRGB();
+		case 4: return new Color(def, (green < 0) ? v : green, v).getRGB();
+		case 5: return new Color(v, def, v).getRGB();
+		default: return new Color(def, def, def).getRGB();
+		}
+	}
+
+	/**Check the default theme, all walls are light gray.
+	 */
+	@Test
+	public final void testDefault() {
+		WallColors.setColorTheme(ColorThemeSelection.DEFAULT);
+		assertEquals(Color.LIGHT_GRAY.getRGB(), WallColors.getWallColor(17, 3, 0));
+		assertEquals(Color.LIGHT_GRAY.getRGB(), WallColors.getWallColor(0, 200, 5));
+	}
+
+	/**Check the basic and the advanced theme for a range of distances and color changes.
+	 */
+	@Test
+	public final void testBasicAndAdvanced() {
+		for (ColorThemeSelection theme : new ColorThemeSelection[] {ColorThemeSelection.BASIC, ColorThemeSelection.ADVANCED}) {
+			WallColors.setColorTheme(theme);
+			for (int distance = -8; distance < 400; distance++) {
+				for (int cc = 0; cc < 256; cc += 7) {
+					for (int extensionX = -1; extensionX <= 1; extensionX++) {
+						assertEquals(getExpectedColor(distance, cc, extensionX, ColorThemeSelection.ADVANCED == theme),
+								WallColors.getWallColor(distance, cc, extensionX));
+					}
+				}
+			}
+		}
+	}
+}